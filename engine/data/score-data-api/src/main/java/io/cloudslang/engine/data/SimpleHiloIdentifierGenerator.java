@@ -29,33 +29,49 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by IntelliJ IDEA.
  * User: froelica
  * Date: 4/25/13
  * Time: 11:03 AM
+ *
+ * Ids are handed out of the current HILO chunk with an atomic counter, so generating an id does not take a lock.
+ * The next chunk is fetched in the background once the current one is mostly used, and only the thread that finds
+ * the current chunk exhausted waits for it.
  */
 public class SimpleHiloIdentifierGenerator implements IdentifierGenerator, IdentityGenerator {
 
-    private final Logger logger = Logger.getLogger(getClass());
+    private static final Logger logger = Logger.getLogger(SimpleHiloIdentifierGenerator.class);
 
     static final String TABLE_NAME = "OO_HILO";
     static final String SQL_SELECT = "SELECT NEXT_HI FROM " + TABLE_NAME;
     static final String SQL_UPDATE = "UPDATE " + TABLE_NAME + " SET NEXT_HI = NEXT_HI+1";
     static final String SQL_LOCK = "UPDATE " + TABLE_NAME + " SET NEXT_HI = NEXT_HI";
     static final long CHUNK_SIZE = 100000L;
+    // the next chunk is prefetched once this many ids of the current chunk were handed out
+    static final long PREFETCH_THRESHOLD = CHUNK_SIZE * 3 / 4;
 
     private static DataSource dataSource;
-    private int currentChunk;
-    private long currentId;
-    private Lock lock = new ReentrantLock();
+    // shared by all the generators, since Hibernate creates a generator per entity
+    private static ExecutorService prefetchExecutor;
+
+    private final AtomicReference<IdRange> currentRange = new AtomicReference<>();
+    private final AtomicReference<Future<IdRange>> nextRange = new AtomicReference<>();
+    private final Object rangeSwitchLock = new Object();
 
     // been initialized by Hibernate
     public SimpleHiloIdentifierGenerator() {
-        updateCurrentChunk();
+        currentRange.set(fetchNextRange());
     }
 
     public static void setDataSource(DataSource injectedDataSource) {
@@ -69,9 +85,22 @@ public class SimpleHiloIdentifierGenerator implements IdentifierGenerator, Ident
 
     @Override
     public List<Long> bulk(int bulkSize) {
-        List<Long> idsList = new ArrayList<>();
-        for (int i = 0; i < bulkSize; i++) {
-            idsList.add(next());
+        List<Long> idsList = new ArrayList<>(bulkSize);
+        int missing = bulkSize;
+        while (missing > 0) {
+            IdRange range = currentRange.get();
+            long first = range.reserve(missing);
+            if (first < 0) {
+                switchRange(range);
+                continue;
+            }
+            // a bulk larger than what is left in the chunk gets the rest of it, and continues in the next chunk
+            long last = Math.min(first + missing, range.end);
+            for (long id = first; id < last; id++) {
+                idsList.add(id);
+            }
+            missing -= (last - first);
+            prefetchIfNeeded(range, first, last);
         }
         return idsList;
     }
@@ -79,21 +108,58 @@ public class SimpleHiloIdentifierGenerator implements IdentifierGenerator, Ident
     @Override
     public Serializable generate(SharedSessionContractImplementor session, Object object)
             throws HibernateException {
-        lock.lock();
-        try {
-            long id = ++currentId;
-            if (id > CHUNK_SIZE) {
-                if (logger.isDebugEnabled()) logger.debug("ID has reached chunk size");
-                updateCurrentChunk();
-                id = ++currentId;
+        while (true) {
+            IdRange range = currentRange.get();
+            long id = range.next.getAndIncrement();
+            if (id < range.end) {
+                prefetchIfNeeded(range, id, id + 1);
+                return id;
+            }
+            if (logger.isDebugEnabled()) logger.debug("ID has reached chunk size");
+            switchRange(range);
+        }
+    }
+
+    private void prefetchIfNeeded(IdRange range, long first, long last) {
+        // exactly one caller gets the range of ids that contains the threshold
+        if (first <= range.prefetchId && range.prefetchId < last) {
+            FutureTask<IdRange> prefetch = new FutureTask<>(new Callable<IdRange>() {
+                @Override
+                public IdRange call() throws Exception {
+                    return fetchNextRange();
+                }
+            });
+            if (nextRange.compareAndSet(null, prefetch)) {
+                getPrefetchExecutor().execute(prefetch);
             }
-            return currentChunk * CHUNK_SIZE + id;
-        } finally {
-            lock.unlock();
         }
     }
 
-    private void updateCurrentChunk() {
+    private void switchRange(IdRange exhausted) {
+        synchronized (rangeSwitchLock) {
+            if (currentRange.get() != exhausted) {
+                return; // another thread already switched
+            }
+            IdRange range = null;
+            Future<IdRange> prefetched = nextRange.getAndSet(null);
+            if (prefetched != null) {
+                try {
+                    range = prefetched.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the next HILO chunk", e);
+                } catch (ExecutionException e) {
+                    logger.warn("Prefetching the next HILO chunk failed, fetching it again", e.getCause());
+                }
+            }
+            if (range == null) {
+                range = fetchNextRange();
+            }
+            currentRange.set(range);
+        }
+    }
+
+    private IdRange fetchNextRange() {
         if (logger.isDebugEnabled()) {
             logger.debug("Updating HILO chunk...");
         }
@@ -104,7 +170,7 @@ public class SimpleHiloIdentifierGenerator implements IdentifierGenerator, Ident
             JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(conn, true));
 
             jdbcTemplate.update(SQL_LOCK);
-            currentChunk = jdbcTemplate.queryForObject(SQL_SELECT, Integer.class);
+            int currentChunk = jdbcTemplate.queryForObject(SQL_SELECT, Integer.class);
             if (logger.isDebugEnabled())
                 logger.debug("Current chunk: " + currentChunk);
             jdbcTemplate.execute(SQL_UPDATE);
@@ -113,10 +179,57 @@ public class SimpleHiloIdentifierGenerator implements IdentifierGenerator, Ident
             if (logger.isDebugEnabled()) {
                 logger.debug("Updating HILO chunk done in " + (System.currentTimeMillis() - t) + " ms");
             }
-            currentId = 0;
+            return new IdRange(currentChunk);
         } catch (SQLException e) {
             logger.error("Unable to update current chunk", e);
             throw new IllegalStateException("Unable to update current chunk");
         }
     }
+
+    private static synchronized ExecutorService getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "HiloPrefetchThread");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return prefetchExecutor;
+    }
+
+    /**
+     * The ids of one HILO chunk: chunk * CHUNK_SIZE + 1 up to and including (chunk + 1) * CHUNK_SIZE
+     */
+    private static class IdRange {
+        private final AtomicLong next;
+        private final long end;
+        private final long prefetchId;
+
+        private IdRange(int chunk) {
+            long start = chunk * CHUNK_SIZE + 1;
+            this.next = new AtomicLong(start);
+            this.end = start + CHUNK_SIZE;
+            this.prefetchId = start + PREFETCH_THRESHOLD;
+        }
+
+        /**
+         * Reserves up to size contiguous ids with a single CAS
+         *
+         * @return the first reserved id, or -1 if the range is exhausted
+         */
+        private long reserve(int size) {
+            while (true) {
+                long first = next.get();
+                if (first >= end) {
+                    return -1;
+                }
+                if (next.compareAndSet(first, first + size)) {
+                    return first;
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.engine.versioning.entities;
+
+import io.cloudslang.engine.data.AbstractIdentifiable;
+import org.apache.commons.lang.builder.EqualsBuilder;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Table;
+import java.util.Objects;
+
+/**
+ * A change of the configuration the workers refresh, numbered by the CONFIGURATION_VERSION counter.
+ */
+@Entity
+@Table(name = "OO_CONFIGURATION_CHANGES")
+public class ConfigurationChange extends AbstractIdentifiable {
+
+    @Column(name = "CHANGE_VERSION", nullable = false, unique = true)
+    private long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "CHANGE_TYPE", nullable = false, length = 32)
+    private ConfigurationChangeType type;
+
+    @Column(name = "CHANGE_KEY", nullable = false)
+    private String key;
+
+    @Column(name = "CREATE_TIME", nullable = false)
+    private long createTime;
+
+    @SuppressWarnings("UnusedDeclaration")
+    private ConfigurationChange() {} // used by JPA
+
+    public ConfigurationChange(long version, ConfigurationChangeType type, String key) {
+        this.version = version;
+        this.type = type;
+        this.key = key;
+        this.createTime = System.currentTimeMillis();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ConfigurationChangeType getType() {
+        return type;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ConfigurationChange that = (ConfigurationChange) o;
+        return new EqualsBuilder()
+                .append(this.version, that.version)
+                .append(this.type, that.type)
+                .append(this.key, that.key)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(version, type, key);
+    }
+
+    @Override
+    public String toString() {
+        return version + ":" + type + ":" + key;
+    }
+}
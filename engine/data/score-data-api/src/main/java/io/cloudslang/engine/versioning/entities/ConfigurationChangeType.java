@@ -0,0 +1,43 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.engine.versioning.entities;
+
+/**
+ * The changes of the configuration the workers refresh, by the key of the change.
+ */
+public enum ConfigurationChangeType {
+
+    /**
+     * An execution was requested to cancel, the key is the execution id
+     */
+    EXECUTION_CANCELLED,
+
+    /**
+     * A branch of an execution was paused, the key is executionId:branchId
+     */
+    EXECUTION_PAUSED,
+
+    /**
+     * A paused branch of an execution was resumed, the key is executionId:branchId
+     */
+    EXECUTION_RESUMED,
+
+    /**
+     * The groups of a worker were changed, the key is the worker uuid
+     */
+    WORKER_GROUPS_CHANGED
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.engine.versioning.services;
+
+import io.cloudslang.engine.versioning.entities.ConfigurationChange;
+import io.cloudslang.engine.versioning.entities.ConfigurationChangeType;
+
+import java.util.List;
+
+/**
+ * The log of the changes of the configuration the workers refresh, so a worker reads only the changes
+ * after the version it has instead of the whole configuration.
+ * <p>
+ * The versions are given by the CONFIGURATION_VERSION counter, which stays locked by the transaction of a change
+ * until it commits, so the changes commit in the order of their versions and the versions have no gaps.
+ */
+public interface ConfigurationChangeService {
+
+    String CONFIGURATION_VERSION_COUNTER_NAME = "CONFIGURATION_VERSION";
+
+    /**
+     * Records a change in the transaction that makes it, call it last in the transaction
+     * since it locks the version counter until the transaction ends.
+     * @param type : the type of the change
+     * @param key : what changed, see {@link ConfigurationChangeType}
+     * @return the version of the change
+     */
+    long recordChange(ConfigurationChangeType type, String key);
+
+    /**
+     * @return the version of the last committed change, read from the database
+     */
+    long readCurrentVersion();
+
+    /**
+     * @param fromVersion : exclusive
+     * @param toVersion : inclusive
+     * @return the changes between the versions, ordered by version
+     */
+    List<ConfigurationChange> readChanges(long fromVersion, long toVersion);
+
+    /**
+     * @param createTime : in millis
+     * @return the number of changes deleted
+     */
+    int deleteChangesCreatedBefore(long createTime);
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.engine.versioning.repositories;
+
+import io.cloudslang.engine.versioning.entities.ConfigurationChange;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ConfigurationChangeRepository extends JpaRepository<ConfigurationChange, Long> {
+
+    @Query("from ConfigurationChange c where c.version > :fromVersion and c.version <= :toVersion order by c.version")
+    List<ConfigurationChange> findByVersionBetween(@Param("fromVersion") long fromVersion, @Param("toVersion") long toVersion);
+
+    @Modifying
+    @Query("delete from ConfigurationChange c where c.createTime < :createTime")
+    int deleteByCreateTimeBefore(@Param("createTime") long createTime);
+}
@@ -34,4 +34,8 @@ public interface VersionRepository extends JpaRepository<VersionCounter, Long> {
     @Modifying
     @Query("update VersionCounter v set v.versionCount=v.versionCount+1 where v.counterName = :counterName")
     int incrementCounterByName(@Param("counterName") String counterName);
+
+    // a query of the value and not of the entity, so it is not the entity cached by the persistence context
+    @Query("select v.versionCount from VersionCounter v where v.counterName = :counterName")
+    Long readVersionCountByName(@Param("counterName") String counterName);
 }
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.engine.versioning.services;
+
+import io.cloudslang.engine.versioning.entities.ConfigurationChange;
+import io.cloudslang.engine.versioning.entities.ConfigurationChangeType;
+import io.cloudslang.engine.versioning.repositories.ConfigurationChangeRepository;
+import io.cloudslang.engine.versioning.repositories.VersionRepository;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public final class ConfigurationChangeServiceImpl implements ConfigurationChangeService {
+
+    private final Logger logger = Logger.getLogger(getClass());
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    @Autowired
+    private ConfigurationChangeRepository configurationChangeRepository;
+
+    @Override
+    @Transactional
+    public long recordChange(ConfigurationChangeType type, String key) {
+        // locks the counter until the transaction ends, so the next change gets the next version after this one commits
+        int result = versionRepository.incrementCounterByName(CONFIGURATION_VERSION_COUNTER_NAME);
+        if (result != 1) {
+            throw new IllegalStateException("for counterName:" + CONFIGURATION_VERSION_COUNTER_NAME + ", got row count of :" + result);
+        }
+        long version = readCurrentVersion();
+        configurationChangeRepository.save(new ConfigurationChange(version, type, key));
+
+        if (logger.isDebugEnabled()) logger.debug("Recorded configuration change " + version + ": " + type + " " + key);
+        return version;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long readCurrentVersion() {
+        Long version = versionRepository.readVersionCountByName(CONFIGURATION_VERSION_COUNTER_NAME);
+        if (version == null) {
+            throw new IllegalStateException("No VersionCounter for counterName:" + CONFIGURATION_VERSION_COUNTER_NAME);
+        }
+        return version;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ConfigurationChange> readChanges(long fromVersion, long toVersion) {
+        return configurationChangeRepository.findByVersionBetween(fromVersion, toVersion);
+    }
+
+    @Override
+    @Transactional
+    public int deleteChangesCreatedBefore(long createTime) {
+        return configurationChangeRepository.deleteByCreateTimeBefore(createTime);
+    }
+}
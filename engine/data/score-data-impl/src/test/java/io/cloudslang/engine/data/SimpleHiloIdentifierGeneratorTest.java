@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.engine.data;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+public class SimpleHiloIdentifierGeneratorTest {
+
+    @Autowired
+    private SpringLiquibase liquibase;
+
+    @Test
+    public void testBulkIsContiguous() {
+        SimpleHiloIdentifierGenerator generator = new SimpleHiloIdentifierGenerator();
+        long first = generator.next();
+        List<Long> ids = generator.bulk(1000);
+
+        assertEquals(1000, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(first + 1 + i, ids.get(i).longValue());
+        }
+        assertEquals(first + 1001, generator.next().longValue());
+    }
+
+    @Test
+    public void testChunkRollover() {
+        SimpleHiloIdentifierGenerator generator = new SimpleHiloIdentifierGenerator();
+        long first = generator.next();
+        long chunkEnd = (first / SimpleHiloIdentifierGenerator.CHUNK_SIZE + 1) * SimpleHiloIdentifierGenerator.CHUNK_SIZE;
+
+        // goes over the end of the chunk, the rest of the bulk comes from the next chunk
+        List<Long> ids = generator.bulk((int) SimpleHiloIdentifierGenerator.CHUNK_SIZE);
+
+        assertEquals(SimpleHiloIdentifierGenerator.CHUNK_SIZE, ids.size());
+        assertEquals(chunkEnd, ids.get((int) (chunkEnd - first - 1)).longValue());
+        assertTrue(ids.get((int) (chunkEnd - first)) > chunkEnd);
+        assertEquals(ids.size(), new HashSet<>(ids).size());
+    }
+
+    @Test
+    public void testConcurrentIdsAreUnique() throws Exception {
+        final SimpleHiloIdentifierGenerator generator = new SimpleHiloIdentifierGenerator();
+        int threads = 8;
+        final int idsPerThread = 40000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final boolean useBulk = i % 2 == 0;
+                futures.add(executor.submit(new Callable<List<Long>>() {
+                    @Override
+                    public List<Long> call() {
+                        List<Long> ids = new ArrayList<>(idsPerThread);
+                        while (ids.size() < idsPerThread) {
+                            if (useBulk) {
+                                ids.addAll(generator.bulk(37));
+                            } else {
+                                ids.add(generator.next());
+                            }
+                        }
+                        return ids;
+                    }
+                }));
+            }
+            Set<Long> allIds = new HashSet<>();
+            int count = 0;
+            for (Future<List<Long>> future : futures) {
+                List<Long> ids = future.get();
+                count += ids.size();
+                allIds.addAll(ids);
+                assertTrue(Collections.min(ids) > 0);
+            }
+            assertEquals(count, allIds.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Configuration
+    static class Configurator {
+        @Bean
+        DataSource dataSource() {
+            BasicDataSource ds = new BasicDataSource();
+            ds.setDriverClassName("org.h2.Driver");
+            ds.setUrl("jdbc:h2:mem:hilo");
+            ds.setUsername("sa");
+            ds.setPassword("sa");
+            ds.setDefaultAutoCommit(false);
+            return ds;
+        }
+
+        @Bean
+        SpringLiquibase liquibase(DataSource dataSource) {
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(dataSource);
+            liquibase.setChangeLog("classpath:/META-INF/database/test.changes.xml");
+            SimpleHiloIdentifierGenerator.setDataSource(dataSource);
+            return liquibase;
+        }
+    }
+}
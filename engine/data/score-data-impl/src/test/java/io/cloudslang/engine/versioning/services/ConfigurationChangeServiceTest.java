@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.engine.versioning.services;
+
+import io.cloudslang.engine.data.SimpleHiloIdentifierGenerator;
+import io.cloudslang.engine.versioning.entities.ConfigurationChange;
+import io.cloudslang.engine.versioning.entities.VersionCounter;
+import io.cloudslang.engine.versioning.repositories.VersionRepository;
+import liquibase.integration.spring.SpringLiquibase;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Properties;
+
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.EXECUTION_CANCELLED;
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.EXECUTION_PAUSED;
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.WORKER_GROUPS_CHANGED;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+@Transactional
+@TransactionConfiguration(defaultRollback = true)
+public class ConfigurationChangeServiceTest {
+
+    private static final boolean SHOW_SQL = false;
+
+    @Autowired
+    private ConfigurationChangeService configurationChangeService;
+
+    @Autowired
+    private VersionRepository versionRepository;
+
+    @Before
+    public void init() {
+        versionRepository.save(new VersionCounter(ConfigurationChangeService.CONFIGURATION_VERSION_COUNTER_NAME));
+        versionRepository.flush();
+    }
+
+    @Test
+    public void testChangesAreNumberedInOrder() {
+        Assert.assertEquals(0L, configurationChangeService.readCurrentVersion());
+
+        Assert.assertEquals(1L, configurationChangeService.recordChange(EXECUTION_CANCELLED, "111"));
+        Assert.assertEquals(2L, configurationChangeService.recordChange(EXECUTION_PAUSED, "111:branch"));
+        Assert.assertEquals(3L, configurationChangeService.recordChange(WORKER_GROUPS_CHANGED, "worker"));
+        Assert.assertEquals(3L, configurationChangeService.readCurrentVersion());
+
+        List<ConfigurationChange> changes = configurationChangeService.readChanges(0, 3);
+        Assert.assertEquals(3, changes.size());
+        Assert.assertEquals(EXECUTION_CANCELLED, changes.get(0).getType());
+        Assert.assertEquals("111", changes.get(0).getKey());
+        Assert.assertEquals(WORKER_GROUPS_CHANGED, changes.get(2).getType());
+
+        changes = configurationChangeService.readChanges(1, 2);
+        Assert.assertEquals(1, changes.size());
+        Assert.assertEquals(2L, changes.get(0).getVersion());
+        Assert.assertEquals("111:branch", changes.get(0).getKey());
+    }
+
+    @Test
+    public void testDeleteOldChanges() {
+        configurationChangeService.recordChange(EXECUTION_CANCELLED, "111");
+        configurationChangeService.recordChange(EXECUTION_CANCELLED, "222");
+
+        Assert.assertEquals(0, configurationChangeService.deleteChangesCreatedBefore(0));
+        Assert.assertEquals(2, configurationChangeService.deleteChangesCreatedBefore(System.currentTimeMillis() + 1));
+        Assert.assertTrue(configurationChangeService.readChanges(0, 2).isEmpty());
+        // the versions go on after the changes are deleted
+        Assert.assertEquals(3L, configurationChangeService.recordChange(EXECUTION_CANCELLED, "333"));
+    }
+
+    @Configuration
+    @EnableJpaRepositories("io.cloudslang.engine.versioning.repositories")
+    @EnableTransactionManagement
+    static class Configurator {
+        @Bean
+        ConfigurationChangeService configurationChangeService() {
+            return new ConfigurationChangeServiceImpl();
+        }
+
+        @Bean
+        DataSource dataSource() {
+            BasicDataSource ds = new BasicDataSource();
+            ds.setDriverClassName("org.h2.Driver");
+            ds.setUrl("jdbc:h2:mem:changes");
+            ds.setUsername("sa");
+            ds.setPassword("sa");
+            ds.setDefaultAutoCommit(false);
+            return new TransactionAwareDataSourceProxy(ds);
+        }
+
+        @Bean
+        SpringLiquibase liquibase(DataSource dataSource) {
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(dataSource);
+            liquibase.setChangeLog("classpath:/META-INF/database/test.changes.xml");
+            SimpleHiloIdentifierGenerator.setDataSource(dataSource);
+            return liquibase;
+        }
+
+
+        @Bean
+        Properties hibernateProperties() {
+            return new Properties() {{
+                setProperty("hibernate.format_sql", "true");
+                setProperty("hibernate.hbm2ddl.auto", "create-drop");
+                setProperty("hibernate.cache.use_query_cache", "false");
+                setProperty("hibernate.generate_statistics", "false");
+                setProperty("hibernate.cache.use_second_level_cache", "false");
+                setProperty("hibernate.order_updates", "true");
+                setProperty("hibernate.order_inserts", "true");
+            }};
+        }
+
+        @Bean
+        JpaVendorAdapter jpaVendorAdapter() {
+            HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter();
+            adapter.setShowSql(SHOW_SQL);
+            adapter.setGenerateDdl(true);
+            return adapter;
+        }
+
+        @Bean(name = "entityManagerFactory")
+        @DependsOn("liquibase")
+        LocalContainerEntityManagerFactoryBean emf(JpaVendorAdapter jpaVendorAdapter) {
+            LocalContainerEntityManagerFactoryBean fb = new LocalContainerEntityManagerFactoryBean();
+            fb.setJpaProperties(hibernateProperties());
+            fb.setDataSource(dataSource());
+            fb.setPersistenceProviderClass(HibernatePersistenceProvider.class);
+            fb.setPackagesToScan("io.cloudslang.engine.versioning");
+            fb.setJpaVendorAdapter(jpaVendorAdapter);
+            return fb;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+    }
+}
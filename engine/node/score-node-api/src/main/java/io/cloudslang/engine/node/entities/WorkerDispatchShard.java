@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.node.entities;
+
+import io.cloudslang.engine.data.AbstractIdentifiable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+/**
+ * A shard of the messages a worker dispatches in parallel.
+ * Each shard is locked by its own dispatches, and keeps the number of the last bulk dispatched through it.
+ */
+@Entity
+@Table(name = "OO_WORKER_DISPATCH_SHARDS", uniqueConstraints = @UniqueConstraint(columnNames = {"WORKER_UUID", "SHARD"}))
+public class WorkerDispatchShard extends AbstractIdentifiable {
+
+    @Column(name = "WORKER_UUID", nullable = false, length = 48)
+    private String workerUuid;
+
+    @Column(name = "SHARD", nullable = false)
+    private int shard;
+
+    @Column(name = "BULK_NUMBER", length = 48)
+    private String bulkNumber;
+
+    public String getWorkerUuid() {
+        return workerUuid;
+    }
+
+    public void setWorkerUuid(String workerUuid) {
+        this.workerUuid = workerUuid;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public void setShard(int shard) {
+        this.shard = shard;
+    }
+
+    public String getBulkNumber() {
+        return bulkNumber;
+    }
+
+    public void setBulkNumber(String bulkNumber) {
+        this.bulkNumber = bulkNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        WorkerDispatchShard that = (WorkerDispatchShard) o;
+
+        return shard == that.shard && workerUuid.equals(that.workerUuid);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * workerUuid.hashCode() + shard;
+    }
+}
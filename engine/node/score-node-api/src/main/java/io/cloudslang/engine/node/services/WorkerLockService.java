@@ -33,14 +33,28 @@ public interface WorkerLockService {
     void create(String uuid);
 
     /**
-     * Delete the Worker Lock entry with the current worker uuid
+     * Delete the Worker Lock entry with the current worker uuid, and the dispatch shards of the worker
      * @param uuid worker's unique identifier
      */
     void delete(String uuid);
 
     /**
-     * Lock the Worker Lock entity with the current worker uuid
+     * Delete the dispatch shards of the worker, a shard is created again on its next lock
+     * @param uuid worker's unique identifier
+     */
+    void deleteDispatchShards(String uuid);
+
+    /**
+     * Lock the Worker Lock entity with the current worker uuid, and all the dispatch shards of the worker
      * @param uuid worker's unique identifier
      */
     void lock(String uuid);
+
+    /**
+     * Lock one dispatch shard of the worker, the shard is created on its first lock.
+     * Dispatches of the other shards are not blocked, a lock of the whole worker is.
+     * @param uuid worker's unique identifier
+     * @param shard the dispatch shard
+     */
+    void lockShard(String uuid, int shard);
 }
@@ -253,6 +253,26 @@ public interface WorkerNodeService {
      */
     void updateBulkNumber(String workerUuid, String bulkNumber);
 
+    /**
+     *
+     * Reads the number of the last bulk dispatched through a dispatch shard of the worker
+     *
+     * @param workerUuid the uuid of the worker
+     * @param shard the dispatch shard
+     * @return the bulk number, null if no bulk was dispatched through the shard
+     */
+    String readBulkNumber(String workerUuid, int shard);
+
+    /**
+     *
+     * updates the recovery bulk number of a dispatch shard of the worker, the shard should be locked
+     *
+     * @param workerUuid the uuid of the worker to update
+     * @param shard the dispatch shard
+     * @param bulkNumber the new recovery bulk number
+     */
+    void updateBulkNumber(String workerUuid, int shard, String bulkNumber);
+
     /**
      *
      * updates the worker recovery version of a given worker
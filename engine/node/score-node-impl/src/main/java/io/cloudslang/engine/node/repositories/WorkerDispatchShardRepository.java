@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.node.repositories;
+
+import io.cloudslang.engine.node.entities.WorkerDispatchShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+public interface WorkerDispatchShardRepository extends JpaRepository<WorkerDispatchShard, Long> {
+
+    WorkerDispatchShard findByWorkerUuidAndShard(String workerUuid, int shard);
+
+    @Modifying
+    @Query("update WorkerDispatchShard s set s.shard = s.shard where s.workerUuid = ?1 and s.shard = ?2")
+    int lock(String workerUuid, int shard);
+
+    @Modifying
+    @Query("update WorkerDispatchShard s set s.shard = s.shard where s.workerUuid = ?1")
+    int lockAll(String workerUuid);
+
+    @Modifying
+    @Query("delete from WorkerDispatchShard s where s.workerUuid = ?1")
+    void deleteByWorkerUuid(String workerUuid);
+}
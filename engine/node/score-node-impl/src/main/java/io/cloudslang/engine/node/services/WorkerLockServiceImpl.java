@@ -16,7 +16,9 @@
 
 package io.cloudslang.engine.node.services;
 
+import io.cloudslang.engine.node.entities.WorkerDispatchShard;
 import io.cloudslang.engine.node.entities.WorkerLock;
+import io.cloudslang.engine.node.repositories.WorkerDispatchShardRepository;
 import io.cloudslang.engine.node.repositories.WorkerLockRepository;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +37,9 @@ public final class WorkerLockServiceImpl implements WorkerLockService {
     @Autowired
     private WorkerLockRepository workerLockRepository;
 
+    @Autowired
+    private WorkerDispatchShardRepository workerDispatchShardRepository;
+
     @Override
     @Transactional
     public void create(String uuid) {
@@ -48,17 +53,41 @@ public final class WorkerLockServiceImpl implements WorkerLockService {
     @Transactional
     public void delete(String uuid) {
 
+        workerDispatchShardRepository.deleteByWorkerUuid(uuid);
         workerLockRepository.deleteByUuid(uuid);
     }
 
+    @Override
+    @Transactional
+    public void deleteDispatchShards(String uuid) {
+        workerDispatchShardRepository.deleteByWorkerUuid(uuid);
+    }
+
     @Override
     @Transactional
     public void lock(String uuid) {
         if (workerLockRepository.lock(uuid) == 1){
+            workerDispatchShardRepository.lockAll(uuid);
             if (logger.isDebugEnabled()) logger.debug("Worker [" + uuid + "] is locked");
         }
         else {
             throw new IllegalStateException("Unknown worker uuid [" + uuid + "]");
         }
     }
+
+    @Override
+    @Transactional
+    public void lockShard(String uuid, int shard) {
+        if (workerDispatchShardRepository.lock(uuid, shard) == 0) {
+            // created under the lock of the worker, so a recovery that locked the worker is not bypassed
+            lock(uuid);
+            if (workerDispatchShardRepository.lock(uuid, shard) == 0) {
+                WorkerDispatchShard workerDispatchShard = new WorkerDispatchShard();
+                workerDispatchShard.setWorkerUuid(uuid);
+                workerDispatchShard.setShard(shard);
+                workerDispatchShardRepository.saveAndFlush(workerDispatchShard);
+            }
+        }
+        if (logger.isDebugEnabled()) logger.debug("Worker [" + uuid + "] shard " + shard + " is locked");
+    }
 }
@@ -18,8 +18,11 @@ package io.cloudslang.engine.node.services;
 
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import io.cloudslang.engine.node.entities.WorkerDispatchShard;
 import io.cloudslang.engine.node.entities.WorkerNode;
+import io.cloudslang.engine.node.repositories.WorkerDispatchShardRepository;
 import io.cloudslang.engine.node.repositories.WorkerNodeRepository;
+import io.cloudslang.engine.versioning.services.ConfigurationChangeService;
 import io.cloudslang.engine.versioning.services.VersionService;
 import io.cloudslang.score.api.nodes.WorkerStatus;
 import org.apache.log4j.Logger;
@@ -34,6 +37,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.WORKER_GROUPS_CHANGED;
+
 /**
  * @author Avi Moradi
  * @since 11/11/2012
@@ -48,9 +53,13 @@ public class WorkerNodeServiceImpl implements WorkerNodeService {
 	@Autowired
 	private WorkerNodeRepository workerNodeRepository;
 	@Autowired
+	private WorkerDispatchShardRepository workerDispatchShardRepository;
+	@Autowired
 	private WorkerLockService workerLockService;
 	@Autowired
 	private VersionService versionService;
+	@Autowired
+	private ConfigurationChangeService configurationChangeService;
 	@Autowired(required = false)
 	private List<LoginListener> loginListeners;
 
@@ -93,6 +102,7 @@ public class WorkerNodeServiceImpl implements WorkerNodeService {
 			worker.setActive(false);
 			worker.setDeleted(true);
 			worker.setStatus(WorkerStatus.IN_RECOVERY);
+			workerLockService.deleteDispatchShards(uuid);
 		}
 	}
 
@@ -284,6 +294,7 @@ public class WorkerNodeServiceImpl implements WorkerNodeService {
 		groups.addAll(groupSet);
 
 		worker.setGroups(groups);
+		configurationChangeService.recordChange(WORKER_GROUPS_CHANGED, uuid);
 	}
 
 	@Override
@@ -314,6 +325,7 @@ public class WorkerNodeServiceImpl implements WorkerNodeService {
 			List<String> groups = new ArrayList<>(worker.getGroups());
 			groups.add(group);
 			worker.setGroups(groups);
+			configurationChangeService.recordChange(WORKER_GROUPS_CHANGED, workerUuid);
 		}
 	}
 
@@ -325,6 +337,7 @@ public class WorkerNodeServiceImpl implements WorkerNodeService {
 		groups.remove(group);
 		if(groups.size() == 0) throw new IllegalStateException("Can't leave worker without any group !");
 		worker.setGroups(groups);
+		configurationChangeService.recordChange(WORKER_GROUPS_CHANGED, workerUuid);
 	}
 
 	@Override
@@ -340,6 +353,23 @@ public class WorkerNodeServiceImpl implements WorkerNodeService {
 		worker.setBulkNumber(bulkNumber);
 	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public String readBulkNumber(String workerUuid, int shard) {
+		WorkerDispatchShard workerDispatchShard = workerDispatchShardRepository.findByWorkerUuidAndShard(workerUuid, shard);
+		return workerDispatchShard != null ? workerDispatchShard.getBulkNumber() : null;
+	}
+
+	@Override
+	@Transactional
+	public void updateBulkNumber(String workerUuid, int shard, String bulkNumber) {
+		WorkerDispatchShard workerDispatchShard = workerDispatchShardRepository.findByWorkerUuidAndShard(workerUuid, shard);
+		if (workerDispatchShard == null) {
+			throw new IllegalStateException("Dispatch shard " + shard + " of worker [" + workerUuid + "] was not locked");
+		}
+		workerDispatchShard.setBulkNumber(bulkNumber);
+	}
+
 	@Override
 	@Transactional
 	public void updateWRV(String workerUuid, String wrv) {
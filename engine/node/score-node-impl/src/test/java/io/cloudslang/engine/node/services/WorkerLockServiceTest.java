@@ -16,7 +16,9 @@
 
 package io.cloudslang.engine.node.services;
 
+import io.cloudslang.engine.node.entities.WorkerDispatchShard;
 import io.cloudslang.engine.node.entities.WorkerLock;
+import io.cloudslang.engine.node.repositories.WorkerDispatchShardRepository;
 import io.cloudslang.engine.node.repositories.WorkerLockRepository;
 import org.junit.Before;
 import org.junit.Test;
@@ -28,6 +30,8 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -46,6 +50,9 @@ public class WorkerLockServiceTest {
     @Mock
     private WorkerLockRepository workerLockRepository;
 
+    @Mock
+    private WorkerDispatchShardRepository workerDispatchShardRepository;
+
     @Test
     public void createTest(){
 
@@ -63,6 +70,31 @@ public class WorkerLockServiceTest {
         when(workerLockRepository.lock(uuid)).thenReturn(1);
         workerLockService.lock(uuid);
         verify(workerLockRepository).lock(uuid);
+        verify(workerDispatchShardRepository).lockAll(uuid);
+    }
+
+    @Test
+    public void lockShardTest(){
+
+        String uuid = "uuid";
+        when(workerDispatchShardRepository.lock(uuid, 1)).thenReturn(1);
+        workerLockService.lockShard(uuid, 1);
+        verify(workerLockRepository, never()).lock(uuid);
+        verify(workerDispatchShardRepository, never()).saveAndFlush(any(WorkerDispatchShard.class));
+    }
+
+    @Test
+    public void lockNewShardTest(){
+
+        String uuid = "uuid";
+        when(workerLockRepository.lock(uuid)).thenReturn(1);
+        when(workerDispatchShardRepository.lock(uuid, 1)).thenReturn(0);
+        workerLockService.lockShard(uuid, 1);
+        verify(workerLockRepository).lock(uuid);
+        WorkerDispatchShard workerDispatchShard = new WorkerDispatchShard();
+        workerDispatchShard.setWorkerUuid(uuid);
+        workerDispatchShard.setShard(1);
+        verify(workerDispatchShardRepository).saveAndFlush(workerDispatchShard);
     }
 
     @Test(expected = IllegalStateException.class)
@@ -79,6 +111,15 @@ public class WorkerLockServiceTest {
         String uuid = "uuid";
         workerLockService.delete(uuid);
         verify(workerLockRepository).deleteByUuid(uuid);
+        verify(workerDispatchShardRepository).deleteByWorkerUuid(uuid);
+    }
+
+    @Test
+    public void deleteDispatchShardsTest(){
+        String uuid = "uuid";
+        workerLockService.deleteDispatchShards(uuid);
+        verify(workerDispatchShardRepository).deleteByWorkerUuid(uuid);
+        verify(workerLockRepository, never()).deleteByUuid(uuid);
     }
 
     @Before
@@ -18,8 +18,11 @@
 package io.cloudslang.engine.node.services;
 
 import io.cloudslang.engine.data.SimpleHiloIdentifierGenerator;
+import io.cloudslang.engine.node.entities.WorkerDispatchShard;
 import io.cloudslang.engine.node.entities.WorkerNode;
+import io.cloudslang.engine.node.repositories.WorkerDispatchShardRepository;
 import io.cloudslang.engine.node.repositories.WorkerNodeRepository;
+import io.cloudslang.engine.versioning.services.ConfigurationChangeService;
 import io.cloudslang.engine.versioning.services.VersionService;
 import io.cloudslang.score.api.nodes.WorkerStatus;
 import junit.framework.Assert;
@@ -56,6 +59,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.WORKER_GROUPS_CHANGED;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -83,9 +87,15 @@ public class WorkerNodeServiceTest {
     @Autowired
     private WorkerNodeRepository workerNodeRepository;
 
+    @Autowired
+    private WorkerDispatchShardRepository workerDispatchShardRepository;
+
     @Autowired
     private VersionService versionService;
 
+    @Autowired
+    private ConfigurationChangeService configurationChangeService;
+
     @Before
     public void initNodes() {
         workerNodeService.create("H1", "H1", "amit.levin", "c:/dir");
@@ -95,7 +105,7 @@ public class WorkerNodeServiceTest {
 
     @After
     public void reset() {
-        Mockito.reset(versionService, workerLockService);
+        Mockito.reset(versionService, workerLockService, configurationChangeService);
     }
 
     @Test
@@ -164,6 +174,7 @@ public class WorkerNodeServiceTest {
         Assert.assertEquals(WorkerStatus.IN_RECOVERY, worker.getStatus());
         Assert.assertEquals(false, worker.isActive());
         Assert.assertEquals(true, worker.isDeleted());
+        verify(workerLockService).deleteDispatchShards("H3");
     }
 
     @Test
@@ -270,6 +281,41 @@ public class WorkerNodeServiceTest {
         Assert.assertEquals("123", worker.getBulkNumber());
     }
 
+    @Test
+    public void updateShardBulkNumber() {
+        WorkerDispatchShard workerDispatchShard = new WorkerDispatchShard();
+        workerDispatchShard.setWorkerUuid("H1");
+        workerDispatchShard.setShard(2);
+        workerDispatchShardRepository.saveAndFlush(workerDispatchShard);
+        Assert.assertNull(workerNodeService.readBulkNumber("H1", 2));
+
+        workerNodeService.updateBulkNumber("H1", 2, "123");
+
+        Assert.assertEquals("123", workerNodeService.readBulkNumber("H1", 2));
+        Assert.assertNull(workerNodeService.readBulkNumber("H1", 1));
+        Assert.assertNull(workerNodeService.readByUUID("H1").getBulkNumber());
+    }
+
+    @Test
+    public void deleteDispatchShardsOfWorker() {
+        for (String uuid : new String[]{"H1", "H2"}) {
+            WorkerDispatchShard workerDispatchShard = new WorkerDispatchShard();
+            workerDispatchShard.setWorkerUuid(uuid);
+            workerDispatchShard.setShard(1);
+            workerDispatchShardRepository.saveAndFlush(workerDispatchShard);
+        }
+
+        workerDispatchShardRepository.deleteByWorkerUuid("H1");
+
+        Assert.assertNull(workerDispatchShardRepository.findByWorkerUuidAndShard("H1", 1));
+        Assert.assertNotNull(workerDispatchShardRepository.findByWorkerUuidAndShard("H2", 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void updateBulkNumberOfMissingShard() {
+        workerNodeService.updateBulkNumber("H1", 3, "123");
+    }
+
     @Test
     public void readAllWorkerGroups() {
         List<String> groups = workerNodeService.readAllWorkerGroups();
@@ -304,6 +350,14 @@ public class WorkerNodeServiceTest {
         workerNode = workerNodeService.readByUUID("H1");
 
         Assert.assertEquals(groupSize + 1, workerNode.getGroups().size());
+        verify(configurationChangeService).recordChange(WORKER_GROUPS_CHANGED, "H1");
+
+        // already a member
+        workerNodeService.addGroupToWorker("H1", "aaa");
+        verify(configurationChangeService).recordChange(WORKER_GROUPS_CHANGED, "H1");
+
+        workerNodeService.removeGroupFromWorker("H1", "aaa");
+        verify(configurationChangeService, Mockito.times(2)).recordChange(WORKER_GROUPS_CHANGED, "H1");
     }
 
     @Test
@@ -422,6 +476,11 @@ public class WorkerNodeServiceTest {
             return versionService;
         }
 
+        @Bean
+        ConfigurationChangeService configurationChangeService() {
+            return mock(ConfigurationChangeService.class);
+        }
+
         @Bean
         WorkerNodeService workerNodeService() {
             return new WorkerNodeServiceImpl();
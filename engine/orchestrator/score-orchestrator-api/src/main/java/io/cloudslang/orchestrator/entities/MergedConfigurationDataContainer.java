@@ -23,14 +23,63 @@ import java.util.List;
 import java.util.Set;
 
 
+/**
+ * The configuration a worker refreshes, as of a version of the configuration changes.
+ * <p>
+ * When it holds only the changes after the version the worker has, the cancelled executions are the ones cancelled
+ * since then and the worker groups are set only when they changed. The paused executions are all the paused ones
+ * when {@link #isPausedExecutionsComplete()}, otherwise the ones paused since then, and the resumed executions
+ * the ones no longer paused.
+ */
 public class MergedConfigurationDataContainer implements Serializable{
     private volatile List<Long> cancelledExecutions;
     private volatile Set<String> pausedExecutions;
+    private volatile Set<String> resumedExecutions;
     private volatile List<String> workerGroups;
+    private volatile long version = -1;
+    private volatile boolean changesOnly;
+    private volatile boolean pausedExecutionsComplete;
 
     public MergedConfigurationDataContainer() {
     }
 
+    /**
+     * @return the version of the configuration changes, -1 when the configuration is not of a known version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isChangesOnly() {
+        return changesOnly;
+    }
+
+    public void setChangesOnly(boolean changesOnly) {
+        this.changesOnly = changesOnly;
+    }
+
+    /**
+     * @return whether the paused executions are all the paused ones, also when only the changes are held
+     */
+    public boolean isPausedExecutionsComplete() {
+        return pausedExecutionsComplete;
+    }
+
+    public void setPausedExecutionsComplete(boolean pausedExecutionsComplete) {
+        this.pausedExecutionsComplete = pausedExecutionsComplete;
+    }
+
+    public Set<String> getResumedExecutions() {
+        return resumedExecutions;
+    }
+
+    public void setResumedExecutions(Set<String> resumedExecutions) {
+        this.resumedExecutions = resumedExecutions;
+    }
 
 
     public List<Long> getCancelledExecutions() {
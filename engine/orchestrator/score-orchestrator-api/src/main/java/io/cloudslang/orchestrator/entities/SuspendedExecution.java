@@ -44,6 +44,14 @@ public class SuspendedExecution extends AbstractIdentifiable {
     @Column(name= "NUMBER_OF_BRANCHES", nullable = false)
     private Integer numberOfBranches;
 
+    // counted by the updates of the repository as the branches finish, so the entity never writes them
+    @Column(name = "FINISHED_COUNT", nullable = false, updatable = false)
+    private Integer finishedCount = 0;
+
+    // set once all the branches finished, the suspended executions that are ready to join are found by it
+    @Column(name = "READY_TIME", updatable = false)
+    private Long readyTime;
+
     @Basic(fetch = FetchType.LAZY)
     @Embedded
     private ExecutionObjEntity executionObj;
@@ -85,6 +93,14 @@ public class SuspendedExecution extends AbstractIdentifiable {
         this.numberOfBranches = numberOfBranches;
     }
 
+    public Integer getFinishedCount() {
+        return finishedCount;
+    }
+
+    public Long getReadyTime() {
+        return readyTime;
+    }
+
     public Execution getExecutionObj() {
         if  (executionObj == null)
             return null;
@@ -22,4 +22,13 @@ import io.cloudslang.orchestrator.entities.MergedConfigurationDataContainer;
 public interface MergedConfigurationService {
     MergedConfigurationDataContainer fetchMergedConfiguration(String workerUuid);
 
+    /**
+     * Fetches only the configuration changes after the given version,
+     * or the whole configuration when the worker has no version or the changes after it were already deleted.
+     * @param workerUuid : the worker to fetch the configuration of
+     * @param version : the version of the configuration the worker has, -1 for none
+     * @return the configuration and its version
+     */
+    MergedConfigurationDataContainer fetchMergedConfiguration(String workerUuid, long version);
+
 }
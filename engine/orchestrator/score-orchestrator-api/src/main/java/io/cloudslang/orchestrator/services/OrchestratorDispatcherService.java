@@ -37,4 +37,17 @@ public interface OrchestratorDispatcherService {
      * @param workerUuid the id of the dispatching worker
      */
 	void dispatch(List<? extends Serializable> messages, String bulkNumber, String wrv, String workerUuid);
+
+    /**
+     *
+     * Dispatch messges of one shard of the worker to the queue from the consumer,
+     * bulks of different shards of the same worker can be dispatched in parallel
+     *
+     * @param messages the messages to dispatch, all the messages of an execution should be sent through the same shard
+     * @param bulkNumber an identifier of the dispatch bulk, needed for recovery, tracked separately for each shard
+     * @param wrv the worker recovery version, needed for recovery
+     * @param workerUuid the id of the dispatching worker
+     * @param shard the dispatch shard
+     */
+	void dispatch(List<? extends Serializable> messages, String bulkNumber, String wrv, String workerUuid, int shard);
 }
@@ -34,7 +34,10 @@ import java.util.Set;
 public interface PauseResumeService {
 
     /**
-     * Pauses execution with type PENDING_PAUSE
+     * Pauses execution with type PENDING_PAUSE,
+     * should record an EXECUTION_PAUSED configuration change of executionId:branchId for the workers.
+     * The workers read {@link #readAllPausedExecutionBranchIds()} on every full refresh, so a pause that is not recorded
+     * is seen within worker.configuration.fullRefreshMillis, or on every refresh with configuration.changes.readAllPausedExecutions.
      *
      * @param executionId id of the execution
      * @param branchId id of the branch of the execution we want to pause
@@ -44,7 +47,8 @@ public interface PauseResumeService {
     Long pauseExecution(Long executionId, String branchId, PauseReason reason);
 
     /**
-     * Resumes execution and puts it back to execution queue
+     * Resumes execution and puts it back to execution queue,
+     * should record an EXECUTION_RESUMED configuration change of executionId:branchId for the workers
      *
      * @param executionId id of the paused execution we want to resume
      * @param branchId id of the branch of the execution we want to resume
@@ -18,7 +18,6 @@ package io.cloudslang.orchestrator.repositories;
 
 import io.cloudslang.score.facade.entities.RunningExecutionPlan;
 
-import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -53,8 +52,28 @@ public interface RunningExecutionPlanRepository extends JpaRepository<RunningExe
     @Query("select executionPlanZipped from RunningExecutionPlan r where r.id = :exeId")
     byte[] getZippedExecutionPlan(@Param("exeId") Long exeId);
 
+    // also finds the plans marked by the cleanup, they are revived when reused
+    @Query("select r.id from RunningExecutionPlan r where r.planHash = :planHash and r.flowUUID = :flowUUID order by r.id")
+    List<Long> findIdsByPlanHash(@Param("planHash") String planHash, @Param("flowUUID") String flowUUID);
+
+    @Modifying
+    @Query("update RunningExecutionPlan r set r.orphanedTime = null where r.id = :id and r.orphanedTime is not null")
+    int reviveOrphan(@Param("id") Long id);
+
+    // plans that were linked again after they were marked
+    @Modifying
+    @Query("update RunningExecutionPlan r set r.orphanedTime = null where r.orphanedTime is not null and " +
+            "exists (select l.id from RunningExecutionPlanLink l where l.runningExecutionPlanId = r.id)")
+    int reviveLinkedOrphans();
+
+    @Modifying
+    @Query("update RunningExecutionPlan r set r.orphanedTime = :orphanedTime where r.orphanedTime is null and " +
+            "not exists (select l.id from RunningExecutionPlanLink l where l.runningExecutionPlanId = r.id)")
+    int markOrphans(@Param("orphanedTime") Long orphanedTime);
+
     @Modifying
-    @Query("delete from RunningExecutionPlan r where r.executionId in :ids")
-    int deleteByExecutionIds(@Param("ids") Collection<String> ids);
+    @Query("delete from RunningExecutionPlan r where r.orphanedTime < :orphanedBefore and " +
+            "not exists (select l.id from RunningExecutionPlanLink l where l.runningExecutionPlanId = r.id)")
+    int deleteOrphans(@Param("orphanedBefore") Long orphanedBefore);
 
 }
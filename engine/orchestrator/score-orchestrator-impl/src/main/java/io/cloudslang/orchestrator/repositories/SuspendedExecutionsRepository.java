@@ -19,7 +19,9 @@ package io.cloudslang.orchestrator.repositories;
 import io.cloudslang.orchestrator.entities.SuspendedExecution;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
@@ -32,6 +34,15 @@ import java.util.List;
 public interface SuspendedExecutionsRepository extends JpaRepository<SuspendedExecution, Long> {
     public List<SuspendedExecution> findBySplitIdIn(List<String> splitIds);
 
-    @Query("from SuspendedExecution se where se.numberOfBranches=size(se.finishedBranches)")
+    @Query("from SuspendedExecution se where se.readyTime is not null order by se.readyTime")
     public List<SuspendedExecution> findFinishedSuspendedExecutions(Pageable pageRequest);
+
+    @Modifying
+    @Query("update SuspendedExecution se set se.finishedCount = se.finishedCount + :finishedBranches where se.id = :id")
+    public int addFinishedBranches(@Param("id") Long id, @Param("finishedBranches") int finishedBranches);
+
+    @Modifying
+    @Query("update SuspendedExecution se set se.readyTime = :readyTime " +
+            "where se.id in :ids and se.finishedCount >= se.numberOfBranches and se.readyTime is null")
+    public int markReadyToJoin(@Param("ids") List<Long> ids, @Param("readyTime") Long readyTime);
 }
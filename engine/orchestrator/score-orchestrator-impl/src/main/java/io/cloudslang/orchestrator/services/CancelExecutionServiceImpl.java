@@ -16,6 +16,7 @@
 
 package io.cloudslang.orchestrator.services;
 
+import io.cloudslang.engine.versioning.services.ConfigurationChangeService;
 import org.apache.log4j.Logger;
 import io.cloudslang.engine.queue.entities.ExecStatus;
 import io.cloudslang.engine.queue.entities.ExecutionMessageConverter;
@@ -30,6 +31,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.Arrays;
 import java.util.List;
 
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.EXECUTION_CANCELLED;
 import static io.cloudslang.score.facade.execution.ExecutionSummary.EMPTY_BRANCH;
 
 /**
@@ -54,6 +56,9 @@ public final class CancelExecutionServiceImpl implements CancelExecutionService
     @Autowired
     private ExecutionStateService executionStateService;
 
+    @Autowired
+    private ConfigurationChangeService configurationChangeService;
+
     @Override
     @Transactional
     public ExecutionActionResult requestCancelExecution(Long executionId) {
@@ -91,6 +96,8 @@ public final class CancelExecutionServiceImpl implements CancelExecutionService
             return ExecutionActionResult.getExecutionActionResult(status);
         }
 
+        // the workers read the cancelled executions from the changes
+        configurationChangeService.recordChange(EXECUTION_CANCELLED, String.valueOf(executionId));
         return ExecutionActionResult.SUCCESS;
     }
 
@@ -17,10 +17,17 @@
 package io.cloudslang.orchestrator.services;
 
 import io.cloudslang.engine.node.services.WorkerNodeService;
+import io.cloudslang.engine.versioning.entities.ConfigurationChange;
+import io.cloudslang.engine.versioning.services.ConfigurationChangeService;
 import io.cloudslang.orchestrator.entities.MergedConfigurationDataContainer;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 
 public class MergedConfigurationServiceImpl implements MergedConfigurationService {
 
@@ -32,29 +39,125 @@ public class MergedConfigurationServiceImpl implements MergedConfigurationServic
     private PauseResumeService pauseResumeService;
     @Autowired
     private WorkerNodeService workerNodeService;
+    @Autowired
+    private ConfigurationChangeService configurationChangeService;
+
+    // Pause and resume record their changes, so the changes only refreshes carry them instead of all the paused branches.
+    // For a PauseResumeService that does not record them, set to read all the paused branches on every refresh
+    private boolean readAllPausedExecutions = Boolean.getBoolean("configuration.changes.readAllPausedExecutions");
 
     @Override
     public MergedConfigurationDataContainer fetchMergedConfiguration(String workerUuid) {
+        // read before the configuration, so the changes made while it is read are fetched again with the next changes
+        long version = -1;
+        try {
+            version = configurationChangeService.readCurrentVersion();
+        } catch(Exception ex) {
+            log.error("Failed to read configuration version: ", ex);
+        }
+
         MergedConfigurationDataContainer mergedConfigurationDataContainer = new MergedConfigurationDataContainer();
+        boolean complete = true;
         try {
             mergedConfigurationDataContainer.setCancelledExecutions(cancelExecutionService.readCanceledExecutionsIds());
         } catch(Exception ex) {
             log.error("Failed to fetch cancelled information: ", ex);
+            complete = false;
         }
 
         try {
             mergedConfigurationDataContainer.setPausedExecutions(pauseResumeService.readAllPausedExecutionBranchIds());
         } catch(Exception ex) {
             log.error("Failed to read paused flows information: ", ex);
+            complete = false;
         }
 
         try {
             mergedConfigurationDataContainer.setWorkerGroups(workerNodeService.readWorkerGroups(workerUuid));
         } catch(Exception ex) {
             log.error("Failed to fetch worker group information: ", ex);
+            complete = false;
+        }
+
+        // the worker fetches the whole configuration again when a part of it is missing
+        mergedConfigurationDataContainer.setVersion(complete ? version : -1);
+        return mergedConfigurationDataContainer;
+    }
+
+    @Override
+    public MergedConfigurationDataContainer fetchMergedConfiguration(String workerUuid, long version) {
+        if (version < 0) {
+            return fetchMergedConfiguration(workerUuid);
+        }
+        try {
+            long currentVersion = configurationChangeService.readCurrentVersion();
+            if (version > currentVersion) { // a version of another database
+                return fetchMergedConfiguration(workerUuid);
+            }
+            List<ConfigurationChange> changes = configurationChangeService.readChanges(version, currentVersion);
+            // the versions have no gaps, so a missing change was deleted before the worker read it
+            if (changes.size() != currentVersion - version) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Configuration changes after version " + version + " were deleted, fetching the whole configuration");
+                }
+                return fetchMergedConfiguration(workerUuid);
+            }
+            return mergeChanges(workerUuid, changes, currentVersion);
+        } catch(Exception ex) {
+            log.error("Failed to fetch configuration changes: ", ex);
+            return fetchMergedConfiguration(workerUuid);
+        }
+    }
+
+    private MergedConfigurationDataContainer mergeChanges(String workerUuid, List<ConfigurationChange> changes, long version) {
+        List<Long> cancelledExecutions = new ArrayList<>();
+        Set<String> pausedExecutions = new HashSet<>();
+        Set<String> resumedExecutions = new HashSet<>();
+        boolean workerGroupsChanged = false;
+
+        // in the order of the changes, so the last change of a branch is the one kept
+        for (ConfigurationChange change : changes) {
+            switch (change.getType()) {
+                case EXECUTION_CANCELLED:
+                    cancelledExecutions.add(Long.valueOf(change.getKey()));
+                    break;
+                case EXECUTION_PAUSED:
+                    pausedExecutions.add(change.getKey());
+                    resumedExecutions.remove(change.getKey());
+                    break;
+                case EXECUTION_RESUMED:
+                    resumedExecutions.add(change.getKey());
+                    pausedExecutions.remove(change.getKey());
+                    break;
+                case WORKER_GROUPS_CHANGED:
+                    workerGroupsChanged |= change.getKey().equals(workerUuid);
+                    break;
+            }
         }
 
+        MergedConfigurationDataContainer mergedConfigurationDataContainer = new MergedConfigurationDataContainer();
+        mergedConfigurationDataContainer.setChangesOnly(true);
+        mergedConfigurationDataContainer.setVersion(version);
+        mergedConfigurationDataContainer.setCancelledExecutions(cancelledExecutions);
+        mergedConfigurationDataContainer.setPausedExecutions(pausedExecutions);
+        mergedConfigurationDataContainer.setResumedExecutions(resumedExecutions);
+        if (readAllPausedExecutions) {
+            try {
+                mergedConfigurationDataContainer.setPausedExecutions(pauseResumeService.readAllPausedExecutionBranchIds());
+                mergedConfigurationDataContainer.setResumedExecutions(null);
+                mergedConfigurationDataContainer.setPausedExecutionsComplete(true);
+            } catch(Exception ex) {
+                log.error("Failed to read paused flows information, using the recorded changes: ", ex);
+            }
+        }
+        if (workerGroupsChanged) {
+            mergedConfigurationDataContainer.setWorkerGroups(workerNodeService.readWorkerGroups(workerUuid));
+        }
         return mergedConfigurationDataContainer;
     }
+
+    public void setReadAllPausedExecutions(boolean readAllPausedExecutions) {
+        this.readAllPausedExecutions = readAllPausedExecutions;
+    }
 }
 
@@ -58,6 +58,27 @@ public final class OrchestratorDispatcherServiceImpl implements OrchestratorDisp
         Validate.notNull(messages, "Messages list is null");
 
         String currentBulkNumber = workerNodeService.readByUUID(workerUuid).getBulkNumber();
+
+        if (dispatch(messages, bulkNumber, currentBulkNumber, wrv, workerUuid)) {
+            workerNodeService.updateBulkNumber(workerUuid, bulkNumber);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void dispatch(List<? extends Serializable> messages, String bulkNumber, String wrv, String workerUuid, int shard) {
+        //lock only the shard, the recovery job locks all the shards of the worker
+        workerLockService.lockShard(workerUuid, shard);
+        Validate.notNull(messages, "Messages list is null");
+
+        String currentBulkNumber = workerNodeService.readBulkNumber(workerUuid, shard);
+
+        if (dispatch(messages, bulkNumber, currentBulkNumber, wrv, workerUuid)) {
+            workerNodeService.updateBulkNumber(workerUuid, shard, bulkNumber);
+        }
+    }
+
+    private boolean dispatch(List<? extends Serializable> messages, String bulkNumber, String currentBulkNumber, String wrv, String workerUuid) {
         //can not be null at this point
         String currentWRV = workerNodeService.readByUUID(workerUuid).getWorkerRecoveryVersion();
 
@@ -65,14 +86,16 @@ public final class OrchestratorDispatcherServiceImpl implements OrchestratorDisp
         if (currentBulkNumber != null && currentBulkNumber.equals(bulkNumber)) {
             logger.warn("Orchestrator got messages bulk with same bulk number: " + bulkNumber
                     + " This bulk was inserted to DB before. Discarding...");
+            return false;
         }
         //This is done in order to make sure that we are not getting messages from worker that was already recovered and does not know about it yet
         else if (!currentWRV.equals(wrv)) {
             logger.warn("Orchestrator got messages from worker: " + workerUuid + " with wrong WRV:" + wrv
                     + " Current WRV is: " + currentWRV + ". Discarding...");
+            return false;
         } else {
             dispatch(messages);
-            workerNodeService.updateBulkNumber(workerUuid, bulkNumber);
+            return true;
         }
     }
 
@@ -16,21 +16,35 @@
 
 package io.cloudslang.orchestrator.services;
 
+import io.cloudslang.orchestrator.repositories.RunningExecutionPlanLinkRepository;
 import io.cloudslang.orchestrator.repositories.RunningExecutionPlanRepository;
 import io.cloudslang.score.api.ExecutionPlan;
+import io.cloudslang.score.facade.entities.ExecutionPlanCompressUtil;
 import io.cloudslang.score.facade.entities.RunningExecutionPlan;
+import io.cloudslang.score.facade.entities.RunningExecutionPlanLink;
 import io.cloudslang.score.facade.services.RunningExecutionPlanService;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import org.apache.commons.lang.SerializationUtils;
 import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
 /**
@@ -41,11 +55,30 @@ import org.springframework.transaction.annotation.Transactional;
  */
 public final class RunningExecutionPlanServiceImpl implements RunningExecutionPlanService {
 
+    private final Logger logger = Logger.getLogger(getClass());
+
     private static final int IN_CLAUSE_LIMIT = 250;
 
+    private static final int PLAN_HASH_CACHE_SIZE = Integer.getInteger("running.execution.plan.hash.cache.size", 1000);
+
+    private static final int PLAN_INSERT_ATTEMPTS = 3;
+
     @Autowired
     private RunningExecutionPlanRepository runningExecutionPlanRepository;
 
+    @Autowired
+    private RunningExecutionPlanLinkRepository runningExecutionPlanLinkRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // the hash of plans that were already triggered, by identity, so triggering the same plan again does not serialize it.
+    // execution plans are not expected to change once they were triggered
+    private final Cache<ExecutionPlan, String> planHashes = CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumSize(PLAN_HASH_CACHE_SIZE)
+            .build();
+
     @Override
     @Transactional
     public RunningExecutionPlan createRunningExecutionPlan(RunningExecutionPlan runningExecutionPlan) {
@@ -83,12 +116,27 @@ public final class RunningExecutionPlanServiceImpl implements RunningExecutionPl
         int count = 0;
         List<List<String>> executionIdsPartitioned = Lists.partition(new ArrayList<>(executionIds), IN_CLAUSE_LIMIT);
         for (List<String> list : executionIdsPartitioned) {
-            count += runningExecutionPlanRepository.deleteByExecutionIds(list);
-            runningExecutionPlanRepository.flush();
+            count += runningExecutionPlanLinkRepository.deleteByExecutionIds(list);
+            runningExecutionPlanLinkRepository.flush();
         }
         return count;
     }
 
+    @Override
+    @Transactional
+    public int deleteOrphanRunningExecutionPlans(long gracePeriodMillis) {
+        long now = System.currentTimeMillis();
+        // a trigger may link a plan while it is being marked, it does not see the link yet
+        runningExecutionPlanRepository.reviveLinkedOrphans();
+        // plans marked in a previous pass and still not linked to any execution
+        int deleted = runningExecutionPlanRepository.deleteOrphans(now - gracePeriodMillis);
+        int marked = runningExecutionPlanRepository.markOrphans(now);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Deleted " + deleted + " orphan running execution plans, marked " + marked + " new orphans");
+        }
+        return deleted;
+    }
+
     private List<RunningExecutionPlan> readByFlowId(String flowUuid) {
         if (StringUtils.isEmpty(flowUuid))
             throw new IllegalArgumentException("Flow UUID is null or empty");
@@ -96,14 +144,71 @@ public final class RunningExecutionPlanServiceImpl implements RunningExecutionPl
     }
 
     private Long createNewRunningExecutionPlan(ExecutionPlan executionPlan, String executionId) {
-        //Create new and save in DB
-        RunningExecutionPlan runningExecutionPlan = new RunningExecutionPlan();
-        runningExecutionPlan.setFlowUUID(executionPlan.getFlowUuid());
-        runningExecutionPlan.setExecutionPlan(executionPlan);
-        runningExecutionPlan.setExecutionId(executionId);
+        String flowUuid = executionPlan.getFlowUuid();
+        Long runningExecutionPlanId = null;
+
+        String planHash = planHashes.getIfPresent(executionPlan);
+        if (planHash != null) {
+            runningExecutionPlanId = findRunningExecutionPlanId(planHash, flowUuid);
+        }
+        if (runningExecutionPlanId == null) {
+            byte[] serializedPlan = SerializationUtils.serialize(executionPlan);
+            planHash = Hashing.sha256().hashBytes(serializedPlan).toString();
+            planHashes.put(executionPlan, planHash);
+
+            runningExecutionPlanId = findRunningExecutionPlanId(planHash, flowUuid);
+            if (runningExecutionPlanId == null) {
+                runningExecutionPlanId = insertRunningExecutionPlan(flowUuid, planHash, serializedPlan);
+            }
+        }
 
-        runningExecutionPlan = createRunningExecutionPlan(runningExecutionPlan);
+        runningExecutionPlanLinkRepository.save(new RunningExecutionPlanLink(executionId, runningExecutionPlanId));
+        return runningExecutionPlanId;
+    }
 
-        return runningExecutionPlan.getId();
+    private Long findRunningExecutionPlanId(String planHash, String flowUuid) {
+        List<Long> ids = runningExecutionPlanRepository.findIdsByPlanHash(planHash, flowUuid);
+        if (ids.isEmpty()) {
+            return null;
+        }
+        // the plan may be marked by the cleanup, reviving it takes its row lock so it is not deleted under us
+        runningExecutionPlanRepository.reviveOrphan(ids.get(0));
+        return ids.get(0);
+    }
+
+    // Triggers of the same new plan race to insert it, PLAN_HASH is unique so only one of them succeeds.
+    // The insert runs in its own transaction, since a failed statement aborts the trigger's transaction on some databases
+    private Long insertRunningExecutionPlan(final String flowUuid, final String planHash, byte[] serializedPlan) {
+        final byte[] zippedPlan = ExecutionPlanCompressUtil.getZippedBytes(serializedPlan);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(new TransactionCallback<Long>() {
+                    @Override
+                    public Long doInTransaction(TransactionStatus status) {
+                        //Create new and save in DB
+                        RunningExecutionPlan runningExecutionPlan = new RunningExecutionPlan();
+                        runningExecutionPlan.setFlowUUID(flowUuid);
+                        runningExecutionPlan.setPlanHash(planHash);
+                        runningExecutionPlan.setExecutionPlanZipped(zippedPlan);
+                        return runningExecutionPlanRepository.saveAndFlush(runningExecutionPlan).getId();
+                    }
+                });
+            } catch (DataIntegrityViolationException ex) {
+                Long runningExecutionPlanId = findRunningExecutionPlanId(planHash, flowUuid);
+                if (runningExecutionPlanId != null) {
+                    return runningExecutionPlanId;
+                }
+                // the plan that was inserted concurrently was already deleted by the cleanup
+                if (attempt >= PLAN_INSERT_ATTEMPTS) {
+                    throw ex;
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Running execution plan " + planHash + " was deleted after a concurrent insert, inserting it again (attempt " + attempt + ")");
+                }
+            }
+        }
     }
 }
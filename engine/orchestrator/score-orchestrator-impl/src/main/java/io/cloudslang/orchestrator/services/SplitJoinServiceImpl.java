@@ -39,6 +39,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import static ch.lambdaj.Lambda.convert;
 import static ch.lambdaj.Lambda.extract;
@@ -155,6 +156,8 @@ public final class SplitJoinServiceImpl implements SplitJoinService {
         List<FinishedBranch> finishedBranches = convert(executions, executionToFinishedBranch);
 
         List<SuspendedExecution> suspendedExecutionsWithOneBranch = new ArrayList<>();
+        // suspended execution id -> the branches of it that finished in this bulk, by id so concurrent bulks lock in the same order
+        Map<Long, Integer> finishedBranchCounts = new TreeMap<>();
 
         // add each finished branch to it's parent
         for (FinishedBranch finishedBranch : finishedBranches) {
@@ -167,15 +170,34 @@ public final class SplitJoinServiceImpl implements SplitJoinService {
                     suspendedExecutionsWithOneBranch.add(suspendedExecution);
                 } else {
                     finishedBranchRepository.save(finishedBranch);
+                    Integer count = finishedBranchCounts.get(suspendedExecution.getId());
+                    finishedBranchCounts.put(suspendedExecution.getId(), count == null ? 1 : count + 1);
                 }
             }
         }
 
+        if (!finishedBranchCounts.isEmpty()) {
+            countFinishedBranches(finishedBranchCounts);
+        }
+
         if (!suspendedExecutionsWithOneBranch.isEmpty()) {
             joinAndSendToQueue(suspendedExecutionsWithOneBranch);
         }
     }
 
+    /*
+        adds the finished branches to the count of their suspended executions, and marks the suspended executions
+        whose branches all finished as ready to join, so the join job finds them by an index instead of counting branches.
+        the count is updated in the database, so it is locked until the end of the transaction and concurrent endBranch
+        calls of the same split are counted one after the other, the last of them marks the split as ready
+     */
+    private void countFinishedBranches(Map<Long, Integer> finishedBranchCounts) {
+        for (Map.Entry<Long, Integer> entry : finishedBranchCounts.entrySet()) {
+            suspendedExecutionsRepository.addFinishedBranches(entry.getKey(), entry.getValue());
+        }
+        suspendedExecutionsRepository.markReadyToJoin(new ArrayList<>(finishedBranchCounts.keySet()), System.currentTimeMillis());
+    }
+
     private Long findExecutionId(List<Execution> executions, String splitId) {
         for (Execution execution : executions) {
             if (execution.getSystemContext().getSplitId().equals(splitId)) {
@@ -189,7 +211,7 @@ public final class SplitJoinServiceImpl implements SplitJoinService {
     @Transactional
     public int joinFinishedSplits(int bulkSize) {
 
-        // 1. Find all suspended executions that have all their branches ended
+        // 1. Find all suspended executions that have all their branches ended, the oldest first
         PageRequest pageRequest = new PageRequest(0, bulkSize);
         List<SuspendedExecution> suspendedExecutions = suspendedExecutionsRepository.findFinishedSuspendedExecutions(pageRequest);
 
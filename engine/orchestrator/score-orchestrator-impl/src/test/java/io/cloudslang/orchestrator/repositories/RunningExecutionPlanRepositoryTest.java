@@ -0,0 +1,201 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.orchestrator.repositories;
+
+import io.cloudslang.engine.data.SimpleHiloIdentifierGenerator;
+import io.cloudslang.score.facade.entities.RunningExecutionPlan;
+import io.cloudslang.score.facade.entities.RunningExecutionPlanLink;
+import liquibase.integration.spring.SpringLiquibase;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.transaction.TransactionConfiguration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Properties;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+@Transactional
+@TransactionConfiguration(defaultRollback = true)
+public class RunningExecutionPlanRepositoryTest {
+
+    @Autowired
+    private RunningExecutionPlanRepository runningExecutionPlanRepository;
+
+    @Autowired
+    private RunningExecutionPlanLinkRepository runningExecutionPlanLinkRepository;
+
+    @Test
+    public void testFindIdsByPlanHash() {
+        RunningExecutionPlan plan = createRunningExecutionPlan("hash1");
+        createRunningExecutionPlan("hash2");
+
+        assertThat(runningExecutionPlanRepository.findIdsByPlanHash("hash1", "uuid")).containsExactly(plan.getId());
+        assertThat(runningExecutionPlanRepository.findIdsByPlanHash("hash1", "other uuid")).isEmpty();
+    }
+
+    @Test
+    public void testOrphanPlansAreDeletedAfterGracePeriod() {
+        RunningExecutionPlan linkedPlan = createRunningExecutionPlan("hash1");
+        RunningExecutionPlan orphanPlan = createRunningExecutionPlan("hash2");
+        runningExecutionPlanLinkRepository.saveAndFlush(new RunningExecutionPlanLink("1", linkedPlan.getId()));
+
+        // nothing is marked yet
+        assertThat(runningExecutionPlanRepository.deleteOrphans(Long.MAX_VALUE)).isEqualTo(0);
+        assertThat(runningExecutionPlanRepository.markOrphans(100L)).isEqualTo(1);
+        // marked plans are still found, the trigger that reuses them revives them
+        assertThat(runningExecutionPlanRepository.findIdsByPlanHash("hash2", "uuid")).containsExactly(orphanPlan.getId());
+
+        // still in the grace period
+        assertThat(runningExecutionPlanRepository.deleteOrphans(100L)).isEqualTo(0);
+        assertThat(runningExecutionPlanRepository.deleteOrphans(101L)).isEqualTo(1);
+
+        assertThat(runningExecutionPlanRepository.exists(orphanPlan.getId())).isFalse();
+        assertThat(runningExecutionPlanRepository.exists(linkedPlan.getId())).isTrue();
+    }
+
+    @Test
+    public void testRevivedPlanIsNotDeleted() {
+        RunningExecutionPlan plan = createRunningExecutionPlan("hash1");
+
+        assertThat(runningExecutionPlanRepository.markOrphans(100L)).isEqualTo(1);
+        assertThat(runningExecutionPlanRepository.reviveOrphan(plan.getId())).isEqualTo(1);
+        assertThat(runningExecutionPlanRepository.reviveOrphan(plan.getId())).isEqualTo(0);
+        runningExecutionPlanLinkRepository.saveAndFlush(new RunningExecutionPlanLink("1", plan.getId()));
+
+        assertThat(runningExecutionPlanRepository.deleteOrphans(Long.MAX_VALUE)).isEqualTo(0);
+        assertThat(runningExecutionPlanRepository.findIdsByPlanHash("hash1", "uuid")).containsExactly(plan.getId());
+
+        assertThat(runningExecutionPlanLinkRepository.deleteByExecutionIds(Collections.singletonList("1"))).isEqualTo(1);
+        assertThat(runningExecutionPlanRepository.markOrphans(200L)).isEqualTo(1);
+    }
+
+    @Test
+    public void testLinkedPlansAreRevived() {
+        RunningExecutionPlan plan = createRunningExecutionPlan("hash1");
+        createRunningExecutionPlan("hash2");
+
+        // linked after it was marked, as by a trigger that ran during the marking
+        assertThat(runningExecutionPlanRepository.markOrphans(100L)).isEqualTo(2);
+        runningExecutionPlanLinkRepository.saveAndFlush(new RunningExecutionPlanLink("1", plan.getId()));
+
+        assertThat(runningExecutionPlanRepository.reviveLinkedOrphans()).isEqualTo(1);
+        assertThat(runningExecutionPlanRepository.reviveOrphan(plan.getId())).isEqualTo(0);
+        assertThat(runningExecutionPlanRepository.deleteOrphans(Long.MAX_VALUE)).isEqualTo(1);
+        assertThat(runningExecutionPlanRepository.exists(plan.getId())).isTrue();
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    public void testPlanHashIsUnique() {
+        createRunningExecutionPlan("hash1");
+        createRunningExecutionPlan("hash1");
+    }
+
+    private RunningExecutionPlan createRunningExecutionPlan(String planHash) {
+        RunningExecutionPlan plan = new RunningExecutionPlan();
+        plan.setFlowUUID("uuid");
+        plan.setPlanHash(planHash);
+        plan.setExecutionPlanZipped(new byte[]{1, 2, 3});
+        return runningExecutionPlanRepository.saveAndFlush(plan);
+    }
+
+    @Configuration
+    @EnableJpaRepositories("io.cloudslang")
+    @EnableTransactionManagement
+    static class RunningExecutionPlanRepositoryTestContext {
+
+        @Bean
+        DataSource dataSource() {
+            BasicDataSource ds = new BasicDataSource();
+            ds.setDriverClassName("org.h2.Driver");
+            ds.setUrl("jdbc:h2:mem:plans");
+            ds.setUsername("sa");
+            ds.setPassword("sa");
+            ds.setDefaultAutoCommit(false);
+            return ds;
+        }
+
+        @Bean(name = "entityManagerFactory")
+        @DependsOn({"liquibase", "dataSource"})
+        LocalContainerEntityManagerFactoryBean emf(JpaVendorAdapter jpaVendorAdapter) {
+            SimpleHiloIdentifierGenerator.setDataSource(dataSource());
+            LocalContainerEntityManagerFactoryBean fb = new LocalContainerEntityManagerFactoryBean();
+            fb.setJpaProperties(hibernateProperties());
+            fb.setDataSource(dataSource());
+            fb.setPersistenceProviderClass(HibernatePersistenceProvider.class);
+            fb.setPackagesToScan("io.cloudslang");
+            fb.setJpaVendorAdapter(jpaVendorAdapter);
+            return fb;
+        }
+
+        @Bean
+        Properties hibernateProperties() {
+            return new Properties() {{
+                setProperty("hibernate.format_sql", "true");
+                setProperty("hibernate.hbm2ddl.auto", "create-drop");
+                setProperty("hibernate.cache.use_query_cache", "false");
+                setProperty("hibernate.generate_statistics", "false");
+                setProperty("hibernate.cache.use_second_level_cache", "false");
+                setProperty("hibernate.order_updates", "true");
+                setProperty("hibernate.order_inserts", "true");
+            }};
+        }
+
+        @Bean
+        JpaVendorAdapter jpaVendorAdapter() {
+            HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter();
+            adapter.setShowSql(false);
+            adapter.setGenerateDdl(true);
+            return adapter;
+        }
+
+        @Bean
+        SpringLiquibase liquibase() {
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(dataSource());
+            liquibase.setChangeLog("classpath:/META-INF/database/test-changes.xml");
+            return liquibase;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
+            return new JpaTransactionManager(emf);
+        }
+
+    }
+}
@@ -40,6 +40,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -143,6 +144,8 @@ public class SuspendedExecutionsRepositoryTest {
         finishedBranch.connectToSuspendedExecution(saved);
 
         finishedBranchRepository.save(finishedBranch);
+        repository.addFinishedBranches(saved.getId(), 1);
+        repository.markReadyToJoin(Arrays.asList(saved.getId()), System.currentTimeMillis());
 
         List<SuspendedExecution> read = repository.findFinishedSuspendedExecutions(new PageRequest(0, 100));
 
@@ -166,12 +169,37 @@ public class SuspendedExecutionsRepositoryTest {
         finishedBranch.connectToSuspendedExecution(saved);
 
         finishedBranchRepository.save(finishedBranch);
+        repository.addFinishedBranches(saved.getId(), 1);
+        repository.markReadyToJoin(Arrays.asList(saved.getId()), System.currentTimeMillis());
 
         List<SuspendedExecution> read = repository.findFinishedSuspendedExecutions(new PageRequest(0, 100));
 
         Assert.assertTrue(read.size()==0);
     }
 
+    @Test
+    public void markReadyToJoinTest(){
+
+        Map<String, String> contexts = new HashMap<>();
+        contexts.put("flowContext", "");
+        Execution exec = new Execution(2L, 0L, contexts);
+        SuspendedExecution saved = repository.save(new SuspendedExecution("111", "888", 3, exec));
+        List<Long> ids = Arrays.asList(saved.getId());
+
+        Assert.assertEquals(1, repository.addFinishedBranches(saved.getId(), 2));
+        Assert.assertEquals(0, repository.markReadyToJoin(ids, 1L));
+        Assert.assertTrue(repository.findFinishedSuspendedExecutions(new PageRequest(0, 100)).isEmpty());
+
+        Assert.assertEquals(1, repository.addFinishedBranches(saved.getId(), 1));
+        Assert.assertEquals(1, repository.markReadyToJoin(ids, 2L));
+        // a split that is ready keeps the time it got ready
+        Assert.assertEquals(0, repository.markReadyToJoin(ids, 3L));
+
+        List<SuspendedExecution> read = repository.findFinishedSuspendedExecutions(new PageRequest(0, 100));
+        Assert.assertEquals(1, read.size());
+        Assert.assertEquals("888", read.get(0).getSplitId());
+    }
+
 
     @Configuration
     @EnableJpaRepositories("io.cloudslang.orchestrator")
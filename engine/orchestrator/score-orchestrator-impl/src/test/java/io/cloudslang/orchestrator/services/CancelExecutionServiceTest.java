@@ -18,6 +18,7 @@ package io.cloudslang.orchestrator.services;
 
 import io.cloudslang.engine.queue.entities.ExecutionMessageConverter;
 import io.cloudslang.engine.queue.services.QueueDispatcherService;
+import io.cloudslang.engine.versioning.services.ConfigurationChangeService;
 import io.cloudslang.score.facade.entities.Execution;
 import io.cloudslang.score.facade.execution.ExecutionActionResult;
 import io.cloudslang.score.facade.execution.ExecutionStatus;
@@ -37,11 +38,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.EXECUTION_CANCELLED;
 import static io.cloudslang.score.facade.execution.ExecutionSummary.EMPTY_BRANCH;
 import static org.fest.assertions.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SuppressWarnings({"SpringContextConfigurationInspection"})
@@ -58,9 +62,12 @@ public class CancelExecutionServiceTest {
     @Autowired
     private ExecutionSerializationUtil executionSerializationUtil;
 
+    @Autowired
+    private ConfigurationChangeService configurationChangeService;
+
     @Before
     public void resetMocks() {
-        reset(executionStateService);
+        reset(executionStateService, configurationChangeService);
     }
 
     /////////////// requestCancelExecution ///////////////
@@ -88,6 +95,9 @@ public class CancelExecutionServiceTest {
 
         // Cancel
         checkValidRequestCancel(ExecutionStatus.CANCELED, ExecutionStatus.CANCELED, ExecutionActionResult.FAILED_ALREADY_CANCELED_OR_PENDING_CANCELLATION);
+
+        // recorded once for the running and once for the paused, not for the cancelled
+        verify(configurationChangeService, times(2)).recordChange(EXECUTION_CANCELLED, "111");
     }
 
     private void checkValidRequestCancel(ExecutionStatus origStatus, ExecutionStatus expStatusAfterCancellation, ExecutionActionResult expectedResult) {
@@ -258,6 +268,11 @@ public class CancelExecutionServiceTest {
             return mock(ExecutionStateService.class);
         }
 
+        @Bean
+        ConfigurationChangeService configurationChangeService() {
+            return mock(ConfigurationChangeService.class);
+        }
+
         @Bean
         QueueDispatcherService queueDispatcherService() {
             return mock(QueueDispatcherService.class);
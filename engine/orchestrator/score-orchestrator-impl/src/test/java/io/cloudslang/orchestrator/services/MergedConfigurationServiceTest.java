@@ -19,6 +19,10 @@ package io.cloudslang.orchestrator.services;
 import io.cloudslang.engine.node.services.WorkerNodeService;
 import io.cloudslang.engine.queue.entities.ExecutionMessageConverter;
 import io.cloudslang.engine.queue.services.QueueDispatcherService;
+import io.cloudslang.engine.versioning.entities.ConfigurationChange;
+import io.cloudslang.engine.versioning.services.ConfigurationChangeService;
+import io.cloudslang.orchestrator.entities.MergedConfigurationDataContainer;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,11 +32,23 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.EXECUTION_CANCELLED;
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.EXECUTION_PAUSED;
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.EXECUTION_RESUMED;
+import static io.cloudslang.engine.versioning.entities.ConfigurationChangeType.WORKER_GROUPS_CHANGED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SuppressWarnings({"SpringContextConfigurationInspection"})
@@ -49,7 +65,14 @@ public class MergedConfigurationServiceTest {
     private PauseResumeService pauseResumeService;
     @Autowired
     private WorkerNodeService workerNodeService;
+    @Autowired
+    private ConfigurationChangeService configurationChangeService;
 
+    @Before
+    public void resetMocks() {
+        reset(cancelExecutionService, pauseResumeService, workerNodeService, configurationChangeService);
+        ((MergedConfigurationServiceImpl) mergedConfigurationService).setReadAllPausedExecutions(false);
+    }
 
 
 @Test
@@ -92,6 +115,107 @@ public void testCancelledFlows(){
 
 
 
+    @Test
+    public void testWholeConfigurationHasVersion() {
+        when(configurationChangeService.readCurrentVersion()).thenReturn(7L);
+        MergedConfigurationDataContainer configuration = mergedConfigurationService.fetchMergedConfiguration("worker", -1);
+        assertFalse(configuration.isChangesOnly());
+        assertEquals(7L, configuration.getVersion());
+
+        when(workerNodeService.readWorkerGroups("worker")).thenThrow(new RuntimeException("failed"));
+        assertEquals(-1L, mergedConfigurationService.fetchMergedConfiguration("worker").getVersion());
+    }
+
+    @Test
+    public void testChangesOnly() {
+        when(configurationChangeService.readCurrentVersion()).thenReturn(15L);
+        when(configurationChangeService.readChanges(10L, 15L)).thenReturn(Arrays.asList(
+                new ConfigurationChange(11L, EXECUTION_CANCELLED, "111"),
+                new ConfigurationChange(12L, EXECUTION_PAUSED, "222:branch"),
+                new ConfigurationChange(13L, EXECUTION_PAUSED, "333:"),
+                new ConfigurationChange(14L, EXECUTION_RESUMED, "333:"),
+                new ConfigurationChange(15L, WORKER_GROUPS_CHANGED, "other")));
+
+        MergedConfigurationDataContainer configuration = mergedConfigurationService.fetchMergedConfiguration("worker", 10L);
+        assertTrue(configuration.isChangesOnly());
+        assertEquals(15L, configuration.getVersion());
+        assertEquals(Collections.singletonList(111L), configuration.getCancelledExecutions());
+        assertFalse(configuration.isPausedExecutionsComplete());
+        assertEquals(Collections.singleton("222:branch"), configuration.getPausedExecutions());
+        assertEquals(Collections.singleton("333:"), configuration.getResumedExecutions());
+        // the groups of another worker changed
+        assertNull(configuration.getWorkerGroups());
+        verify(cancelExecutionService, never()).readCanceledExecutionsIds();
+        verify(pauseResumeService, never()).readAllPausedExecutionBranchIds();
+    }
+
+    @Test
+    public void testChangesOnlyReadAllPausedExecutions() {
+        ((MergedConfigurationServiceImpl) mergedConfigurationService).setReadAllPausedExecutions(true);
+        when(configurationChangeService.readCurrentVersion()).thenReturn(12L);
+        when(configurationChangeService.readChanges(10L, 12L)).thenReturn(Arrays.asList(
+                new ConfigurationChange(11L, EXECUTION_PAUSED, "222:branch"),
+                new ConfigurationChange(12L, EXECUTION_RESUMED, "333:")));
+        when(pauseResumeService.readAllPausedExecutionBranchIds()).thenReturn(Collections.singleton("444:"));
+
+        MergedConfigurationDataContainer configuration = mergedConfigurationService.fetchMergedConfiguration("worker", 10L);
+        // all the paused branches, also the ones paused without a recorded change
+        assertTrue(configuration.isPausedExecutionsComplete());
+        assertEquals(Collections.singleton("444:"), configuration.getPausedExecutions());
+        assertNull(configuration.getResumedExecutions());
+    }
+
+    @Test
+    public void testChangesOnlyFallBackToRecordedPauses() {
+        ((MergedConfigurationServiceImpl) mergedConfigurationService).setReadAllPausedExecutions(true);
+        when(configurationChangeService.readCurrentVersion()).thenReturn(13L);
+        when(configurationChangeService.readChanges(10L, 13L)).thenReturn(Arrays.asList(
+                new ConfigurationChange(11L, EXECUTION_PAUSED, "222:branch"),
+                new ConfigurationChange(12L, EXECUTION_PAUSED, "333:"),
+                new ConfigurationChange(13L, EXECUTION_RESUMED, "333:")));
+        when(pauseResumeService.readAllPausedExecutionBranchIds()).thenThrow(new RuntimeException("failed"));
+
+        MergedConfigurationDataContainer configuration = mergedConfigurationService.fetchMergedConfiguration("worker", 10L);
+        assertTrue(configuration.isChangesOnly());
+        assertFalse(configuration.isPausedExecutionsComplete());
+        assertEquals(Collections.singleton("222:branch"), configuration.getPausedExecutions());
+        assertEquals(Collections.singleton("333:"), configuration.getResumedExecutions());
+    }
+
+    @Test
+    public void testChangedWorkerGroups() {
+        when(configurationChangeService.readCurrentVersion()).thenReturn(11L);
+        when(configurationChangeService.readChanges(10L, 11L)).thenReturn(Collections.singletonList(
+                new ConfigurationChange(11L, WORKER_GROUPS_CHANGED, "worker")));
+        when(workerNodeService.readWorkerGroups("worker")).thenReturn(Collections.singletonList("group"));
+
+        MergedConfigurationDataContainer configuration = mergedConfigurationService.fetchMergedConfiguration("worker", 10L);
+        assertTrue(configuration.isChangesOnly());
+        assertEquals(Collections.singletonList("group"), configuration.getWorkerGroups());
+    }
+
+    @Test
+    public void testDeletedChangesFetchWholeConfiguration() {
+        when(configurationChangeService.readCurrentVersion()).thenReturn(15L);
+        when(configurationChangeService.readChanges(10L, 15L)).thenReturn(Collections.singletonList(
+                new ConfigurationChange(15L, EXECUTION_CANCELLED, "111")));
+        when(cancelExecutionService.readCanceledExecutionsIds()).thenReturn(Collections.singletonList(111L));
+
+        MergedConfigurationDataContainer configuration = mergedConfigurationService.fetchMergedConfiguration("worker", 10L);
+        assertFalse(configuration.isChangesOnly());
+        assertEquals(15L, configuration.getVersion());
+        assertEquals(Collections.singletonList(111L), configuration.getCancelledExecutions());
+    }
+
+    @Test
+    public void testNoChanges() {
+        when(configurationChangeService.readCurrentVersion()).thenReturn(10L);
+        MergedConfigurationDataContainer configuration = mergedConfigurationService.fetchMergedConfiguration("worker", 10L);
+        assertTrue(configuration.isChangesOnly());
+        assertEquals(10L, configuration.getVersion());
+        assertTrue(configuration.getCancelledExecutions().isEmpty());
+    }
+
     @Configuration
     static class Configurator {
 
@@ -135,6 +259,11 @@ public void testCancelledFlows(){
             return mock(WorkerNodeService.class);
         }
 
+        @Bean
+        ConfigurationChangeService configurationChangeService() {
+            return mock(ConfigurationChangeService.class);
+        }
+
     }
 
     protected static String getWorkerUuid() {
@@ -153,6 +153,47 @@ public class OrchestratorDispatcherServiceTest {
             Mockito.verify(workerNodeService, times(0)).updateBulkNumber(uuid, newBulkNumber);
         }
 
+    @Test
+    public void shardDispatchTest(){
+        List<Message> messages = new ArrayList<>();
+        messages.add(new ExecutionMessage());
+
+        String uuid = "123";
+
+        WorkerNode node = new WorkerNode();
+        node.setBulkNumber("2");
+        node.setWorkerRecoveryVersion("1");
+
+        when(workerNodeService.readByUUID(anyString())).thenReturn(node);
+        when(workerNodeService.readBulkNumber(uuid, 3)).thenReturn("1");
+
+        //the bulk number of the worker is not the bulk number of the shard
+        orchestratorDispatcherService.dispatch(messages, "2", "1", uuid, 3);
+        Mockito.verify(workerLockService, times(1)).lockShard(uuid, 3);
+        Mockito.verify(workerLockService, times(0)).lock(uuid);
+        Mockito.verify(queueDispatcher, times(1)).dispatch(anyList());
+        Mockito.verify(workerNodeService, times(1)).updateBulkNumber(uuid, 3, "2");
+        Mockito.verify(workerNodeService, times(0)).updateBulkNumber(uuid, "2");
+    }
+
+    @Test
+    public void sameBulkShardDispatchTest(){
+        List<Message> messages = new ArrayList<>();
+        messages.add(new ExecutionMessage());
+
+        String uuid = "123";
+
+        WorkerNode node = new WorkerNode();
+        node.setWorkerRecoveryVersion("1");
+
+        when(workerNodeService.readByUUID(anyString())).thenReturn(node);
+        when(workerNodeService.readBulkNumber(uuid, 3)).thenReturn("1");
+
+        orchestratorDispatcherService.dispatch(messages, "1", "1", uuid, 3);
+        Mockito.verify(queueDispatcher, times(0)).dispatch(anyList());
+        Mockito.verify(workerNodeService, times(0)).updateBulkNumber(uuid, 3, "1");
+    }
+
     @Configuration
     static class EmptyConfig {
 
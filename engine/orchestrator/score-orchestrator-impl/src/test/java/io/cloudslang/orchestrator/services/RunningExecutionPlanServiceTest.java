@@ -19,7 +19,9 @@ package io.cloudslang.orchestrator.services;
 import io.cloudslang.score.facade.entities.RunningExecutionPlan;
 import io.cloudslang.score.facade.services.RunningExecutionPlanService;
 import io.cloudslang.score.api.ExecutionPlan;
+import io.cloudslang.orchestrator.repositories.RunningExecutionPlanLinkRepository;
 import io.cloudslang.orchestrator.repositories.RunningExecutionPlanRepository;
+import io.cloudslang.score.facade.entities.RunningExecutionPlanLink;
 import junit.framework.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -28,13 +30,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Arrays;
+import java.util.Collections;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -52,6 +62,12 @@ public class RunningExecutionPlanServiceTest {
     @Mock
     private RunningExecutionPlanRepository runningExecutionPlanRepository;
 
+    @Mock
+    private RunningExecutionPlanLinkRepository runningExecutionPlanLinkRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @Configuration
     static class EmptyConfig {
     }
@@ -76,10 +92,107 @@ public class RunningExecutionPlanServiceTest {
         runningExecutionPlan.setId(5L);
 
         when(runningExecutionPlanRepository.findByUuidCached(anyString())).thenReturn(Arrays.asList(oldRunningExecutionPlan));
-        when(runningExecutionPlanRepository.save(any(RunningExecutionPlan.class))).
+        when(runningExecutionPlanRepository.saveAndFlush(any(RunningExecutionPlan.class))).
                                                                                           thenReturn(runningExecutionPlan);
 
         Long id = runningExecutionPlanService.createRunningExecutionPlan(executionPlan, "11");
         Assert.assertEquals((Long) 5L, id);
     }
+
+    @Test
+    public void testCreateRunningExecutionPlanReusesExistingPlan() {
+        ExecutionPlan executionPlan = new ExecutionPlan();
+        executionPlan.setFlowUuid("uuid");
+
+        when(runningExecutionPlanRepository.findIdsByPlanHash(anyString(), eq("uuid"))).thenReturn(Arrays.asList(7L));
+
+        Long id = runningExecutionPlanService.createRunningExecutionPlan(executionPlan, "11");
+        Assert.assertEquals((Long) 7L, id);
+        verify(runningExecutionPlanRepository, never()).saveAndFlush(any(RunningExecutionPlan.class));
+        verify(runningExecutionPlanLinkRepository).save(any(RunningExecutionPlanLink.class));
+    }
+
+    @Test
+    public void testCreateRunningExecutionPlanStoresPlanOnce() {
+        ExecutionPlan executionPlan = new ExecutionPlan();
+        executionPlan.setFlowUuid("uuid");
+        RunningExecutionPlan runningExecutionPlan = new RunningExecutionPlan();
+        runningExecutionPlan.setId(5L);
+
+        when(runningExecutionPlanRepository.findIdsByPlanHash(anyString(), eq("uuid")))
+                .thenReturn(Collections.<Long>emptyList())
+                .thenReturn(Arrays.asList(5L));
+        when(runningExecutionPlanRepository.saveAndFlush(any(RunningExecutionPlan.class))).thenReturn(runningExecutionPlan);
+
+        Assert.assertEquals((Long) 5L, runningExecutionPlanService.createRunningExecutionPlan(executionPlan, "11"));
+        Assert.assertEquals((Long) 5L, runningExecutionPlanService.createRunningExecutionPlan(executionPlan, "12"));
+
+        verify(runningExecutionPlanRepository, times(1)).saveAndFlush(any(RunningExecutionPlan.class));
+        verify(runningExecutionPlanLinkRepository, times(2)).save(any(RunningExecutionPlanLink.class));
+    }
+
+    @Test
+    public void testCreateRunningExecutionPlanRevivesOrphanPlan() {
+        ExecutionPlan executionPlan = new ExecutionPlan();
+        executionPlan.setFlowUuid("uuid");
+
+        when(runningExecutionPlanRepository.findIdsByPlanHash(anyString(), eq("uuid"))).thenReturn(Arrays.asList(9L));
+        when(runningExecutionPlanRepository.reviveOrphan(9L)).thenReturn(1);
+
+        Assert.assertEquals((Long) 9L, runningExecutionPlanService.createRunningExecutionPlan(executionPlan, "11"));
+        verify(runningExecutionPlanRepository).reviveOrphan(9L);
+        verify(runningExecutionPlanRepository, never()).saveAndFlush(any(RunningExecutionPlan.class));
+    }
+
+    @Test
+    public void testCreateRunningExecutionPlanReusesConcurrentlyInsertedPlan() {
+        ExecutionPlan executionPlan = new ExecutionPlan();
+        executionPlan.setFlowUuid("uuid");
+
+        when(runningExecutionPlanRepository.findIdsByPlanHash(anyString(), eq("uuid")))
+                .thenReturn(Collections.<Long>emptyList())
+                .thenReturn(Arrays.asList(8L));
+        when(runningExecutionPlanRepository.saveAndFlush(any(RunningExecutionPlan.class)))
+                .thenThrow(new DataIntegrityViolationException("OO_RUNNING_EP_HASH_IDX"));
+
+        Assert.assertEquals((Long) 8L, runningExecutionPlanService.createRunningExecutionPlan(executionPlan, "11"));
+        verify(runningExecutionPlanLinkRepository).save(new RunningExecutionPlanLink("11", 8L));
+    }
+
+    @Test
+    public void testCreateRunningExecutionPlanInsertsAgainWhenConcurrentPlanIsDeleted() {
+        ExecutionPlan executionPlan = new ExecutionPlan();
+        executionPlan.setFlowUuid("uuid");
+        RunningExecutionPlan runningExecutionPlan = new RunningExecutionPlan();
+        runningExecutionPlan.setId(5L);
+
+        when(runningExecutionPlanRepository.findIdsByPlanHash(anyString(), eq("uuid"))).thenReturn(Collections.<Long>emptyList());
+        when(runningExecutionPlanRepository.saveAndFlush(any(RunningExecutionPlan.class)))
+                .thenThrow(new DataIntegrityViolationException("OO_RUNNING_EP_HASH_IDX"))
+                .thenReturn(runningExecutionPlan);
+
+        Assert.assertEquals((Long) 5L, runningExecutionPlanService.createRunningExecutionPlan(executionPlan, "11"));
+        verify(runningExecutionPlanRepository, times(2)).saveAndFlush(any(RunningExecutionPlan.class));
+    }
+
+    @Test(expected = DataIntegrityViolationException.class)
+    public void testCreateRunningExecutionPlanGivesUpAfterRepeatedConflicts() {
+        ExecutionPlan executionPlan = new ExecutionPlan();
+        executionPlan.setFlowUuid("uuid");
+
+        when(runningExecutionPlanRepository.findIdsByPlanHash(anyString(), eq("uuid"))).thenReturn(Collections.<Long>emptyList());
+        when(runningExecutionPlanRepository.saveAndFlush(any(RunningExecutionPlan.class)))
+                .thenThrow(new DataIntegrityViolationException("OO_RUNNING_EP_HASH_IDX"));
+
+        runningExecutionPlanService.createRunningExecutionPlan(executionPlan, "11");
+    }
+
+    @Test
+    public void testDeleteOrphanRunningExecutionPlans() {
+        when(runningExecutionPlanRepository.deleteOrphans(anyLong())).thenReturn(3);
+
+        Assert.assertEquals(3, runningExecutionPlanService.deleteOrphanRunningExecutionPlans(1000L));
+        verify(runningExecutionPlanRepository).reviveLinkedOrphans();
+        verify(runningExecutionPlanRepository).markOrphans(anyLong());
+    }
 }
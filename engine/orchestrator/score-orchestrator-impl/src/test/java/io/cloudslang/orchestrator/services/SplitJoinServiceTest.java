@@ -44,6 +44,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.data.domain.Pageable;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -154,6 +155,27 @@ public class SplitJoinServiceTest {
         splitJoinService.endBranch(Arrays.asList(branch1, branch2));
     }
 
+    @Test
+    public void countFinishedBranchesEndBranchTest() {
+        String splitId = UUID.randomUUID().toString();
+        Execution branch1 = createBranch(splitId);
+        Execution branch2 = createBranch(splitId);
+        SuspendedExecution suspendedExecution = Mockito.mock(SuspendedExecution.class);
+        Mockito.when(suspendedExecution.getId()).thenReturn(7L);
+        Mockito.when(suspendedExecution.getSplitId()).thenReturn(splitId);
+        Mockito.when(suspendedExecution.getNumberOfBranches()).thenReturn(3);
+        Mockito.when(suspendedExecution.getFinishedBranches()).thenReturn(new ArrayList<FinishedBranch>());
+        Mockito.when(suspendedExecutionsRepository.findBySplitIdIn(Arrays.asList(splitId, splitId))).thenReturn(Arrays.asList(suspendedExecution));
+
+        splitJoinService.endBranch(Arrays.asList(branch1, branch2));
+
+        Mockito.verify(finishedBranchRepository, Mockito.times(2)).save(any(FinishedBranch.class));
+        Mockito.verify(suspendedExecutionsRepository).addFinishedBranches(7L, 2);
+        Mockito.verify(suspendedExecutionsRepository).markReadyToJoin(Mockito.eq(Arrays.asList(7L)), Mockito.anyLong());
+        // the split is joined by the join job once it is ready
+        Mockito.verify(queueDispatcherService, Mockito.never()).dispatch(Mockito.anyList());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void nullParamEndBranchTest() {
         splitJoinService.endBranch(null);
@@ -228,6 +250,14 @@ public class SplitJoinServiceTest {
         return res;
     }
 
+    private Execution createBranch(String splitId) {
+        Execution branch = Mockito.mock(Execution.class);
+        SystemContext systemContext = Mockito.mock(SystemContext.class);
+        Mockito.when(branch.getSystemContext()).thenReturn(systemContext);
+        Mockito.when(systemContext.getSplitId()).thenReturn(splitId);
+        return branch;
+    }
+
     private SplitMessage createSplitMessage(String splitId) {
         return new SplitMessage(splitId, createExecution(1L), Arrays.asList(createExecution(2L)));
     }
@@ -0,0 +1,535 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.entities;
+
+import io.cloudslang.score.facade.entities.Execution;
+import io.cloudslang.score.lang.SystemContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * Binary codec for Execution, its SystemContext and the value types that are common in contexts.
+ * <p>
+ * Values of other types are written with Java serialization into a single object stream that follows the compact
+ * part, so class descriptors are written once per payload and references between those values are kept.
+ * Executions holding the same mutable object twice are left to JavaPayloadCodec, which keeps shared references.
+ * <p>
+ * The Encoder and Decoder are also used by SegmentedPayloadCodec to write every context entry as a separate slice.
+ */
+public class CompactPayloadCodec implements PayloadCodec {
+
+    public static final int ID = 1;
+
+    private static final byte FORMAT_VERSION = 1;
+    // format version + length of the compact part
+    private static final int HEADER_SIZE = 5;
+    private static final int LENGTH_SIZE = 4;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte UTF16_STRING = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte DOUBLE = 7;
+    private static final byte FLOAT = 8;
+    private static final byte SHORT = 9;
+    private static final byte BYTE = 10;
+    private static final byte CHARACTER = 11;
+    private static final byte BYTE_ARRAY = 12;
+    private static final byte DATE = 13;
+    private static final byte HASH_MAP = 14;
+    private static final byte LINKED_HASH_MAP = 15;
+    private static final byte ARRAY_LIST = 16;
+    private static final byte LINKED_LIST = 17;
+    private static final byte HASH_SET = 18;
+    private static final byte LINKED_HASH_SET = 19;
+    private static final byte ARRAY_DEQUE = 20;
+    private static final byte SYSTEM_CONTEXT = 21;
+    private static final byte JAVA_SERIALIZED = 100;
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean encode(Object obj, ByteArrayOutputStream out) throws IOException {
+        if (obj == null || obj.getClass() != Execution.class) {
+            return false;
+        }
+        Execution execution = (Execution) obj;
+        if (execution.getSystemContext() == null || execution.getSystemContext().getClass() != SystemContext.class) {
+            return false;
+        }
+        Encoder encoder = new Encoder(new IdentityHashMap<Object, Boolean>());
+        try {
+            encoder.writeExecution(execution);
+        } catch (SharedReferenceException ex) {
+            return false;
+        }
+        out.write(FORMAT_VERSION);
+        encoder.writeTo(out);
+        return true;
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset) throws IOException, ClassNotFoundException {
+        if (bytes.length < offset + HEADER_SIZE || bytes[offset] != FORMAT_VERSION) {
+            throw new StreamCorruptedException("Unsupported compact payload format");
+        }
+        return new Decoder(bytes, offset + 1, bytes.length - offset - 1).readExecution();
+    }
+
+    /**
+     * @return true for values that can not change after they are created
+     */
+    static boolean isImmutable(Object value) {
+        if (value == null || value instanceof Enum) {
+            return true;
+        }
+        Class<?> type = value.getClass();
+        return type == String.class || type == Integer.class || type == Long.class || type == Boolean.class ||
+                type == Double.class || type == Float.class || type == Short.class || type == Byte.class ||
+                type == Character.class;
+    }
+
+    /**
+     * Writes values as a compact part followed by an optional Java serialized part, the compact part is prefixed with its length.
+     * Mutable objects are recorded in the visited map, which may be shared by several encoders of the same payload.
+     */
+    static class Encoder {
+        private final ByteArrayOutputStream compactBytes = new ByteArrayOutputStream(ExecutionMessageConverter.SIZE);
+        private final DataOutputStream data = new DataOutputStream(compactBytes);
+        private final IdentityHashMap<Object, Boolean> visited;
+        private ByteArrayOutputStream javaBytes;
+        private ObjectOutputStream javaStream;
+
+        Encoder(IdentityHashMap<Object, Boolean> visited) {
+            this.visited = visited;
+        }
+
+        private void writeExecution(Execution execution) throws IOException {
+            writeNullableLong(execution.getExecutionId());
+            writeNullableLong(execution.getRunningExecutionPlanId());
+            writeNullableLong(execution.getPosition());
+            writeValue(execution.getGroupName());
+            writeValue(execution.getContexts());
+            writeSystemContext(execution.getSystemContext());
+        }
+
+        /**
+         * @return the number of bytes writeTo writes, no values can be written after calling it
+         */
+        int size() throws IOException {
+            if (javaStream != null) {
+                javaStream.close();
+            }
+            return LENGTH_SIZE + compactBytes.size() + (javaBytes == null ? 0 : javaBytes.size());
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            if (javaStream != null) {
+                javaStream.close();
+            }
+            int length = compactBytes.size();
+            out.write(length >>> 24);
+            out.write(length >>> 16);
+            out.write(length >>> 8);
+            out.write(length);
+            compactBytes.writeTo(out);
+            if (javaBytes != null) {
+                javaBytes.writeTo(out);
+            }
+        }
+
+        private void writeNullableLong(Long value) throws IOException {
+            if (value == null) {
+                data.writeByte(NULL);
+            } else {
+                data.writeByte(LONG);
+                data.writeLong(value);
+            }
+        }
+
+        void writeSystemContext(SystemContext systemContext) throws IOException {
+            visit(systemContext);
+            data.writeInt(systemContext.size());
+            for (Map.Entry<String, Serializable> entry : systemContext.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                data.writeByte(NULL);
+                return;
+            }
+            Class<?> type = value.getClass();
+            if (type == String.class) {
+                writeString((String) value);
+            } else if (type == Integer.class) {
+                data.writeByte(INTEGER);
+                data.writeInt((Integer) value);
+            } else if (type == Long.class) {
+                data.writeByte(LONG);
+                data.writeLong((Long) value);
+            } else if (type == Boolean.class) {
+                data.writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (type == Double.class) {
+                data.writeByte(DOUBLE);
+                data.writeDouble((Double) value);
+            } else if (type == Float.class) {
+                data.writeByte(FLOAT);
+                data.writeFloat((Float) value);
+            } else if (type == Short.class) {
+                data.writeByte(SHORT);
+                data.writeShort((Short) value);
+            } else if (type == Byte.class) {
+                data.writeByte(BYTE);
+                data.writeByte((Byte) value);
+            } else if (type == Character.class) {
+                data.writeByte(CHARACTER);
+                data.writeChar((Character) value);
+            } else if (type == byte[].class) {
+                visit(value);
+                byte[] bytes = (byte[]) value;
+                data.writeByte(BYTE_ARRAY);
+                data.writeInt(bytes.length);
+                data.write(bytes);
+            } else if (type == Date.class) {
+                visit(value);
+                data.writeByte(DATE);
+                data.writeLong(((Date) value).getTime());
+            } else if (type == HashMap.class) {
+                writeMap(HASH_MAP, (Map<?, ?>) value);
+            } else if (type == LinkedHashMap.class) {
+                writeMap(LINKED_HASH_MAP, (Map<?, ?>) value);
+            } else if (type == ArrayList.class) {
+                writeCollection(ARRAY_LIST, (Collection<?>) value);
+            } else if (type == LinkedList.class) {
+                writeCollection(LINKED_LIST, (Collection<?>) value);
+            } else if (type == HashSet.class) {
+                writeCollection(HASH_SET, (Collection<?>) value);
+            } else if (type == LinkedHashSet.class) {
+                writeCollection(LINKED_HASH_SET, (Collection<?>) value);
+            } else if (type == ArrayDeque.class) {
+                writeCollection(ARRAY_DEQUE, (Collection<?>) value);
+            } else if (type == SystemContext.class) {
+                data.writeByte(SYSTEM_CONTEXT);
+                writeSystemContext((SystemContext) value);
+            } else {
+                writeJavaSerialized(value);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (hasSurrogates(value)) {
+                // UTF-8 can not carry unpaired surrogates, keep the chars as they are
+                data.writeByte(UTF16_STRING);
+                data.writeInt(value.length());
+                data.writeChars(value);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                data.writeByte(STRING);
+                data.writeInt(bytes.length);
+                data.write(bytes);
+            }
+        }
+
+        private void writeMap(byte tag, Map<?, ?> map) throws IOException {
+            visit(map);
+            data.writeByte(tag);
+            data.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeCollection(byte tag, Collection<?> collection) throws IOException {
+            visit(collection);
+            data.writeByte(tag);
+            data.writeInt(collection.size());
+            for (Object element : collection) {
+                writeValue(element);
+            }
+        }
+
+        private void writeJavaSerialized(Object value) throws IOException {
+            if (javaStream == null) {
+                javaBytes = new ByteArrayOutputStream(ExecutionMessageConverter.SIZE);
+                javaStream = new VisitingObjectOutputStream(javaBytes);
+            }
+            data.writeByte(JAVA_SERIALIZED);
+            javaStream.writeObject(value);
+        }
+
+        private void visit(Object value) {
+            if (visited.put(value, Boolean.TRUE) != null) {
+                throw new SharedReferenceException();
+            }
+        }
+
+        static boolean hasSurrogates(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (Character.isSurrogate(value.charAt(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Records the objects written with Java serialization, so an object that is also written compactly or in
+         * another slice is found. Objects written twice to the same stream are written as a handle and not recorded again.
+         */
+        private class VisitingObjectOutputStream extends ObjectOutputStream {
+
+            private VisitingObjectOutputStream(OutputStream out) throws IOException {
+                super(out);
+                enableReplaceObject(true);
+            }
+
+            @Override
+            protected Object replaceObject(Object obj) throws IOException {
+                if (!isImmutable(obj)) {
+                    visit(obj);
+                }
+                return obj;
+            }
+        }
+    }
+
+    /**
+     * Reads the values written by an Encoder from bytes[offset, offset + length)
+     */
+    static class Decoder {
+        private final byte[] bytes;
+        private final DataInputStream data;
+        private final int javaOffset;
+        private final int end;
+        private ObjectInputStream javaStream;
+
+        Decoder(byte[] bytes, int offset, int length) {
+            if (length < LENGTH_SIZE) {
+                throw new IllegalArgumentException("Compact value is too short: " + length);
+            }
+            int compactLength = ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) |
+                    ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+            this.bytes = bytes;
+            this.data = new DataInputStream(new ByteArrayInputStream(bytes, offset + LENGTH_SIZE, compactLength));
+            this.javaOffset = offset + LENGTH_SIZE + compactLength;
+            this.end = offset + length;
+        }
+
+        /**
+         * Reads a single value and releases the decoder
+         */
+        Object readSingleValue() throws IOException, ClassNotFoundException {
+            try {
+                return readValue();
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Reads a single SystemContext into systemContext and releases the decoder
+         */
+        void readSingleSystemContext(SystemContext systemContext) throws IOException, ClassNotFoundException {
+            try {
+                readSystemContext(systemContext);
+            } finally {
+                close();
+            }
+        }
+
+        private void close() throws IOException {
+            if (javaStream != null) {
+                javaStream.close();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Execution readExecution() throws IOException, ClassNotFoundException {
+            try {
+                Execution execution = new Execution();
+                execution.setExecutionId(readNullableLong());
+                execution.setRunningExecutionPlanId(readNullableLong());
+                execution.setPosition(readNullableLong());
+                execution.setGroupName((String) readValue());
+                execution.setContexts((Map<String, Serializable>) readValue());
+                readSystemContext(execution.getSystemContext());
+                return execution;
+            } finally {
+                close();
+            }
+        }
+
+        private Long readNullableLong() throws IOException {
+            byte tag = data.readByte();
+            return tag == NULL ? null : data.readLong();
+        }
+
+        private void readSystemContext(SystemContext systemContext) throws IOException, ClassNotFoundException {
+            int size = data.readInt();
+            for (int i = 0; i < size; i++) {
+                systemContext.put((String) readValue(), (Serializable) readValue());
+            }
+        }
+
+        private Object readValue() throws IOException, ClassNotFoundException {
+            byte tag = data.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return new String(readBytes(), StandardCharsets.UTF_8);
+                case UTF16_STRING:
+                    return readUtf16String();
+                case INTEGER:
+                    return data.readInt();
+                case LONG:
+                    return data.readLong();
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case DOUBLE:
+                    return data.readDouble();
+                case FLOAT:
+                    return data.readFloat();
+                case SHORT:
+                    return data.readShort();
+                case BYTE:
+                    return data.readByte();
+                case CHARACTER:
+                    return data.readChar();
+                case BYTE_ARRAY:
+                    return readBytes();
+                case DATE:
+                    return new Date(data.readLong());
+                case HASH_MAP: {
+                    int size = data.readInt();
+                    return readMap(new HashMap<>(capacity(size)), size);
+                }
+                case LINKED_HASH_MAP: {
+                    int size = data.readInt();
+                    return readMap(new LinkedHashMap<>(capacity(size)), size);
+                }
+                case ARRAY_LIST: {
+                    int size = data.readInt();
+                    return readCollection(new ArrayList<>(size), size);
+                }
+                case LINKED_LIST:
+                    return readCollection(new LinkedList<>(), data.readInt());
+                case HASH_SET: {
+                    int size = data.readInt();
+                    return readCollection(new HashSet<>(capacity(size)), size);
+                }
+                case LINKED_HASH_SET: {
+                    int size = data.readInt();
+                    return readCollection(new LinkedHashSet<>(capacity(size)), size);
+                }
+                case ARRAY_DEQUE: {
+                    int size = data.readInt();
+                    return readCollection(new ArrayDeque<>(Math.max(size, 1)), size);
+                }
+                case SYSTEM_CONTEXT: {
+                    SystemContext systemContext = new SystemContext();
+                    readSystemContext(systemContext);
+                    return systemContext;
+                }
+                case JAVA_SERIALIZED:
+                    return readJavaSerialized();
+                default:
+                    throw new StreamCorruptedException("Unknown value tag " + tag);
+            }
+        }
+
+        private byte[] readBytes() throws IOException {
+            byte[] value = new byte[data.readInt()];
+            data.readFully(value);
+            return value;
+        }
+
+        private String readUtf16String() throws IOException {
+            char[] chars = new char[data.readInt()];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = data.readChar();
+            }
+            return new String(chars);
+        }
+
+        private Map<Object, Object> readMap(Map<Object, Object> map, int size) throws IOException, ClassNotFoundException {
+            for (int i = 0; i < size; i++) {
+                map.put(readValue(), readValue());
+            }
+            return map;
+        }
+
+        private Collection<Object> readCollection(Collection<Object> collection, int size) throws IOException, ClassNotFoundException {
+            for (int i = 0; i < size; i++) {
+                collection.add(readValue());
+            }
+            return collection;
+        }
+
+        private Object readJavaSerialized() throws IOException, ClassNotFoundException {
+            if (javaStream == null) {
+                javaStream = new ObjectInputStream(new ByteArrayInputStream(bytes, javaOffset, end - javaOffset));
+            }
+            return javaStream.readObject();
+        }
+
+        private static int capacity(int size) {
+            return Math.max((int) (size / 0.75f) + 1, 16);
+        }
+    }
+
+    /**
+     * Thrown when the same object is reached twice, the compact format would decode it as two objects
+     */
+    static class SharedReferenceException extends RuntimeException {
+        SharedReferenceException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -16,17 +16,12 @@
 
 package io.cloudslang.engine.queue.entities;
 
-import org.apache.commons.io.IOUtils;
 import io.cloudslang.score.facade.entities.Execution;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.List;
 
 /**
  * Created with IntelliJ IDEA.
@@ -40,6 +35,39 @@ public class ExecutionMessageConverter {
 	@Autowired(required = false)
 	private SensitiveDataHandler sensitiveDataHandler;
 
+	private final PayloadCodec[] codecs = new PayloadCodec[PayloadCodec.MAX_ID + 1];
+
+	// the codec new payloads are written with, payloads are always read with the codec that wrote them
+	private final int encodingCodecId;
+
+	// the java codec writes the payloads of the versions before the codecs, so they can be read by any engine or worker.
+	// another codec should be set only once all the engines and workers of the cluster can read it
+	public ExecutionMessageConverter() {
+		this(Integer.getInteger("execution.payload.codec", JavaPayloadCodec.ID));
+	}
+
+	ExecutionMessageConverter(int encodingCodecId) {
+		this.encodingCodecId = encodingCodecId;
+		registerCodec(new JavaPayloadCodec());
+		registerCodec(new CompactPayloadCodec());
+		registerCodec(new SegmentedPayloadCodec());
+	}
+
+	@Autowired(required = false)
+	public void setPayloadCodecs(List<PayloadCodec> payloadCodecs) {
+		for (PayloadCodec payloadCodec : payloadCodecs) {
+			registerCodec(payloadCodec);
+		}
+	}
+
+	private void registerCodec(PayloadCodec codec) {
+		int id = codec.getId();
+		if (id < 0 || id > PayloadCodec.MAX_ID) {
+			throw new IllegalArgumentException("Payload codec id must be between 0 and " + PayloadCodec.MAX_ID + ": " + codec.getClass().getName());
+		}
+		codecs[id] = codec;
+	}
+
 	public <T> T extractExecution(Payload payload) {
 		return objFromBytes(payload.getData());
 	}
@@ -66,74 +94,66 @@ public class ExecutionMessageConverter {
 	}
 
 	private <T> T objFromBytes(byte[] bytes) {
-		ObjectInputStream ois = null;
 		try {
-			//2 Buffers are added to increase performance
-			ByteArrayInputStream is = new ByteArrayInputStream(bytes);
-
-			skipPayloadMetaData(is);
-
-			BufferedInputStream bis = new BufferedInputStream(is);
-			ois = new ObjectInputStream(bis);
-
+			PayloadCodec codec = codecs[getCodecId(bytes)];
+			if (codec == null) {
+				throw new RuntimeException("Failed to read execution from byte[]. Unknown payload codec: " + getCodecId(bytes));
+			}
 			//noinspection unchecked
-			return (T)ois.readObject();
+			return (T) codec.decode(bytes, PAYLOAD_META_DATA_INIT_BYTES.length);
 		}
 		catch(IOException | ClassNotFoundException ex) {
 			throw new RuntimeException("Failed to read execution plan from byte[]. Error: ", ex);
 		}
-		finally {
-			IOUtils.closeQuietly(ois);
-		}
-
 	}
 
 	private byte[] objToBytes(Object obj){
-		ObjectOutputStream oos = null;
 		try {
 			ByteArrayOutputStream bout = new ByteArrayOutputStream(SIZE);
 
-			initPayloadMetaData(bout);
-
-			BufferedOutputStream bos = new BufferedOutputStream(bout);
-			oos = new ObjectOutputStream(bos);
-
-			oos.writeObject(obj);
-			oos.flush();
-
+			PayloadCodec codec = codecs[encodingCodecId];
+			if (codec == null || !encode(codec, obj, bout)) {
+				bout.reset();
+				encode(codecs[JavaPayloadCodec.ID], obj, bout);
+			}
 			return bout.toByteArray();
 		}
 		catch(IOException ex) {
 			throw new RuntimeException("Failed to serialize execution plan. Error: ", ex);
-		} finally {
-			IOUtils.closeQuietly(oos);
 		}
 	}
 
+	private boolean encode(PayloadCodec codec, Object obj, ByteArrayOutputStream bout) throws IOException {
+		initPayloadMetaData(bout, codec.getId());
+		return codec.encode(obj, bout);
+	}
+
 	/***************************************************************************************/
 	//we padding payload with clean bytes which then will be used for metadata writing
 	private static final byte[] PAYLOAD_META_DATA_INIT_BYTES = {0};
 
-	//for now meta data is only one byte
+	//for now meta data is only one byte: the lower bits are flags, the upper 4 bits are the id of the payload codec
 	private static final int INFRA_PART_BYTE = 0;
 
 	private static final int IS_SENSITIVE = 1;
 
+	private static final int CODEC_ID_SHIFT = 4;
+
 	private void setSensitive(Payload payload) {
-		payload.getData()[INFRA_PART_BYTE] = IS_SENSITIVE;
+		payload.getData()[INFRA_PART_BYTE] |= IS_SENSITIVE;
 	}
 
 	private boolean isSensitive(Payload payload) {
-		return payload.getData()[INFRA_PART_BYTE] == IS_SENSITIVE;
+		return (payload.getData()[INFRA_PART_BYTE] & IS_SENSITIVE) != 0;
 	}
 
-	private void skipPayloadMetaData(ByteArrayInputStream is) throws IOException {
-		for(int i = 0; i < PAYLOAD_META_DATA_INIT_BYTES.length; i++) {
-			is.read();
-		}
+	private int getCodecId(byte[] bytes) {
+		return (bytes[INFRA_PART_BYTE] >> CODEC_ID_SHIFT) & PayloadCodec.MAX_ID;
 	}
 
-	private void initPayloadMetaData(ByteArrayOutputStream baos) throws IOException {
-		baos.write(PAYLOAD_META_DATA_INIT_BYTES);
+	private void initPayloadMetaData(ByteArrayOutputStream baos, int codecId) throws IOException {
+		byte[] metaData = PAYLOAD_META_DATA_INIT_BYTES.clone();
+		metaData[INFRA_PART_BYTE] = (byte) (codecId << CODEC_ID_SHIFT);
+		baos.write(metaData);
 	}
 }
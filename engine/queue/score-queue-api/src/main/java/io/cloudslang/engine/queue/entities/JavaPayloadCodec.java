@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.entities;
+
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Plain Java serialization, the format of all the payloads written before codecs were introduced
+ */
+public class JavaPayloadCodec implements PayloadCodec {
+
+    public static final int ID = 0;
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean encode(Object obj, ByteArrayOutputStream out) throws IOException {
+        ObjectOutputStream oos = null;
+        try {
+            BufferedOutputStream bos = new BufferedOutputStream(out);
+            oos = new ObjectOutputStream(bos);
+
+            oos.writeObject(obj);
+            oos.flush();
+            return true;
+        } finally {
+            IOUtils.closeQuietly(oos);
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset) throws IOException, ClassNotFoundException {
+        ObjectInputStream ois = null;
+        try {
+            //2 Buffers are added to increase performance
+            ByteArrayInputStream is = new ByteArrayInputStream(bytes, offset, bytes.length - offset);
+            BufferedInputStream bis = new BufferedInputStream(is);
+            ois = new ObjectInputStream(bis);
+
+            return ois.readObject();
+        } finally {
+            IOUtils.closeQuietly(ois);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.entities;
+
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The contexts of an Execution read by SegmentedPayloadCodec.
+ * Every entry is kept as the slice of the payload it was read from, and is decoded the first time it is accessed.
+ * <p>
+ * Entries that were never decoded, or were decoded to an immutable value that was not replaced, still have their slice
+ * and are copied to the next payload as they are. Once every entry is decoded the slices are dropped,
+ * so the map does not keep the payload.
+ * <p>
+ * Reading an entry decodes it, so the map is synchronized to let threads read it concurrently like a HashMap,
+ * iterating over it while it is changed is not supported.
+ */
+final class LazyContextMap extends AbstractMap<String, Serializable> implements Serializable {
+
+    private static final long serialVersionUID = -3412097455512964837L;
+
+    // the decoded value of an entry or its Slice when it was not decoded yet
+    private final HashMap<String, Object> entries;
+    // the slices of decoded entries that can still be copied as they are
+    private final HashMap<String, Slice> unchangedSlices = new HashMap<>();
+    private int undecodedSlices;
+
+    LazyContextMap(int expectedSize) {
+        entries = new HashMap<>(Math.max((int) (expectedSize / 0.75f) + 1, 16));
+    }
+
+    synchronized void putSlice(String key, byte[] bytes, int offset, int length) {
+        dropped(entries.put(key, new Slice(bytes, offset, length)));
+        undecodedSlices++;
+    }
+
+    /**
+     * @return the slice the current value of key can be copied from, null if the value has to be encoded
+     */
+    synchronized Slice getSlice(String key) {
+        Object value = entries.get(key);
+        return value instanceof Slice ? (Slice) value : unchangedSlices.get(key);
+    }
+
+    @Override
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public synchronized boolean containsKey(Object key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public synchronized Serializable get(Object key) {
+        Object value = entries.get(key);
+        if (value instanceof Slice) {
+            value = decode((String) key, (Slice) value);
+            entries.put((String) key, value);
+        }
+        return (Serializable) value;
+    }
+
+    @Override
+    public synchronized Serializable put(String key, Serializable value) {
+        unchangedSlices.remove(key);
+        return resolve(key, entries.put(key, value));
+    }
+
+    @Override
+    public synchronized Serializable remove(Object key) {
+        unchangedSlices.remove(key);
+        return resolve((String) key, entries.remove(key));
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+        unchangedSlices.clear();
+        undecodedSlices = 0;
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return new AbstractSet<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                final Iterator<Entry<String, Object>> iterator = entries.entrySet().iterator();
+                return new Iterator<String>() {
+                    private Entry<String, Object> current;
+
+                    @Override
+                    public boolean hasNext() {
+                        synchronized (LazyContextMap.this) {
+                            return iterator.hasNext();
+                        }
+                    }
+
+                    @Override
+                    public String next() {
+                        synchronized (LazyContextMap.this) {
+                            current = iterator.next();
+                            return current.getKey();
+                        }
+                    }
+
+                    @Override
+                    public void remove() {
+                        synchronized (LazyContextMap.this) {
+                            Object value = current.getValue();
+                            iterator.remove();
+                            unchangedSlices.remove(current.getKey());
+                            dropped(value);
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return LazyContextMap.this.size();
+            }
+
+            @Override
+            public boolean contains(Object key) {
+                return LazyContextMap.this.containsKey(key);
+            }
+        };
+    }
+
+    @Override
+    public Set<Entry<String, Serializable>> entrySet() {
+        return new AbstractSet<Entry<String, Serializable>>() {
+            @Override
+            public Iterator<Entry<String, Serializable>> iterator() {
+                final Iterator<Entry<String, Object>> iterator = entries.entrySet().iterator();
+                return new Iterator<Entry<String, Serializable>>() {
+                    private String current;
+
+                    @Override
+                    public boolean hasNext() {
+                        synchronized (LazyContextMap.this) {
+                            return iterator.hasNext();
+                        }
+                    }
+
+                    @Override
+                    public Entry<String, Serializable> next() {
+                        final Entry<String, Object> entry;
+                        synchronized (LazyContextMap.this) {
+                            entry = iterator.next();
+                            current = entry.getKey();
+                            if (entry.getValue() instanceof Slice) {
+                                entry.setValue(decode(current, (Slice) entry.getValue()));
+                            }
+                        }
+                        return new Entry<String, Serializable>() {
+                            @Override
+                            public String getKey() {
+                                return entry.getKey();
+                            }
+
+                            @Override
+                            public Serializable getValue() {
+                                synchronized (LazyContextMap.this) {
+                                    return (Serializable) entry.getValue();
+                                }
+                            }
+
+                            @Override
+                            public Serializable setValue(Serializable value) {
+                                synchronized (LazyContextMap.this) {
+                                    unchangedSlices.remove(entry.getKey());
+                                    return (Serializable) entry.setValue(value);
+                                }
+                            }
+
+                            @Override
+                            public boolean equals(Object o) {
+                                if (!(o instanceof Entry)) {
+                                    return false;
+                                }
+                                Entry<?, ?> other = (Entry<?, ?>) o;
+                                return eq(getKey(), other.getKey()) && eq(getValue(), other.getValue());
+                            }
+
+                            @Override
+                            public int hashCode() {
+                                return (getKey() == null ? 0 : getKey().hashCode()) ^
+                                        (getValue() == null ? 0 : getValue().hashCode());
+                            }
+
+                            @Override
+                            public String toString() {
+                                return getKey() + "=" + getValue();
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        synchronized (LazyContextMap.this) {
+                            iterator.remove();
+                            unchangedSlices.remove(current);
+                        }
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return LazyContextMap.this.size();
+            }
+        };
+    }
+
+    private Serializable decode(String key, Slice slice) {
+        Object value = slice.decode(key);
+        if (CompactPayloadCodec.isImmutable(value)) {
+            unchangedSlices.put(key, slice);
+        }
+        dropped(slice);
+        return (Serializable) value;
+    }
+
+    private Serializable resolve(String key, Object value) {
+        if (value instanceof Slice) {
+            dropped(value);
+            return (Serializable) ((Slice) value).decode(key);
+        }
+        return (Serializable) value;
+    }
+
+    // once no entry is left to decode, only the slices of the unchanged entries keep the payload, they are dropped with it
+    private void dropped(Object value) {
+        if (value instanceof Slice && --undecodedSlices == 0) {
+            unchangedSlices.clear();
+        }
+    }
+
+    private static boolean eq(Object o1, Object o2) {
+        return o1 == null ? o2 == null : o1.equals(o2);
+    }
+
+    // the contexts are written as a plain HashMap when the execution is Java serialized
+    private synchronized Object writeReplace() throws ObjectStreamException {
+        return new HashMap<>(this);
+    }
+
+    /**
+     * A value encoded by CompactPayloadCodec.Encoder, kept in the payload it was read from
+     */
+    static final class Slice {
+        final byte[] bytes;
+        final int offset;
+        final int length;
+
+        private Slice(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private Object decode(String key) {
+            try {
+                return new CompactPayloadCodec.Decoder(bytes, offset, length).readSingleValue();
+            } catch (IOException | ClassNotFoundException ex) {
+                throw new RuntimeException("Failed to read execution context " + key + " from byte[]. Error: ", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.entities;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Encodes the objects carried by a Payload.
+ * The id of the codec is kept in the payload metadata byte, so every payload is decoded by the codec that encoded it.
+ */
+public interface PayloadCodec {
+
+    int MAX_ID = 15;
+
+    /**
+     * @return the id of the codec, between 0 and MAX_ID
+     */
+    int getId();
+
+    /**
+     * @param obj - the object to encode
+     * @param out - the stream to write the encoded object to
+     * @return false if this codec can not encode the object, anything written to out is discarded then
+     */
+    boolean encode(Object obj, ByteArrayOutputStream out) throws IOException;
+
+    /**
+     * @param bytes  - the payload data
+     * @param offset - where the encoded object starts in bytes
+     * @return the decoded object
+     */
+    Object decode(byte[] bytes, int offset) throws IOException, ClassNotFoundException;
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.entities;
+
+import io.cloudslang.score.facade.entities.Execution;
+import io.cloudslang.score.lang.SystemContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Codec for Execution that writes the SystemContext and every top level context entry as a separate slice,
+ * each slice is encoded by CompactPayloadCodec.Encoder.
+ * <p>
+ * The contexts of a decoded Execution are a LazyContextMap, so an entry is only decoded when it is read,
+ * and entries that were not changed are copied to the next payload without being decoded and encoded again.
+ * The SystemContext is always decoded since the worker and the engine read it on every step.
+ */
+public class SegmentedPayloadCodec implements PayloadCodec {
+
+    public static final int ID = 2;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte NULL = 0;
+    private static final byte NOT_NULL = 1;
+
+    private static final int NULL_CONTEXTS = -1;
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public boolean encode(Object obj, ByteArrayOutputStream out) throws IOException {
+        if (obj == null || obj.getClass() != Execution.class) {
+            return false;
+        }
+        Execution execution = (Execution) obj;
+        Map<String, Serializable> contexts = execution.getContexts();
+        if (execution.getSystemContext() == null || execution.getSystemContext().getClass() != SystemContext.class ||
+                (contexts != null && contexts.getClass() != HashMap.class && contexts.getClass() != LazyContextMap.class)) {
+            return false;
+        }
+        if (execution.getGroupName() != null && CompactPayloadCodec.Encoder.hasSurrogates(execution.getGroupName())) {
+            return false;
+        }
+        // shared by all the slices, a mutable object reached from two slices would be decoded as two objects
+        IdentityHashMap<Object, Boolean> visited = new IdentityHashMap<>();
+        try {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeByte(FORMAT_VERSION);
+            writeNullableLong(data, execution.getExecutionId());
+            writeNullableLong(data, execution.getRunningExecutionPlanId());
+            writeNullableLong(data, execution.getPosition());
+            writeNullableString(data, execution.getGroupName());
+
+            CompactPayloadCodec.Encoder systemContextEncoder = new CompactPayloadCodec.Encoder(visited);
+            systemContextEncoder.writeSystemContext(execution.getSystemContext());
+            data.writeInt(systemContextEncoder.size());
+            systemContextEncoder.writeTo(data);
+
+            if (contexts == null) {
+                data.writeInt(NULL_CONTEXTS);
+            } else {
+                data.writeInt(contexts.size());
+                LazyContextMap lazyContexts = contexts instanceof LazyContextMap ? (LazyContextMap) contexts : null;
+                for (String key : contexts.keySet()) {
+                    if (key == null || CompactPayloadCodec.Encoder.hasSurrogates(key)) {
+                        return false;
+                    }
+                    writeString(data, key);
+                    LazyContextMap.Slice slice = lazyContexts == null ? null : lazyContexts.getSlice(key);
+                    if (slice != null) {
+                        data.writeInt(slice.length);
+                        data.write(slice.bytes, slice.offset, slice.length);
+                    } else {
+                        CompactPayloadCodec.Encoder encoder = new CompactPayloadCodec.Encoder(visited);
+                        encoder.writeValue(contexts.get(key));
+                        data.writeInt(encoder.size());
+                        encoder.writeTo(data);
+                    }
+                }
+            }
+            data.flush();
+            return true;
+        } catch (CompactPayloadCodec.SharedReferenceException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public Object decode(byte[] bytes, int offset) throws IOException, ClassNotFoundException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, bytes.length - offset);
+        try {
+            if (buffer.get() != FORMAT_VERSION) {
+                throw new StreamCorruptedException("Unsupported segmented payload format");
+            }
+            Execution execution = new Execution();
+            execution.setExecutionId(readNullableLong(buffer));
+            execution.setRunningExecutionPlanId(readNullableLong(buffer));
+            execution.setPosition(readNullableLong(buffer));
+            execution.setGroupName(readNullableString(buffer));
+
+            int systemContextLength = buffer.getInt();
+            new CompactPayloadCodec.Decoder(bytes, buffer.position(), systemContextLength)
+                    .readSingleSystemContext(execution.getSystemContext());
+            skip(buffer, systemContextLength);
+
+            int size = buffer.getInt();
+            if (size == NULL_CONTEXTS) {
+                execution.setContexts(null);
+            } else {
+                LazyContextMap contexts = new LazyContextMap(size);
+                for (int i = 0; i < size; i++) {
+                    String key = readString(buffer);
+                    int length = buffer.getInt();
+                    contexts.putSlice(key, bytes, buffer.position(), length);
+                    skip(buffer, length);
+                }
+                execution.setContexts(contexts);
+            }
+            return execution;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new StreamCorruptedException("Segmented payload is truncated: " + ex);
+        }
+    }
+
+    private static void writeNullableLong(DataOutputStream data, Long value) throws IOException {
+        if (value == null) {
+            data.writeByte(NULL);
+        } else {
+            data.writeByte(NOT_NULL);
+            data.writeLong(value);
+        }
+    }
+
+    private static void writeNullableString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeByte(NULL);
+        } else {
+            data.writeByte(NOT_NULL);
+            writeString(data, value);
+        }
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static Long readNullableLong(ByteBuffer buffer) {
+        return buffer.get() == NULL ? null : buffer.getLong();
+    }
+
+    private static String readNullableString(ByteBuffer buffer) {
+        return buffer.get() == NULL ? null : readString(buffer);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        skip(buffer, length);
+        return value;
+    }
+
+    private static void skip(ByteBuffer buffer, int length) {
+        buffer.position(buffer.position() + length);
+    }
+}
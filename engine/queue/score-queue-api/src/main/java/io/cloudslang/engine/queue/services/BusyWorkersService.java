@@ -16,8 +16,36 @@
 
 package io.cloudslang.engine.queue.services;
 
+import java.util.Collection;
+
 public interface BusyWorkersService {
     boolean isWorkerBusy(String workerId);
     void findBusyWorkers();
     void clearBusyWorkers();
+
+    /**
+     * Marks the workers as busy and wakes up their pending long polls.
+     * Called once messages were assigned to the workers and the assignment is visible to other transactions.
+     *
+     * @param workerIds the workers that got new assigned messages
+     */
+    void markWorkersBusy(Collection<String> workerIds);
+
+    /**
+     * Waits until the worker is marked as busy, and consumes the mark so the next wait blocks again
+     * until new messages are assigned.
+     *
+     * @param workerId the worker uuid
+     * @param timeoutMillis the max time to wait
+     * @return true if the worker is busy, false if the timeout passed or the waiting thread was interrupted
+     */
+    boolean awaitWorkerBusy(String workerId, long timeoutMillis);
+
+    /**
+     * Forgets a worker that is recovered, because it went down or was deleted,
+     * and releases its pending long polls.
+     *
+     * @param workerId the worker uuid
+     */
+    void removeWorker(String workerId);
 }
@@ -48,6 +48,18 @@ public interface QueueDispatcherService {
      */
 	List<ExecutionMessage> poll(String uuid, int maxSize);
 
+    /**
+     *
+     * Long poll variant of {@link #poll(String, int)}: the request is parked until messages are assigned
+     * to the worker, or until the timeout passes
+     *
+     * @param uuid the worker id
+     * @param maxSize max size of the poll bulk
+     * @param timeoutMillis max time to wait for assigned messages
+     * @return a list of {@link io.cloudslang.engine.queue.entities.ExecutionMessage}, empty if the timeout passed
+     */
+	List<ExecutionMessage> poll(String uuid, int maxSize, long timeoutMillis);
+
     /**
      *
      * Dispatch one message to the queue
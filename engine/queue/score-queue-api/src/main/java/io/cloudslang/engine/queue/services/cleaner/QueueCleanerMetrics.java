@@ -0,0 +1,40 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.engine.queue.services.cleaner;
+
+/**
+ * Reports the progress of QueueCleanerService#cleanFinishedSteps(), picked up when registered as a bean
+ */
+public interface QueueCleanerMetrics {
+
+    /**
+     *
+     * called after every chunk of finished exec states was deleted, or failed to be deleted
+     *
+     * @param cleaned the exec states cleaned so far in this run
+     * @param backlog the finished exec states read from the queue and not cleaned yet
+     * @param rowsPerSecond the exec states cleaned per second in this run, including the pauses between chunks
+     */
+    void chunkCleaned(long cleaned, long backlog, double rowsPerSecond);
+
+    /**
+     *
+     * called once the queue was read to its end, the backlog is what failed to be deleted
+     *
+     */
+    void cleanFinished(long cleaned, long backlog, double rowsPerSecond);
+}
@@ -42,4 +42,21 @@ public interface QueueCleanerService {
      * @param ids the ids to clean data for
      */
     void cleanFinishedSteps(Set<Long> ids);
+
+    /**
+     *
+     * clean queues data of all the finished executions, the ids are streamed from the queue
+     * and deleted in chunks, each chunk in a transaction of its own
+     *
+     * @return the number of finished exec states that were cleaned
+     */
+    long cleanFinishedSteps();
+
+    /**
+     *
+     * rolls the partitions of the queue tables when queue partitions are enabled,
+     * finished steps are removed by truncating the oldest partition
+     *
+     */
+    void rollQueuePartitions();
 }
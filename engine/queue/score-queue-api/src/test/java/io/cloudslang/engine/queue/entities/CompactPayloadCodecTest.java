@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.entities;
+
+import io.cloudslang.score.facade.entities.Execution;
+import io.cloudslang.score.lang.SystemContext;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CompactPayloadCodecTest {
+
+    private ExecutionMessageConverter converter = new ExecutionMessageConverter(CompactPayloadCodec.ID);
+
+    @Test
+    public void testExecutionRoundTrip() {
+        Execution execution = createExecution();
+
+        Payload payload = converter.createPayload(execution);
+        assertEquals(CompactPayloadCodec.ID << 4, payload.getData()[0]);
+
+        Execution afterConvert = converter.extractExecution(payload);
+        assertEquals(execution.getExecutionId(), afterConvert.getExecutionId());
+        assertEquals(execution.getRunningExecutionPlanId(), afterConvert.getRunningExecutionPlanId());
+        assertEquals(execution.getPosition(), afterConvert.getPosition());
+        assertEquals(execution.getGroupName(), afterConvert.getGroupName());
+        assertContextsEqual(execution, afterConvert);
+        assertEquals(LinkedHashMap.class, afterConvert.getContexts().get("linkedMap").getClass());
+        assertEquals(ArrayDeque.class, afterConvert.getSystemContext().get("deque").getClass());
+    }
+
+    @Test
+    public void testValuesOfOtherTypesKeepTheirReferences() {
+        Execution execution = new Execution(1L, 2L, 3L, new HashMap<String, Serializable>(), null);
+        MyValue value = new MyValue("shared");
+        execution.getContexts().put("first", value);
+        execution.getContexts().put("second", value);
+        execution.getSystemContext().put("decimal", new BigDecimal("1.5"));
+
+        Execution afterConvert = converter.extractExecution(converter.createPayload(execution));
+
+        assertEquals("shared", ((MyValue) afterConvert.getContexts().get("first")).name);
+        assertSame(afterConvert.getContexts().get("first"), afterConvert.getContexts().get("second"));
+        assertEquals(new BigDecimal("1.5"), afterConvert.getSystemContext().get("decimal"));
+    }
+
+    @Test
+    public void testSharedContainerFallsBackToJavaSerialization() {
+        Execution execution = new Execution(1L, 2L, 3L, new HashMap<String, Serializable>(), null);
+        ArrayList<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+        execution.getContexts().put("first", list);
+        execution.getSystemContext().put("second", list);
+
+        Payload payload = converter.createPayload(execution, true);
+        assertEquals((JavaPayloadCodec.ID << 4) | 1, payload.getData()[0]);
+        assertTrue(converter.containsSensitiveData(payload));
+
+        Execution afterConvert = converter.extractExecution(payload);
+        assertSame(afterConvert.getContexts().get("first"), afterConvert.getSystemContext().get("second"));
+    }
+
+    @Test
+    public void testSensitiveCompactPayload() {
+        Payload payload = converter.createPayload(createExecution(), true);
+
+        assertEquals((CompactPayloadCodec.ID << 4) | 1, payload.getData()[0]);
+        assertTrue(converter.containsSensitiveData(payload));
+        assertEquals(Long.valueOf(100L), converter.<Execution>extractExecution(payload).getExecutionId());
+
+        assertFalse(converter.containsSensitiveData(converter.createPayload(createExecution())));
+    }
+
+    @Test
+    public void testReadsJavaSerializedPayload() throws Exception {
+        Execution execution = createExecution();
+        // the format of the payloads written before codecs were introduced
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        bout.write(0);
+        ObjectOutputStream oos = new ObjectOutputStream(bout);
+        oos.writeObject(execution);
+        oos.close();
+
+        Execution afterConvert = converter.extractExecution(new Payload(bout.toByteArray()));
+        assertContextsEqual(execution, afterConvert);
+    }
+
+    @Test
+    public void testNullsAndSurrogates() {
+        Execution execution = new Execution(null, null, null, null, null);
+        execution.getSystemContext().put("surrogate", "a\uD800b");
+        execution.getSystemContext().put("nullValue", null);
+        execution.setContexts(null);
+
+        Execution afterConvert = converter.extractExecution(converter.createPayload(execution));
+        assertNull(afterConvert.getExecutionId());
+        assertNull(afterConvert.getContexts());
+        assertEquals("a\uD800b", afterConvert.getSystemContext().get("surrogate"));
+        assertTrue(afterConvert.getSystemContext().containsKey("nullValue"));
+    }
+
+    @Test
+    public void testNestedSystemContext() {
+        Execution execution = createExecution();
+        SystemContext branchContext = new SystemContext();
+        branchContext.put("branch", "value");
+        execution.getSystemContext().put("branchContext", branchContext);
+
+        Execution afterConvert = converter.extractExecution(converter.createPayload(execution));
+        Serializable branchAfterConvert = afterConvert.getSystemContext().get("branchContext");
+        assertEquals(SystemContext.class, branchAfterConvert.getClass());
+        assertEquals(new HashMap<>(branchContext), new HashMap<>((SystemContext) branchAfterConvert));
+        assertNotSame(branchContext, branchAfterConvert);
+    }
+
+    private static void assertContextsEqual(Execution expected, Execution actual) {
+        // byte arrays are compared by content
+        Map<String, Serializable> expectedContexts = new HashMap<>(expected.getContexts());
+        Map<String, Serializable> actualContexts = new HashMap<>(actual.getContexts());
+        assertArrayEquals((byte[]) expectedContexts.remove("bytes"), (byte[]) actualContexts.remove("bytes"));
+        assertEquals(expectedContexts, actualContexts);
+        // neither SystemContext nor ArrayDeque implement equals
+        Map<String, Serializable> expectedSystemContext = new HashMap<>(expected.getSystemContext());
+        Map<String, Serializable> actualSystemContext = new HashMap<>(actual.getSystemContext());
+        assertEquals(new ArrayList<>((ArrayDeque<?>) expectedSystemContext.remove("deque")),
+                new ArrayList<>((ArrayDeque<?>) actualSystemContext.remove("deque")));
+        assertEquals(expectedSystemContext, actualSystemContext);
+    }
+
+    private static Execution createExecution() {
+        Map<String, Serializable> contexts = new HashMap<>();
+        contexts.put("string", "value \u05e9\u05dc\u05d5\u05dd");
+        contexts.put("int", 5);
+        contexts.put("long", 6L);
+        contexts.put("double", 1.5d);
+        contexts.put("float", 2.5f);
+        contexts.put("short", (short) 7);
+        contexts.put("byte", (byte) 8);
+        contexts.put("char", 'c');
+        contexts.put("true", true);
+        contexts.put("false", false);
+        contexts.put("date", new Date(1000L));
+        contexts.put("bytes", new byte[]{1, 2, 3});
+        contexts.put("null", null);
+        LinkedHashMap<String, Serializable> linkedMap = new LinkedHashMap<>();
+        linkedMap.put("b", 1);
+        linkedMap.put("a", new ArrayList<>(Arrays.asList("x", "y")));
+        contexts.put("linkedMap", linkedMap);
+        contexts.put("set", new HashSet<>(Arrays.asList(1, 2, 3)));
+        contexts.put("linkedList", new LinkedList<>(Arrays.asList("1", null)));
+
+        Map<String, Serializable> systemContext = new HashMap<>();
+        systemContext.put("deque", new ArrayDeque<>(Arrays.asList("e1", "e2")));
+        systemContext.put("custom", new MyValue("custom"));
+        Execution execution = new Execution(100L, 200L, 3L, contexts, systemContext);
+        execution.setGroupName("group");
+        return execution;
+    }
+
+    private static class MyValue implements Serializable {
+        private final String name;
+
+        private MyValue(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MyValue && name.equals(((MyValue) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+}
@@ -61,6 +61,18 @@ public class ExecutionMessageConverterTest {
         assertEquals(execution.getRunningExecutionPlanId(), afterConvert.getRunningExecutionPlanId());
     }
 
+    @Test
+    public void testPayloadIsJavaSerializedByDefault() {
+        MyExecutionForTest execution = new MyExecutionForTest(111L, 999L, 0L, new ArrayList<String>());
+
+        byte[] data = executionMessageConverter.createPayload(execution).getData();
+
+        // the payload of the versions before the codecs: a clean meta data byte and a java serialization stream
+        assertEquals(0, data[0] >> 4);
+        assertEquals((byte) 0xAC, data[1]);
+        assertEquals((byte) 0xED, data[2]);
+    }
+
     @Test
     public void testCreatePayloadAndSensitiveDataHandlerReturnsFalse() {
         when(sensitiveDataHandler.containsSensitiveData(any(SystemContext.class), anyMap())).thenReturn(false);
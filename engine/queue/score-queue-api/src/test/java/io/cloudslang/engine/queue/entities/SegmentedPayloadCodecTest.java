@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.entities;
+
+import io.cloudslang.score.facade.entities.Execution;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SegmentedPayloadCodecTest {
+
+    private ExecutionMessageConverter converter = new ExecutionMessageConverter(SegmentedPayloadCodec.ID);
+
+    @Before
+    public void init() {
+        CountingValue.reads = 0;
+    }
+
+    @Test
+    public void testExecutionRoundTrip() {
+        Execution execution = createExecution();
+
+        Payload payload = converter.createPayload(execution);
+        assertEquals(SegmentedPayloadCodec.ID << 4, payload.getData()[0]);
+
+        Execution afterConvert = converter.extractExecution(payload);
+        assertEquals(Long.valueOf(100L), afterConvert.getExecutionId());
+        assertEquals(Long.valueOf(200L), afterConvert.getRunningExecutionPlanId());
+        assertEquals(Long.valueOf(3L), afterConvert.getPosition());
+        assertEquals("group", afterConvert.getGroupName());
+        assertEquals("step", afterConvert.getSystemContext().get("stepName"));
+        assertEquals(execution.getContexts().keySet(), afterConvert.getContexts().keySet());
+        for (String key : Arrays.asList("string", "flowContext", "counting")) {
+            assertEquals(execution.getContexts().get(key), afterConvert.getContexts().get(key));
+        }
+        assertArrayEquals((byte[]) execution.getContexts().get("bytes"), (byte[]) afterConvert.getContexts().get("bytes"));
+    }
+
+    @Test
+    public void testEntriesAreDecodedWhenRead() {
+        Execution afterConvert = converter.extractExecution(converter.createPayload(createExecution()));
+
+        assertTrue(afterConvert.getContexts().containsKey("counting"));
+        assertEquals(4, afterConvert.getContexts().size());
+        assertEquals(0, CountingValue.reads);
+
+        assertEquals("counting", ((CountingValue) afterConvert.getContexts().get("counting")).name);
+        afterConvert.getContexts().get("counting");
+        assertEquals(1, CountingValue.reads);
+    }
+
+    @Test
+    public void testUnchangedEntriesAreCopied() {
+        Payload payload = converter.createPayload(createExecution());
+        Execution afterConvert = converter.extractExecution(payload);
+        afterConvert.getSystemContext().put("stepName", "next");
+        assertEquals("value", afterConvert.getContexts().get("string"));
+
+        Execution afterSecondConvert = converter.extractExecution(converter.createPayload(afterConvert));
+        assertEquals(0, CountingValue.reads);
+        assertEquals("next", afterSecondConvert.getSystemContext().get("stepName"));
+        assertEquals("value", afterSecondConvert.getContexts().get("string"));
+        assertEquals("counting", ((CountingValue) afterSecondConvert.getContexts().get("counting")).name);
+
+        // nothing but the system context changed
+        Execution unchanged = converter.extractExecution(payload);
+        unchanged.getContexts().get("string");
+        unchanged.getContexts().get("flowContext");
+        assertEquals(1, CountingValue.reads);
+        unchanged.getSystemContext().put("stepName", "next");
+        assertArrayEquals(converter.createPayload(afterConvert).getData(), converter.createPayload(unchanged).getData());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testChangedEntriesAreEncoded() {
+        Execution afterConvert = converter.extractExecution(converter.createPayload(createExecution()));
+        ((Map<String, Serializable>) afterConvert.getContexts().get("flowContext")).put("output", "result");
+        afterConvert.getContexts().put("string", "replaced");
+        afterConvert.getContexts().put("added", 7);
+        afterConvert.getContexts().remove("counting");
+
+        Execution afterSecondConvert = converter.extractExecution(converter.createPayload(afterConvert));
+        Map<String, Serializable> contexts = afterSecondConvert.getContexts();
+        assertEquals("result", ((Map<String, Serializable>) contexts.get("flowContext")).get("output"));
+        assertEquals("replaced", contexts.get("string"));
+        assertEquals(7, contexts.get("added"));
+        assertFalse(contexts.containsKey("counting"));
+        assertEquals(4, contexts.size());
+    }
+
+    @Test
+    public void testEntrySetIteration() {
+        Execution afterConvert = converter.extractExecution(converter.createPayload(createExecution()));
+        Iterator<Map.Entry<String, Serializable>> iterator = afterConvert.getContexts().entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Serializable> entry = iterator.next();
+            if (entry.getKey().equals("string")) {
+                entry.setValue("changed");
+            } else if (entry.getKey().equals("counting")) {
+                iterator.remove();
+            }
+        }
+
+        Execution afterSecondConvert = converter.extractExecution(converter.createPayload(afterConvert));
+        assertEquals("changed", afterSecondConvert.getContexts().get("string"));
+        assertFalse(afterSecondConvert.getContexts().containsKey("counting"));
+        assertEquals(1, CountingValue.reads);
+    }
+
+    @Test
+    public void testPayloadIsReleasedOnceEveryEntryIsDecoded() {
+        Execution afterConvert = converter.extractExecution(converter.createPayload(createExecution()));
+        LazyContextMap contexts = (LazyContextMap) afterConvert.getContexts();
+        contexts.get("string");
+        contexts.remove("bytes");
+        assertTrue(contexts.getSlice("string") != null);
+
+        contexts.get("flowContext");
+        contexts.get("counting");
+        for (String key : contexts.keySet()) {
+            assertNull(contexts.getSlice(key));
+        }
+        assertEquals("value", converter.<Execution>extractExecution(converter.createPayload(afterConvert)).getContexts().get("string"));
+    }
+
+    @Test
+    public void testConcurrentReads() throws InterruptedException {
+        final Map<String, Serializable> contexts = converter.<Execution>extractExecution(converter.createPayload(createExecution())).getContexts();
+        final AtomicInteger failures = new AtomicInteger();
+        Thread[] readers = new Thread[4];
+        for (int i = 0; i < readers.length; i++) {
+            readers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (Map.Entry<String, Serializable> entry : contexts.entrySet()) {
+                        if (entry.getValue() == null || contexts.get(entry.getKey()) != entry.getValue()) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            readers[i].start();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertEquals(1, CountingValue.reads);
+    }
+
+    @Test
+    public void testValueSharedBetweenEntriesFallsBackToJavaSerialization() {
+        Execution execution = new Execution(1L, 2L, 3L, new HashMap<String, Serializable>(), null);
+        ArrayList<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+        execution.getContexts().put("list", list);
+        execution.getContexts().put("holder", new Holder(list));
+
+        Payload payload = converter.createPayload(execution);
+        assertEquals(JavaPayloadCodec.ID << 4, payload.getData()[0]);
+
+        Execution afterConvert = converter.extractExecution(payload);
+        assertSame(afterConvert.getContexts().get("list"), ((Holder) afterConvert.getContexts().get("holder")).list);
+    }
+
+    @Test
+    public void testLazyContextsAreJavaSerializedAsHashMap() {
+        Execution afterConvert = converter.extractExecution(converter.createPayload(createExecution()));
+        ExecutionMessageConverter javaConverter = new ExecutionMessageConverter(JavaPayloadCodec.ID);
+
+        Execution afterJavaConvert = javaConverter.extractExecution(javaConverter.createPayload(afterConvert));
+        assertEquals(HashMap.class, afterJavaConvert.getContexts().getClass());
+        assertEquals("value", afterJavaConvert.getContexts().get("string"));
+    }
+
+    @Test
+    public void testNulls() {
+        Execution execution = new Execution(null, null, null, null, null);
+        execution.getContexts().put("null", null);
+
+        Execution afterConvert = converter.extractExecution(converter.createPayload(execution));
+        assertNull(afterConvert.getExecutionId());
+        assertNull(afterConvert.getGroupName());
+        assertTrue(afterConvert.getContexts().containsKey("null"));
+        assertNull(afterConvert.getContexts().get("null"));
+
+        execution.setContexts(null);
+        assertNull(converter.<Execution>extractExecution(converter.createPayload(execution)).getContexts());
+    }
+
+    private static Execution createExecution() {
+        Map<String, Serializable> contexts = new HashMap<>();
+        contexts.put("string", "value");
+        HashMap<String, Serializable> flowContext = new HashMap<>();
+        flowContext.put("input", 1);
+        contexts.put("flowContext", flowContext);
+        contexts.put("counting", new CountingValue("counting"));
+        contexts.put("bytes", new byte[]{1, 2, 3});
+
+        Map<String, Serializable> systemContext = new HashMap<>();
+        systemContext.put("stepName", "step");
+        Execution execution = new Execution(100L, 200L, 3L, contexts, systemContext);
+        execution.setGroupName("group");
+        return execution;
+    }
+
+    private static class CountingValue implements Serializable {
+        private static int reads;
+
+        private final String name;
+
+        private CountingValue(String name) {
+            this.name = name;
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            reads++;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CountingValue && name.equals(((CountingValue) o).name);
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+    }
+
+    private static class Holder implements Serializable {
+        private final ArrayList<String> list;
+
+        private Holder(ArrayList<String> list) {
+            this.list = list;
+        }
+    }
+}
@@ -41,6 +41,8 @@ public interface ExecutionQueueRepository {
 
 	long generateExecStateId();
 
+	List<Long> generateExecStateIds(int count);
+
 	void insertExecutionStates(final List<ExecutionMessage> stateMessages);
 
 	void insertExecutionQueue(final List<ExecutionMessage> messages,long version);
@@ -49,8 +51,40 @@ public interface ExecutionQueueRepository {
 
     void deleteFinishedSteps(Set<Long> ids);
 
+    void deleteFinishedSteps(long[] ids, int length);
+
     Set<Long> getFinishedExecStateIds();
 
+	/**
+	 * Reads a page of the ids of the finished exec states in ascending order. The statement is closed when the page is read,
+	 * so its exec states can be deleted before the next page is read.
+	 *
+	 * @param afterExecStateId only the exec states after it are read, the last one of the previous page
+	 * @param pageSize max number of rows read
+	 * @return the distinct ids of the page
+	 */
+	List<Long> findFinishedExecStateIds(long afterExecStateId, int pageSize);
+
 	List<ExecutionMessage> findByStatuses(int maxSize, ExecStatus... statuses);
 	List<String> getBusyWorkers(ExecStatus... statuses);
+
+	/**
+	 * @return the number of messages in every status, counting only the latest message of an exec state
+	 */
+	Map<ExecStatus, Long> countMessagesByStatus();
+
+	/**
+	 * Deletes the stale queue heads and adds the missing ones, needed once after the engines ran without queue heads.
+	 * Must be called in a transaction, a concurrent insert of a head fails it and it can be run again.
+	 *
+	 * @return the number of heads deleted and added, 0 when the queue heads are disabled
+	 */
+	int synchronizeQueueHeads();
+
+	/**
+	 * Drops the partitions of the queue read so far, called after the partitions are rolled
+	 */
+	void refreshQueuePartitions();
+
+	QueueStatementMetrics getStatementMetrics();
 }
@@ -17,6 +17,7 @@
 package io.cloudslang.engine.queue.repositories;
 
 import io.cloudslang.engine.data.IdentityGenerator;
+import io.cloudslang.engine.partitions.services.PartitionTemplate;
 import io.cloudslang.engine.queue.entities.ExecStatus;
 import io.cloudslang.engine.queue.entities.ExecutionMessage;
 import io.cloudslang.engine.queue.entities.Payload;
@@ -24,25 +25,34 @@ import io.cloudslang.engine.queue.services.StatementAwareJdbcTemplateWrapper;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 
 import javax.annotation.PostConstruct;
 import javax.sql.DataSource;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * User:
@@ -61,6 +71,15 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 			"        (STATUS = "+ExecStatus.FAILED.getNumber()+") OR " +
 			"        (STATUS = "+ExecStatus.FINISHED.getNumber()+") ";
 
+	// a page of the finished exec states after the last one read, the same exec state may repeat on following rows
+	final private String SELECT_FINISHED_STEPS_IDS_PAGE =  " SELECT EXEC_STATE_ID FROM OO_EXECUTION_QUEUES " +
+			" WHERE " +
+			"        ((STATUS = "+ExecStatus.TERMINATED.getNumber()+") OR " +
+			"        (STATUS = "+ExecStatus.FAILED.getNumber()+") OR " +
+			"        (STATUS = "+ExecStatus.FINISHED.getNumber()+")) AND " +
+			"        (EXEC_STATE_ID > ?) " +
+			" ORDER BY EXEC_STATE_ID";
+
 	final private String QUERY_DELETE_FINISHED_STEPS_FROM_QUEUES = "DELETE FROM OO_EXECUTION_QUEUES " +
 			" WHERE EXEC_STATE_ID in (:ids)";
 
@@ -173,6 +192,129 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 
 	private static final String QUERY_PAYLOAD_BY_EXECUTION_IDS = "SELECT ID, PAYLOAD FROM OO_EXECUTION_STATES WHERE ID IN (:IDS)";
 
+	// Queries used when queue heads are enabled: OO_EXECUTION_QUEUE_HEADS holds only the newest message of every exec state,
+	// so there is no need to look for a newer message with the NOT EXISTS sub query.
+	final private String QUERY_DELETE_FINISHED_STEPS_FROM_HEADS = "DELETE FROM OO_EXECUTION_QUEUE_HEADS " +
+			" WHERE EXEC_STATE_ID in (:ids)";
+
+	final private String QUERY_MESSAGES_WITHOUT_ACK_FROM_HEADS_SQL =
+			"SELECT EXEC_STATE_ID,      " +
+					"       ASSIGNED_WORKER,      " +
+					"       EXEC_GROUP ,       " +
+					"       STATUS,       " +
+					"       MSG_SEQ_ID,   " +
+					"      CREATE_TIME " +
+					"  FROM  OO_EXECUTION_QUEUE_HEADS h  " +
+					"  WHERE " +
+					"      (h.STATUS  = ? ) AND " +
+					"      (h.MSG_VERSION < ?) ";
+
+	final private String QUERY_COUNT_MESSAGES_WITHOUT_ACK_FOR_WORKER_FROM_HEADS_SQL =
+			"SELECT COUNT(*)  " +
+					"  FROM  OO_EXECUTION_QUEUE_HEADS  h  " +
+					"  WHERE " +
+					"      (h.ASSIGNED_WORKER  = ? ) AND " +
+					"      (h.STATUS  = ? ) AND " +
+					"      (h.MSG_VERSION < ?)  ";
+
+	final private String QUERY_WORKER_FROM_HEADS_BODY_SQL =
+			"SELECT EXEC_STATE_ID,      " +
+					"       ASSIGNED_WORKER,      " +
+					"       EXEC_GROUP ,       " +
+					"       STATUS,       " +
+					"       PAYLOAD,       " +
+					"       MSG_SEQ_ID ,      " +
+					"       MSG_ID," +
+					"       h.CREATE_TIME " +
+					" FROM  OO_EXECUTION_QUEUE_HEADS h,  " +
+					"      OO_EXECUTION_STATES s   " +
+					" WHERE  " +
+					"      (h.ASSIGNED_WORKER =  ?)  AND " +
+					"      (h.STATUS IN (:status)) AND " +
+					" (h.EXEC_STATE_ID = s.ID) ";
+
+	final private String QUERY_WORKER_FROM_HEADS_SQL = QUERY_WORKER_FROM_HEADS_BODY_SQL + " ORDER BY h.CREATE_TIME  ";
+
+	// the CREATE_TIME column of the union of QUERY_WORKER_FROM_HEADS_BODY_SQL over the states partitions
+	final private String ORDER_BY_CREATE_TIME = " ORDER BY CREATE_TIME  ";
+
+	final private String QUERY_WORKER_RECOVERY_FROM_HEADS_SQL =
+			"SELECT         EXEC_STATE_ID,      " +
+					"       ASSIGNED_WORKER,      " +
+					"       EXEC_GROUP,       " +
+					"       STATUS,       " +
+					"       PAYLOAD,       " +
+					"       MSG_SEQ_ID,      " +
+					"       MSG_ID," +
+					"       h.CREATE_TIME " +
+					" FROM  OO_EXECUTION_QUEUE_HEADS h,  " +
+					"       OO_EXECUTION_STATES s1   " +
+					" WHERE  " +
+					"      (h.ASSIGNED_WORKER =  ?)  AND " +
+					"      (h.STATUS IN (:status)) AND " +
+					" h.EXEC_STATE_ID = s1.ID ";
+
+	final private String QUERY_MESSAGES_BY_STATUSES_FROM_HEADS =
+			"SELECT EXEC_STATE_ID, " +
+					"  ASSIGNED_WORKER, " +
+					"  EXEC_GROUP , " +
+					"  STATUS, " +
+					"  MSG_SEQ_ID, " +
+					"  CREATE_TIME " +
+					"FROM  OO_EXECUTION_QUEUE_HEADS h  " +
+					"WHERE STATUS IN (:status)";
+
+	final private String BUSY_WORKERS_FROM_HEADS_SQL =
+			"SELECT ASSIGNED_WORKER      " +
+					" FROM  OO_EXECUTION_QUEUE_HEADS h  " +
+					" WHERE  " +
+					"      (h.STATUS IN (:status)) " +
+					" GROUP BY ASSIGNED_WORKER";
+
+	final private String COUNT_BY_STATUS_SQL =
+			"SELECT STATUS, COUNT(*) AS MESSAGES " +
+					" FROM  OO_EXECUTION_QUEUES q  " +
+					" WHERE NOT EXISTS (SELECT qq.MSG_SEQ_ID " +
+					"              FROM OO_EXECUTION_QUEUES qq " +
+					"              WHERE (qq.EXEC_STATE_ID = q.EXEC_STATE_ID) AND qq.MSG_SEQ_ID > q.MSG_SEQ_ID) " +
+					" GROUP BY STATUS";
+
+	final private String COUNT_BY_STATUS_FROM_HEADS_SQL =
+			"SELECT STATUS, COUNT(*) AS MESSAGES " +
+					" FROM  OO_EXECUTION_QUEUE_HEADS h  " +
+					" GROUP BY STATUS";
+
+	final private String UPDATE_QUEUE_HEAD = "UPDATE OO_EXECUTION_QUEUE_HEADS SET ASSIGNED_WORKER = ?, EXEC_GROUP = ?, STATUS = ?, MSG_SEQ_ID = ?, CREATE_TIME = ?, MSG_VERSION = ? " +
+			" WHERE EXEC_STATE_ID = ? AND MSG_SEQ_ID < ?";
+
+	final private String INSERT_QUEUE_HEAD = "INSERT INTO OO_EXECUTION_QUEUE_HEADS (EXEC_STATE_ID, ASSIGNED_WORKER, EXEC_GROUP, STATUS, MSG_SEQ_ID, CREATE_TIME, MSG_VERSION) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+	final private String QUERY_EXISTING_QUEUE_HEADS = "SELECT EXEC_STATE_ID FROM OO_EXECUTION_QUEUE_HEADS WHERE EXEC_STATE_ID IN (:ids)";
+
+	// Used to bring the heads table in line with OO_EXECUTION_QUEUES, in case the engines ran without queue heads for a while.
+	// Run on demand through the ExecutionQueueMBean, never on startup, since every engine of the cluster would run it at once.
+	final private String DELETE_STALE_QUEUE_HEADS = "DELETE FROM OO_EXECUTION_QUEUE_HEADS " +
+			" WHERE EXISTS (SELECT q.MSG_SEQ_ID " +
+			"               FROM OO_EXECUTION_QUEUES q " +
+			"               WHERE (q.EXEC_STATE_ID = OO_EXECUTION_QUEUE_HEADS.EXEC_STATE_ID) AND q.MSG_SEQ_ID > OO_EXECUTION_QUEUE_HEADS.MSG_SEQ_ID)";
+
+	final private String INSERT_MISSING_QUEUE_HEADS = "INSERT INTO OO_EXECUTION_QUEUE_HEADS (EXEC_STATE_ID, ASSIGNED_WORKER, EXEC_GROUP, STATUS, MSG_SEQ_ID, CREATE_TIME, MSG_VERSION) " +
+			" SELECT q.EXEC_STATE_ID, q.ASSIGNED_WORKER, q.EXEC_GROUP, q.STATUS, q.MSG_SEQ_ID, q.CREATE_TIME, q.MSG_VERSION " +
+			" FROM OO_EXECUTION_QUEUES q " +
+			" WHERE (NOT EXISTS (SELECT qq.MSG_SEQ_ID " +
+			"                    FROM OO_EXECUTION_QUEUES qq " +
+			"                    WHERE (qq.EXEC_STATE_ID = q.EXEC_STATE_ID) AND qq.MSG_SEQ_ID > q.MSG_SEQ_ID)) AND " +
+			" (NOT EXISTS (SELECT h.EXEC_STATE_ID " +
+			"              FROM OO_EXECUTION_QUEUE_HEADS h " +
+			"              WHERE h.EXEC_STATE_ID = q.EXEC_STATE_ID))";
+
+	private static final int QUEUE_HEADS_IN_CLAUSE_LIMIT = 500;
+
+	// another engine may insert the head of the same exec state between the update and the insert, the update is then retried
+	private static final int QUEUE_HEADS_WRITE_ATTEMPTS = 3;
+
+	private static final long QUEUE_PARTITIONS_REFRESH_MILLIS = Long.getLong("queue.partitions.refresh.millis", 60 * 1000L);
+
 
 	//We use dedicated JDBC templates for each query since JDBCTemplate is state-full object and we have different settings for each query.
 	private StatementAwareJdbcTemplateWrapper pollJdbcTemplate;
@@ -186,6 +328,26 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 	private JdbcTemplate deleteFinishedStepsJdbcTemplate;
 	private JdbcTemplate findPayloadByExecutionIdsJdbcTemplate;
 	private JdbcTemplate getBusyWorkersJdbcTemplate;
+	private JdbcTemplate countMessagesByStatusJdbcTemplate;
+	private JdbcTemplate queueHeadsJdbcTemplate;
+
+	// When enabled, the newest message of every exec state is kept in OO_EXECUTION_QUEUE_HEADS and all polling is done on it
+	private boolean queueHeadsEnabled = Boolean.getBoolean("queue.heads.enabled");
+
+	// When enabled, new messages and states are written to the active partition of OO_EXECUTION_QUEUES and OO_EXECUTION_STATES.
+	// The partitions hold finished steps once they are older than the previous partition, and are truncated when rolled.
+	private boolean queuePartitionsEnabled = QueuePartitions.isEnabled();
+
+	@Autowired(required = false)
+	@Qualifier(QueuePartitions.GROUP_NAME)
+	private PartitionTemplate queuePartitionTemplate;
+
+	// the active, previous and next partitions of OO_EXECUTION_QUEUES
+	private volatile List<String> queuePartitions;
+	private volatile long queuePartitionsReadTime;
+
+	// recorded on every statement, read through the ExecutionQueueMBean
+	private final QueueStatementMetrics statementMetrics = new QueueStatementMetrics();
 
 	@Autowired
 	private IdentityGenerator idGen;
@@ -207,6 +369,86 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 		deleteFinishedStepsJdbcTemplate = new JdbcTemplate(dataSource);
 		findPayloadByExecutionIdsJdbcTemplate = new JdbcTemplate(dataSource);
 		getBusyWorkersJdbcTemplate = new JdbcTemplate(dataSource);
+		countMessagesByStatusJdbcTemplate = new JdbcTemplate(dataSource);
+		queueHeadsJdbcTemplate = new JdbcTemplate(dataSource);
+
+		if (queuePartitionsEnabled) {
+			if (queuePartitionTemplate == null) {
+				throw new IllegalStateException("Queue partitions are enabled, but there is no partition template for " + QueuePartitions.GROUP_NAME);
+			}
+			if (!queueHeadsEnabled) {
+				// the partitions of OO_EXECUTION_QUEUES are never searched for the newest message of an exec state
+				throw new IllegalStateException("Queue partitions are enabled, but queue heads are not. Set queue.heads.enabled " +
+						"and synchronize the queue heads through the ExecutionQueueMBean before enabling the partitions");
+			}
+		}
+	}
+
+	public void setQueueHeadsEnabled(boolean queueHeadsEnabled) {
+		this.queueHeadsEnabled = queueHeadsEnabled;
+	}
+
+	public void setQueuePartitionsEnabled(boolean queuePartitionsEnabled) {
+		this.queuePartitionsEnabled = queuePartitionsEnabled;
+		this.queuePartitions = null;
+	}
+
+	@Override
+	public void refreshQueuePartitions() {
+		queuePartitions = null;
+	}
+
+	// The next partition is read as well, since another engine may have rolled to it before the partitions are read again.
+	// A state that is still in use is never in an older partition, ExecutionStatesCallback carries it forward.
+	private List<String> getQueuePartitions() {
+		List<String> partitions = queuePartitions;
+		long now = System.currentTimeMillis();
+		if (partitions == null || now - queuePartitionsReadTime > QUEUE_PARTITIONS_REFRESH_MILLIS) {
+			List<String> tables = queuePartitionTemplate.reversedTables();
+			partitions = Arrays.asList(tables.get(0), tables.get(1), tables.get(tables.size() - 1));
+			queuePartitions = partitions;
+			queuePartitionsReadTime = now;
+		}
+		return partitions;
+	}
+
+	private String activeQueueTable() {
+		return getQueuePartitions().get(0);
+	}
+
+	// OO_EXECUTION_STATES itself is read until the states written before the partitions were enabled are cleaned
+	private List<String> readableStatesTables() {
+		List<String> tables = new ArrayList<>();
+		tables.add(QueuePartitions.STATES_TABLE);
+		for (String queueTable : getQueuePartitions()) {
+			tables.add(QueuePartitions.statesTable(queueTable));
+		}
+		return tables;
+	}
+
+	// the union of the query over all the readable states tables, the values are repeated for every table
+	private String unionOverStatesTables(String sql, Object[] values, List<Object> unionValues) {
+		StringBuilder union = new StringBuilder();
+		for (String table : readableStatesTables()) {
+			if (union.length() > 0) {
+				union.append(" UNION ALL ");
+			}
+			union.append(sql.replace(QueuePartitions.STATES_TABLE, table));
+			unionValues.addAll(Arrays.asList(values));
+		}
+		return union.toString();
+	}
+
+	@Override
+	public int synchronizeQueueHeads() {
+		if (!queueHeadsEnabled) {
+			return 0;
+		}
+		long t = System.currentTimeMillis();
+		int deletedRows = queueHeadsJdbcTemplate.update(DELETE_STALE_QUEUE_HEADS);
+		int insertedRows = queueHeadsJdbcTemplate.update(INSERT_MISSING_QUEUE_HEADS);
+		logger.info("Synchronized queue heads in " + (System.currentTimeMillis() - t) + " ms: " + deletedRows + " stale, " + insertedRows + " added");
+		return deletedRows + insertedRows;
 	}
 
 	@Override
@@ -215,53 +457,221 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 	}
 
 	@Override
-	public void insertExecutionStates(final List<ExecutionMessage> stateMessages) {
-		String insertExecStateSQL = INSERT_EXEC_STATE;
-		insertExecutionJdbcTemplate.batchUpdate(insertExecStateSQL, new BatchPreparedStatementSetter() {
-
-			@Override
-			public void setValues(PreparedStatement ps, int i) throws SQLException {
-				ExecutionMessage msg = stateMessages.get(i);
-				ps.setLong(1, msg.getExecStateId());
-				ps.setString(2, msg.getMsgId());
-				ps.setBytes(3, msg.getPayload().getData());
-			}
+	public List<Long> generateExecStateIds(int count) {
+		return idGen.bulk(count);
+	}
 
-			@Override
-			public int getBatchSize() {
-				return stateMessages.size();
-			}
-		});
+	@Override
+	public void insertExecutionStates(final List<ExecutionMessage> stateMessages) {
+		String insertExecStateSQL = queuePartitionsEnabled ?
+				INSERT_EXEC_STATE.replace(QueuePartitions.STATES_TABLE, QueuePartitions.statesTable(activeQueueTable())) :
+				INSERT_EXEC_STATE;
+		long start = System.nanoTime();
+		try {
+			insertExecutionJdbcTemplate.batchUpdate(insertExecStateSQL, new BatchPreparedStatementSetter() {
+
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					ExecutionMessage msg = stateMessages.get(i);
+					ps.setLong(1, msg.getExecStateId());
+					ps.setString(2, msg.getMsgId());
+					ps.setBytes(3, msg.getPayload().getData());
+				}
+
+				@Override
+				public int getBatchSize() {
+					return stateMessages.size();
+				}
+			});
+		} catch (RuntimeException ex) {
+			statementMetrics.recordError(QueueStatementMetrics.Statement.INSERT_STATES);
+			throw ex;
+		}
+		statementMetrics.record(QueueStatementMetrics.Statement.INSERT_STATES, start, stateMessages.size());
 	}
 
 	@Override
 	public void insertExecutionQueue(final List<ExecutionMessage> messages, final long version) {
 		// insert execution queue table
 		// id, exec_state_id, assigned_worker, status, create_time
-		String insertQueueSQL = INSERT_QUEUE;
+		String insertQueueSQL = queuePartitionsEnabled ?
+				INSERT_QUEUE.replace(QueuePartitions.GROUP_NAME, activeQueueTable()) :
+				INSERT_QUEUE;
+
+		long start = System.nanoTime();
+		long t = System.currentTimeMillis();
+		// the ids of the rows are reserved together, and all the rows of the batch share one create time
+		final List<Long> ids = idGen.bulk(messages.size());
+		final long createTime = t;
+		try {
+			insertExecutionJdbcTemplate.batchUpdate(insertQueueSQL, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(PreparedStatement ps, int i) throws SQLException {
+					ExecutionMessage msg = messages.get(i);
+					ps.setLong(1, ids.get(i));
+					ps.setLong(2, msg.getExecStateId());
+					ps.setString(3, msg.getWorkerId());
+					ps.setString(4, msg.getWorkerGroup());
+					ps.setInt(5, msg.getStatus().getNumber());
+					ps.setInt(6, msg.getMsgSeqId());
+					ps.setLong(7, createTime);
+					ps.setLong(8, version);
+				}
+
+				@Override
+				public int getBatchSize() {
+					return messages.size();
+				}
+			});
+		} catch (RuntimeException ex) {
+			statementMetrics.recordError(QueueStatementMetrics.Statement.INSERT_QUEUE);
+			throw ex;
+		}
+		statementMetrics.record(QueueStatementMetrics.Statement.INSERT_QUEUE, start, messages.size());
+		t = System.currentTimeMillis() - t;
+		if (logger.isDebugEnabled()) logger.debug("Insert to queue: " + messages.size() + "/" + t + " messages/ms");
 
+		if (queueHeadsEnabled) {
+			updateQueueHeads(messages, version, createTime);
+		}
+	}
+
+	// Runs in the same transaction as the insert to OO_EXECUTION_QUEUES, so the heads never point to a message that does not exist
+	private void updateQueueHeads(List<ExecutionMessage> messages, final long version, final long createTime) {
+		long start = System.nanoTime();
 		long t = System.currentTimeMillis();
-		insertExecutionJdbcTemplate.batchUpdate(insertQueueSQL, new BatchPreparedStatementSetter() {
+
+		// a bulk may carry several messages of the same exec state - only the newest one becomes the head
+		Map<Long, ExecutionMessage> newestMessages = new LinkedHashMap<>();
+		for (ExecutionMessage msg : messages) {
+			ExecutionMessage current = newestMessages.get(msg.getExecStateId());
+			if (current == null || current.getMsgSeqId() < msg.getMsgSeqId()) {
+				newestMessages.put(msg.getExecStateId(), msg);
+			}
+		}
+		List<ExecutionMessage> heads = new ArrayList<>(newestMessages.values());
+
+		List<ExecutionMessage> pending = heads;
+		try {
+			for (int attempt = 1; !pending.isEmpty(); attempt++) {
+				List<ExecutionMessage> newHeads = updateExistingQueueHeads(pending, version, createTime);
+				try {
+					insertQueueHeads(newHeads, version, createTime);
+					pending = Collections.emptyList();
+				} catch (DuplicateKeyException ex) {
+					if (attempt >= QUEUE_HEADS_WRITE_ATTEMPTS) {
+						throw ex;
+					}
+					if (logger.isDebugEnabled()) logger.debug("Queue heads were inserted concurrently, updating them again (attempt " + attempt + ")");
+					pending = newHeads;
+				}
+			}
+		} catch (RuntimeException ex) {
+			statementMetrics.recordError(QueueStatementMetrics.Statement.UPDATE_QUEUE_HEADS);
+			throw ex;
+		}
+		statementMetrics.record(QueueStatementMetrics.Statement.UPDATE_QUEUE_HEADS, start, heads.size());
+		t = System.currentTimeMillis() - t;
+		if (logger.isDebugEnabled()) logger.debug("Update queue heads: " + heads.size() + "/" + t + " messages/ms");
+	}
+
+	// returns the messages whose exec state has no head yet
+	private List<ExecutionMessage> updateExistingQueueHeads(final List<ExecutionMessage> heads, final long version, final long createTime) {
+		int[] updatedRows = queueHeadsJdbcTemplate.batchUpdate(UPDATE_QUEUE_HEAD, new BatchPreparedStatementSetter() {
 			@Override
 			public void setValues(PreparedStatement ps, int i) throws SQLException {
-				ExecutionMessage msg = messages.get(i);
-				ps.setLong(1, idGen.next());
-				ps.setLong(2, msg.getExecStateId());
-				ps.setString(3, msg.getWorkerId());
-				ps.setString(4, msg.getWorkerGroup());
-				ps.setInt(5, msg.getStatus().getNumber());
-				ps.setInt(6, msg.getMsgSeqId());
-				ps.setLong(7, Calendar.getInstance().getTimeInMillis());
-				ps.setLong(8, version);
+				ExecutionMessage msg = heads.get(i);
+				ps.setString(1, msg.getWorkerId());
+				ps.setString(2, msg.getWorkerGroup());
+				ps.setInt(3, msg.getStatus().getNumber());
+				ps.setInt(4, msg.getMsgSeqId());
+				ps.setLong(5, createTime);
+				ps.setLong(6, version);
+				ps.setLong(7, msg.getExecStateId());
+				ps.setInt(8, msg.getMsgSeqId());
 			}
 
 			@Override
 			public int getBatchSize() {
-				return messages.size();
+				return heads.size();
 			}
 		});
-		t = System.currentTimeMillis() - t;
-		if (logger.isDebugEnabled()) logger.debug("Insert to queue: " + messages.size() + "/" + t + " messages/ms");
+
+		// not updated means either there is no head yet, or it already holds a newer message.
+		// Drivers that report SUCCESS_NO_INFO are covered by the existence check as well.
+		List<ExecutionMessage> notUpdated = new ArrayList<>();
+		for (int i = 0; i < updatedRows.length; i++) {
+			if (updatedRows[i] != 1) {
+				notUpdated.add(heads.get(i));
+			}
+		}
+		if (notUpdated.isEmpty()) {
+			return notUpdated;
+		}
+		Set<Long> existingHeads = findExistingQueueHeads(notUpdated);
+		List<ExecutionMessage> newHeads = new ArrayList<>(notUpdated.size());
+		for (ExecutionMessage msg : notUpdated) {
+			if (!existingHeads.contains(msg.getExecStateId())) {
+				newHeads.add(msg);
+			}
+		}
+		return newHeads;
+	}
+
+	// A failed insert is rolled back to a savepoint, so the transaction of the bulk stays usable for the retry.
+	// The savepoint is not released, Oracle does not support it and it is dropped with the transaction anyway.
+	private void insertQueueHeads(final List<ExecutionMessage> newHeads, final long version, final long createTime) {
+		if (newHeads.isEmpty()) {
+			return;
+		}
+		Connection connection = DataSourceUtils.getConnection(dataSource);
+		try {
+			Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+			try {
+				queueHeadsJdbcTemplate.batchUpdate(INSERT_QUEUE_HEAD, new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						ExecutionMessage msg = newHeads.get(i);
+						ps.setLong(1, msg.getExecStateId());
+						ps.setString(2, msg.getWorkerId());
+						ps.setString(3, msg.getWorkerGroup());
+						ps.setInt(4, msg.getStatus().getNumber());
+						ps.setInt(5, msg.getMsgSeqId());
+						ps.setLong(6, createTime);
+						ps.setLong(7, version);
+					}
+
+					@Override
+					public int getBatchSize() {
+						return newHeads.size();
+					}
+				});
+			} catch (DuplicateKeyException ex) {
+				if (savepoint != null) {
+					connection.rollback(savepoint);
+				}
+				throw ex;
+			}
+		} catch (SQLException ex) {
+			throw queueHeadsJdbcTemplate.getExceptionTranslator().translate("insert queue heads", INSERT_QUEUE_HEAD, ex);
+		} finally {
+			DataSourceUtils.releaseConnection(connection, dataSource);
+		}
+	}
+
+	private Set<Long> findExistingQueueHeads(List<ExecutionMessage> messages) {
+		Set<Long> result = new HashSet<>();
+		for (int from = 0; from < messages.size(); from += QUEUE_HEADS_IN_CLAUSE_LIMIT) {
+			List<ExecutionMessage> chunk = messages.subList(from, Math.min(from + QUEUE_HEADS_IN_CLAUSE_LIMIT, messages.size()));
+			String query = QUERY_EXISTING_QUEUE_HEADS.replaceAll(":ids", StringUtils.repeat("?", ",", chunk.size()));
+			Object[] args = new Object[chunk.size()];
+			for (int i = 0; i < args.length; i++) {
+				args[i] = chunk.get(i).getExecStateId();
+			}
+			// measured as a part of the update of the queue heads
+			result.addAll(doSelectWithTemplate(null, queueHeadsJdbcTemplate, query, new SingleColumnRowMapper<>(Long.class), args));
+		}
+		return result;
 	}
 
 	@Override
@@ -269,7 +679,7 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 		pollForRecoveryJdbcTemplate.setStatementBatchSize(maxSize);
         try {
             // prepare the sql statement
-            String sqlStatPrvTable = QUERY_WORKER_RECOVERY_SQL
+            String sqlStatPrvTable = (queueHeadsEnabled ? QUERY_WORKER_RECOVERY_FROM_HEADS_SQL : QUERY_WORKER_RECOVERY_SQL)
                     .replaceAll(":status", StringUtils.repeat("?", ",", statuses.length));
 
             // prepare the argument
@@ -281,7 +691,13 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
                 values[i++] = status.getNumber();
             }
 
-            return doSelectWithTemplate(pollForRecoveryJdbcTemplate, sqlStatPrvTable, new ExecutionMessageRowMapper(), values);
+            if (queuePartitionsEnabled) {
+                List<Object> unionValues = new ArrayList<>();
+                sqlStatPrvTable = unionOverStatesTables(sqlStatPrvTable, values, unionValues);
+                values = unionValues.toArray();
+            }
+
+            return doSelectWithTemplate(QueueStatementMetrics.Statement.POLL_RECOVERY, pollForRecoveryJdbcTemplate, sqlStatPrvTable, new ExecutionMessageRowMapper(), values);
         } finally {
             pollForRecoveryJdbcTemplate.clearStatementBatchSize();
         }
@@ -294,7 +710,7 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 
         try {
             // prepare the sql statement
-            String sqlStat = QUERY_WORKER_SQL
+            String sqlStat = (queueHeadsEnabled ? QUERY_WORKER_FROM_HEADS_SQL : QUERY_WORKER_SQL)
                     .replaceAll(":status", StringUtils.repeat("?", ",", statuses.length));
 
             // prepare the argument
@@ -305,7 +721,14 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
                 values[i++] = status.getNumber();
             }
 
-            return doSelectWithTemplate(pollJdbcTemplate, sqlStat, new ExecutionMessageRowMapper(), values);
+            if (queuePartitionsEnabled) {
+                List<Object> unionValues = new ArrayList<>();
+                sqlStat = unionOverStatesTables(QUERY_WORKER_FROM_HEADS_BODY_SQL.replaceAll(":status", StringUtils.repeat("?", ",", statuses.length)),
+                        values, unionValues) + ORDER_BY_CREATE_TIME;
+                values = unionValues.toArray();
+            }
+
+            return doSelectWithTemplate(QueueStatementMetrics.Statement.POLL, pollJdbcTemplate, sqlStat, new ExecutionMessageRowMapper(), values);
         } finally {
             pollJdbcTemplate.clearStatementBatchSize();
         }
@@ -316,34 +739,75 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 		if (ids == null || ids.size() == 0) {
 			return;
 		}
+		deleteFinishedSteps(ids.toArray(new Object[ids.size()]));
+	}
+
+	@Override
+	public void deleteFinishedSteps(long[] ids, int length) {
+		if (length == 0) {
+			return;
+		}
+		Object[] args = new Object[length];
+		for (int i = 0; i < length; i++) {
+			args[i] = ids[i];
+		}
+		deleteFinishedSteps(args);
+	}
+
+	private void deleteFinishedSteps(Object[] args) {
+		long start = System.nanoTime();
+		int deletedRows;
+		try {
+			deletedRows = deleteFinishedStepsRows(args);
+		} catch (RuntimeException ex) {
+			statementMetrics.recordError(QueueStatementMetrics.Statement.DELETE_FINISHED_STEPS);
+			throw ex;
+		}
+		statementMetrics.record(QueueStatementMetrics.Statement.DELETE_FINISHED_STEPS, start, deletedRows);
+	}
 
+	private int deleteFinishedStepsRows(Object[] args) {
 		// Access STATES first and then QUEUES - same order as ExecutionQueueService#enqueue (prevents deadlocks on MSSQL)
-		String query = QUERY_DELETE_FINISHED_STEPS_FROM_STATES.replaceAll(":ids", StringUtils.repeat("?", ",", ids.size()));
+		String query = QUERY_DELETE_FINISHED_STEPS_FROM_STATES.replaceAll(":ids", StringUtils.repeat("?", ",", args.length));
 
-		Object[] args = ids.toArray(new Object[ids.size()]);
 		logSQL(query, args);
 
 		int deletedRows = deleteFinishedStepsJdbcTemplate.update(query, args); //MUST NOT set here maxRows!!!! It must delete all without limit!!!
+		int totalDeletedRows = deletedRows;
 
 		if(logger.isDebugEnabled()){
 			logger.debug("Deleted " + deletedRows + " rows of finished steps from OO_EXECUTION_STATES table.");
 		}
 
-		query = QUERY_DELETE_FINISHED_STEPS_FROM_QUEUES.replaceAll(":ids", StringUtils.repeat("?", ",", ids.size()));
+		query = QUERY_DELETE_FINISHED_STEPS_FROM_QUEUES.replaceAll(":ids", StringUtils.repeat("?", ",", args.length));
 		logSQL(query,args);
 
 		deletedRows = deleteFinishedStepsJdbcTemplate.update(query, args); //MUST NOT set here maxRows!!!! It must delete all without limit!!!
+		totalDeletedRows += deletedRows;
 
 		if(logger.isDebugEnabled()){
 			logger.debug("Deleted " + deletedRows + " rows of finished steps from OO_EXECUTION_QUEUES table.");
 		}
+
+		if (queueHeadsEnabled) {
+			query = QUERY_DELETE_FINISHED_STEPS_FROM_HEADS.replaceAll(":ids", StringUtils.repeat("?", ",", args.length));
+			logSQL(query, args);
+
+			deletedRows = deleteFinishedStepsJdbcTemplate.update(query, args);
+			totalDeletedRows += deletedRows;
+
+			if(logger.isDebugEnabled()){
+				logger.debug("Deleted " + deletedRows + " rows of finished steps from OO_EXECUTION_QUEUE_HEADS table.");
+			}
+		}
+		return totalDeletedRows;
 	}
 
 	@Override
 	public Set<Long> getFinishedExecStateIds() {
 		getFinishedExecStateIdsJdbcTemplate.setStatementBatchSize(1_000_000);
         try {
-            List<Long> result = doSelectWithTemplate(getFinishedExecStateIdsJdbcTemplate, SELECT_FINISHED_STEPS_IDS, new SingleColumnRowMapper<>(Long.class));
+            List<Long> result = doSelectWithTemplate(QueueStatementMetrics.Statement.FINISHED_EXEC_STATE_IDS, getFinishedExecStateIdsJdbcTemplate, SELECT_FINISHED_STEPS_IDS, new SingleColumnRowMapper<>(Long.class));
 
             return new HashSet<>(result);
         } finally {
@@ -352,15 +816,43 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
     }
 
 
+	@Override
+	public List<Long> findFinishedExecStateIds(long afterExecStateId, int pageSize) {
+		getFinishedExecStateIdsJdbcTemplate.setStatementBatchSize(pageSize);
+		try {
+			List<Long> rows = doSelectWithTemplate(QueueStatementMetrics.Statement.FINISHED_EXEC_STATE_IDS, getFinishedExecStateIdsJdbcTemplate,
+					SELECT_FINISHED_STEPS_IDS_PAGE, new SingleColumnRowMapper<>(Long.class), afterExecStateId);
+
+			// the rows are ordered, so the repeated exec states are adjacent
+			List<Long> result = new ArrayList<>(rows.size());
+			for (Long execStateId : rows) {
+				if (result.isEmpty() || !result.get(result.size() - 1).equals(execStateId)) {
+					result.add(execStateId);
+				}
+			}
+			return result;
+		} finally {
+			getFinishedExecStateIdsJdbcTemplate.clearStatementBatchSize();
+		}
+	}
+
 	public List<ExecutionMessage> pollMessagesWithoutAck(int maxSize, long minVersionAllowed) {
         pollMessagesWithoutAckJdbcTemplate.setStatementBatchSize(maxSize);
 
         try {
-            String sqlStat = QUERY_MESSAGES_WITHOUT_ACK_SQL;
+            String sqlStat = queueHeadsEnabled ? QUERY_MESSAGES_WITHOUT_ACK_FROM_HEADS_SQL : QUERY_MESSAGES_WITHOUT_ACK_SQL;
             Object[] values = {ExecStatus.SENT.getNumber(), minVersionAllowed};
 
             long time = System.currentTimeMillis();
-            List<ExecutionMessage> result = pollMessagesWithoutAckJdbcTemplate.query(sqlStat, values, new ExecutionMessageWithoutPayloadRowMapper());
+            long start = System.nanoTime();
+            List<ExecutionMessage> result;
+            try {
+                result = pollMessagesWithoutAckJdbcTemplate.query(sqlStat, values, new ExecutionMessageWithoutPayloadRowMapper());
+            } catch (RuntimeException ex) {
+                statementMetrics.recordError(QueueStatementMetrics.Statement.POLL_MESSAGES_WITHOUT_ACK);
+                throw ex;
+            }
+            statementMetrics.record(QueueStatementMetrics.Statement.POLL_MESSAGES_WITHOUT_ACK, start, result.size());
 
             if (!result.isEmpty()) {
                 logger.warn("Pool " + result.size() + " messages without ack, version = " + minVersionAllowed);
@@ -385,13 +877,22 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 	public Integer countMessagesWithoutAckForWorker(int maxSize, long minVersionAllowed, String workerUuid) {
 		countMessagesWithoutAckForWorkerJdbcTemplate.setStatementBatchSize(maxSize);
         try {
+            String sqlStat = queueHeadsEnabled ? QUERY_COUNT_MESSAGES_WITHOUT_ACK_FOR_WORKER_FROM_HEADS_SQL : QUERY_COUNT_MESSAGES_WITHOUT_ACK_FOR_WORKER_SQL;
             Object[] values = {workerUuid, ExecStatus.SENT.getNumber(), minVersionAllowed};
 
             long time = System.currentTimeMillis();
-            Integer result = countMessagesWithoutAckForWorkerJdbcTemplate.queryForObject(QUERY_COUNT_MESSAGES_WITHOUT_ACK_FOR_WORKER_SQL, values,Integer.class);
+            long start = System.nanoTime();
+            Integer result;
+            try {
+                result = countMessagesWithoutAckForWorkerJdbcTemplate.queryForObject(sqlStat, values,Integer.class);
+            } catch (RuntimeException ex) {
+                statementMetrics.recordError(QueueStatementMetrics.Statement.COUNT_MESSAGES_WITHOUT_ACK);
+                throw ex;
+            }
+            statementMetrics.record(QueueStatementMetrics.Statement.COUNT_MESSAGES_WITHOUT_ACK, start, 1);
 
             if (logger.isTraceEnabled())
-                logger.trace("Query [" + QUERY_COUNT_MESSAGES_WITHOUT_ACK_FOR_WORKER_SQL + "] took " + (System.currentTimeMillis() - time) + " ms");
+                logger.trace("Query [" + sqlStat + "] took " + (System.currentTimeMillis() - time) + " ms");
 
             if (logger.isDebugEnabled()) {
                 logger.debug("Got msg without ack :" + result + ",for version:" + minVersionAllowed + ",for worker:" + workerUuid);
@@ -406,17 +907,31 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 	public Map<Long, Payload> findPayloadByExecutionIds(Long... ids) {
 		String qMarks = StringUtils.repeat("?", ",", ids.length);
 		String sqlStat = QUERY_PAYLOAD_BY_EXECUTION_IDS.replace(":IDS", qMarks);
+		Object[] values = ids;
 
+		if (queuePartitionsEnabled) {
+			List<Object> unionValues = new ArrayList<>();
+			sqlStat = unionOverStatesTables(sqlStat, values, unionValues);
+			values = unionValues.toArray();
+		}
+
+		long start = System.nanoTime();
 		final Map<Long, Payload> result = new HashMap<>();
-		findPayloadByExecutionIdsJdbcTemplate.query(sqlStat, ids, new RowCallbackHandler() {
-			@Override
-			public void processRow(ResultSet resultSet) throws SQLException {
-				result.put(
-						resultSet.getLong(1),
-						new Payload(resultSet.getBytes("payload"))
-				);
-			}
-		});
+		try {
+			findPayloadByExecutionIdsJdbcTemplate.query(sqlStat, values, new RowCallbackHandler() {
+				@Override
+				public void processRow(ResultSet resultSet) throws SQLException {
+					result.put(
+							resultSet.getLong(1),
+							new Payload(resultSet.getBytes("payload"))
+					);
+				}
+			});
+		} catch (RuntimeException ex) {
+			statementMetrics.recordError(QueueStatementMetrics.Statement.FIND_PAYLOADS);
+			throw ex;
+		}
+		statementMetrics.record(QueueStatementMetrics.Statement.FIND_PAYLOADS, start, result.size());
 
 		return result;
 	}
@@ -426,7 +941,7 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 		findByStatusesJdbcTemplate.setStatementBatchSize(maxSize);
 
 		// prepare the sql statement
-		String sqlStat = QUERY_MESSAGES_BY_STATUSES
+		String sqlStat = (queueHeadsEnabled ? QUERY_MESSAGES_BY_STATUSES_FROM_HEADS : QUERY_MESSAGES_BY_STATUSES)
 				.replaceAll(":status", StringUtils.repeat("?", ",", statuses.length)); // set ? according to the number of parameters
 
 		Object[] values = new Object[statuses.length];
@@ -436,7 +951,7 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 		}
 
 		try {
-			return doSelectWithTemplate(findByStatusesJdbcTemplate, sqlStat, new ExecutionMessageWithoutPayloadRowMapper(), values);
+			return doSelectWithTemplate(QueueStatementMetrics.Statement.FIND_BY_STATUSES, findByStatusesJdbcTemplate, sqlStat, new ExecutionMessageWithoutPayloadRowMapper(), values);
 		} catch (RuntimeException ex) {
 			logger.error(sqlStat, ex);
 			throw ex;
@@ -448,7 +963,7 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 	@Override
 	public List<String> getBusyWorkers(ExecStatus... statuses) {
 		// prepare the sql statement
-		String sqlStat = BUSY_WORKERS_SQL
+		String sqlStat = (queueHeadsEnabled ? BUSY_WORKERS_FROM_HEADS_SQL : BUSY_WORKERS_SQL)
 				.replaceAll(":status", StringUtils.repeat("?", ",", statuses.length));
 		// prepare the argument
 		Object[] values = new Object[statuses.length];
@@ -456,7 +971,31 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 		for (ExecStatus status : statuses) {
 			values[i] = status.getNumber();
 		}
-		return doSelectWithTemplate(getBusyWorkersJdbcTemplate, sqlStat, new BusyWorkerRowMapper(), values);
+		return doSelectWithTemplate(QueueStatementMetrics.Statement.BUSY_WORKERS, getBusyWorkersJdbcTemplate, sqlStat, new BusyWorkerRowMapper(), values);
+	}
+
+	@Override
+	public Map<ExecStatus, Long> countMessagesByStatus() {
+		final Map<ExecStatus, Long> result = new EnumMap<>(ExecStatus.class);
+		long start = System.nanoTime();
+		try {
+			countMessagesByStatusJdbcTemplate.query(queueHeadsEnabled ? COUNT_BY_STATUS_FROM_HEADS_SQL : COUNT_BY_STATUS_SQL, new RowCallbackHandler() {
+				@Override
+				public void processRow(ResultSet resultSet) throws SQLException {
+					result.put(ExecStatus.find(resultSet.getInt("STATUS")), resultSet.getLong("MESSAGES"));
+				}
+			});
+		} catch (RuntimeException ex) {
+			statementMetrics.recordError(QueueStatementMetrics.Statement.COUNT_BY_STATUS);
+			throw ex;
+		}
+		statementMetrics.record(QueueStatementMetrics.Statement.COUNT_BY_STATUS, start, result.size());
+		return result;
+	}
+
+	@Override
+	public QueueStatementMetrics getStatementMetrics() {
+		return statementMetrics;
 	}
 
 	private class BusyWorkerRowMapper implements RowMapper<String> {
@@ -496,15 +1035,22 @@ public class ExecutionQueueRepositoryImpl implements ExecutionQueueRepository {
 		}
 	}
 
-	private <T> List<T> doSelectWithTemplate(JdbcTemplate jdbcTemplate, String sql, RowMapper<T> rowMapper, Object... params) {
+	// the statement is null when the query is measured as a part of another statement
+	private <T> List<T> doSelectWithTemplate(QueueStatementMetrics.Statement statement, JdbcTemplate jdbcTemplate, String sql, RowMapper<T> rowMapper, Object... params) {
 		logSQL(sql,params);
 		try {
-			long t = System.currentTimeMillis();
+			long start = System.nanoTime();
 			List<T> result = jdbcTemplate.query(sql, params, rowMapper);
+			if (statement != null) {
+				statementMetrics.record(statement, start, result.size());
+			}
 			if (logger.isDebugEnabled())
-				logger.debug("Fetched result: " + result.size() + '/' + (System.currentTimeMillis() - t) + " rows/ms");
+				logger.debug("Fetched result: " + result.size() + '/' + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " rows/ms");
 			return result;
 		} catch (RuntimeException ex) {
+			if (statement != null) {
+				statementMetrics.recordError(statement);
+			}
 			logger.error("Failed to execute query: " + sql, ex);
 			throw ex;
 		}
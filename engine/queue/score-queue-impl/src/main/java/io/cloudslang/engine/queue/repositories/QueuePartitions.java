@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.repositories;
+
+/**
+ * The partition group of OO_EXECUTION_QUEUES and OO_EXECUTION_STATES, used when queue.partitions.enabled is set.
+ * <p>
+ * Both tables are rolled together: OO_EXECUTION_QUEUES_n and OO_EXECUTION_STATES_n are the partitions of the same period.
+ * The partition group is named after the queue table, the states table of a partition is derived from it.
+ */
+public final class QueuePartitions {
+
+    public static final String GROUP_NAME = "OO_EXECUTION_QUEUES";
+
+    public static final String STATES_TABLE = "OO_EXECUTION_STATES";
+
+    // the number of partitions created by liquibase
+    public static final int GROUP_SIZE = 4;
+
+    private QueuePartitions() {
+    }
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("queue.partitions.enabled");
+    }
+
+    /**
+     * @param queueTable a partition of OO_EXECUTION_QUEUES
+     * @return the partition of OO_EXECUTION_STATES of the same period
+     */
+    public static String statesTable(String queueTable) {
+        if (!queueTable.startsWith(GROUP_NAME)) {
+            throw new IllegalArgumentException("Not a partition of " + GROUP_NAME + ": " + queueTable);
+        }
+        return STATES_TABLE + queueTable.substring(GROUP_NAME.length());
+    }
+
+    /**
+     * @param queueTable a partition of OO_EXECUTION_QUEUES
+     * @return the partition of OO_EXECUTION_QUEUES that becomes active after it
+     */
+    public static String partitionAfter(String queueTable) {
+        int partition = Integer.parseInt(queueTable.substring(GROUP_NAME.length() + 1));
+        return GROUP_NAME + "_" + (partition == GROUP_SIZE ? 1 : partition + 1);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.repositories;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and a latency histogram of every {@link Statement} of the ExecutionQueueRepository.
+ * <p>
+ * The counters only grow: recording a statement adds to a few LongAdders and nothing else,
+ * a reader takes a {@link Snapshot} and subtracts a previous one to get the statistics of the time in between.
+ * The latencies are counted in buckets of powers of two microseconds, so a percentile is off by at most half its value.
+ */
+public class QueueStatementMetrics {
+
+    public enum Statement {
+        POLL,
+        POLL_RECOVERY,
+        POLL_MESSAGES_WITHOUT_ACK,
+        COUNT_MESSAGES_WITHOUT_ACK,
+        FIND_BY_STATUSES,
+        BUSY_WORKERS,
+        COUNT_BY_STATUS,
+        FIND_PAYLOADS,
+        FINISHED_EXEC_STATE_IDS,
+        INSERT_STATES,
+        INSERT_QUEUE,
+        UPDATE_QUEUE_HEADS,
+        DELETE_FINISHED_STEPS
+    }
+
+    // bucket i counts the latencies of less than 2^i microseconds, and at least 2^(i-1), the last one about 10 days and more
+    private static final int BUCKETS = 40;
+
+    private final Map<Statement, Counters> counters = new EnumMap<>(Statement.class);
+
+    public QueueStatementMetrics() {
+        for (Statement statement : Statement.values()) {
+            counters.put(statement, new Counters());
+        }
+    }
+
+    /**
+     * @param startNanos the System.nanoTime() before the statement
+     * @param rows the rows the statement read or wrote
+     */
+    public void record(Statement statement, long startNanos, int rows) {
+        Counters statementCounters = counters.get(statement);
+        long nanos = System.nanoTime() - startNanos;
+        statementCounters.calls.increment();
+        statementCounters.rows.add(rows);
+        statementCounters.nanos.add(nanos);
+        statementCounters.buckets[bucketOf(TimeUnit.NANOSECONDS.toMicros(nanos))].increment();
+    }
+
+    public void recordError(Statement statement) {
+        counters.get(statement).errors.increment();
+    }
+
+    public Snapshot snapshot() {
+        Map<Statement, long[]> values = new EnumMap<>(Statement.class);
+        for (Map.Entry<Statement, Counters> entry : counters.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().values());
+        }
+        return new Snapshot(values);
+    }
+
+    private static int bucketOf(long micros) {
+        return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+    }
+
+    private static class Counters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+
+        private Counters() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        // calls, rows, errors, nanos and then the buckets
+        private long[] values() {
+            long[] values = new long[4 + BUCKETS];
+            values[0] = calls.sum();
+            values[1] = rows.sum();
+            values[2] = errors.sum();
+            values[3] = nanos.sum();
+            for (int i = 0; i < BUCKETS; i++) {
+                values[4 + i] = buckets[i].sum();
+            }
+            return values;
+        }
+    }
+
+    public static class Snapshot {
+        private final Map<Statement, long[]> values;
+
+        private Snapshot(Map<Statement, long[]> values) {
+            this.values = values;
+        }
+
+        /**
+         * @return the statistics of the statements that were recorded after the previous snapshot and before this one
+         */
+        public Snapshot minus(Snapshot previous) {
+            Map<Statement, long[]> difference = new EnumMap<>(Statement.class);
+            for (Map.Entry<Statement, long[]> entry : values.entrySet()) {
+                long[] current = entry.getValue();
+                long[] before = previous.values.get(entry.getKey());
+                long[] statementDifference = new long[current.length];
+                for (int i = 0; i < current.length; i++) {
+                    statementDifference[i] = current[i] - before[i];
+                }
+                difference.put(entry.getKey(), statementDifference);
+            }
+            return new Snapshot(difference);
+        }
+
+        public long getCalls(Statement statement) {
+            return values.get(statement)[0];
+        }
+
+        public long getRows(Statement statement) {
+            return values.get(statement)[1];
+        }
+
+        public long getErrors(Statement statement) {
+            return values.get(statement)[2];
+        }
+
+        public long getAverageMicros(Statement statement) {
+            long calls = getCalls(statement);
+            return calls == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(values.get(statement)[3] / calls);
+        }
+
+        /**
+         * @param percentile between 0 and 100
+         * @return the upper bound of the bucket of the percentile in microseconds, 0 when the statement was not recorded
+         */
+        public long getPercentileMicros(Statement statement, double percentile) {
+            long calls = getCalls(statement);
+            if (calls == 0) {
+                return 0;
+            }
+            long[] statementValues = values.get(statement);
+            long rank = Math.max(1, (long) Math.ceil(calls * percentile / 100));
+            long seen = 0;
+            int bucket = 0;
+            while (bucket < BUCKETS - 1 && (seen += statementValues[4 + bucket]) < rank) {
+                bucket++;
+            }
+            return 1L << bucket;
+        }
+
+        public String toString(Statement statement) {
+            return "calls=" + getCalls(statement) + ", rows=" + getRows(statement) + ", errors=" + getErrors(statement) +
+                    ", avg=" + getAverageMicros(statement) + ", p50<" + getPercentileMicros(statement, 50) +
+                    ", p99<" + getPercentileMicros(statement, 99) + ", max<" + getPercentileMicros(statement, 100);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallback;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -44,22 +45,39 @@ abstract class AbstractCallback implements PartitionCallback {
 	public void doCallback(String previousTable, String activeTable) {
 		if (logger.isDebugEnabled()) logger.debug(getClass().getSimpleName() + ": process from " + previousTable + " to " + activeTable);
 
-		final String sql = getSql(previousTable, activeTable);
-		if (logger.isDebugEnabled()) logger.debug(getClass().getSimpleName() + " Execute SQL: " + sql);
+		final String[] sqls = getSql(previousTable, activeTable);
+		if (logger.isDebugEnabled()) logger.debug(getClass().getSimpleName() + " Execute SQL: " + Arrays.toString(sqls));
 		try{
 			long t = System.currentTimeMillis();
+			// all the statements run in one transaction, so the rows are never seen half processed
 			int numOfRows = transactionTemplate.execute(new TransactionCallback<Integer>() {
 				@Override
 				public Integer doInTransaction(TransactionStatus status) {
-					return jdbcTemplate.update(sql);
+					int rows = 0;
+					for (String sql : sqls) {
+						rows += jdbcTemplate.update(sql);
+					}
+					return rows;
 				}});
+			// truncate commits on some of the databases, so it is not a part of the transaction
+			for (String table : getTablesToTruncate(previousTable, activeTable)) {
+				jdbcTemplate.execute("TRUNCATE TABLE " + table);
+			}
 			t = System.currentTimeMillis()-t;
 			if (logger.isDebugEnabled()) logger.debug(getClass().getSimpleName() + ": " + numOfRows  + " rows where processed in " + t + " ms");
             else if(t > TimeUnit.MINUTES.toMillis(1)) logger.warn("Rolling between table "+previousTable+" to table "+activeTable+", took :"+ t + " ms");
 		} catch (DataAccessException ex){
-			logger.error(getClass().getSimpleName() + " failed to execute: " + sql, ex);
+			logger.error(getClass().getSimpleName() + " failed to execute: " + Arrays.toString(sqls), ex);
 		}
 	}
 
-	protected abstract String getSql(String previousTable, String activeTable);
+	protected abstract String[] getSql(String previousTable, String activeTable);
+
+	protected JdbcTemplate getJdbcTemplate() {
+		return jdbcTemplate;
+	}
+
+	protected String[] getTablesToTruncate(String previousTable, String activeTable) {
+		return new String[0];
+	}
 }
@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.repositories.callbacks;
+
+import io.cloudslang.engine.queue.entities.ExecStatus;
+import io.cloudslang.engine.queue.repositories.QueuePartitions;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Carries the execution states that are still in use from the previous partition to the active one,
+ * so the partitions older than the previous one hold finished steps only and can be truncated.
+ * <p>
+ * A state is in use while the head of its exec state is not finished. The heads of finished exec states are removed,
+ * since their states are not carried and will be truncated with their partition.
+ * <p>
+ * Steps queued before the partitions were enabled may finish in a partition, and are then never found by the cleaner
+ * of OO_EXECUTION_QUEUES. With queue.partitions.clean.base.tables set, they are deleted from the base tables in bounded
+ * batches on every callback, before their heads are removed. Set it until the base tables are drained after the switch.
+ * <p>
+ * Rolling truncates the partitions of OO_EXECUTION_QUEUES only, the states partition that follows the active one
+ * holds no state in use and is truncated here.
+ */
+public class ExecutionStatesCallback extends AbstractCallback {
+
+	private static final String FINISHED_STATUSES = ExecStatus.TERMINATED.getNumber() + "," +
+			ExecStatus.FAILED.getNumber() + "," + ExecStatus.FINISHED.getNumber();
+
+	private static final String CARRY_STATES_SQL =
+			"INSERT INTO :active (ID, MSG_ID, PAYLOAD, CREATE_TIME) " +
+			" SELECT s.ID, s.MSG_ID, s.PAYLOAD, s.CREATE_TIME " +
+			" FROM :previous s " +
+			" WHERE EXISTS (SELECT h.EXEC_STATE_ID " +
+			"               FROM OO_EXECUTION_QUEUE_HEADS h " +
+			"               WHERE h.EXEC_STATE_ID = s.ID AND h.STATUS NOT IN (" + FINISHED_STATUSES + ")) AND " +
+			"       NOT EXISTS (SELECT a.ID FROM :active a WHERE a.ID = s.ID)";
+
+	private static final String DELETE_CARRIED_STATES_SQL =
+			"DELETE FROM :previous " +
+			" WHERE EXISTS (SELECT a.ID FROM :active a WHERE a.ID = :previous.ID)";
+
+	private static final String DELETE_FINISHED_HEADS_SQL =
+			"DELETE FROM OO_EXECUTION_QUEUE_HEADS WHERE STATUS IN (" + FINISHED_STATUSES + ")";
+
+	private static final String SELECT_FINISHED_HEADS_SQL =
+			"SELECT EXEC_STATE_ID FROM OO_EXECUTION_QUEUE_HEADS WHERE STATUS IN (" + FINISHED_STATUSES + ")";
+
+	private static final String DELETE_FROM_QUEUES_SQL = "DELETE FROM OO_EXECUTION_QUEUES WHERE EXEC_STATE_ID IN (:ids)";
+
+	private static final String DELETE_FROM_STATES_SQL = "DELETE FROM OO_EXECUTION_STATES WHERE ID IN (:ids)";
+
+	private static final String DELETE_HEADS_SQL = "DELETE FROM OO_EXECUTION_QUEUE_HEADS WHERE EXEC_STATE_ID IN (:ids)";
+
+	// Oracle limits an IN list to 1000 values
+	private static final int IN_CLAUSE_LIMIT = 500;
+
+	private boolean cleanBaseTables = Boolean.getBoolean("queue.partitions.clean.base.tables");
+
+	// the finished exec states cleaned from the base tables on every callback, which runs every time the partitions are checked
+	private int cleanBaseTablesLimit = Integer.getInteger("queue.partitions.clean.base.tables.limit", 1000);
+
+	public void setCleanBaseTables(boolean cleanBaseTables) {
+		this.cleanBaseTables = cleanBaseTables;
+	}
+
+	public void setCleanBaseTablesLimit(int cleanBaseTablesLimit) {
+		this.cleanBaseTablesLimit = cleanBaseTablesLimit;
+	}
+
+	@Override
+	protected String[] getSql(String previousTable, String activeTable) {
+		String previous = QueuePartitions.statesTable(previousTable);
+		String active = QueuePartitions.statesTable(activeTable);
+		List<String> sqls = new ArrayList<>();
+		sqls.add(CARRY_STATES_SQL.replaceAll(":previous", previous).replaceAll(":active", active));
+		sqls.add(DELETE_CARRIED_STATES_SQL.replaceAll(":previous", previous).replaceAll(":active", active));
+		if (cleanBaseTables) {
+			// the heads are removed only with the rows of their exec states, the rest are left for the next callbacks
+			List<Long> ids = selectFinishedHeads();
+			for (int from = 0; from < ids.size(); from += IN_CLAUSE_LIMIT) {
+				String idList = StringUtils.join(ids.subList(from, Math.min(from + IN_CLAUSE_LIMIT, ids.size())), ",");
+				sqls.add(DELETE_FROM_QUEUES_SQL.replace(":ids", idList));
+				sqls.add(DELETE_FROM_STATES_SQL.replace(":ids", idList));
+				sqls.add(DELETE_HEADS_SQL.replace(":ids", idList));
+			}
+		} else {
+			sqls.add(DELETE_FINISHED_HEADS_SQL);
+		}
+		return sqls.toArray(new String[sqls.size()]);
+	}
+
+	// a finished exec state has no more messages, so it is safe to read its id out of the transaction that deletes it
+	private List<Long> selectFinishedHeads() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(getJdbcTemplate().getDataSource());
+		jdbcTemplate.setMaxRows(cleanBaseTablesLimit);
+		return jdbcTemplate.queryForList(SELECT_FINISHED_HEADS_SQL, Long.class);
+	}
+
+	@Override
+	protected String[] getTablesToTruncate(String previousTable, String activeTable) {
+		return new String[]{QueuePartitions.statesTable(QueuePartitions.partitionAfter(activeTable))};
+	}
+}
@@ -22,14 +22,20 @@ import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class BusyWorkersServiceImpl implements BusyWorkersService {
 
     private final Logger logger = Logger.getLogger(BusyWorkersServiceImpl.class);
-    private Map<String, String> busyWorkersMap = new ConcurrentHashMap<>();
+    // worker uuid -> the time (System.nanoTime) it was last marked as busy
+    private Map<String, Long> busyWorkersMap = new ConcurrentHashMap<>();
+    // worker uuid -> signal used to wake up the long polls of that worker
+    private ConcurrentMap<String, WorkerSignal> workerSignals = new ConcurrentHashMap<>();
 
     @Autowired
     private ExecutionQueueRepository executionQueueRepository;
@@ -48,14 +54,22 @@ public class BusyWorkersServiceImpl implements BusyWorkersService {
             startTime = System.currentTimeMillis();
         }
 
+        long queryTime = System.nanoTime();
         List<String> busyWorkers = executionQueueRepository.getBusyWorkers(ExecStatus.ASSIGNED);
-        this.busyWorkersMap.clear();
+        // workers that were marked busy while the query ran might not be part of its result, so they are kept
+        Iterator<Map.Entry<String, Long>> iterator = this.busyWorkersMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() - queryTime < 0) {
+                iterator.remove();
+            }
+        }
         for (String bw : busyWorkers) {
-            this.busyWorkersMap.put(bw, bw);
+            this.busyWorkersMap.put(bw, queryTime);
+            signal(bw);
         }
         if (logger.isDebugEnabled()) {
             long endTime = System.currentTimeMillis();
-            logger.debug("Queried for busy workers, the following workers are busy: " + this.busyWorkersMap + ". Query took: " + (endTime - startTime) + " ms to complete");
+            logger.debug("Queried for busy workers, the following workers are busy: " + this.busyWorkersMap.keySet() + ". Query took: " + (endTime - startTime) + " ms to complete");
         }
     }
 
@@ -65,5 +79,75 @@ public class BusyWorkersServiceImpl implements BusyWorkersService {
         busyWorkersMap.clear();
     }
 
+    @Override
+    public void markWorkersBusy(Collection<String> workerIds) {
+        long markTime = System.nanoTime();
+        for (String workerId : workerIds) {
+            busyWorkersMap.put(workerId, markTime);
+            signal(workerId);
+        }
+    }
+
+    @Override
+    public boolean awaitWorkerBusy(String workerId, long timeoutMillis) {
+        WorkerSignal workerSignal = getSignal(workerId);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (workerSignal) {
+            try {
+                while (!workerSignal.pending) {
+                    if (workerSignal.removed) {
+                        return false;
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    workerSignal.wait(remaining);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            workerSignal.pending = false;
+            return true;
+        }
+    }
 
+    @Override
+    public void removeWorker(String workerId) {
+        busyWorkersMap.remove(workerId);
+        WorkerSignal workerSignal = workerSignals.remove(workerId);
+        if (workerSignal != null) {
+            synchronized (workerSignal) {
+                workerSignal.removed = true;
+                workerSignal.notifyAll();
+            }
+        }
+    }
+
+    private void signal(String workerId) {
+        WorkerSignal workerSignal = getSignal(workerId);
+        synchronized (workerSignal) {
+            workerSignal.pending = true;
+            workerSignal.notifyAll();
+        }
+    }
+
+    private WorkerSignal getSignal(String workerId) {
+        WorkerSignal workerSignal = workerSignals.get(workerId);
+        if (workerSignal == null) {
+            WorkerSignal newSignal = new WorkerSignal();
+            workerSignal = workerSignals.putIfAbsent(workerId, newSignal);
+            if (workerSignal == null) {
+                workerSignal = newSignal;
+            }
+        }
+        return workerSignal;
+    }
+
+    private static class WorkerSignal {
+        private boolean pending;
+        // the signal was removed with its worker, a new one is created when the worker polls again
+        private boolean removed;
+    }
 }
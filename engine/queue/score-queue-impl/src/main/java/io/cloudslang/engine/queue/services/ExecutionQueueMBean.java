@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.services;
+
+import io.cloudslang.engine.queue.entities.ExecStatus;
+import io.cloudslang.engine.queue.repositories.ExecutionQueueRepository;
+import io.cloudslang.engine.queue.repositories.QueueStatementMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The statements of the execution queue and the messages waiting in it.
+ * The statement statistics are of the time since they were last reset, the totals are of the time since the engine started.
+ */
+@ManagedResource(description = "Execution Queue Statistics")
+public class ExecutionQueueMBean {
+
+	@Autowired
+	private ExecutionQueueRepository executionQueueRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private QueueStatementMetrics.Snapshot lastSnapshot;
+
+	@ManagedAttribute(description = "Calls, rows, errors and latencies in microseconds of every queue statement since the last reset")
+	public synchronized Map<String, String> getStatementStatistics() {
+		QueueStatementMetrics.Snapshot snapshot = executionQueueRepository.getStatementMetrics().snapshot();
+		return toMap(lastSnapshot == null ? snapshot : snapshot.minus(lastSnapshot));
+	}
+
+	@ManagedOperation(description = "Starts the statement statistics over, the totals are kept")
+	public synchronized void resetStatementStatistics() {
+		lastSnapshot = executionQueueRepository.getStatementMetrics().snapshot();
+	}
+
+	@ManagedAttribute(description = "Calls, rows, errors and latencies in microseconds of every queue statement since the start")
+	public Map<String, String> getTotalStatementStatistics() {
+		return toMap(executionQueueRepository.getStatementMetrics().snapshot());
+	}
+
+	@ManagedAttribute(description = "Number of messages in every status, queries the database")
+	public Map<String, Long> getQueueDepth() {
+		Map<String, Long> depth = new LinkedHashMap<>();
+		for (Map.Entry<ExecStatus, Long> entry : executionQueueRepository.countMessagesByStatus().entrySet()) {
+			depth.put(entry.getKey().name(), entry.getValue());
+		}
+		return depth;
+	}
+
+	@ManagedOperation(description = "Brings the queue heads in line with the queue, run once after the engines ran without queue heads")
+	public int synchronizeQueueHeads() {
+		return new TransactionTemplate(transactionManager).execute(new TransactionCallback<Integer>() {
+			@Override
+			public Integer doInTransaction(TransactionStatus status) {
+				return executionQueueRepository.synchronizeQueueHeads();
+			}
+		});
+	}
+
+	private static Map<String, String> toMap(QueueStatementMetrics.Snapshot snapshot) {
+		Map<String, String> statistics = new LinkedHashMap<>();
+		for (QueueStatementMetrics.Statement statement : QueueStatementMetrics.Statement.values()) {
+			statistics.put(statement.name(), snapshot.toString(statement));
+		}
+		return statistics;
+	}
+}
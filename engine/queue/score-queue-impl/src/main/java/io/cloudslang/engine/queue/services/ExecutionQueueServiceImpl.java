@@ -71,20 +71,45 @@ final public class ExecutionQueueServiceImpl implements ExecutionQueueService {
 		messages = executionAssignerService.assignWorkers(messages);
 		if (logger.isDebugEnabled()) logger.debug("Messages were assigned successfully");
 
+		boolean notifyListeners = CollectionUtils.isNotEmpty(listeners);
 		final List<ExecutionMessage> stateMessages = new ArrayList<>(messages.size());
+		List<ExecutionMessage> failedMessages = null;
+		List<ExecutionMessage> terminatedMessages = null;
+		List<ExecutionMessage> toPersistMessages = null;
+		int newStates = 0;
 
-		// first fill the execution state id for new insert
+		// a single pass collects the states to insert, and the messages the listeners are notified of
 		for (ExecutionMessage msg : messages) {
 			if (msg.getExecStateId() == ExecutionMessage.EMPTY_EXEC_STATE_ID) {
-				long execStateId = executionQueueRepository.generateExecStateId();
-				msg.setExecStateId(execStateId);
 				stateMessages.add(msg);
+				newStates++;
 			} else if (msg.getPayload() != null && msg.getStatus() == ExecStatus.IN_PROGRESS) {
 				stateMessages.add(msg);
 			}
+			if (notifyListeners) {
+				if (msg.getStatus() == ExecStatus.FAILED) {
+					failedMessages = add(failedMessages, msg);
+				} else if (msg.getStatus() == ExecStatus.TERMINATED) {
+					terminatedMessages = add(terminatedMessages, msg);
+				}
+				if (msg.isStepPersist()) {
+					toPersistMessages = add(toPersistMessages, msg);
+				}
+			}
 		}
 
-        if (CollectionUtils.isNotEmpty(listeners)) {
+		// fill the execution state id for new insert, the ids are reserved together
+		if (newStates > 0) {
+			List<Long> execStateIds = executionQueueRepository.generateExecStateIds(newStates);
+			int i = 0;
+			for (ExecutionMessage msg : stateMessages) {
+				if (msg.getExecStateId() == ExecutionMessage.EMPTY_EXEC_STATE_ID) {
+					msg.setExecStateId(execStateIds.get(i++));
+				}
+			}
+		}
+
+        if (notifyListeners) {
             stopWatch.split();
             for (QueueListener listener : listeners) {
                 listener.prePersist(messages);
@@ -100,20 +125,17 @@ final public class ExecutionQueueServiceImpl implements ExecutionQueueService {
 		executionQueueRepository.insertExecutionQueue(messages, msgVersion);
 		if (logger.isDebugEnabled()) logger.debug("Persistency done in " + (stopWatch.getSplitTime()) + " ms");
 
-		if (CollectionUtils.isNotEmpty(listeners)) {
+		if (notifyListeners) {
 			stopWatch.split();
-			List<ExecutionMessage> failedMessages = filter(messages, ExecStatus.FAILED);
-			List<ExecutionMessage> terminatedMessages = filter(messages, ExecStatus.TERMINATED);
-			List<ExecutionMessage> toPersistMessages = filterToPersistMessages(messages);
 			for (QueueListener listener : listeners) {
 				listener.onEnqueue(messages, messages.size());
-				if (!failedMessages.isEmpty()){
+				if (failedMessages != null){
 					listener.onFailed(failedMessages);
 				}
-				if (!terminatedMessages.isEmpty()){
+				if (terminatedMessages != null){
 					listener.onTerminated(terminatedMessages);
 				}
-				if (!toPersistMessages.isEmpty()){
+				if (toPersistMessages != null){
 					listener.onPersistMessage(toPersistMessages);
 				}
 			}
@@ -122,24 +144,12 @@ final public class ExecutionQueueServiceImpl implements ExecutionQueueService {
 		if (logger.isDebugEnabled()) logger.debug("Enqueue done in " + (stopWatch.getTime()) + " ms");
 	}
 
-	private List<ExecutionMessage> filter(List<ExecutionMessage> messages, ExecStatus status) {
-		List<ExecutionMessage> result = new ArrayList<>();
-		for (ExecutionMessage msg : messages) {
-			if (msg.getStatus() == status) {
-				result.add(msg);
-			}
-		}
-		return result;
-	}
-
-	private List<ExecutionMessage> filterToPersistMessages(List<ExecutionMessage> messages) {
-		List<ExecutionMessage> result = new ArrayList<>();
-		for (ExecutionMessage msg : messages) {
-			if (msg.isStepPersist()) {
-				result.add(msg);
-			}
+	private static List<ExecutionMessage> add(List<ExecutionMessage> messages, ExecutionMessage msg) {
+		if (messages == null) {
+			messages = new ArrayList<>();
 		}
-		return result;
+		messages.add(msg);
+		return messages;
 	}
 
 	@Override
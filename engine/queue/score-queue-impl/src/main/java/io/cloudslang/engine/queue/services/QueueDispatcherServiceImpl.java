@@ -27,6 +27,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 
@@ -41,6 +42,9 @@ public final class QueueDispatcherServiceImpl implements QueueDispatcherService
 	@Autowired
 	private ExecutionQueueService execQueue;
 
+	@Autowired
+	private BusyWorkersService busyWorkersService;
+
 	@Transactional
 	@Override
 	public void dispatch(List<ExecutionMessage> messages) {
@@ -57,6 +61,26 @@ public final class QueueDispatcherServiceImpl implements QueueDispatcherService
 	@Transactional
 	@Override
 	public List<ExecutionMessage> poll(String workerId, int maxSize) {
+		return pollAssignedMessages(workerId, maxSize);
+	}
+
+	// Not transactional on purpose - a parked request must not hold a transaction and a DB connection while waiting.
+	// The poll itself and the update to SENT run in their own transactions through ExecutionQueueService.
+	@Override
+	public List<ExecutionMessage> poll(String workerId, int maxSize, long timeoutMillis) {
+		if (!busyWorkersService.awaitWorkerBusy(workerId, timeoutMillis)) {
+			if (logger.isDebugEnabled()) logger.debug("No messages were assigned to worker [" + workerId + "] in " + timeoutMillis + " ms");
+			return Collections.emptyList();
+		}
+		List<ExecutionMessage> result = pollAssignedMessages(workerId, maxSize);
+		if (result.size() >= maxSize) {
+			// the bulk is full, there might be more messages waiting for the worker
+			busyWorkersService.markWorkersBusy(Collections.singletonList(workerId));
+		}
+		return result;
+	}
+
+	private List<ExecutionMessage> pollAssignedMessages(String workerId, int maxSize) {
 		try {
 			if (logger.isDebugEnabled()) logger.debug("Polling messages for worker [" + workerId + "], max size " + maxSize);
 			// poll assigned messages to workerID
@@ -23,6 +23,7 @@ import io.cloudslang.score.events.ScoreEvent;
 import io.cloudslang.score.facade.entities.Execution;
 import io.cloudslang.score.facade.execution.ExecutionSummary;
 import io.cloudslang.score.facade.execution.PauseReason;
+import io.cloudslang.score.facade.services.RunningExecutionPlanService;
 import io.cloudslang.orchestrator.services.ExecutionStateService;
 import io.cloudslang.orchestrator.services.PauseResumeService;
 import io.cloudslang.orchestrator.services.SplitJoinService;
@@ -62,6 +63,9 @@ public class QueueListenerImpl implements QueueListener {
     @Autowired
     private PauseResumeService pauseResumeService;
 
+    @Autowired
+    private RunningExecutionPlanService runningExecutionPlanService;
+
     @Override
     public void prePersist(List<ExecutionMessage> messages) {
     }
@@ -115,6 +119,7 @@ public class QueueListenerImpl implements QueueListener {
     private ScoreEvent[] handleTerminatedMessages(List<ExecutionMessage> messages) {
         List<ScoreEvent> scoreEvents = new ArrayList<>(messages.size());
         List<Execution> branches = new ArrayList<>();
+        List<String> finishedExecutionIds = new ArrayList<>();
 
         for (ExecutionMessage executionMessage : messages) {
             Execution execution = extractExecution(executionMessage);
@@ -122,6 +127,7 @@ public class QueueListenerImpl implements QueueListener {
             if (!isBranch) {
                 scoreEvents.add(scoreEventFactory.createFinishedEvent(execution));
                 executionStateService.deleteExecutionState(Long.valueOf(executionMessage.getMsgId()), ExecutionSummary.EMPTY_BRANCH);
+                finishedExecutionIds.add(executionMessage.getMsgId());
             } else {
                 branches.add(execution);
                 scoreEvents.add(scoreEventFactory.createFinishedBranchEvent(execution));
@@ -131,6 +137,7 @@ public class QueueListenerImpl implements QueueListener {
         if (CollectionUtils.isNotEmpty(branches)) {
             splitJoinService.endBranch(branches);
         }
+        deleteRunningExecutionPlans(finishedExecutionIds);
 
         return scoreEvents.toArray(new ScoreEvent[scoreEvents.size()]);
     }
@@ -188,6 +195,7 @@ public class QueueListenerImpl implements QueueListener {
     private ScoreEvent[] createFailureEvents(List<ExecutionMessage> messages) {
         Execution execution;
         List<ScoreEvent> events = new ArrayList<>(messages.size());
+        List<String> failedExecutionIds = new ArrayList<>();
         for (ExecutionMessage executionMessage : messages) {
             execution = extractExecution(executionMessage);
             if (failedBecauseNoWorker(execution)) {
@@ -198,8 +206,10 @@ public class QueueListenerImpl implements QueueListener {
                 events.add(scoreEventFactory.createFailedBranchEvent(execution));
             } else {
                 events.add(scoreEventFactory.createFailureEvent(execution));
+                failedExecutionIds.add(executionMessage.getMsgId());
             }
         }
+        deleteRunningExecutionPlans(failedExecutionIds);
         return events.toArray(new ScoreEvent[events.size()]);
     }
 
@@ -211,6 +221,13 @@ public class QueueListenerImpl implements QueueListener {
         }
     }
 
+    // the plans themselves are deleted by the cleanup job once no execution links to them
+    private void deleteRunningExecutionPlans(List<String> executionIds) {
+        if (!executionIds.isEmpty()) {
+            runningExecutionPlanService.deleteRunningExecutionPlans(executionIds);
+        }
+    }
+
     private boolean failedBecauseNoWorker(Execution execution) {
         return execution != null && !StringUtils.isEmpty(execution.getSystemContext().getNoWorkerInGroupName());
     }
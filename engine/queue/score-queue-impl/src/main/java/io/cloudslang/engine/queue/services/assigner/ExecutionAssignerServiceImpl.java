@@ -22,12 +22,15 @@ import io.cloudslang.engine.queue.entities.ExecStatus;
 import io.cloudslang.engine.queue.entities.ExecutionMessage;
 import io.cloudslang.engine.queue.entities.ExecutionMessageConverter;
 import io.cloudslang.engine.queue.entities.Payload;
+import io.cloudslang.engine.queue.services.BusyWorkersService;
 import io.cloudslang.engine.queue.services.ExecutionQueueService;
 import io.cloudslang.orchestrator.services.EngineVersionService;
 import io.cloudslang.score.facade.entities.Execution;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
@@ -53,6 +56,9 @@ final public class ExecutionAssignerServiceImpl implements ExecutionAssignerServ
     @Autowired
     private EngineVersionService engineVersionService;
 
+    @Autowired
+    private BusyWorkersService busyWorkersService;
+
 
 	private void addErrorMessage(ExecutionMessage message) {
         String group = message.getWorkerGroup();
@@ -103,10 +109,13 @@ final public class ExecutionAssignerServiceImpl implements ExecutionAssignerServ
             return messages;
 
         }
-        List<ExecutionMessage> assignMessages = new ArrayList<>(messages.size());
+        // the messages are copied only once a message is replaced, until then the given list is returned as is
+        List<ExecutionMessage> assignMessages = null;
+        Set<String> assignedWorkers = null;
         Multimap<String, String> groupWorkersMap  = null;
-        Random randIntGenerator = new Random(System.currentTimeMillis());
+        Random randIntGenerator = null;
 
+        int i = 0;
         for (ExecutionMessage msg : messages) {
 
             if ( msg.getWorkerId().equals(ExecutionMessage.EMPTY_WORKER) && msg.getStatus() == ExecStatus.PENDING) {
@@ -115,6 +124,9 @@ final public class ExecutionAssignerServiceImpl implements ExecutionAssignerServ
                     //We allow to assign to workers who's version is equal to the engine version
                     groupWorkersMap = workerNodeService.readGroupWorkersMapActiveAndRunningAndVersion(engineVersionId);
                 }
+                if (randIntGenerator == null) {
+                    randIntGenerator = new Random(System.currentTimeMillis());
+                }
                 String workerId = chooseWorker(msg.getWorkerGroup(), groupWorkersMap,randIntGenerator);
                 if (workerId == null) {
                     // error on assigning worker, no available worker
@@ -123,6 +135,11 @@ final public class ExecutionAssignerServiceImpl implements ExecutionAssignerServ
                     //We need to extract the payload in case of FAILED
                     fillPayload(msg);
 
+                    if (assignMessages == null) {
+                        assignMessages = new ArrayList<>(messages.size() + 1);
+                        assignMessages.addAll(messages.subList(0, i));
+                    }
+
                     // send step finish event
                     ExecutionMessage stepFinishMessage = (ExecutionMessage) msg.clone();
                     stepFinishMessage.setStatus(ExecStatus.FINISHED);
@@ -137,20 +154,44 @@ final public class ExecutionAssignerServiceImpl implements ExecutionAssignerServ
                     assignMessages.add(flowFailedMessage);
                 } else {
                     // assign worker
-                    assignMessages.add(msg);
+                    if (assignMessages != null) {
+                        assignMessages.add(msg);
+                    }
                     msg.setStatus(ExecStatus.ASSIGNED);
                     msg.incMsgSeqId();
                     msg.setWorkerId(workerId);
+                    if (assignedWorkers == null) {
+                        assignedWorkers = new HashSet<>();
+                    }
+                    assignedWorkers.add(workerId);
                 }
             }
-            else {
+            else if (assignMessages != null) {
                 // msg that was already assigned or non pending status
                 assignMessages.add(msg);
             }
+            i++;
         } // end for
 
+        if (assignedWorkers != null) {
+            markWorkersBusy(assignedWorkers);
+        }
         if (logger.isDebugEnabled()) logger.debug("Assigner iteration finished");
-        return assignMessages;
+        return assignMessages != null ? assignMessages : messages;
+    }
+
+    // The workers are woken up only after the assigned messages were committed, otherwise their poll will not see them
+    private void markWorkersBusy(final Set<String> assignedWorkers) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    busyWorkersService.markWorkersBusy(assignedWorkers);
+                }
+            });
+        } else {
+            busyWorkersService.markWorkersBusy(assignedWorkers);
+        }
     }
 
 }
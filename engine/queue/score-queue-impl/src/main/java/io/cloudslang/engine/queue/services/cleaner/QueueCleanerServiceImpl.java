@@ -16,10 +16,21 @@
 
 package io.cloudslang.engine.queue.services.cleaner;
 
+import io.cloudslang.engine.partitions.services.PartitionTemplate;
 import io.cloudslang.engine.queue.repositories.ExecutionQueueRepository;
+import io.cloudslang.engine.queue.repositories.QueuePartitions;
+import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PostConstruct;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -29,11 +40,53 @@ import java.util.Set;
  */
 final public class QueueCleanerServiceImpl  implements QueueCleanerService {
 
+    private final Logger logger = Logger.getLogger(getClass());
+
     final private int BULK_SIZE = 500;
 
+    // the finished exec states deleted in every transaction of cleanFinishedSteps()
+    private int chunkSize = Integer.getInteger("queue.cleaner.chunk.size", BULK_SIZE);
+
+    // the finished exec states read in every page, each page is read and closed before its chunks are deleted
+    private int pageSize = Integer.getInteger("queue.cleaner.page.size", 10 * BULK_SIZE);
+
+    // a pause between the chunks, gives the locks of the queue tables to the workers and the dispatcher
+    private long chunkPauseMillis = Long.getLong("queue.cleaner.chunk.pause.millis", 0L);
+
     @Autowired
    	private ExecutionQueueRepository executionQueueRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private QueueCleanerMetrics queueCleanerMetrics;
+
+    // registered only when queue partitions are enabled
+    @Autowired(required = false)
+    @Qualifier(QueuePartitions.GROUP_NAME)
+    private PartitionTemplate queuePartitionTemplate;
+
+    private TransactionTemplate chunkTransactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        chunkTransactionTemplate = new TransactionTemplate(transactionManager);
+        chunkTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public void setChunkPauseMillis(long chunkPauseMillis) {
+        this.chunkPauseMillis = chunkPauseMillis;
+    }
+
     @Override
     @Transactional
     public Set<Long> getFinishedExecStateIds() {
@@ -46,4 +99,106 @@ final public class QueueCleanerServiceImpl  implements QueueCleanerService {
         executionQueueRepository.deleteFinishedSteps(ids);
     }
 
+    @Override
+    public long cleanFinishedSteps() {
+        final ChunkCleaner chunkCleaner = new ChunkCleaner();
+        try {
+            // keyset pages - no cursor is held open while the chunks delete the rows it reads
+            long lastExecStateId = Long.MIN_VALUE;
+            List<Long> page;
+            while (!(page = executionQueueRepository.findFinishedExecStateIds(lastExecStateId, Math.max(pageSize, 1))).isEmpty()) {
+                for (Long execStateId : page) {
+                    chunkCleaner.handle(execStateId);
+                }
+                chunkCleaner.cleanChunk();
+                lastExecStateId = page.get(page.size() - 1);
+            }
+        } catch (CleanInterruptedException ex) {
+            logger.warn("Cleaning of finished steps was interrupted after " + chunkCleaner.cleaned + " exec states");
+        }
+
+        double rowsPerSecond = chunkCleaner.rowsPerSecond();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Cleaned " + chunkCleaner.cleaned + " finished exec states (" + (long) rowsPerSecond + " per second), backlog is " + chunkCleaner.backlog());
+        }
+        if (queueCleanerMetrics != null) {
+            queueCleanerMetrics.cleanFinished(chunkCleaner.cleaned, chunkCleaner.backlog(), rowsPerSecond);
+        }
+        return chunkCleaner.cleaned;
+    }
+
+    @Override
+    public void rollQueuePartitions() {
+        // not transactional - rolling and its callbacks run in transactions of their own
+        if (queuePartitionTemplate != null) {
+            queuePartitionTemplate.onRolling();
+            // the messages are written to the new active partition right away, not after the partitions are read again
+            executionQueueRepository.refreshQueuePartitions();
+        }
+    }
+
+    /**
+     * Collects the ids read from the pages, and deletes them every time a chunk is full
+     */
+    private class ChunkCleaner {
+        private final long startTime = System.currentTimeMillis();
+        private final long[] chunk = new long[Math.max(chunkSize, 1)];
+        private int length;
+        private long read;
+        private long cleaned;
+
+        private void handle(long execStateId) {
+            chunk[length++] = execStateId;
+            read++;
+            if (length == chunk.length) {
+                cleanChunk();
+                pause();
+            }
+        }
+
+        private void cleanChunk() {
+            if (length == 0) {
+                return;
+            }
+            try {
+                chunkTransactionTemplate.execute(new TransactionCallbackWithoutResult() {
+                    @Override
+                    protected void doInTransactionWithoutResult(TransactionStatus status) {
+                        executionQueueRepository.deleteFinishedSteps(chunk, length);
+                    }
+                });
+                cleaned += length;
+            } catch (RuntimeException ex) {
+                // the exec states are still finished, and are cleaned on the next run
+                logger.error("Failed to clean a chunk of " + length + " finished exec states", ex);
+            }
+            length = 0;
+            if (queueCleanerMetrics != null) {
+                queueCleanerMetrics.chunkCleaned(cleaned, backlog(), rowsPerSecond());
+            }
+        }
+
+        private void pause() {
+            if (chunkPauseMillis > 0) {
+                try {
+                    Thread.sleep(chunkPauseMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new CleanInterruptedException();
+                }
+            }
+        }
+
+        private long backlog() {
+            return read - cleaned;
+        }
+
+        private double rowsPerSecond() {
+            long millis = System.currentTimeMillis() - startTime;
+            return millis > 0 ? cleaned * 1000.0 / millis : cleaned;
+        }
+    }
+
+    private static class CleanInterruptedException extends RuntimeException {
+    }
 }
@@ -21,6 +21,7 @@ import io.cloudslang.engine.node.entities.WorkerNode;
 import io.cloudslang.engine.node.services.LoginListener;
 import io.cloudslang.engine.node.services.WorkerLockService;
 import io.cloudslang.engine.node.services.WorkerNodeService;
+import io.cloudslang.engine.queue.services.BusyWorkersService;
 import io.cloudslang.engine.queue.services.ExecutionQueueService;
 import io.cloudslang.engine.versioning.services.VersionService;
 import org.apache.log4j.Logger;
@@ -61,6 +62,9 @@ public class WorkerRecoveryServiceImpl implements WorkerRecoveryService, LoginLi
     @Autowired
     private VersionService versionService;
 
+    @Autowired
+    private BusyWorkersService busyWorkersService;
+
     @Override
     @Transactional
     public void doWorkerAndMessageRecovery(final String workerUuid) {
@@ -100,6 +104,8 @@ public class WorkerRecoveryServiceImpl implements WorkerRecoveryService, LoginLi
         // change status to in_recovery in separate transaction in order to make it as quickly as possible
         // so keep-alive wont be stuck and assigning won't take this worker as candidate
         workerNodeService.updateStatusInSeparateTransaction(workerUuid, WorkerStatus.IN_RECOVERY);
+        // the worker is down or deleted, it gets a new signal when it polls again
+        busyWorkersService.removeWorker(workerUuid);
 
         final AtomicBoolean shouldContinue = new AtomicBoolean(true);
 
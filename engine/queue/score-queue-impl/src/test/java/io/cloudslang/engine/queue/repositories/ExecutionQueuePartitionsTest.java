@@ -0,0 +1,265 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.engine.queue.repositories;
+
+import io.cloudslang.engine.data.IdentityGenerator;
+import io.cloudslang.engine.partitions.services.PartitionTemplate;
+import io.cloudslang.engine.queue.entities.ExecStatus;
+import io.cloudslang.engine.queue.entities.ExecutionMessage;
+import io.cloudslang.engine.queue.entities.Payload;
+import io.cloudslang.engine.queue.repositories.callbacks.ExecutionStatesCallback;
+import liquibase.integration.spring.SpringLiquibase;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Not transactional: the callback truncates a partition, which commits on most databases
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+public class ExecutionQueuePartitionsTest {
+
+    @Autowired
+    private ExecutionQueueRepositoryImpl executionQueueRepository;
+
+    @Autowired
+    private ExecutionStatesCallback executionStatesCallback;
+
+    @Autowired
+    private PartitionTemplate queuePartitionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void init() {
+        for (String table : Arrays.asList("OO_EXECUTION_QUEUES", "OO_EXECUTION_STATES", "OO_EXECUTION_QUEUE_HEADS")) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+        for (int i = 1; i <= QueuePartitions.GROUP_SIZE; i++) {
+            jdbcTemplate.update("DELETE FROM OO_EXECUTION_QUEUES_" + i);
+            jdbcTemplate.update("DELETE FROM OO_EXECUTION_STATES_" + i);
+        }
+        activatePartition(1);
+    }
+
+    @Test
+    public void testMessagesAreWrittenToActivePartition() {
+        List<ExecutionMessage> messages = Arrays.asList(generateMessage(1L, ExecStatus.ASSIGNED), generateMessage(2L, ExecStatus.ASSIGNED));
+        executionQueueRepository.insertExecutionStates(messages);
+        executionQueueRepository.insertExecutionQueue(messages, 1L);
+
+        Assert.assertEquals(2, count("OO_EXECUTION_STATES_1"));
+        Assert.assertEquals(2, count("OO_EXECUTION_QUEUES_1"));
+        Assert.assertEquals(0, count("OO_EXECUTION_STATES"));
+        Assert.assertEquals(0, count("OO_EXECUTION_QUEUES"));
+
+        List<ExecutionMessage> result = executionQueueRepository.poll("worker1", 10, ExecStatus.ASSIGNED);
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals("payload", new String(result.get(0).getPayload().getData()));
+    }
+
+    @Test
+    public void testStatesWrittenBeforePartitionsAreRead() {
+        jdbcTemplate.update("INSERT INTO OO_EXECUTION_STATES (ID, MSG_ID, PAYLOAD, CREATE_TIME) VALUES (7, 'msg', ?, CURRENT_TIMESTAMP)", "old".getBytes());
+        executionQueueRepository.insertExecutionQueue(Collections.singletonList(generateMessage(7L, ExecStatus.ASSIGNED)), 1L);
+
+        List<ExecutionMessage> result = executionQueueRepository.poll("worker1", 10, ExecStatus.ASSIGNED);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals("old", new String(result.get(0).getPayload().getData()));
+
+        Map<Long, Payload> payloads = executionQueueRepository.findPayloadByExecutionIds(7L);
+        Assert.assertEquals("old", new String(payloads.get(7L).getData()));
+    }
+
+    @Test
+    public void testRollingCarriesStatesInUse() {
+        List<ExecutionMessage> messages = Arrays.asList(generateMessage(1L, ExecStatus.ASSIGNED), generateMessage(2L, ExecStatus.ASSIGNED));
+        executionQueueRepository.insertExecutionStates(messages);
+        executionQueueRepository.insertExecutionQueue(messages, 1L);
+        executionQueueRepository.insertExecutionQueue(Collections.singletonList(generateMessage(2L, ExecStatus.FINISHED, 2)), 1L);
+        // left in the partition that becomes active after the next one
+        jdbcTemplate.update("INSERT INTO OO_EXECUTION_STATES_3 (ID, MSG_ID, PAYLOAD, CREATE_TIME) VALUES (9, 'msg', ?, CURRENT_TIMESTAMP)", "old".getBytes());
+
+        activatePartition(2);
+        executionStatesCallback.doCallback("OO_EXECUTION_QUEUES_1", "OO_EXECUTION_QUEUES_2");
+
+        Assert.assertEquals(Collections.singletonList(1L), jdbcTemplate.queryForList("SELECT ID FROM OO_EXECUTION_STATES_2", Long.class));
+        Assert.assertEquals(1, count("OO_EXECUTION_STATES_1"));
+        Assert.assertEquals(0, count("OO_EXECUTION_STATES_3"));
+        Assert.assertEquals(Collections.singletonList(1L), jdbcTemplate.queryForList("SELECT EXEC_STATE_ID FROM OO_EXECUTION_QUEUE_HEADS", Long.class));
+
+        List<ExecutionMessage> result = executionQueueRepository.poll("worker1", 10, ExecStatus.ASSIGNED);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(1L, result.get(0).getExecStateId());
+        Assert.assertEquals("payload", new String(result.get(0).getPayload().getData()));
+    }
+
+    @Test
+    public void testBaseTablesAreCleanedInBoundedBatches() {
+        // queued before the partitions were enabled, finished in a partition
+        for (long execStateId = 5; execStateId <= 7; execStateId++) {
+            jdbcTemplate.update("INSERT INTO OO_EXECUTION_STATES (ID, MSG_ID, PAYLOAD, CREATE_TIME) VALUES (?, 'msg', ?, CURRENT_TIMESTAMP)", execStateId, "old".getBytes());
+            jdbcTemplate.update("INSERT INTO OO_EXECUTION_QUEUES (ID, EXEC_STATE_ID, ASSIGNED_WORKER, EXEC_GROUP, STATUS, MSG_SEQ_ID, CREATE_TIME, MSG_VERSION) " +
+                    "VALUES (?, ?, 'worker1', 'group', ?, 1, 0, 0)", execStateId, execStateId, ExecStatus.ASSIGNED.getNumber());
+            executionQueueRepository.insertExecutionQueue(Collections.singletonList(generateMessage(execStateId, ExecStatus.FINISHED, 2)), 1L);
+        }
+
+        executionStatesCallback.doCallback("OO_EXECUTION_QUEUES_4", "OO_EXECUTION_QUEUES_1");
+        // not enabled, only the heads are removed
+        Assert.assertEquals(0, count("OO_EXECUTION_QUEUE_HEADS"));
+        Assert.assertEquals(3, count("OO_EXECUTION_QUEUES"));
+        Assert.assertEquals(3, count("OO_EXECUTION_STATES"));
+
+        jdbcTemplate.update("INSERT INTO OO_EXECUTION_QUEUE_HEADS (EXEC_STATE_ID, ASSIGNED_WORKER, EXEC_GROUP, STATUS, MSG_SEQ_ID, CREATE_TIME, MSG_VERSION) " +
+                "SELECT EXEC_STATE_ID, ASSIGNED_WORKER, EXEC_GROUP, ?, 2, CREATE_TIME, MSG_VERSION FROM OO_EXECUTION_QUEUES", ExecStatus.FINISHED.getNumber());
+        executionStatesCallback.setCleanBaseTables(true);
+        executionStatesCallback.setCleanBaseTablesLimit(2);
+        try {
+            executionStatesCallback.doCallback("OO_EXECUTION_QUEUES_4", "OO_EXECUTION_QUEUES_1");
+            Assert.assertEquals(1, count("OO_EXECUTION_QUEUE_HEADS"));
+            Assert.assertEquals(1, count("OO_EXECUTION_QUEUES"));
+            Assert.assertEquals(1, count("OO_EXECUTION_STATES"));
+
+            executionStatesCallback.doCallback("OO_EXECUTION_QUEUES_4", "OO_EXECUTION_QUEUES_1");
+            Assert.assertEquals(0, count("OO_EXECUTION_QUEUE_HEADS"));
+            Assert.assertEquals(0, count("OO_EXECUTION_QUEUES"));
+            Assert.assertEquals(0, count("OO_EXECUTION_STATES"));
+        } finally {
+            executionStatesCallback.setCleanBaseTables(false);
+        }
+    }
+
+    private void activatePartition(int partition) {
+        List<String> reversedTables = new ArrayList<>();
+        for (int i = 0; i < QueuePartitions.GROUP_SIZE; i++) {
+            reversedTables.add("OO_EXECUTION_QUEUES_" + ((partition - i - 1 + QueuePartitions.GROUP_SIZE) % QueuePartitions.GROUP_SIZE + 1));
+        }
+        when(queuePartitionTemplate.reversedTables()).thenReturn(reversedTables);
+        // drops the partitions read so far
+        executionQueueRepository.setQueuePartitionsEnabled(true);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private ExecutionMessage generateMessage(long execStateId, ExecStatus status) {
+        return generateMessage(execStateId, status, 1);
+    }
+
+    private ExecutionMessage generateMessage(long execStateId, ExecStatus status, int msgSeqId) {
+        Payload payload = new Payload("payload".getBytes());
+        return new ExecutionMessage(execStateId, "worker1", "group", "msg" + execStateId, status, payload, msgSeqId);
+    }
+
+    @Configuration
+    static class Configurator {
+
+        @Bean
+        DataSource dataSource() {
+            BasicDataSource ds = new BasicDataSource();
+            ds.setDriverClassName("org.h2.Driver");
+            ds.setUrl("jdbc:h2:mem:partitions");
+            ds.setUsername("sa");
+            ds.setPassword("sa");
+            return ds;
+        }
+
+        @Bean
+        SpringLiquibase liquibase() {
+            SpringLiquibase liquibase = new SpringLiquibase();
+            liquibase.setDataSource(dataSource());
+            liquibase.setChangeLog("classpath:/META-INF/database/test.changes.xml");
+            return liquibase;
+        }
+
+        @Bean(name = "transactionManager")
+        PlatformTransactionManager txManager() {
+            return new DataSourceTransactionManager(dataSource());
+        }
+
+        @Bean
+        TransactionTemplate transactionTemplate() {
+            return new TransactionTemplate(txManager());
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate() {
+            return new JdbcTemplate(dataSource());
+        }
+
+        @Bean
+        IdentityGenerator identifierGenerator() {
+            return new IdentityGenerator() {
+                long id = 1;
+
+                @Override
+                public synchronized Long next() {
+                    return id++;
+                }
+
+                @Override
+                public synchronized List<Long> bulk(int bulkSize) {
+                    List<Long> ids = new ArrayList<>(bulkSize);
+                    for (int i = 0; i < bulkSize; i++) {
+                        ids.add(id++);
+                    }
+                    return ids;
+                }
+            };
+        }
+
+        @Bean(name = QueuePartitions.GROUP_NAME)
+        PartitionTemplate queuePartitionTemplate() {
+            return Mockito.mock(PartitionTemplate.class);
+        }
+
+        @Bean
+        ExecutionQueueRepositoryImpl executionQueueRepository() {
+            ExecutionQueueRepositoryImpl executionQueueRepository = new ExecutionQueueRepositoryImpl();
+            executionQueueRepository.setQueueHeadsEnabled(true);
+            return executionQueueRepository;
+        }
+
+        @Bean
+        ExecutionStatesCallback executionStatesCallback() {
+            return new ExecutionStatesCallback();
+        }
+    }
+}
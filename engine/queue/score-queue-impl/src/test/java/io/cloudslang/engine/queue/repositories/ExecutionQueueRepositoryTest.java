@@ -37,13 +37,25 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.transaction.TransactionConfiguration;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * User: wahnonm
@@ -59,6 +71,12 @@ public class ExecutionQueueRepositoryTest {
     @Autowired
     private ExecutionQueueRepository executionQueueRepository;
 
+    @Autowired
+    private ExecutionQueueRepository executionQueueHeadsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
 
     @Test
     public void testInsert(){
@@ -116,6 +134,71 @@ public class ExecutionQueueRepositoryTest {
         Assert.assertEquals(3, result.size());
     }
 
+    @Test
+    public void testCountMessagesByStatus(){
+        List<ExecutionMessage> msg = new ArrayList<>();
+        msg.add(generateMessage(1, "group1", "msg1", 1));
+        msg.add(generateFinishedMessage(1L, 2));
+        msg.add(generateMessage(2, "group1", "msg2", 1));
+        msg.add(generateMessage(3, "group1", "msg3", 1));
+        executionQueueRepository.insertExecutionQueue(msg, 1L);
+
+        Map<ExecStatus, Long> result = executionQueueRepository.countMessagesByStatus();
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals(Long.valueOf(2), result.get(ExecStatus.SENT));
+        Assert.assertEquals(Long.valueOf(1), result.get(ExecStatus.FINISHED));
+    }
+
+    @Test
+    public void testStatementMetrics(){
+        QueueStatementMetrics.Snapshot before = executionQueueRepository.getStatementMetrics().snapshot();
+        List<ExecutionMessage> msg = new ArrayList<>();
+        msg.add(generateMessage(1, "group1", "msg1", 1));
+        msg.add(generateMessage(2, "group1", "msg2", 1));
+        executionQueueRepository.insertExecutionQueue(msg, 1L);
+        executionQueueRepository.pollMessagesWithoutAck(100, 2);
+
+        QueueStatementMetrics.Snapshot statistics = executionQueueRepository.getStatementMetrics().snapshot().minus(before);
+        Assert.assertEquals(1, statistics.getCalls(QueueStatementMetrics.Statement.INSERT_QUEUE));
+        Assert.assertEquals(2, statistics.getRows(QueueStatementMetrics.Statement.INSERT_QUEUE));
+        Assert.assertEquals(1, statistics.getCalls(QueueStatementMetrics.Statement.POLL_MESSAGES_WITHOUT_ACK));
+        Assert.assertEquals(2, statistics.getRows(QueueStatementMetrics.Statement.POLL_MESSAGES_WITHOUT_ACK));
+        Assert.assertEquals(0, statistics.getCalls(QueueStatementMetrics.Statement.POLL));
+    }
+
+    @Test
+    public void testStatementMetricsOfFailedInsert(){
+        QueueStatementMetrics.Snapshot before = executionQueueRepository.getStatementMetrics().snapshot();
+        List<ExecutionMessage> msg = new ArrayList<>();
+        msg.add(generateMessage("group1","msg1", 1));
+        msg.add(generateMessage("group1","msg1", 1));
+        try {
+            executionQueueRepository.insertExecutionQueue(msg, 1L);
+            Assert.fail("The insert of a duplicate message should fail");
+        } catch (RuntimeException ex) {
+            // expected
+        }
+
+        QueueStatementMetrics.Snapshot statistics = executionQueueRepository.getStatementMetrics().snapshot().minus(before);
+        Assert.assertEquals(1, statistics.getErrors(QueueStatementMetrics.Statement.INSERT_QUEUE));
+        Assert.assertEquals(0, statistics.getCalls(QueueStatementMetrics.Statement.INSERT_QUEUE));
+    }
+
+    @Test
+    public void testStatementMetricsOfCountMessagesByStatus(){
+        QueueStatementMetrics.Snapshot before = executionQueueRepository.getStatementMetrics().snapshot();
+        List<ExecutionMessage> msg = new ArrayList<>();
+        msg.add(generateMessage(1, "group1", "msg1", 1));
+        msg.add(generateFinishedMessage(2L, 1));
+        executionQueueRepository.insertExecutionQueue(msg, 1L);
+        executionQueueRepository.countMessagesByStatus();
+
+        QueueStatementMetrics.Snapshot statistics = executionQueueRepository.getStatementMetrics().snapshot().minus(before);
+        Assert.assertEquals(1, statistics.getCalls(QueueStatementMetrics.Statement.COUNT_BY_STATUS));
+        Assert.assertEquals(2, statistics.getRows(QueueStatementMetrics.Statement.COUNT_BY_STATUS));
+        Assert.assertEquals(0, statistics.getCalls(QueueStatementMetrics.Statement.BUSY_WORKERS));
+    }
+
     @Test
     public void testCountMessagesWithoutAckWithVersionForWorker(){
         List<ExecutionMessage> msg = new ArrayList<>();
@@ -235,6 +318,150 @@ public class ExecutionQueueRepositoryTest {
         Assert.assertNotNull(busyWorkers);
     }
 
+    @Test
+    public void testPollFromQueueHeads(){
+        List<ExecutionMessage> msg = new ArrayList<>();
+        ExecutionMessage execMsg = generateMessage(100, "group1", "msg1", 1);
+        execMsg.setWorkerId("worker1");
+        execMsg.setStatus(ExecStatus.ASSIGNED);
+        msg.add(execMsg);
+        executionQueueHeadsRepository.insertExecutionStates(msg);
+        executionQueueHeadsRepository.insertExecutionQueue(msg, 1L);
+
+        List<ExecutionMessage> result = executionQueueHeadsRepository.poll("worker1", 10, ExecStatus.ASSIGNED);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals("msg1", result.get(0).getMsgId());
+
+        //a newer message of the same exec state replaces the head
+        msg.clear();
+        ExecutionMessage sentMsg = generateMessage(100, "group1", "msg1", 2);
+        sentMsg.setWorkerId("worker1");
+        sentMsg.setStatus(ExecStatus.SENT);
+        msg.add(sentMsg);
+        executionQueueHeadsRepository.insertExecutionQueue(msg, 1L);
+
+        result = executionQueueHeadsRepository.poll("worker1", 10, ExecStatus.ASSIGNED);
+        Assert.assertTrue(result.isEmpty());
+        result = executionQueueHeadsRepository.poll("worker1", 10, ExecStatus.SENT);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(2, result.get(0).getMsgSeqId());
+    }
+
+    @Test
+    public void testQueueHeadsKeepNewestMessageOfBulk(){
+        List<ExecutionMessage> msg = new ArrayList<>();
+        ExecutionMessage inProgress = generateMessageForWorker(200, "group1", "msg1", "worker1", 2);
+        inProgress.setStatus(ExecStatus.IN_PROGRESS);
+        ExecutionMessage sent = generateMessageForWorker(200, "group1", "msg1", "worker1", 1);
+        msg.add(inProgress);
+        msg.add(sent);
+        executionQueueHeadsRepository.insertExecutionQueue(msg, 1L);
+
+        List<ExecutionMessage> result = executionQueueHeadsRepository.findByStatuses(10, ExecStatus.IN_PROGRESS);
+        Assert.assertEquals(1, result.size());
+        Assert.assertTrue(executionQueueHeadsRepository.findByStatuses(10, ExecStatus.SENT).isEmpty());
+
+        //an older message must not override the head
+        msg.clear();
+        msg.add(generateMessageForWorker(200, "group1", "msg1", "worker1", 0));
+        executionQueueHeadsRepository.insertExecutionQueue(msg, 1L);
+        Assert.assertEquals(1, executionQueueHeadsRepository.findByStatuses(10, ExecStatus.IN_PROGRESS).size());
+
+        List<String> busyWorkers = executionQueueHeadsRepository.getBusyWorkers(ExecStatus.IN_PROGRESS);
+        Assert.assertEquals(1, busyWorkers.size());
+        Assert.assertEquals("worker1", busyWorkers.get(0));
+    }
+
+    @Test
+    public void testMessagesWithoutAckFromQueueHeads(){
+        List<ExecutionMessage> msg = new ArrayList<>();
+        msg.add(generateMessageForWorker(300, "group1", "msg1", "worker1", 1));
+        msg.add(generateMessageForWorker(301, "group1", "msg2", "worker1", 1));
+        executionQueueHeadsRepository.insertExecutionQueue(msg, 1L);
+
+        msg.clear();
+        ExecutionMessage inProgress = generateMessageForWorker(301, "group1", "msg2", "worker1", 2);
+        inProgress.setStatus(ExecStatus.IN_PROGRESS);
+        msg.add(inProgress);
+        executionQueueHeadsRepository.insertExecutionQueue(msg, 1L);
+
+        List<ExecutionMessage> result = executionQueueHeadsRepository.pollMessagesWithoutAck(100, 2);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(300, result.get(0).getExecStateId());
+        Assert.assertEquals(1, executionQueueHeadsRepository.countMessagesWithoutAckForWorker(100, 2, "worker1").intValue());
+
+        executionQueueHeadsRepository.deleteFinishedSteps(new HashSet<>(Arrays.asList(300L, 301L)));
+        Assert.assertTrue(executionQueueHeadsRepository.findByStatuses(10, ExecStatus.SENT, ExecStatus.IN_PROGRESS).isEmpty());
+    }
+
+    @Test
+    public void testSynchronizeQueueHeads(){
+        List<ExecutionMessage> msg = new ArrayList<>();
+        msg.add(generateMessageForWorker(400, "group1", "msg1", "worker1", 1));
+        //written without the heads, as an engine that ran with queue heads disabled
+        executionQueueRepository.insertExecutionQueue(msg, 1L);
+        Assert.assertTrue(executionQueueHeadsRepository.findByStatuses(10, ExecStatus.SENT).isEmpty());
+
+        Assert.assertTrue(executionQueueHeadsRepository.synchronizeQueueHeads() > 0);
+        List<ExecutionMessage> result = executionQueueHeadsRepository.findByStatuses(10, ExecStatus.SENT);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(400, result.get(0).getExecStateId());
+        Assert.assertEquals(0, executionQueueHeadsRepository.synchronizeQueueHeads());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testConcurrentInsertOfQueueHeads() throws Exception {
+        final int threads = 4;
+        final CyclicBarrier barrier = new CyclicBarrier(threads);
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final int msgSeqId = i + 1;
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        barrier.await();
+                        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+                            @Override
+                            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                                List<ExecutionMessage> msg = new ArrayList<>();
+                                for (long execStateId = 500; execStateId < 510; execStateId++) {
+                                    msg.add(generateMessageForWorker(execStateId, "group1", "msg1", "worker1", msgSeqId));
+                                }
+                                executionQueueHeadsRepository.insertExecutionQueue(msg, 1L);
+                            }
+                        });
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            List<ExecutionMessage> result = executionQueueHeadsRepository.findByStatuses(100, ExecStatus.SENT);
+            Assert.assertEquals(10, result.size());
+            for (ExecutionMessage head : result) {
+                Assert.assertEquals(threads, head.getMsgSeqId());
+            }
+        } finally {
+            executor.shutdownNow();
+            transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(TransactionStatus status) {
+                    Set<Long> ids = new HashSet<>();
+                    for (long execStateId = 500; execStateId < 510; execStateId++) {
+                        ids.add(execStateId);
+                    }
+                    executionQueueHeadsRepository.deleteFinishedSteps(ids);
+                }
+            });
+        }
+    }
+
     private ExecutionMessage generateMessage(String groupName,String msgId, int msg_seq_id) {
         byte[] payloadData;
         payloadData = "This is just a test".getBytes();
@@ -305,8 +532,12 @@ public class ExecutionQueueRepositoryTest {
                 }
 
                 @Override
-                public List<Long> bulk(int bulkSize) {
-                    return null;
+                public synchronized List<Long> bulk(int bulkSize) {
+                    List<Long> ids = new ArrayList<>(bulkSize);
+                    for (int i = 0; i < bulkSize; i++) {
+                        ids.add(id++);
+                    }
+                    return ids;
                 }
             };
         }
@@ -316,6 +547,13 @@ public class ExecutionQueueRepositoryTest {
             return new ExecutionQueueRepositoryImpl();
         }
 
+        @Bean
+        ExecutionQueueRepository executionQueueHeadsRepository(){
+            ExecutionQueueRepositoryImpl executionQueueRepository = new ExecutionQueueRepositoryImpl();
+            executionQueueRepository.setQueueHeadsEnabled(true);
+            return executionQueueRepository;
+        }
+
         @Bean
         WorkerNodeService workerNodeService(){
             return Mockito.mock(WorkerNodeService.class);
@@ -30,7 +30,9 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.mockito.Mockito.*;
 
@@ -70,6 +72,63 @@ public class BusyWorkersServiceTest {
         Assert.assertTrue(busyWorkersService.isWorkerBusy("worker1"));
     }
 
+    @Test
+    public void testAwaitWorkerBusyTimeout(){
+        long start = System.currentTimeMillis();
+        Assert.assertFalse(busyWorkersService.awaitWorkerBusy("worker2", 100));
+        Assert.assertTrue(System.currentTimeMillis() - start >= 100);
+    }
+
+    @Test(timeout = 5000)
+    public void testAwaitWorkerBusyWokenUpByAssignment() throws Exception {
+        final AtomicBoolean result = new AtomicBoolean();
+        Thread poller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result.set(busyWorkersService.awaitWorkerBusy("worker3", 60000));
+            }
+        });
+        poller.start();
+        Thread.sleep(100);
+        busyWorkersService.markWorkersBusy(Collections.singletonList("worker3"));
+        poller.join();
+
+        Assert.assertTrue(result.get());
+        Assert.assertTrue(busyWorkersService.isWorkerBusy("worker3"));
+        // the mark was consumed by the first wait
+        Assert.assertFalse(busyWorkersService.awaitWorkerBusy("worker3", 10));
+    }
+
+    @Test(timeout = 5000)
+    public void testRemoveWorkerReleasesLongPolls() throws Exception {
+        final AtomicBoolean result = new AtomicBoolean(true);
+        Thread poller = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                result.set(busyWorkersService.awaitWorkerBusy("worker5", 60000));
+            }
+        });
+        poller.start();
+        Thread.sleep(100);
+        busyWorkersService.markWorkersBusy(Collections.singletonList("worker6"));
+        busyWorkersService.removeWorker("worker5");
+        busyWorkersService.removeWorker("worker6");
+        poller.join();
+
+        Assert.assertFalse(result.get());
+        Assert.assertFalse(busyWorkersService.isWorkerBusy("worker6"));
+        // the mark was removed with the worker
+        Assert.assertFalse(busyWorkersService.awaitWorkerBusy("worker6", 10));
+    }
+
+    @Test
+    public void testMarkedWorkerClearedByNewerQuery(){
+        when(executionQueueRepository.getBusyWorkers(ExecStatus.ASSIGNED)).thenReturn(new ArrayList<String>());
+        busyWorkersService.markWorkersBusy(Collections.singletonList("worker4"));
+        busyWorkersService.findBusyWorkers();
+        Assert.assertFalse(busyWorkersService.isWorkerBusy("worker4"));
+    }
+
 
     @Configuration
     static class EmptyConfig {
@@ -313,8 +313,12 @@ public class ExecutionQueueServiceTest {
 				}
 
 				@Override
-				public List<Long> bulk(int bulkSize) {
-					return null;
+				public synchronized List<Long> bulk(int bulkSize) {
+					List<Long> ids = new ArrayList<>(bulkSize);
+					for (int i = 0; i < bulkSize; i++) {
+						ids.add(id++);
+					}
+					return ids;
 				}
 			};
 		}
@@ -30,10 +30,15 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
@@ -115,4 +120,40 @@ public class QueueDispatcherServiceTest {
         Assert.assertEquals("id1",result.get(0).getMsgId());
         Assert.assertEquals("id2",result.get(1).getMsgId());
     }
+
+    @Test
+    public void testLongPollTimeout() throws Exception {
+        when(busyWorkersService.awaitWorkerBusy("workerId", 100)).thenReturn(false);
+        List<ExecutionMessage> result = queueDispatcherService.poll("workerId", 5, 100);
+        Assert.assertTrue(result.isEmpty());
+        verify(executionQueueService, never()).poll(anyString(), anyInt(), any(ExecStatus.class));
+    }
+
+    @Test
+    public void testLongPollWithResult() throws Exception {
+        List<ExecutionMessage> msg = new ArrayList<>();
+        msg.add(new ExecutionMessage());
+        msg.get(0).setMsgId("id1");
+
+        when(busyWorkersService.awaitWorkerBusy("workerId", 100)).thenReturn(true);
+        when(executionQueueService.poll("workerId", 5, ExecStatus.ASSIGNED)).thenReturn(msg);
+        List<ExecutionMessage> result = queueDispatcherService.poll("workerId", 5, 100);
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals(ExecStatus.SENT, result.get(0).getStatus());
+        verify(executionQueueService, times(1)).enqueue(msg);
+        // the bulk was not full, so the worker should wait for the next assignment
+        verify(busyWorkersService, never()).markWorkersBusy(anyCollection());
+    }
+
+    @Test
+    public void testLongPollFullBulk() throws Exception {
+        List<ExecutionMessage> msg = new ArrayList<>();
+        msg.add(new ExecutionMessage());
+        msg.add(new ExecutionMessage());
+
+        when(busyWorkersService.awaitWorkerBusy("workerId", 100)).thenReturn(true);
+        when(executionQueueService.poll("workerId", 2, ExecStatus.ASSIGNED)).thenReturn(msg);
+        queueDispatcherService.poll("workerId", 2, 100);
+        verify(busyWorkersService, times(1)).markWorkersBusy(Collections.singletonList("workerId"));
+    }
 }
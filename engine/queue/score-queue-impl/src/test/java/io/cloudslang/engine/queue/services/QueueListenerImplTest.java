@@ -22,6 +22,7 @@ import io.cloudslang.score.events.EventBus;
 import io.cloudslang.score.events.ScoreEvent;
 import io.cloudslang.score.facade.entities.Execution;
 import io.cloudslang.score.facade.execution.ExecutionSummary;
+import io.cloudslang.score.facade.services.RunningExecutionPlanService;
 import io.cloudslang.score.lang.SystemContext;
 import io.cloudslang.orchestrator.services.ExecutionStateService;
 import io.cloudslang.orchestrator.services.PauseResumeService;
@@ -37,6 +38,7 @@ import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Random;
@@ -44,6 +46,7 @@ import java.util.UUID;
 
 import static org.junit.matchers.JUnitMatchers.hasItem;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
 import static org.mockito.Matchers.argThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -78,9 +81,12 @@ public class QueueListenerImplTest {
 	@Autowired
 	private SplitJoinService splitJoinService;
 
+	@Autowired
+	private RunningExecutionPlanService runningExecutionPlanService;
+
 	@Before
 	public void setup() throws IOException {
-		reset(eventBus);
+		reset(eventBus, runningExecutionPlanService);
 	}
 
 	@Test
@@ -118,6 +124,7 @@ public class QueueListenerImplTest {
 
 		verify(executionStateService, times(1)).deleteExecutionState(Long.valueOf(messages.get(0).getMsgId()), ExecutionSummary.EMPTY_BRANCH);
 		verify(executionStateService, times(1)).deleteExecutionState(Long.valueOf(messages.get(1).getMsgId()), ExecutionSummary.EMPTY_BRANCH);
+		verify(runningExecutionPlanService, times(1)).deleteRunningExecutionPlans(Arrays.asList(messages.get(0).getMsgId(), messages.get(1).getMsgId()));
 	}
 
 	@Test
@@ -132,6 +139,7 @@ public class QueueListenerImplTest {
 
 		verify(splitJoinService, times(1)).endBranch((List<Execution>) argThat(hasItem(execution1)));
 		verify(splitJoinService, times(1)).endBranch((List<Execution>) argThat(hasItem(execution2)));
+		verify(runningExecutionPlanService, never()).deleteRunningExecutionPlans(anyCollection());
 	}
 
 	private Execution createBranchExecution() {
@@ -200,6 +208,17 @@ public class QueueListenerImplTest {
 
 		verify(splitJoinService, times(1)).endBranch((List<Execution>) argThat(hasItem(execution1)));
 		verify(splitJoinService, times(1)).endBranch((List<Execution>) argThat(hasItem(execution2)));
+		verify(runningExecutionPlanService, never()).deleteRunningExecutionPlans(anyCollection());
+	}
+
+	@Test
+	public void testOnFailedDeletesRunningExecutionPlans() {
+		List<ExecutionMessage> messages = new ArrayList<>();
+		messages.add(createExecutionMessage());
+		messages.add(createExecutionMessage());
+
+		queueListener.onFailed(messages);
+		verify(runningExecutionPlanService, times(1)).deleteRunningExecutionPlans(Arrays.asList(messages.get(0).getMsgId(), messages.get(1).getMsgId()));
 	}
 
 	@Configuration
@@ -239,6 +258,11 @@ public class QueueListenerImplTest {
 		PauseResumeService pauseResumeService() {
 			return mock(PauseResumeService.class);
 		}
+
+		@Bean
+		RunningExecutionPlanService runningExecutionPlanService() {
+			return mock(RunningExecutionPlanService.class);
+		}
 	}
 
 }
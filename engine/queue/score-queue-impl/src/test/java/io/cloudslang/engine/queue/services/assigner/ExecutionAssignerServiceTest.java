@@ -23,6 +23,7 @@ import io.cloudslang.engine.queue.entities.ExecStatus;
 import io.cloudslang.engine.queue.entities.ExecutionMessage;
 import io.cloudslang.engine.queue.entities.ExecutionMessageConverter;
 import io.cloudslang.engine.queue.entities.Payload;
+import io.cloudslang.engine.queue.services.BusyWorkersService;
 import io.cloudslang.engine.queue.services.ExecutionQueueService;
 import io.cloudslang.orchestrator.services.EngineVersionService;
 import io.cloudslang.score.facade.entities.Execution;
@@ -41,7 +42,9 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
@@ -70,6 +73,9 @@ public class ExecutionAssignerServiceTest {
     @Autowired
    	private EngineVersionService engineVersionService;
 
+    @Autowired
+    private BusyWorkersService busyWorkersService;
+
     @Test
     public void assign() throws Exception {
 
@@ -85,16 +91,21 @@ public class ExecutionAssignerServiceTest {
 
         Mockito.reset(executionQueueService);
         Mockito.reset(workerNodeService);
+        Mockito.reset(busyWorkersService);
         Mockito.when(workerNodeService.readGroupWorkersMapActiveAndRunningAndVersion(engineVersionService.getEngineVersionId())).thenReturn(groupWorkersMap);
 
         final List<ExecutionMessage> messagesInQ = executionAssignerService.assignWorkers(assignMessages);
 
         Assert.assertEquals(2, messagesInQ.size());
+        Set<String> assignedWorkers = new HashSet<>();
         for (ExecutionMessage msg : messagesInQ) {
             Assert.assertEquals(ExecStatus.ASSIGNED.getNumber(), msg.getStatus().getNumber());
             Assert.assertEquals(1, msg.getMsgSeqId());
             Assert.assertTrue(msg.getWorkerId().equals("worker1") || msg.getWorkerId().equals("worker2"));
+            assignedWorkers.add(msg.getWorkerId());
         }
+        // no transaction is active, so the workers are woken up right away
+        Mockito.verify(busyWorkersService).markWorkersBusy(assignedWorkers);
 
     }
 
@@ -111,6 +122,7 @@ public class ExecutionAssignerServiceTest {
 
         Mockito.reset(executionQueueService);
         Mockito.reset(workerNodeService);
+        Mockito.reset(busyWorkersService);
         Mockito.when(workerNodeService.readGroupWorkersMapActiveAndRunningAndVersion(engineVersionService.getEngineVersionId())).thenReturn(groupWorkersMap);
         Execution execution = Mockito.mock(Execution.class);
         Mockito.when(execution.getSystemContext()).thenReturn(new SystemContext());
@@ -129,6 +141,41 @@ public class ExecutionAssignerServiceTest {
         Assert.assertEquals(ExecStatus.FAILED.getNumber(), FailedMsg.getStatus().getNumber());
         Assert.assertEquals(2, FailedMsg.getMsgSeqId());
         Assert.assertEquals("EMPTY", FailedMsg.getWorkerId());
+        Mockito.verify(busyWorkersService, Mockito.never()).markWorkersBusy(Mockito.<String>anyCollection());
+    }
+
+    @Test
+    public void assignKeepsOrderWhenSomeHaveNoWorkers() throws Exception {
+
+        Multimap<String, String> groupWorkersMap = ArrayListMultimap.create();
+        groupWorkersMap.put("DefaultGroup", "worker1");
+
+        List<ExecutionMessage> assignMessages = new ArrayList<>();
+        ExecutionMessage msg1 = new ExecutionMessage(1, ExecutionMessage.EMPTY_WORKER, "DefaultGroup", "msg1", ExecStatus.PENDING, null, 0, (new Date(0)).getTime());
+        ExecutionMessage msg2 = new ExecutionMessage(2, ExecutionMessage.EMPTY_WORKER, "GroupX", "msg2", ExecStatus.PENDING, null, 0, (new Date(0)).getTime());
+        ExecutionMessage msg3 = new ExecutionMessage(3, "worker1", "DefaultGroup", "msg3", ExecStatus.IN_PROGRESS, null, 0, (new Date(0)).getTime());
+        assignMessages.add(msg1);
+        assignMessages.add(msg2);
+        assignMessages.add(msg3);
+
+        Mockito.reset(executionQueueService);
+        Mockito.reset(workerNodeService);
+        Mockito.reset(busyWorkersService);
+        Mockito.when(workerNodeService.readGroupWorkersMapActiveAndRunningAndVersion(engineVersionService.getEngineVersionId())).thenReturn(groupWorkersMap);
+        Execution execution = Mockito.mock(Execution.class);
+        Mockito.when(execution.getSystemContext()).thenReturn(new SystemContext());
+        Mockito.when(executionMessageConverter.extractExecution(any(Payload.class))).thenReturn(execution);
+
+        final List<ExecutionMessage> messagesInQ = executionAssignerService.assignWorkers(assignMessages);
+
+        Assert.assertEquals(4, messagesInQ.size());
+        Assert.assertSame(msg1, messagesInQ.get(0));
+        Assert.assertEquals(ExecStatus.ASSIGNED, msg1.getStatus());
+        Assert.assertEquals(ExecStatus.FINISHED, messagesInQ.get(1).getStatus());
+        Assert.assertEquals(ExecStatus.FAILED, messagesInQ.get(2).getStatus());
+        Assert.assertSame(msg3, messagesInQ.get(3));
+        // the given list is not changed
+        Assert.assertEquals(3, assignMessages.size());
     }
 
     @Configuration
@@ -149,6 +196,11 @@ public class ExecutionAssignerServiceTest {
             return Mockito.mock(ExecutionQueueService.class);
         }
 
+        @Bean
+        public BusyWorkersService busyWorkersService() {
+            return Mockito.mock(BusyWorkersService.class);
+        }
+
         @Bean
         public ExecutionMessageConverter executionMessageConverter() {
             return Mockito.mock(ExecutionMessageConverter.class);
@@ -54,7 +54,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -78,11 +82,15 @@ public class QueueCleanerServiceTest {
 	@Autowired
 	private JdbcTemplate jdbcTemplate;
 
+	@Autowired
+	private QueueCleanerMetrics queueCleanerMetrics;
+
 
 	@Before
 	public void before() {
 		jdbcTemplate.execute("delete from OO_EXECUTION_QUEUES");
 		jdbcTemplate.execute("delete from OO_EXECUTION_STATES");
+		reset(queueCleanerMetrics);
 	}
 
 	@Test
@@ -130,6 +138,41 @@ public class QueueCleanerServiceTest {
 		Assert.assertEquals(0, ids.size());
 	}
 
+	@Test
+	public void cleanFinishedStepsInChunksTest() {
+		List<ExecutionMessage> msgs = new ArrayList<>();
+		msgs.add(generateMessage(1, "group1", "1", ExecStatus.FINISHED, 1));
+		msgs.add(generateMessage(2, "group1", "2", ExecStatus.FAILED, 1));
+		msgs.add(generateMessage(3, "group1", "3", ExecStatus.TERMINATED, 1));
+		msgs.add(generateMessage(4, "group1", "4", ExecStatus.IN_PROGRESS, 1));
+		executionQueueService.enqueue(msgs);
+
+		Assert.assertEquals(3, queueCleanerService.cleanFinishedSteps());
+
+		Assert.assertEquals(0, queueCleanerService.getFinishedExecStateIds().size());
+		Assert.assertEquals(1, jdbcTemplate.queryForObject("select count(*) from OO_EXECUTION_QUEUES", Integer.class).intValue());
+		// chunks of 2
+		verify(queueCleanerMetrics).chunkCleaned(eq(2L), eq(0L), anyDouble());
+		verify(queueCleanerMetrics).chunkCleaned(eq(3L), eq(0L), anyDouble());
+		verify(queueCleanerMetrics).cleanFinished(eq(3L), eq(0L), anyDouble());
+	}
+
+	@Test
+	public void cleanFinishedStepsInPagesTest() {
+		List<ExecutionMessage> msgs = new ArrayList<>();
+		for (int execStateId = 1; execStateId <= 5; execStateId++) {
+			msgs.add(generateMessage(execStateId, "group1", String.valueOf(execStateId), ExecStatus.FINISHED, 1));
+		}
+		// an exec state may have more than one finished message, it is cleaned once
+		msgs.add(generateMessage(2, "group1", "2", ExecStatus.TERMINATED, 2));
+		executionQueueService.enqueue(msgs);
+
+		// pages of 2
+		Assert.assertEquals(5, queueCleanerService.cleanFinishedSteps());
+		Assert.assertEquals(0, jdbcTemplate.queryForObject("select count(*) from OO_EXECUTION_QUEUES", Integer.class).intValue());
+		verify(queueCleanerMetrics).cleanFinished(eq(5L), eq(0L), anyDouble());
+	}
+
 	private ExecutionMessage generateMessage(long execStateId, String groupName, String msgId, ExecStatus status, int msg_seq_id) {
 		byte[] payloadData;
 		payloadData = "This is just a test".getBytes();
@@ -178,15 +221,27 @@ public class QueueCleanerServiceTest {
 				}
 
 				@Override
-				public List<Long> bulk(int bulkSize) {
-					return null;
+				public synchronized List<Long> bulk(int bulkSize) {
+					List<Long> ids = new ArrayList<>(bulkSize);
+					for (int i = 0; i < bulkSize; i++) {
+						ids.add(id++);
+					}
+					return ids;
 				}
 			};
 		}
 
 		@Bean
 		QueueCleanerService queueCleanerService() {
-			return new QueueCleanerServiceImpl();
+			QueueCleanerServiceImpl queueCleanerService = new QueueCleanerServiceImpl();
+			queueCleanerService.setChunkSize(2);
+			queueCleanerService.setPageSize(2);
+			return queueCleanerService;
+		}
+
+		@Bean
+		QueueCleanerMetrics queueCleanerMetrics() {
+			return mock(QueueCleanerMetrics.class);
 		}
 
 		@Bean
@@ -20,6 +20,7 @@ import io.cloudslang.score.api.nodes.WorkerStatus;
 import io.cloudslang.engine.node.entities.WorkerNode;
 import io.cloudslang.engine.node.services.WorkerLockService;
 import io.cloudslang.engine.node.services.WorkerNodeService;
+import io.cloudslang.engine.queue.services.BusyWorkersService;
 import io.cloudslang.engine.queue.services.ExecutionQueueService;
 import io.cloudslang.engine.versioning.services.VersionService;
 import org.junit.Before;
@@ -73,6 +74,9 @@ public class WorkerRecoveryServiceTest {
     @Mock
     private MessageRecoveryService messageRecoveryService;
 
+    @Mock
+    private BusyWorkersService busyWorkersService;
+
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
@@ -154,6 +158,7 @@ public class WorkerRecoveryServiceTest {
         verify(workerLockService, times(1)).lock("worker1");
         verify(workerNodeService, times(1)).updateStatusInSeparateTransaction("worker1", WorkerStatus.IN_RECOVERY);
         verify(workerNodeService, times(1)).updateStatus("worker1", WorkerStatus.RECOVERED);
+        verify(busyWorkersService, times(1)).removeWorker("worker1");
     }
 
     private List<String> getNonResponsiveWorkers() {
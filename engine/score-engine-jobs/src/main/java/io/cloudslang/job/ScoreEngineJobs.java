@@ -43,4 +43,14 @@ public interface ScoreEngineJobs {
      */
     void executionRecoveryJob();
 
+    /**
+     * job that deletes running execution plans that are no longer used by any execution
+     */
+    void cleanRunningExecutionPlansJob();
+
+    /**
+     * job that deletes the configuration changes the workers already read
+     */
+    void cleanConfigurationChangesJob();
+
 }
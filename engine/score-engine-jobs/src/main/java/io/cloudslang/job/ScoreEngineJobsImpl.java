@@ -18,15 +18,15 @@ package io.cloudslang.job;
 
 import io.cloudslang.engine.queue.services.cleaner.QueueCleanerService;
 import io.cloudslang.engine.queue.services.recovery.ExecutionRecoveryService;
+import io.cloudslang.engine.versioning.services.ConfigurationChangeService;
 import io.cloudslang.engine.versioning.services.VersionService;
 import io.cloudslang.orchestrator.services.SplitJoinService;
+import io.cloudslang.score.facade.services.RunningExecutionPlanService;
 import org.apache.commons.lang.time.StopWatch;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
-import java.util.HashSet;
-import java.util.Set;
 
 /**
  * This class will unite all periodic jobs needed by the score engine, to be triggered by a scheduler .
@@ -48,36 +48,34 @@ public class ScoreEngineJobsImpl implements ScoreEngineJobs {
     @Autowired
     private ExecutionRecoveryService executionRecoveryService;
 
+    @Autowired
+    private RunningExecutionPlanService runningExecutionPlanService;
+
+    @Autowired
+    private ConfigurationChangeService configurationChangeService;
+
     private final Logger logger = Logger.getLogger(getClass());
 
-    final private int QUEUE_BULK_SIZE = 500;
 
     private final Integer SPLIT_JOIN_BULK_SIZE = Integer.getInteger("splitjoin.job.bulk.size", 25);
 
     private final Integer SPLIT_JOIN_ITERATIONS = Integer.getInteger("splitjoin.job.iterations", 20);
 
+    private final Long RUNNING_PLANS_GRACE_PERIOD = Long.getLong("running.execution.plans.cleaner.grace.millis", 60 * 60 * 1000L);
+
+    // a worker that did not read the changes by then reads the whole configuration
+    private final Long CONFIGURATION_CHANGES_RETENTION = Long.getLong("configuration.changes.retention.millis", 60 * 60 * 1000L);
+
     /**
      * Job that will handle the cleaning of queue table.
      */
     @Override
     public void cleanQueueJob(){
         try {
-            Set<Long> ids = queueCleanerService.getFinishedExecStateIds();
-            if(logger.isDebugEnabled()) logger.debug("Will clean from queue the next Exec state ids amount:"+ids.size());
-
-            Set<Long> execIds = new HashSet<>();
+            long cleaned = queueCleanerService.cleanFinishedSteps();
+            if(logger.isDebugEnabled()) logger.debug("Cleaned from queue the next Exec state ids amount:"+cleaned);
 
-            for (Long id : ids) {
-                execIds.add(id);
-                if (execIds.size() >= QUEUE_BULK_SIZE) {
-                    queueCleanerService.cleanFinishedSteps(execIds);
-                    execIds.clear();
-                }
-            }
-
-            if (execIds.size() > 0) {
-                queueCleanerService.cleanFinishedSteps(execIds);
-            }
+            queueCleanerService.rollQueuePartitions();
         } catch (Exception e) {
             logger.error("Can't run queue cleaner job.", e);
         }
@@ -135,4 +133,30 @@ public class ScoreEngineJobsImpl implements ScoreEngineJobs {
         }
     }
 
+    /**
+     * Job that will delete the running execution plans that no execution is linked to.
+     */
+    @Override
+    public void cleanRunningExecutionPlansJob(){
+        try {
+            int deleted = runningExecutionPlanService.deleteOrphanRunningExecutionPlans(RUNNING_PLANS_GRACE_PERIOD);
+            if (logger.isDebugEnabled()) logger.debug("Running execution plans cleaner deleted " + deleted + " plans");
+        } catch (Exception e) {
+            logger.error("Can't run running execution plans cleaner job.", e);
+        }
+    }
+
+    /**
+     * Job that will delete the configuration changes older than the retention.
+     */
+    @Override
+    public void cleanConfigurationChangesJob(){
+        try {
+            int deleted = configurationChangeService.deleteChangesCreatedBefore(System.currentTimeMillis() - CONFIGURATION_CHANGES_RETENTION);
+            if (logger.isDebugEnabled()) logger.debug("Configuration changes cleaner deleted " + deleted + " changes");
+        } catch (Exception e) {
+            logger.error("Can't run configuration changes cleaner job.", e);
+        }
+    }
+
 }
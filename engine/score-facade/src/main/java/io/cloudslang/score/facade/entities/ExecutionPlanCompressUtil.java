@@ -62,6 +62,25 @@ public class ExecutionPlanCompressUtil {
         }
   }
 
+    /**
+     * Zips an already serialized ExecutionPlan, the result can be read by getExecutionPlanFromBytes
+     *
+     * @param serializedExecutionPlan - the serialized object of ExecutionPlan
+     * @return compressed serialized object of ExecutionPlan
+     */
+    public static byte[] getZippedBytes(byte[] serializedExecutionPlan) {
+        try {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzipout = new GZIPOutputStream(bout)) {
+                gzipout.write(serializedExecutionPlan);
+            }
+            return bout.toByteArray();
+        } catch (IOException ex) {
+            logger.error("Failed to zip execution plan. Error: ", ex);
+            throw new RuntimeException("Failed to zip execution plan. Error: ", ex);
+        }
+    }
+
     public static byte[] getBytesFromExecutionPlan(ExecutionPlan executionPlan) {
         ObjectOutputStream oos = null;
         try {
@@ -56,6 +56,14 @@ public class RunningExecutionPlan extends AbstractIdentifiable {
     @Column(name = "EXECUTION_ID")
     private String executionId;
 
+    // hash of the serialized plan, running plans with the same hash are shared between executions
+    @Column(name = "PLAN_HASH", unique = true)
+    private String planHash;
+
+    // set by the cleanup once no execution is linked to the plan
+    @Column(name = "ORPHANED_TIME")
+    private Long orphanedTime;
+
     public byte[] getExecutionPlanZipped() {
         return executionPlanZipped;
     }
@@ -85,6 +93,22 @@ public class RunningExecutionPlan extends AbstractIdentifiable {
         this.flowUUID = flowUUID;
     }
 
+    public String getPlanHash() {
+        return planHash;
+    }
+
+    public void setPlanHash(String planHash) {
+        this.planHash = planHash;
+    }
+
+    public Long getOrphanedTime() {
+        return orphanedTime;
+    }
+
+    public void setOrphanedTime(Long orphanedTime) {
+        this.orphanedTime = orphanedTime;
+    }
+
     public String getExecutionId() {
         return executionId;
     }
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.score.facade.entities;
+
+import io.cloudslang.engine.data.AbstractIdentifiable;
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.apache.commons.lang.builder.HashCodeBuilder;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+/**
+ * Links an execution to a running execution plan it uses.
+ * Running execution plans are shared between executions, the links are their reference count.
+ */
+@Entity
+@Immutable
+@Table(name = "OO_EXECUTION_PLAN_LINKS")
+public class RunningExecutionPlanLink extends AbstractIdentifiable {
+    private static final long serialVersionUID = -2650183296531470817L;
+
+    @Column(name = "EXECUTION_ID", nullable = false, updatable = false)
+    private String executionId;
+
+    @Column(name = "RUNNING_EXECUTION_PLAN_ID", nullable = false, updatable = false)
+    private Long runningExecutionPlanId;
+
+    public RunningExecutionPlanLink() {}
+
+    public RunningExecutionPlanLink(String executionId, Long runningExecutionPlanId) {
+        this.executionId = executionId;
+        this.runningExecutionPlanId = runningExecutionPlanId;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public Long getRunningExecutionPlanId() {
+        return runningExecutionPlanId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        RunningExecutionPlanLink that = (RunningExecutionPlanLink) o;
+
+        return new EqualsBuilder()
+                .append(this.executionId, that.executionId)
+                .append(this.runningExecutionPlanId, that.runningExecutionPlanId)
+                .isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder()
+                .append(this.executionId)
+                .append(this.runningExecutionPlanId)
+                .toHashCode();
+    }
+}
@@ -38,7 +38,7 @@ public interface RunningExecutionPlanService {
     RunningExecutionPlan createRunningExecutionPlan(RunningExecutionPlan runningExecutionPlan);
 
     /**
-     * check if exist such RunningExecutionPlan if not create it
+     * check if exist such RunningExecutionPlan if not create it, and link it to the execution
      *
      * @param executionPlan - the RunningExecutionPlan
      * @param executionId   - the flow run id
@@ -64,5 +64,20 @@ public interface RunningExecutionPlanService {
     String getFlowUuidByRunningExecutionPlanId(Long runningExecutionPlanId);
 
 
+    /**
+     * unlink the running execution plans from the given executions,
+     * plans that are no longer linked to any execution are deleted by deleteOrphanRunningExecutionPlans
+     *
+     * @param executionIds - the flow run ids
+     * @return the number of removed links
+     */
     int deleteRunningExecutionPlans(Collection<String> executionIds);
+
+    /**
+     * delete running execution plans that are not linked to any execution for at least the grace period
+     *
+     * @param gracePeriodMillis - how long a plan stays orphan before it is deleted
+     * @return the number of deleted plans
+     */
+    int deleteOrphanRunningExecutionPlans(long gracePeriodMillis);
 }
@@ -21,12 +21,15 @@ import io.cloudslang.engine.node.services.WorkerNodeServiceImpl;
 import io.cloudslang.engine.node.services.WorkersMBean;
 import io.cloudslang.engine.queue.entities.ExecutionMessageConverter;
 import io.cloudslang.engine.queue.repositories.ExecutionQueueRepositoryImpl;
+import io.cloudslang.engine.queue.repositories.QueuePartitions;
+import io.cloudslang.engine.queue.repositories.callbacks.ExecutionStatesCallback;
 import io.cloudslang.engine.queue.services.*;
 import io.cloudslang.engine.queue.services.assigner.ExecutionAssignerServiceImpl;
 import io.cloudslang.engine.queue.services.cleaner.QueueCleanerServiceImpl;
 import io.cloudslang.engine.queue.services.recovery.ExecutionRecoveryServiceImpl;
 import io.cloudslang.engine.queue.services.recovery.MessageRecoveryServiceImpl;
 import io.cloudslang.engine.queue.services.recovery.WorkerRecoveryServiceImpl;
+import io.cloudslang.engine.versioning.services.ConfigurationChangeServiceImpl;
 import io.cloudslang.engine.versioning.services.VersionServiceImpl;
 import io.cloudslang.orchestrator.services.*;
 import io.cloudslang.engine.partitions.services.PartitionCallback;
@@ -74,6 +77,7 @@ public class EngineBeanDefinitionParser extends AbstractBeanDefinitionParser {
 		put(PartitionServiceImpl.class, null);
 		put(RunningExecutionPlanServiceImpl.class, "runningEP");
 		put(VersionServiceImpl.class, null);
+		put(ConfigurationChangeServiceImpl.class, null);
 		put(CancelExecutionServiceImpl.class, "cancelExecutionService");
 		put(ScoreEventFactoryImpl.class, "scoreEventFactory");
 		put(QueueListenerImpl.class, "scoreQueueListenenerImpl");
@@ -95,6 +99,7 @@ public class EngineBeanDefinitionParser extends AbstractBeanDefinitionParser {
 		put(ExecutionQueueRepositoryImpl.class, null);
 		put(HiloFactoryBean.class, "scoreHiloFactoryBean");
 		put(WorkersMBean.class, "io.cloudslang.engine.node.services.WorkersMBean");
+		put(ExecutionQueueMBean.class, "io.cloudslang.engine.queue.services.ExecutionQueueMBean");
         put(WorkerDbSupportServiceImpl.class, null);
         put(ScoreDeprecatedImpl.class, null);
         put(ScoreEngineJobsImpl.class,"scoreEngineJobs");
@@ -146,6 +151,7 @@ public class EngineBeanDefinitionParser extends AbstractBeanDefinitionParser {
         registerPauseResume(element,parserContext);
 		registerWorkerNodeService(element, parserContext);
 		registerEngineVersionService(element, parserContext);
+		registerQueuePartitions(parserContext);
     }
 
     private void registerPauseResume(Element element, ParserContext parserContext){
@@ -169,6 +175,16 @@ public class EngineBeanDefinitionParser extends AbstractBeanDefinitionParser {
 		}
 	}
 
+	private void registerQueuePartitions(ParserContext parserContext){
+		if(QueuePartitions.isEnabled()){
+			new BeanRegistrator(parserContext).CLASS(ExecutionStatesCallback.class).register();
+			registerPartitionTemplate(QueuePartitions.GROUP_NAME, QueuePartitions.GROUP_SIZE,
+					Long.getLong("queue.partitions.size.threshold", -1L),
+					Long.getLong("queue.partitions.time.threshold.millis", 60 * 60 * 1000L),
+					parserContext, ExecutionStatesCallback.class);
+		}
+	}
+
 	private void registerPartitionTemplate(String name, int groupSize, long sizeThreshold, long timeThreshold,
                                            ParserContext parserContext,
                                            Class<? extends PartitionCallback> callbackClass){
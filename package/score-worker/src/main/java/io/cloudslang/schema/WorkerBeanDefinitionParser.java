@@ -19,11 +19,13 @@ package io.cloudslang.schema;
 import io.cloudslang.runtime.impl.sequential.DefaultSequentialExecutionServiceImpl;
 import io.cloudslang.score.events.EventBusImpl;
 import io.cloudslang.worker.execution.reflection.ReflectionAdapterImpl;
+import io.cloudslang.worker.execution.services.ExecutionPlanCacheImpl;
 import io.cloudslang.worker.execution.services.ExecutionServiceImpl;
 import io.cloudslang.worker.execution.services.SessionDataHandlerImpl;
 import io.cloudslang.worker.management.WorkerConfigurationServiceImpl;
 import io.cloudslang.worker.management.WorkerRegistration;
 import io.cloudslang.worker.management.monitor.ScheduledWorkerLoadMonitor;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitorImpl;
 import io.cloudslang.worker.management.monitor.WorkerMonitorsImpl;
 import io.cloudslang.worker.management.services.*;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
@@ -49,11 +51,13 @@ public class WorkerBeanDefinitionParser extends AbstractBeanDefinitionParser {
 		put(WorkerManager.class, "workerManager");
 		put(EventBusImpl.class, null);
 		put(ExecutionServiceImpl.class, "agent");
+		put(ExecutionPlanCacheImpl.class, "executionPlanCache");
 		put(InBuffer.class, null);
 		put(OutboundBufferImpl.class, "outBuffer");
 		put(RetryTemplate.class, null);
 		put(SimpleExecutionRunnableFactory.class, null);
 		put(WorkerManagerMBean.class, "io.cloudslang.worker.management.services.WorkerManagerMBean");
+		put(EventBusMBean.class, "io.cloudslang.worker.management.services.EventBusMBean");
 		put(WorkerRecoveryManagerImpl.class, null);
 		put(ReflectionAdapterImpl.class, null);
         put(SessionDataHandlerImpl.class, "sessionDataHandler");
@@ -64,6 +68,7 @@ public class WorkerBeanDefinitionParser extends AbstractBeanDefinitionParser {
         put(WorkerExecutionMonitorServiceImpl.class, "workerExecutionMonitorService");
         put(WorkerMonitorsImpl.class, "workerMonitorsImpl");
         put(ScheduledWorkerLoadMonitor.class, "scheduledWorkerLoadMonitor");
+        put(WorkerLatencyMonitorImpl.class, "workerLatencyMonitor");
 	}};
 
 	private List<ConfValue> configurationValues = Arrays.asList(
@@ -0,0 +1,392 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.score.events;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The queue of an asynchronous listener: a ring of the events dispatched to the listener, delivered in batches
+ * to its onEvents by a daemon thread of its own, in the order they were dispatched.
+ * <p>
+ * Once the ring is full the events are handled by the overflow policy. Spilled events are appended to a temporary file,
+ * and while there are spilled events every dispatched event is spilled, so the events are delivered in order:
+ * first the ring and then the file.
+ */
+class AsyncEventQueue implements Runnable {
+
+    private static final Logger logger = Logger.getLogger(AsyncEventQueue.class);
+
+    private static final int MAX_BATCH_SIZE = Integer.getInteger("score.eventBus.maxBatchSize", 256);
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final ScoreEventListener listener;
+    private final OverflowPolicy overflowPolicy;
+    private final ScoreEvent[] events;
+    // the System.nanoTime() each event of the ring was dispatched
+    private final long[] dispatchNanos;
+    private int head;
+    private int size;
+    private SpillFile spillFile;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition drained = lock.newCondition();
+    private final Thread thread;
+    private volatile boolean stopped;
+
+    // guarded by the lock
+    private boolean delivering;
+    private long dispatched;
+    private long delivered;
+    private long dropped;
+    private long spilled;
+    private long failed;
+    private long lastLagNanos;
+    private long maxLagNanos;
+    private String lastFailure;
+
+    AsyncEventQueue(ScoreEventListener listener, int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity of an asynchronous listener must be positive: " + capacity);
+        }
+        this.listener = listener;
+        this.overflowPolicy = overflowPolicy;
+        events = new ScoreEvent[capacity];
+        dispatchNanos = new long[capacity];
+        thread = new Thread(this, "eventBus-" + listener.getClass().getSimpleName() + "-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void put(ScoreEvent event) throws InterruptedException {
+        long now = System.nanoTime();
+        lock.lockInterruptibly();
+        try {
+            if (stopped) {
+                return;
+            }
+            dispatched++;
+            if (spillFile != null) {
+                spill(event, now);
+                return;
+            }
+            while (size == events.length) {
+                if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+                    events[head] = null;
+                    head = next(head);
+                    size--;
+                    dropped++;
+                } else if (overflowPolicy == OverflowPolicy.SPILL) {
+                    spill(event, now);
+                    return;
+                } else {
+                    notFull.await();
+                    if (stopped) {
+                        return;
+                    }
+                }
+            }
+            int tail = (head + size) % events.length;
+            events[tail] = event;
+            dispatchNanos[tail] = now;
+            size++;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the delivery, the events that were not delivered are dropped
+     */
+    void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+            drained.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the events dispatched so far were delivered, or until the deadline
+     *
+     * @param deadlineNanos the System.nanoTime() to wait until
+     * @return whether all the events were delivered
+     */
+    boolean flush(long deadlineNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining;
+            while ((size > 0 || spillFile != null || delivering) && !stopped) {
+                if ((remaining = deadlineNanos - System.nanoTime()) <= 0) {
+                    return false;
+                }
+                drained.awaitNanos(remaining);
+            }
+            return size == 0 && spillFile == null && !delivering;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<ScoreEvent> batch = new ArrayList<>();
+        while (!stopped) {
+            long oldestNanos;
+            try {
+                oldestNanos = take(batch);
+            } catch (InterruptedException ex) {
+                // nothing else interrupts the thread of the queue, it stops as if the queue was stopped
+                logger.warn("The thread of the asynchronous listener " + getListenerName() + " was interrupted, its events are dropped");
+                stop();
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            Throwable failure = null;
+            try {
+                listener.onEvents(batch);
+            } catch (Throwable ex) {
+                // the thread of the queue keeps on delivering the next events
+                logger.error("Asynchronous listener " + getListenerName() + " failed on " + batch.size() + " events", ex);
+                failure = ex;
+            }
+            delivered(batch.size(), System.nanoTime() - oldestNanos, failure);
+            batch.clear();
+        }
+        closeSpillFile();
+    }
+
+    // takes the next batch, from the ring and then from the spill file, and returns the time its first event was dispatched
+    private long take(List<ScoreEvent> batch) throws InterruptedException {
+        lock.lock();
+        try {
+            while (size == 0 && spillFile == null && !stopped) {
+                notEmpty.await();
+            }
+            if (stopped) {
+                return 0;
+            }
+            if (size > 0) {
+                long oldestNanos = dispatchNanos[head];
+                while (size > 0 && batch.size() < MAX_BATCH_SIZE) {
+                    batch.add(events[head]);
+                    events[head] = null;
+                    head = next(head);
+                    size--;
+                }
+                notFull.signalAll();
+                return oldestNanos;
+            }
+            return readSpilled(batch);
+        } finally {
+            // the batch is being delivered until delivered() is called
+            delivering = !batch.isEmpty();
+            if (!delivering && size == 0 && spillFile == null) {
+                drained.signalAll();
+            }
+            lock.unlock();
+        }
+    }
+
+    private void delivered(int events, long lagNanos, Throwable failure) {
+        lock.lock();
+        try {
+            delivering = false;
+            if (size == 0 && spillFile == null) {
+                drained.signalAll();
+            }
+            delivered += events;
+            lastLagNanos = lagNanos;
+            maxLagNanos = Math.max(maxLagNanos, lagNanos);
+            if (failure != null) {
+                failed += events;
+                lastFailure = failure.toString();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void spill(ScoreEvent event, long now) {
+        try {
+            if (spillFile == null) {
+                spillFile = new SpillFile();
+                notEmpty.signal();
+            }
+            spillFile.write(event, now);
+            spilled++;
+        } catch (IOException ex) {
+            dropped++;
+            lastFailure = ex.toString();
+        }
+    }
+
+    private long readSpilled(List<ScoreEvent> batch) {
+        long oldestNanos = System.nanoTime();
+        try {
+            oldestNanos = spillFile.read(batch, MAX_BATCH_SIZE);
+        } catch (IOException | ClassNotFoundException ex) {
+            // the rest of the file can not be read
+            dropped += spillFile.getPending();
+            lastFailure = ex.toString();
+            closeSpillFile();
+            return oldestNanos;
+        }
+        if (spillFile.getPending() == 0) {
+            closeSpillFile();
+        }
+        return oldestNanos;
+    }
+
+    private void closeSpillFile() {
+        lock.lock();
+        try {
+            if (spillFile != null) {
+                spillFile.close();
+                spillFile = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int next(int index) {
+        return index + 1 == events.length ? 0 : index + 1;
+    }
+
+    String getStatistics() {
+        lock.lock();
+        try {
+            long pendingSpilled = spillFile == null ? 0 : spillFile.getPending();
+            long oldestLagNanos = size == 0 ? 0 : System.nanoTime() - dispatchNanos[head];
+            return "policy=" + overflowPolicy
+                    + ", queued=" + size
+                    + ", capacity=" + events.length
+                    + ", pendingSpilled=" + pendingSpilled
+                    + ", dispatched=" + dispatched
+                    + ", delivered=" + delivered
+                    + ", dropped=" + dropped
+                    + ", spilled=" + spilled
+                    + ", failed=" + failed
+                    + ", oldestQueuedLagMicros=" + TimeUnit.NANOSECONDS.toMicros(oldestLagNanos)
+                    + ", lastLagMicros=" + TimeUnit.NANOSECONDS.toMicros(lastLagNanos)
+                    + ", maxLagMicros=" + TimeUnit.NANOSECONDS.toMicros(maxLagNanos)
+                    + (lastFailure == null ? "" : ", lastFailure=" + lastFailure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    String getListenerName() {
+        return listener.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(listener));
+    }
+
+    /**
+     * A temporary file of serialized events, each is the time it was dispatched, its length and its bytes.
+     * It is written and read under the lock of the queue, and deleted once all its events were read.
+     */
+    private static class SpillFile {
+
+        private final File file;
+        private final DataOutputStream output;
+        private DataInputStream input;
+        private long pending;
+
+        SpillFile() throws IOException {
+            file = File.createTempFile("score-events-", ".spill");
+            file.deleteOnExit();
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        }
+
+        void write(ScoreEvent event, long dispatchNanos) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+                objectOutput.writeObject(event);
+            }
+            output.writeLong(dispatchNanos);
+            output.writeInt(bytes.size());
+            bytes.writeTo(output);
+            pending++;
+        }
+
+        long read(List<ScoreEvent> batch, int maxBatchSize) throws IOException, ClassNotFoundException {
+            output.flush();
+            if (input == null) {
+                input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            }
+            long oldestNanos = 0;
+            while (pending > 0 && batch.size() < maxBatchSize) {
+                long dispatchNanos = input.readLong();
+                byte[] bytes = new byte[input.readInt()];
+                input.readFully(bytes);
+                try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    batch.add((ScoreEvent) objectInput.readObject());
+                }
+                if (batch.size() == 1) {
+                    oldestNanos = dispatchNanos;
+                }
+                pending--;
+            }
+            return oldestNanos;
+        }
+
+        long getPending() {
+            return pending;
+        }
+
+        void close() {
+            try {
+                output.close();
+                if (input != null) {
+                    input.close();
+                }
+            } catch (IOException ignore) {
+                // the file is deleted anyway
+            }
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package io.cloudslang.score.events;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -32,6 +34,19 @@ public interface EventBus {
      */
 	void subscribe(ScoreEventListener eventHandler, Set<String> eventTypes);
 
+    /**
+     * register listener for event types, the events are put on a queue of the listener and delivered
+     * in batches to its onEvents by a thread of its own, so the dispatch does not wait for the listener.
+     * A bus without asynchronous listeners calls the listener on the dispatching thread.
+     * @param eventHandler  - the handler of the events
+     * @param eventTypes - the types of events you want to listen to
+     * @param capacity - the events the queue of the listener holds
+     * @param overflowPolicy - what a dispatch does when the queue of the listener is full
+     */
+    default void subscribeAsync(ScoreEventListener eventHandler, Set<String> eventTypes, int capacity, OverflowPolicy overflowPolicy) {
+        subscribe(eventHandler, eventTypes);
+    }
+
     /**
      * remove the given handler
      * @param eventHandler - the listener to remove
@@ -43,4 +58,19 @@ public interface EventBus {
      * @param eventWrappers one or more score event to dispatch
      */
 	void dispatch(ScoreEvent... eventWrappers) throws InterruptedException;
+
+    /**
+     * @param eventType - the type of the event
+     * @return false when no listener is subscribed to the event type, so the event need not be created
+     */
+    default boolean hasSubscribers(String eventType) {
+        return true;
+    }
+
+    /**
+     * @return the queue, the lag and the events delivered, dropped and spilled of every asynchronous listener
+     */
+    default Map<String, String> getAsyncListenerStatistics() {
+        return Collections.emptyMap();
+    }
 }
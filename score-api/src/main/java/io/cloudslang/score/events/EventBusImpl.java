@@ -16,34 +16,163 @@
 
 package io.cloudslang.score.events;
 
+import org.apache.log4j.Logger;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * The events are routed by a table from every event type to the subscriptions to it, copied on every change
+ * of the subscriptions, so a dispatch reads it without a lock and finds its listeners by a lookup of the type.
+ * The event types are mostly the constants of EventConstants, so their lookup is an identity compare.
+ * Every listener gets the events of a dispatch in their order.
+ *
  * User: hajyhia
  * Date: 1/19/14
  * Time: 5:51 PM
  */
 public class EventBusImpl implements EventBus {
 
-	private Map<ScoreEventListener, Set<String>> handlers = new ConcurrentHashMap<>();
+	private static final Logger logger = Logger.getLogger(EventBusImpl.class);
+
+	private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+	// how long the shutdown waits for the asynchronous listeners to get the events that were dispatched to them
+	private long flushTimeoutMillis = Long.getLong("score.eventBus.flushTimeoutMillis", 5000);
+
+	// guarded by this
+	private final Map<ScoreEventListener, Subscription> subscriptions = new LinkedHashMap<>();
 
-	public void subscribe(ScoreEventListener eventListener, Set<String> eventTypes) {
-		handlers.put(eventListener, eventTypes);
+	private volatile Map<String, Subscription[]> routes = Collections.emptyMap();
+
+	public synchronized void subscribe(ScoreEventListener eventListener, Set<String> eventTypes) {
+		replace(eventListener, new Subscription(eventListener, eventTypes, null));
+	}
+
+	@Override
+	public synchronized void subscribeAsync(ScoreEventListener eventListener, Set<String> eventTypes, int capacity, OverflowPolicy overflowPolicy) {
+		replace(eventListener, new Subscription(eventListener, eventTypes, new AsyncEventQueue(eventListener, capacity, overflowPolicy)));
 	}
 
-	public void unsubscribe(ScoreEventListener eventListener) {
-		handlers.remove(eventListener);
+	public synchronized void unsubscribe(ScoreEventListener eventListener) {
+		replace(eventListener, null);
 	}
 
     public void dispatch(ScoreEvent... events)  throws InterruptedException {
-        for (ScoreEventListener eventHandler : handlers.keySet()) {
-            Set<String> eventTypes = handlers.get(eventHandler);
-            for (ScoreEvent eventWrapper : events) {
-                if (eventTypes.contains(eventWrapper.getEventType())) {
-                    eventHandler.onEvent(eventWrapper);
+        Map<String, Subscription[]> routes = this.routes;
+        if (routes.isEmpty()) {
+            return;
+        }
+        for (ScoreEvent eventWrapper : events) {
+            Subscription[] eventSubscriptions = routes.get(eventWrapper.getEventType());
+            if (eventSubscriptions != null) {
+                for (Subscription subscription : eventSubscriptions) {
+                    subscription.deliver(eventWrapper);
                 }
+            }
+		}
+	}
+
+	@Override
+	public boolean hasSubscribers(String eventType) {
+		return routes.containsKey(eventType);
+	}
+
+	@Override
+	public synchronized Map<String, String> getAsyncListenerStatistics() {
+		Map<String, String> statistics = new LinkedHashMap<>();
+		for (Subscription subscription : subscriptions.values()) {
+			if (subscription.asyncQueue != null) {
+				statistics.put(subscription.asyncQueue.getListenerName(), subscription.asyncQueue.getStatistics());
+			}
+		}
+		return statistics;
+	}
+
+	/**
+	 * Waits up to the flush timeout for the asynchronous listeners to get the events that were dispatched to them,
+	 * then stops their threads. The events that were not delivered by then are dropped.
+	 */
+	@PreDestroy
+	public synchronized void destroy() {
+		long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushTimeoutMillis);
+		boolean interrupted = false;
+		for (Subscription subscription : subscriptions.values()) {
+			AsyncEventQueue asyncQueue = subscription.asyncQueue;
+			if (asyncQueue == null) {
+				continue;
+			}
+			try {
+				if (!interrupted && !asyncQueue.flush(deadlineNanos)) {
+					logger.warn("Asynchronous listener " + asyncQueue.getListenerName() + " was stopped before it got all its events: " + asyncQueue.getStatistics());
+				}
+			} catch (InterruptedException ex) {
+				interrupted = true;
+			}
+			asyncQueue.stop();
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public void setFlushTimeoutMillis(long flushTimeoutMillis) {
+		this.flushTimeoutMillis = flushTimeoutMillis;
+	}
+
+	private void replace(ScoreEventListener eventListener, Subscription subscription) {
+		Subscription previous = subscription != null ? subscriptions.put(eventListener, subscription) : subscriptions.remove(eventListener);
+		if (previous != null && previous.asyncQueue != null) {
+			previous.asyncQueue.stop();
+		}
+		routes = createRoutes();
+	}
+
+	private Map<String, Subscription[]> createRoutes() {
+		Map<String, List<Subscription>> routeLists = new HashMap<>();
+		for (Subscription subscription : subscriptions.values()) {
+			for (String eventType : subscription.eventTypes) {
+				List<Subscription> routeList = routeLists.get(eventType);
+				if (routeList == null) {
+					routeList = new ArrayList<>();
+					routeLists.put(eventType, routeList);
+				}
+				routeList.add(subscription);
+			}
+		}
+		Map<String, Subscription[]> newRoutes = new HashMap<>();
+		for (Map.Entry<String, List<Subscription>> entry : routeLists.entrySet()) {
+			newRoutes.put(entry.getKey(), entry.getValue().toArray(NO_SUBSCRIPTIONS));
+		}
+		return newRoutes;
+	}
+
+	private static class Subscription {
+
+		private final ScoreEventListener listener;
+		private final Set<String> eventTypes;
+		// null for a listener that is called on the dispatching thread
+		private final AsyncEventQueue asyncQueue;
+
+		Subscription(ScoreEventListener listener, Set<String> eventTypes, AsyncEventQueue asyncQueue) {
+			this.listener = listener;
+			this.eventTypes = new HashSet<>(eventTypes);
+			this.asyncQueue = asyncQueue;
+		}
+
+		void deliver(ScoreEvent event) throws InterruptedException {
+			if (asyncQueue != null) {
+				asyncQueue.put(event);
+			} else {
+				listener.onEvent(event);
 			}
 		}
 	}
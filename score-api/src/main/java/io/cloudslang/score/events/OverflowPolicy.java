@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.score.events;
+
+/**
+ * What a dispatch does with an event for an asynchronous listener whose queue is full
+ */
+public enum OverflowPolicy {
+
+    /**
+     * Waits for the listener to take events from its queue, so a slow listener slows the dispatching threads
+     */
+    BLOCK,
+
+    /**
+     * Drops the oldest event of the queue, so a slow listener misses events
+     */
+    DROP_OLDEST,
+
+    /**
+     * Writes the event to a temporary file, read back in order once the listener caught up with its queue,
+     * so a slow listener costs disk instead of memory, the events must be serializable
+     */
+    SPILL
+}
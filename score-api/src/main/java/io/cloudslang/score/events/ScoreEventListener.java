@@ -16,6 +16,8 @@
 
 package io.cloudslang.score.events;
 
+import java.util.List;
+
 /**
  * Created with IntelliJ IDEA.
  * User:
@@ -30,4 +32,14 @@ public interface ScoreEventListener {
      */
 	void onEvent(ScoreEvent event) throws InterruptedException ;
 
+    /**
+     * handler of a batch of score events, called instead of onEvent for a listener subscribed asynchronously
+     * @param events - the events that were dispatched, in the order they were dispatched
+     */
+    default void onEvents(List<ScoreEvent> events) throws InterruptedException {
+        for (ScoreEvent event : events) {
+            onEvent(event);
+        }
+    }
+
 }
@@ -18,14 +18,29 @@ package io.cloudslang.score.events;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mockito;
 import io.cloudslang.score.events.EventBus;
 import io.cloudslang.score.events.EventBusImpl;
 import io.cloudslang.score.events.ScoreEvent;
 import io.cloudslang.score.events.ScoreEventListener;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class EventBusTest {
 
@@ -70,4 +85,226 @@ public class EventBusTest {
 		Mockito.verify(eventHandler, Mockito.times(0)).onEvent(event);
 	}
 
+	@Test
+	public void testDispatchRoutesByType() throws Exception {
+		ScoreEventListener otherHandler = Mockito.mock(ScoreEventListener.class);
+		eventBus.subscribe(eventHandler, new HashSet<>(Arrays.asList("type1", "type2")));
+		eventBus.subscribe(otherHandler, Collections.singleton("type2"));
+
+		ScoreEvent event1 = new ScoreEvent("type1", "event");
+		ScoreEvent event2 = new ScoreEvent("type2", "event");
+		eventBus.dispatch(event1, event2, new ScoreEvent("typeX", "event"));
+
+		InOrder inOrder = Mockito.inOrder(eventHandler);
+		inOrder.verify(eventHandler).onEvent(event1);
+		inOrder.verify(eventHandler).onEvent(event2);
+		Mockito.verify(otherHandler).onEvent(event2);
+		Mockito.verifyNoMoreInteractions(eventHandler, otherHandler);
+	}
+
+	@Test
+	public void testHasSubscribers() throws Exception {
+		assertFalse(eventBus.hasSubscribers("type1"));
+
+		eventBus.subscribe(eventHandler, Collections.singleton("type1"));
+		assertTrue(eventBus.hasSubscribers("type1"));
+		assertFalse(eventBus.hasSubscribers("type2"));
+
+		eventBus.unsubscribe(eventHandler);
+		assertFalse(eventBus.hasSubscribers("type1"));
+	}
+
+	@Test
+	public void testAsyncDispatch() throws Exception {
+		BlockingListener listener = new BlockingListener(10);
+		listener.release.countDown();
+		eventBus.subscribeAsync(listener, Collections.singleton("type1"), 100, OverflowPolicy.BLOCK);
+
+		List<ScoreEvent> events = dispatch(10);
+		eventBus.dispatch(new ScoreEvent("typeX", "event"));
+
+		assertTrue(listener.delivered.await(5, TimeUnit.SECONDS));
+		assertEquals(events, listener.events);
+		assertNotEquals(Thread.currentThread(), listener.thread);
+		// the batch is counted once the listener returns
+		waitForStatistics("delivered=10");
+	}
+
+	@Test
+	public void testAsyncDropOldest() throws Exception {
+		BlockingListener listener = new BlockingListener(3);
+		eventBus.subscribeAsync(listener, Collections.singleton("type1"), 2, OverflowPolicy.DROP_OLDEST);
+
+		List<ScoreEvent> events = dispatchWhileBlocked(listener, 5);
+
+		assertTrue(listener.delivered.await(5, TimeUnit.SECONDS));
+		assertEquals(Arrays.asList(events.get(0), events.get(3), events.get(4)), listener.events);
+		assertTrue(eventBus.getAsyncListenerStatistics().values().iterator().next().contains("dropped=2"));
+	}
+
+	@Test
+	public void testAsyncSpill() throws Exception {
+		BlockingListener listener = new BlockingListener(5);
+		eventBus.subscribeAsync(listener, Collections.singleton("type1"), 2, OverflowPolicy.SPILL);
+
+		List<ScoreEvent> events = dispatchWhileBlocked(listener, 5);
+
+		assertTrue(listener.delivered.await(5, TimeUnit.SECONDS));
+		assertEquals(5, listener.events.size());
+		for (int i = 0; i < events.size(); i++) {
+			assertEquals(events.get(i).getData(), listener.events.get(i).getData());
+		}
+		assertTrue(eventBus.getAsyncListenerStatistics().values().iterator().next().contains("spilled=2"));
+	}
+
+	@Test
+	public void testAsyncBlock() throws Exception {
+		final BlockingListener listener = new BlockingListener(3);
+		eventBus.subscribeAsync(listener, Collections.singleton("type1"), 1, OverflowPolicy.BLOCK);
+		eventBus.dispatch(new ScoreEvent("type1", 0));
+		assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+		eventBus.dispatch(new ScoreEvent("type1", 1));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> blocked = executor.submit(() -> {
+				eventBus.dispatch(new ScoreEvent("type1", 2));
+				return null;
+			});
+			Thread.sleep(100);
+			assertFalse(blocked.isDone());
+
+			listener.release.countDown();
+			blocked.get(5, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+		assertTrue(listener.delivered.await(5, TimeUnit.SECONDS));
+		assertEquals(3, listener.events.size());
+	}
+
+	@Test
+	public void testSubscribeAfterAsyncIsSynchronous() throws Exception {
+		eventBus.subscribeAsync(eventHandler, Collections.singleton("type1"), 10, OverflowPolicy.BLOCK);
+		eventBus.subscribe(eventHandler, Collections.singleton("type1"));
+
+		ScoreEvent event = new ScoreEvent("type1", "event");
+		eventBus.dispatch(event);
+
+		Mockito.verify(eventHandler, Mockito.times(1)).onEvent(event);
+		assertTrue(eventBus.getAsyncListenerStatistics().isEmpty());
+	}
+
+	@Test
+	public void testAsyncListenerFailureDoesNotStopDelivery() throws Exception {
+		final List<ScoreEvent> events = Collections.synchronizedList(new ArrayList<ScoreEvent>());
+		final CountDownLatch delivered = new CountDownLatch(1);
+		eventBus.subscribeAsync(new ScoreEventListener() {
+			@Override
+			public void onEvent(ScoreEvent event) {
+			}
+
+			@Override
+			public void onEvents(List<ScoreEvent> batch) {
+				if (batch.get(0).getData().equals(0)) {
+					throw new NoClassDefFoundError("an error of the listener");
+				}
+				events.addAll(batch);
+				delivered.countDown();
+			}
+		}, Collections.singleton("type1"), 10, OverflowPolicy.BLOCK);
+
+		eventBus.dispatch(new ScoreEvent("type1", 0));
+		waitForStatistics("failed=1");
+		eventBus.dispatch(new ScoreEvent("type1", 1));
+
+		assertTrue(delivered.await(5, TimeUnit.SECONDS));
+		assertEquals(1, events.get(0).getData());
+	}
+
+	@Test
+	public void testDestroyFlushesAsyncListeners() throws Exception {
+		BlockingListener listener = new BlockingListener(10);
+		eventBus.subscribeAsync(listener, Collections.singleton("type1"), 100, OverflowPolicy.BLOCK);
+		List<ScoreEvent> events = dispatchWhileBlocked(listener, 10);
+
+		((EventBusImpl) eventBus).destroy();
+
+		assertEquals(events, listener.events);
+		// the listener is stopped
+		eventBus.dispatch(new ScoreEvent("type1", 10));
+		assertTrue(eventBus.getAsyncListenerStatistics().values().iterator().next().contains("dispatched=10"));
+	}
+
+	@Test(timeout = 5000)
+	public void testDestroyIsBounded() throws Exception {
+		BlockingListener listener = new BlockingListener(2);
+		eventBus.subscribeAsync(listener, Collections.singleton("type1"), 100, OverflowPolicy.BLOCK);
+		dispatch(1);
+		assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+		dispatch(1);
+
+		((EventBusImpl) eventBus).setFlushTimeoutMillis(100);
+		((EventBusImpl) eventBus).destroy();
+
+		assertTrue(eventBus.getAsyncListenerStatistics().values().iterator().next().contains("delivered=0"));
+		listener.release.countDown();
+	}
+
+	private void waitForStatistics(String statistic) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!eventBus.getAsyncListenerStatistics().values().iterator().next().contains(statistic)) {
+			assertTrue(System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+
+	private List<ScoreEvent> dispatch(int count) throws InterruptedException {
+		List<ScoreEvent> events = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			ScoreEvent event = new ScoreEvent("type1", i);
+			events.add(event);
+			eventBus.dispatch(event);
+		}
+		return events;
+	}
+
+	// dispatches the first event, and the others while the listener is blocked in its delivery
+	private List<ScoreEvent> dispatchWhileBlocked(BlockingListener listener, int count) throws InterruptedException {
+		List<ScoreEvent> events = dispatch(1);
+		assertTrue(listener.started.await(5, TimeUnit.SECONDS));
+		events.addAll(dispatch(count - 1));
+		listener.release.countDown();
+		return events;
+	}
+
+	private static class BlockingListener implements ScoreEventListener {
+
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+		private final CountDownLatch delivered;
+		private final List<ScoreEvent> events = Collections.synchronizedList(new ArrayList<ScoreEvent>());
+		private volatile Thread thread;
+
+		BlockingListener(int expectedEvents) {
+			delivered = new CountDownLatch(expectedEvents);
+		}
+
+		@Override
+		public void onEvent(ScoreEvent event) {
+			throw new UnsupportedOperationException("Asynchronous listeners get their events in batches");
+		}
+
+		@Override
+		public void onEvents(List<ScoreEvent> batch) throws InterruptedException {
+			thread = Thread.currentThread();
+			started.countDown();
+			release.await();
+			for (ScoreEvent event : batch) {
+				events.add(event);
+				delivered.countDown();
+			}
+		}
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks;
+
+import io.cloudslang.engine.queue.entities.ExecStatus;
+import io.cloudslang.engine.queue.entities.ExecutionMessage;
+import io.cloudslang.engine.queue.entities.Payload;
+import io.cloudslang.score.api.ControlActionMetadata;
+import io.cloudslang.score.api.ExecutionPlan;
+import io.cloudslang.score.api.ExecutionStep;
+import io.cloudslang.score.facade.entities.Execution;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The executions, plans and messages the benchmarks work on, built the same way for every benchmark and every run
+ * so the results of two runs can be compared.
+ */
+public final class BenchmarkData {
+
+    public static final String WORKER_ID = "benchmark-worker";
+    public static final String WORKER_GROUP = "benchmark-group";
+
+    private static final String ENGINE_CONTEXT = "classpath:/META-INF/spring/benchmarks/engineBenchmarkContext.xml";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return an engine on an embedded H2 database, without its jobs
+     */
+    public static ConfigurableApplicationContext engineContext() {
+        return new ClassPathXmlApplicationContext(ENGINE_CONTEXT);
+    }
+
+    /**
+     * @param contextSize the number of variables of the flow context, half of them strings and half numbers
+     */
+    public static Execution execution(long executionId, int contextSize) {
+        HashMap<String, Serializable> flowContext = new HashMap<>();
+        for (int i = 0; i < contextSize; i++) {
+            flowContext.put("variable" + i, i % 2 == 0 ? "value of variable " + i : Long.valueOf(i));
+        }
+        Map<String, Serializable> contexts = new HashMap<>();
+        contexts.put("flowContext", flowContext);
+        Map<String, Serializable> systemContext = new HashMap<>();
+        systemContext.put("EXECUTION_ID", executionId);
+        systemContext.put("FLOW_UUID", "benchmark-flow");
+        return new Execution(executionId, 1L, 1L, contexts, systemContext);
+    }
+
+    public static ExecutionPlan executionPlan(String flowUuid, int steps) {
+        ExecutionPlan executionPlan = new ExecutionPlan();
+        executionPlan.setFlowUuid(flowUuid);
+        executionPlan.setBeginStep(0L);
+        for (long stepId = 0; stepId < steps; stepId++) {
+            Map<String, Serializable> actionData = new HashMap<>();
+            actionData.put("input", "input of step " + stepId);
+            Map<String, Serializable> navigationData = new HashMap<>();
+            navigationData.put("nextStepId", stepId + 1);
+            executionPlan.addStep(new ExecutionStep(stepId)
+                    .setAction(new ControlActionMetadata(BenchmarkActions.class.getName(), "step"))
+                    .setActionData(actionData)
+                    .setNavigation(new ControlActionMetadata(BenchmarkActions.class.getName(), "navigate"))
+                    .setNavigationData(navigationData));
+        }
+        return executionPlan;
+    }
+
+    /**
+     * @return a message of a new exec state, as the engine enqueues a triggered execution
+     */
+    public static ExecutionMessage pendingMessage(long executionId, Payload payload) {
+        return new ExecutionMessage(ExecutionMessage.EMPTY_EXEC_STATE_ID, ExecutionMessage.EMPTY_WORKER, WORKER_GROUP,
+                String.valueOf(executionId), ExecStatus.PENDING, payload, 0);
+    }
+
+    /**
+     * @param groupSize the number of messages of every execution, which the OutboundBuffer coalesces
+     * @return the messages of the steps of bulkSize / groupSize executions, as the worker puts them
+     */
+    public static List<ExecutionMessage> workerMessages(int bulkSize, int groupSize, Payload payload) {
+        List<ExecutionMessage> messages = new ArrayList<>(bulkSize);
+        for (int i = 0; i < bulkSize; i++) {
+            long executionId = i % (bulkSize / groupSize);
+            ExecStatus status = i < bulkSize / groupSize ? ExecStatus.IN_PROGRESS : ExecStatus.FINISHED;
+            ExecutionMessage message = new ExecutionMessage(executionId, WORKER_ID, WORKER_GROUP,
+                    String.valueOf(executionId), status, payload, i / (bulkSize / groupSize));
+            message.setWorkerKey(executionId + ":" + executionId);
+            messages.add(message);
+        }
+        return messages;
+    }
+}
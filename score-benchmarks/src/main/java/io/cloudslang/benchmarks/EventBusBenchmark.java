@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks;
+
+import io.cloudslang.score.events.EventBus;
+import io.cloudslang.score.events.EventBusImpl;
+import io.cloudslang.score.events.ScoreEvent;
+import io.cloudslang.score.events.ScoreEventListener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatching a batch of events, as the engine dispatches the events of an enqueued bulk, to listeners that are each
+ * subscribed to a few of the event types. The listeners only consume the events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventBusBenchmark {
+
+    private static final int EVENT_TYPES = 20;
+    private static final int EVENT_TYPES_PER_LISTENER = 2;
+    private static final int EVENTS_PER_DISPATCH = 10;
+
+    @Param({"1", "10", "100"})
+    public int listeners;
+
+    private EventBus eventBus;
+    private ScoreEvent[] events;
+    // written by the listeners, so their work is not optimized away
+    private ScoreEvent lastEvent;
+
+    @Setup
+    public void setUp() {
+        eventBus = new EventBusImpl();
+        for (int listener = 0; listener < listeners; listener++) {
+            Set<String> eventTypes = new HashSet<>();
+            for (int i = 0; i < EVENT_TYPES_PER_LISTENER; i++) {
+                eventTypes.add(eventType(listener * EVENT_TYPES_PER_LISTENER + i));
+            }
+            eventBus.subscribe(new ScoreEventListener() {
+                @Override
+                public void onEvent(ScoreEvent event) {
+                    lastEvent = event;
+                }
+            }, eventTypes);
+        }
+        events = new ScoreEvent[EVENTS_PER_DISPATCH];
+        for (int i = 0; i < EVENTS_PER_DISPATCH; i++) {
+            events[i] = new ScoreEvent(eventType(i), "data of event " + i);
+        }
+    }
+
+    @Benchmark
+    public void dispatch() throws InterruptedException {
+        eventBus.dispatch(events);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void dispatch8Threads() throws InterruptedException {
+        eventBus.dispatch(events);
+    }
+
+    private static String eventType(int index) {
+        return "EVENT_TYPE_" + (index % EVENT_TYPES);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks;
+
+import io.cloudslang.engine.queue.entities.ExecutionMessageConverter;
+import io.cloudslang.engine.queue.entities.Payload;
+import io.cloudslang.score.facade.entities.Execution;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding the payload of an execution with every codec, the encoded size is reported as payloadBytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionMessageConverterBenchmark {
+
+    private static final String CODEC_PROPERTY = "execution.payload.codec";
+
+    // JavaPayloadCodec.ID, CompactPayloadCodec.ID and SegmentedPayloadCodec.ID
+    @Param({"0", "1", "2"})
+    public int codecId;
+
+    @Param({"10", "100", "1000"})
+    public int contextSize;
+
+    private ExecutionMessageConverter converter;
+    private Execution execution;
+    private Payload payload;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+        public long payloadBytes;
+    }
+
+    @Setup
+    public void setUp() {
+        // the codec is chosen as in a deployment, by the system property the converter reads when it is created
+        System.setProperty(CODEC_PROPERTY, String.valueOf(codecId));
+        try {
+            converter = new ExecutionMessageConverter();
+        } finally {
+            System.clearProperty(CODEC_PROPERTY);
+        }
+        execution = BenchmarkData.execution(1L, contextSize);
+        payload = converter.createPayload(execution);
+    }
+
+    @Benchmark
+    public Payload encode(PayloadSize payloadSize) {
+        Payload encoded = converter.createPayload(execution);
+        payloadSize.payloadBytes = encoded.getData().length;
+        return encoded;
+    }
+
+    @Benchmark
+    public Execution decode() {
+        return converter.extractExecution(payload);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks;
+
+import io.cloudslang.score.api.ExecutionPlan;
+import io.cloudslang.score.facade.entities.ExecutionPlanCompressUtil;
+import io.cloudslang.score.facade.entities.RunningExecutionPlan;
+import io.cloudslang.worker.execution.services.ExecutionPlanCache;
+import io.cloudslang.worker.execution.services.ExecutionPlanCacheImpl;
+import io.cloudslang.worker.management.services.dbsupport.WorkerDbSupportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compressing and decompressing an execution plan, and getting it from the worker plan cache when it is cached
+ * (warm) and when every step loads it again (cold).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionPlanBenchmark {
+
+    private static final long RUNNING_EXECUTION_PLAN_ID = 1L;
+
+    @Param({"10", "100", "1000"})
+    public int steps;
+
+    private ExecutionPlan executionPlan;
+    private byte[] zippedExecutionPlan;
+    private AnnotationConfigApplicationContext context;
+    private ExecutionPlanCache executionPlanCache;
+    // every cold get asks for a plan the cache has not seen yet
+    private long coldPlanId = RUNNING_EXECUTION_PLAN_ID;
+
+    @Setup
+    public void setUp() {
+        executionPlan = BenchmarkData.executionPlan("benchmark-flow", steps);
+        zippedExecutionPlan = ExecutionPlanCompressUtil.getBytesFromExecutionPlan(executionPlan);
+
+        // reads the plan from memory, so a cold get measures the decoding and not the database
+        WorkerDbSupportService workerDbSupportService = new WorkerDbSupportService() {
+            @Override
+            public RunningExecutionPlan readExecutionPlanById(Long id) {
+                // a running execution plan keeps the plan it decoded, so every read returns a new one
+                RunningExecutionPlan runningExecutionPlan = new RunningExecutionPlan();
+                runningExecutionPlan.setId(id);
+                runningExecutionPlan.setExecutionPlanZipped(zippedExecutionPlan);
+                return runningExecutionPlan;
+            }
+        };
+        context = new AnnotationConfigApplicationContext();
+        context.register(Configurator.class);
+        context.getBeanFactory().registerSingleton("workerDbSupportService", workerDbSupportService);
+        context.refresh();
+        executionPlanCache = context.getBean(ExecutionPlanCache.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return ExecutionPlanCompressUtil.getBytesFromExecutionPlan(executionPlan);
+    }
+
+    @Benchmark
+    public ExecutionPlan decompress() {
+        return ExecutionPlanCompressUtil.getExecutionPlanFromBytes(zippedExecutionPlan);
+    }
+
+    @Benchmark
+    public ExecutionPlan cacheWarm() {
+        return executionPlanCache.getExecutionPlan(RUNNING_EXECUTION_PLAN_ID);
+    }
+
+    @Benchmark
+    public ExecutionPlan cacheCold() {
+        return executionPlanCache.getExecutionPlan(++coldPlanId);
+    }
+
+    @Configuration
+    static class Configurator {
+
+        @Bean
+        ExecutionPlanCache executionPlanCache() {
+            return new ExecutionPlanCacheImpl();
+        }
+    }
+}
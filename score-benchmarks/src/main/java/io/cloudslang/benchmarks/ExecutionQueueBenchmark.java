@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks;
+
+import io.cloudslang.benchmarks.baseline.MultiPassEnqueue;
+import io.cloudslang.engine.queue.entities.ExecStatus;
+import io.cloudslang.engine.queue.entities.ExecutionMessage;
+import io.cloudslang.engine.queue.entities.ExecutionMessageConverter;
+import io.cloudslang.engine.queue.entities.Payload;
+import io.cloudslang.engine.queue.repositories.ExecutionQueueRepository;
+import io.cloudslang.engine.queue.services.BusyWorkersService;
+import io.cloudslang.engine.queue.services.ExecutionQueueService;
+import io.cloudslang.engine.queue.services.QueueListener;
+import io.cloudslang.engine.queue.services.assigner.ExecutionAssignerService;
+import io.cloudslang.engine.queue.services.cleaner.QueueCleanerService;
+import io.cloudslang.engine.versioning.services.VersionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enqueueing a bulk of messages to the execution queue on H2, and the cycle of a step in the queue:
+ * the engine enqueues the messages for a worker, the worker polls them and enqueues them back as finished.
+ * The finished steps are cleaned after every iteration, so every iteration starts with an empty queue.
+ * The baseline enqueues with the passes of the service before it enqueued in a single pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExecutionQueueBenchmark {
+
+    private static final int CLEAN_BULK_SIZE = 10000;
+
+    @Param({"100", "1000", "10000"})
+    public int bulkSize;
+
+    @Param({"current", "baseline"})
+    public String implementation;
+
+    private ConfigurableApplicationContext context;
+    private ExecutionQueueService executionQueueService;
+    private QueueCleanerService queueCleanerService;
+    private MultiPassEnqueue multiPassEnqueue;
+    private Payload payload;
+    private long executionId;
+
+    private List<ExecutionMessage> messages;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.engineContext();
+        executionQueueService = context.getBean(ExecutionQueueService.class);
+        queueCleanerService = context.getBean(QueueCleanerService.class);
+        if ("baseline".equals(implementation)) {
+            multiPassEnqueue = new MultiPassEnqueue(context.getBean(ExecutionQueueRepository.class), context.getBean(ExecutionAssignerService.class),
+                    context.getBean(VersionService.class), new ArrayList<>(context.getBeansOfType(QueueListener.class).values()),
+                    context.getBean(PlatformTransactionManager.class));
+        }
+        context.getBean(BusyWorkersService.class).markWorkersBusy(Collections.singleton(BenchmarkData.WORKER_ID));
+        payload = context.getBean(ExecutionMessageConverter.class).createPayload(BenchmarkData.execution(1L, 10));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // the enqueue sets the exec state ids of the messages, so every invocation gets messages of its own
+    @Setup(Level.Invocation)
+    public void createMessages() {
+        messages = new ArrayList<>(bulkSize);
+        for (int i = 0; i < bulkSize; i++) {
+            ExecutionMessage message = BenchmarkData.pendingMessage(++executionId, payload);
+            message.setStatus(ExecStatus.ASSIGNED);
+            message.setWorkerId(BenchmarkData.WORKER_ID);
+            messages.add(message);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanQueue() {
+        List<ExecutionMessage> assigned;
+        while (!(assigned = executionQueueService.poll(BenchmarkData.WORKER_ID, CLEAN_BULK_SIZE, ExecStatus.ASSIGNED)).isEmpty()) {
+            for (ExecutionMessage message : assigned) {
+                finish(message);
+            }
+            executionQueueService.enqueue(assigned);
+        }
+        queueCleanerService.cleanFinishedSteps();
+    }
+
+    @Benchmark
+    public List<ExecutionMessage> enqueue() {
+        enqueue(messages);
+        return messages;
+    }
+
+    @Benchmark
+    public List<ExecutionMessage> enqueuePollFinish() {
+        enqueue(messages);
+        List<ExecutionMessage> polled = executionQueueService.poll(BenchmarkData.WORKER_ID, bulkSize, ExecStatus.ASSIGNED);
+        List<ExecutionMessage> finished = new ArrayList<>(polled.size());
+        for (ExecutionMessage message : polled) {
+            finished.add(finish(message));
+        }
+        enqueue(finished);
+        return finished;
+    }
+
+    private void enqueue(List<ExecutionMessage> messages) {
+        if (multiPassEnqueue != null) {
+            multiPassEnqueue.enqueue(messages);
+        } else {
+            executionQueueService.enqueue(messages);
+        }
+    }
+
+    private ExecutionMessage finish(ExecutionMessage message) {
+        message.setStatus(ExecStatus.FINISHED);
+        message.incMsgSeqId();
+        return message;
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks;
+
+import io.cloudslang.benchmarks.baseline.LockingHiloIdentifierGenerator;
+import io.cloudslang.engine.data.IdentityGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The throughput of the HILO identity generator of the engine under contention, the chunks are fetched from H2.
+ * The baseline is the generator that took a lock for every id.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HiloIdentifierBenchmark {
+
+    @Param({"current", "baseline"})
+    public String implementation;
+
+    private ConfigurableApplicationContext context;
+    private IdentityGenerator identityGenerator;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.engineContext();
+        if ("baseline".equals(implementation)) {
+            identityGenerator = new LockingHiloIdentifierGenerator(context.getBean("dataSource", DataSource.class));
+        } else {
+            identityGenerator = context.getBean(IdentityGenerator.class);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Long next1Thread() {
+        return identityGenerator.next();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Long next8Threads() {
+        return identityGenerator.next();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Long next64Threads() {
+        return identityGenerator.next();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<Long> bulk8Threads() {
+        return identityGenerator.bulk(100);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks;
+
+import ch.lambdaj.group.Group;
+import io.cloudslang.engine.queue.entities.Payload;
+import io.cloudslang.orchestrator.entities.Message;
+import io.cloudslang.worker.management.services.MessageCoalescer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static ch.lambdaj.Lambda.by;
+import static ch.lambdaj.Lambda.group;
+import static ch.lambdaj.Lambda.on;
+
+/**
+ * Coalescing a drained bulk of the OutboundBuffer, with the MessageCoalescer and with the lambdaj grouping it replaced,
+ * and shrinking the messages of a single execution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageCoalescerBenchmark {
+
+    // from a small bulk up to above the default out.buffer.max.bulk.weight
+    @Param({"100", "1500", "10000"})
+    public int bulkSize;
+
+    // the messages of an execution in a bulk
+    @Param({"1", "3", "10"})
+    public int groupSize;
+
+    private List<Message> bulk;
+    private List<Message> group;
+
+    @Setup
+    public void setUp() {
+        Payload payload = new Payload(new byte[1024]);
+        bulk = new ArrayList<Message>(BenchmarkData.workerMessages(bulkSize, groupSize, payload));
+        group = new ArrayList<Message>(BenchmarkData.workerMessages(groupSize, groupSize, payload));
+    }
+
+    @Benchmark
+    public List<Message> coalescer() {
+        return MessageCoalescer.coalesce(bulk);
+    }
+
+    @Benchmark
+    public List<Message> lambdajGroup() {
+        List<Message> result = new ArrayList<>();
+        Group<Message> groups = group(bulk, by(on(Message.class).getId()));
+        for (Group<Message> messages : groups.subgroups()) {
+            result.addAll(messages.first().shrink(messages.findAll()));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<Message> shrink() {
+        return group.get(0).shrink(group);
+    }
+}
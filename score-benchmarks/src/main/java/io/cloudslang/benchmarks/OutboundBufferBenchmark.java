@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks;
+
+import io.cloudslang.benchmarks.baseline.LockingOutboundBuffer;
+import io.cloudslang.engine.queue.entities.ExecutionMessage;
+import io.cloudslang.engine.queue.entities.Payload;
+import io.cloudslang.orchestrator.services.OrchestratorDispatcherService;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitor;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitorImpl;
+import io.cloudslang.worker.management.services.OutboundBuffer;
+import io.cloudslang.worker.management.services.OutboundBufferImpl;
+import io.cloudslang.worker.management.services.RetryTemplate;
+import io.cloudslang.worker.management.services.SynchronizationManager;
+import io.cloudslang.worker.management.services.SynchronizationManagerImpl;
+import io.cloudslang.worker.management.services.WorkerRecoveryManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The throughput of the execution threads putting messages to the OutboundBuffer while a thread drains it,
+ * the dispatcher is a no-op so the buffer itself is measured. The baseline is the buffer that took its locks for every put,
+ * the adaptive drain runs on a thread of the buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboundBufferBenchmark {
+
+    @Param({"current", "adaptive", "baseline"})
+    public String implementation;
+
+    private AnnotationConfigApplicationContext context;
+    private OutboundBuffer buffer;
+    private Thread drainingThread;
+    private volatile boolean draining;
+
+    // every execution thread puts the messages of its own executions
+    @State(Scope.Thread)
+    public static class Producer {
+        private static final AtomicInteger producers = new AtomicInteger();
+
+        private List<ExecutionMessage> messages;
+        private int next;
+
+        @Setup
+        public void setUp() {
+            messages = BenchmarkData.workerMessages(1000, 2, new Payload(new byte[1024]));
+            int producer = producers.incrementAndGet();
+            for (ExecutionMessage message : messages) {
+                message.setWorkerKey(producer + ":" + message.getExecStateId());
+            }
+        }
+
+        ExecutionMessage nextMessage() {
+            ExecutionMessage message = messages.get(next);
+            next = (next + 1) % messages.size();
+            return message;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(Configurator.class);
+        if ("baseline".equals(implementation)) {
+            OutboundBufferImpl current = (OutboundBufferImpl) context.getBean(OutboundBuffer.class);
+            buffer = new LockingOutboundBuffer(context.getBean(OrchestratorDispatcherService.class), BenchmarkData.WORKER_ID,
+                    current.getCapacity(), Integer.getInteger("out.buffer.max.bulk.weight", 1500));
+        } else {
+            buffer = context.getBean(OutboundBuffer.class);
+        }
+        if ("adaptive".equals(implementation)) {
+            ((OutboundBufferImpl) buffer).setAdaptiveDrain(true);
+            return;
+        }
+        draining = true;
+        drainingThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (draining) {
+                    buffer.drain();
+                }
+            }
+        }, "OutboundBufferDrainingThread");
+        drainingThread.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        if (drainingThread != null) {
+            draining = false;
+            drainingThread.interrupt();
+            drainingThread.join();
+        }
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void put8Producers(Producer producer) throws InterruptedException {
+        buffer.put(producer.nextMessage());
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void put32Producers(Producer producer) throws InterruptedException {
+        buffer.put(producer.nextMessage());
+    }
+
+    @Benchmark
+    @Threads(128)
+    public void put128Producers(Producer producer) throws InterruptedException {
+        buffer.put(producer.nextMessage());
+    }
+
+    @Configuration
+    static class Configurator {
+
+        @Bean
+        OutboundBuffer outboundBuffer() {
+            return new OutboundBufferImpl();
+        }
+
+        @Bean
+        String workerUuid() {
+            return BenchmarkData.WORKER_ID;
+        }
+
+        @Bean
+        RetryTemplate retryTemplate() {
+            return new RetryTemplate();
+        }
+
+        @Bean
+        SynchronizationManager synchronizationManager() {
+            return new SynchronizationManagerImpl();
+        }
+
+        @Bean
+        WorkerLatencyMonitor workerLatencyMonitor() {
+            return new WorkerLatencyMonitorImpl();
+        }
+
+        @Bean
+        OrchestratorDispatcherService orchestratorDispatcherService() {
+            return new OrchestratorDispatcherService() {
+                @Override
+                public void dispatch(List<? extends Serializable> messages, String bulkNumber, String wrv, String workerUuid) {
+                }
+
+                @Override
+                public void dispatch(List<? extends Serializable> messages, String bulkNumber, String wrv, String workerUuid, int shard) {
+                }
+            };
+        }
+
+        @Bean
+        WorkerRecoveryManager workerRecoveryManager() {
+            return new WorkerRecoveryManager() {
+                @Override
+                public void doRecovery() {
+                }
+
+                @Override
+                public boolean isInRecovery() {
+                    return false;
+                }
+
+                @Override
+                public String getWRV() {
+                    return "1";
+                }
+
+                @Override
+                public void setWRV(String newWrv) {
+                }
+            };
+        }
+    }
+}
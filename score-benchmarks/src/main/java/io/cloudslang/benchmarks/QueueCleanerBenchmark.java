@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks;
+
+import io.cloudslang.engine.queue.entities.ExecStatus;
+import io.cloudslang.engine.queue.entities.ExecutionMessage;
+import io.cloudslang.engine.queue.entities.ExecutionMessageConverter;
+import io.cloudslang.engine.queue.entities.Payload;
+import io.cloudslang.engine.queue.services.ExecutionQueueService;
+import io.cloudslang.engine.queue.services.cleaner.QueueCleanerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cleaning the finished steps of the execution queue on H2, by the size of the queue.
+ * Every clean starts with a queue of queueSize finished steps, with two messages each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QueueCleanerBenchmark {
+
+    private static final int ENQUEUE_BULK_SIZE = 10000;
+
+    @Param({"1000", "10000", "100000"})
+    public int queueSize;
+
+    private ConfigurableApplicationContext context;
+    private ExecutionQueueService executionQueueService;
+    private QueueCleanerService queueCleanerService;
+    private Payload payload;
+    private long executionId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkData.engineContext();
+        executionQueueService = context.getBean(ExecutionQueueService.class);
+        queueCleanerService = context.getBean(QueueCleanerService.class);
+        payload = context.getBean(ExecutionMessageConverter.class).createPayload(BenchmarkData.execution(1L, 10));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void fillQueue() {
+        for (int enqueued = 0; enqueued < queueSize; enqueued += ENQUEUE_BULK_SIZE) {
+            int bulkSize = Math.min(ENQUEUE_BULK_SIZE, queueSize - enqueued);
+            List<ExecutionMessage> messages = new ArrayList<>(bulkSize);
+            for (int i = 0; i < bulkSize; i++) {
+                ExecutionMessage message = BenchmarkData.pendingMessage(++executionId, payload);
+                message.setStatus(ExecStatus.IN_PROGRESS);
+                message.setWorkerId(BenchmarkData.WORKER_ID);
+                messages.add(message);
+            }
+            executionQueueService.enqueue(messages);
+            for (ExecutionMessage message : messages) {
+                message.setStatus(ExecStatus.FINISHED);
+                message.incMsgSeqId();
+            }
+            executionQueueService.enqueue(messages);
+        }
+    }
+
+    @Benchmark
+    public long cleanFinishedSteps() {
+        return queueCleanerService.cleanFinishedSteps();
+    }
+}
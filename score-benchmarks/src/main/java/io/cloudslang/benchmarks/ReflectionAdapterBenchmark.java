@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks;
+
+import io.cloudslang.score.api.ControlActionMetadata;
+import io.cloudslang.score.api.execution.ExecutionParametersConsts;
+import io.cloudslang.score.lang.ExecutionRuntimeServices;
+import io.cloudslang.worker.execution.reflection.ReflectionAdapter;
+import io.cloudslang.worker.execution.reflection.ReflectionAdapterImpl;
+import io.cloudslang.worker.execution.services.SessionDataHandler;
+import io.cloudslang.worker.execution.services.SessionDataHandlerImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The overhead of running a control action through the ReflectionAdapter: finding the bean and the method,
+ * binding the arguments by their names and clearing the session data, around an action that does nothing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReflectionAdapterBenchmark {
+
+    private AnnotationConfigApplicationContext context;
+    private ReflectionAdapter reflectionAdapter;
+    private ControlActionMetadata action;
+    private ControlActionMetadata navigation;
+    private Map<String, Object> actionData;
+
+    @Setup
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(Configurator.class);
+        reflectionAdapter = context.getBean(ReflectionAdapter.class);
+        action = new ControlActionMetadata(BenchmarkActions.class.getName(), "step");
+        navigation = new ControlActionMetadata(BenchmarkActions.class.getName(), "navigate");
+
+        ExecutionRuntimeServices executionRuntimeServices = new ExecutionRuntimeServices();
+        executionRuntimeServices.setExecutionId(1L);
+        actionData = new HashMap<>();
+        actionData.put(ExecutionParametersConsts.EXECUTION_RUNTIME_SERVICES, executionRuntimeServices);
+        actionData.put("input", "input of the step");
+        actionData.put("nextStepId", 2L);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object executeAction() {
+        return reflectionAdapter.executeControlAction(action, actionData);
+    }
+
+    @Benchmark
+    public Object executeNavigation() {
+        return reflectionAdapter.executeControlAction(navigation, actionData);
+    }
+
+    @Configuration
+    static class Configurator {
+
+        @Bean
+        ReflectionAdapter reflectionAdapter() {
+            return new ReflectionAdapterImpl();
+        }
+
+        @Bean
+        SessionDataHandler sessionDataHandler() {
+            return new SessionDataHandlerImpl();
+        }
+
+        @Bean
+        BenchmarkActions benchmarkActions() {
+            return new BenchmarkActions();
+        }
+    }
+}
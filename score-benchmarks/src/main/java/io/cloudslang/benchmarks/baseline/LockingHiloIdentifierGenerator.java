@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks.baseline;
+
+import io.cloudslang.engine.data.IdentityGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A copy of SimpleHiloIdentifierGenerator before its ids were allocated without a lock:
+ * every id is taken under one lock, bulk() takes the ids one by one, and the next chunk is read from OO_HILO
+ * by the thread that runs out of ids, while it holds the lock.
+ */
+public class LockingHiloIdentifierGenerator implements IdentityGenerator {
+
+    private static final String SQL_SELECT = "SELECT NEXT_HI FROM OO_HILO";
+    private static final String SQL_UPDATE = "UPDATE OO_HILO SET NEXT_HI = NEXT_HI+1";
+    private static final String SQL_LOCK = "UPDATE OO_HILO SET NEXT_HI = NEXT_HI";
+    private static final long CHUNK_SIZE = 100000L;
+
+    private final DataSource dataSource;
+    private int currentChunk;
+    private long currentId;
+    private Lock lock = new ReentrantLock();
+
+    public LockingHiloIdentifierGenerator(DataSource dataSource) {
+        this.dataSource = dataSource;
+        updateCurrentChunk();
+    }
+
+    @Override
+    public Long next() {
+        lock.lock();
+        try {
+            long id = ++currentId;
+            if (id > CHUNK_SIZE) {
+                updateCurrentChunk();
+                id = ++currentId;
+            }
+            return currentChunk * CHUNK_SIZE + id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Long> bulk(int bulkSize) {
+        List<Long> idsList = new ArrayList<>();
+        for (int i = 0; i < bulkSize; i++) {
+            idsList.add(next());
+        }
+        return idsList;
+    }
+
+    private void updateCurrentChunk() {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(conn, true));
+
+            jdbcTemplate.update(SQL_LOCK);
+            currentChunk = jdbcTemplate.queryForObject(SQL_SELECT, Integer.class);
+            jdbcTemplate.execute(SQL_UPDATE);
+            jdbcTemplate.execute("commit");
+            currentId = 0;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to update current chunk", e);
+        }
+    }
+}
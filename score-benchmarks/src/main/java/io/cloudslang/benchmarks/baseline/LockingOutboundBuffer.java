@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks.baseline;
+
+import ch.lambdaj.group.Group;
+import io.cloudslang.orchestrator.entities.Message;
+import io.cloudslang.orchestrator.services.OrchestratorDispatcherService;
+import io.cloudslang.worker.management.services.OutboundBuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static ch.lambdaj.Lambda.by;
+import static ch.lambdaj.Lambda.group;
+import static ch.lambdaj.Lambda.on;
+
+/**
+ * A copy of OutboundBufferImpl before it was lock free, with the locks it took from the SynchronizationManager:
+ * every put takes the recovery put lock and the buffer lock and signals the drain, the drain takes the recovery
+ * drain lock and the buffer lock, and a bulk is grouped with lambdaj. The retries and the recovery are left out,
+ * the benchmarks dispatch to a no-op dispatcher.
+ */
+public class LockingOutboundBuffer implements OutboundBuffer {
+
+    private final ReentrantLock recoveryPutLock = new ReentrantLock();
+    private final ReentrantLock recoveryDrainLock = new ReentrantLock();
+    private final ReentrantLock outBufferLock = new ReentrantLock();
+    private final Condition notEmpty = outBufferLock.newCondition();
+    private final Condition notFull = outBufferLock.newCondition();
+
+    private final OrchestratorDispatcherService dispatcherService;
+    private final String workerUuid;
+    private final int maxBufferWeight;
+    private final int maxBulkWeight;
+
+    private List<Message> buffer = new ArrayList<>();
+    private int currentWeight;
+
+    public LockingOutboundBuffer(OrchestratorDispatcherService dispatcherService, String workerUuid, int maxBufferWeight, int maxBulkWeight) {
+        this.dispatcherService = dispatcherService;
+        this.workerUuid = workerUuid;
+        this.maxBufferWeight = maxBufferWeight;
+        this.maxBulkWeight = maxBulkWeight;
+    }
+
+    @Override
+    public void put(Message... messages) throws InterruptedException {
+        try {
+            recoveryPutLock.lock();
+            outBufferLock.lock();
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Thread was interrupted while waiting on the lock! Exiting...");
+            }
+            while (currentWeight >= maxBufferWeight) {
+                unlockCompletely(recoveryPutLock);
+                notFull.await();
+            }
+            Message message = messages.length == 1 ? messages[0] : new CompoundMessage(messages);
+            buffer.add(message);
+            currentWeight += message.getWeight();
+        } finally {
+            notEmpty.signalAll();
+            unlockCompletely(recoveryPutLock);
+            unlockCompletely(outBufferLock);
+        }
+    }
+
+    @Override
+    public void drain() {
+        List<Message> bufferToDrain;
+        try {
+            recoveryDrainLock.lock();
+            outBufferLock.lock();
+            while (buffer.isEmpty()) {
+                unlockCompletely(recoveryDrainLock);
+                notEmpty.await();
+            }
+            bufferToDrain = buffer;
+            buffer = new ArrayList<>();
+            currentWeight = 0;
+        } catch (InterruptedException e) {
+            return;
+        } finally {
+            notFull.signalAll();
+            unlockCompletely(recoveryDrainLock);
+            unlockCompletely(outBufferLock);
+        }
+
+        List<Message> bulk = new ArrayList<>();
+        int bulkWeight = 0;
+        for (Message message : bufferToDrain) {
+            if (message.getClass().equals(CompoundMessage.class)) {
+                bulk.addAll(((CompoundMessage) message).asList());
+            } else {
+                bulk.add(message);
+            }
+            bulkWeight += message.getWeight();
+            if (bulkWeight > maxBulkWeight) {
+                drainBulk(bulk);
+                bulk.clear();
+                bulkWeight = 0;
+            }
+        }
+        drainBulk(bulk);
+    }
+
+    private void drainBulk(List<Message> bulkToDrain) {
+        List<Message> optimizedBulk = new ArrayList<>();
+        Group<Message> groups = group(bulkToDrain, by(on(Message.class).getId()));
+        for (Group<Message> messages : groups.subgroups()) {
+            optimizedBulk.addAll(messages.first().shrink(messages.findAll()));
+        }
+        dispatcherService.dispatch(optimizedBulk, UUID.randomUUID().toString(), "1", workerUuid);
+    }
+
+    private static void unlockCompletely(ReentrantLock lockToUnlock) {
+        int counter = lockToUnlock.getHoldCount();
+        for (int i = 0; i < counter; i++) {
+            lockToUnlock.unlock();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        return buffer.size();
+    }
+
+    @Override
+    public int getWeight() {
+        return currentWeight;
+    }
+
+    @Override
+    public int getCapacity() {
+        return maxBufferWeight;
+    }
+
+    @Override
+    public String getStatus() {
+        return "Buffer status: [W:" + currentWeight + '/' + maxBufferWeight + ",S:" + buffer.size() + "]";
+    }
+
+    private static class CompoundMessage implements Message {
+        private final Message[] messages;
+
+        private CompoundMessage(Message[] messages) {
+            this.messages = messages.clone();
+        }
+
+        @Override
+        public int getWeight() {
+            int weight = 0;
+            for (Message message : messages) weight += message.getWeight();
+            return weight;
+        }
+
+        private List<Message> asList() {
+            return Arrays.asList(messages);
+        }
+
+        @Override
+        public String getId() {
+            return null;
+        }
+
+        @Override
+        public List<Message> shrink(List<Message> messages) {
+            return messages;
+        }
+    }
+}
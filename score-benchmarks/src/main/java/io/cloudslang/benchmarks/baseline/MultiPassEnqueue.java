@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.benchmarks.baseline;
+
+import io.cloudslang.engine.queue.entities.ExecStatus;
+import io.cloudslang.engine.queue.entities.ExecutionMessage;
+import io.cloudslang.engine.queue.repositories.ExecutionQueueRepository;
+import io.cloudslang.engine.queue.services.QueueListener;
+import io.cloudslang.engine.queue.services.assigner.ExecutionAssignerService;
+import io.cloudslang.engine.versioning.services.VersionService;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A copy of ExecutionQueueServiceImpl.enqueue before it was a single pass: the exec state ids are generated one by one,
+ * and the messages are filtered again for every kind of message the listeners are notified of.
+ * It writes through the repository of the engine, so only the passes of the service are compared.
+ */
+public class MultiPassEnqueue {
+
+    private final ExecutionQueueRepository executionQueueRepository;
+    private final ExecutionAssignerService executionAssignerService;
+    private final VersionService versionService;
+    private final List<QueueListener> listeners;
+    private final TransactionTemplate transactionTemplate;
+
+    public MultiPassEnqueue(ExecutionQueueRepository executionQueueRepository, ExecutionAssignerService executionAssignerService,
+                            VersionService versionService, List<QueueListener> listeners, PlatformTransactionManager transactionManager) {
+        this.executionQueueRepository = executionQueueRepository;
+        this.executionAssignerService = executionAssignerService;
+        this.versionService = versionService;
+        this.listeners = listeners;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void enqueue(final List<ExecutionMessage> messages) {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                enqueueInTransaction(messages);
+            }
+        });
+    }
+
+    private void enqueueInTransaction(List<ExecutionMessage> messages) {
+        // the assigner copied the list before it returned the given list when nothing is assigned
+        messages = executionAssignerService.assignWorkers(new ArrayList<>(messages));
+
+        final List<ExecutionMessage> stateMessages = new ArrayList<>(messages.size());
+        for (ExecutionMessage msg : messages) {
+            if (msg.getExecStateId() == ExecutionMessage.EMPTY_EXEC_STATE_ID) {
+                long execStateId = executionQueueRepository.generateExecStateId();
+                msg.setExecStateId(execStateId);
+                stateMessages.add(msg);
+            } else if (msg.getPayload() != null && msg.getStatus() == ExecStatus.IN_PROGRESS) {
+                stateMessages.add(msg);
+            }
+        }
+
+        if (!listeners.isEmpty()) {
+            for (QueueListener listener : listeners) {
+                listener.prePersist(messages);
+            }
+        }
+
+        if (stateMessages.size() > 0)
+            executionQueueRepository.insertExecutionStates(stateMessages);
+
+        long msgVersion = versionService.getCurrentVersion(VersionService.MSG_RECOVERY_VERSION_COUNTER_NAME);
+        executionQueueRepository.insertExecutionQueue(messages, msgVersion);
+
+        if (!listeners.isEmpty()) {
+            List<ExecutionMessage> failedMessages = filter(messages, ExecStatus.FAILED);
+            List<ExecutionMessage> terminatedMessages = filter(messages, ExecStatus.TERMINATED);
+            List<ExecutionMessage> toPersistMessages = filterToPersistMessages(messages);
+            for (QueueListener listener : listeners) {
+                listener.onEnqueue(messages, messages.size());
+                if (!failedMessages.isEmpty()) {
+                    listener.onFailed(failedMessages);
+                }
+                if (!terminatedMessages.isEmpty()) {
+                    listener.onTerminated(terminatedMessages);
+                }
+                if (!toPersistMessages.isEmpty()) {
+                    listener.onPersistMessage(toPersistMessages);
+                }
+            }
+        }
+    }
+
+    private List<ExecutionMessage> filter(List<ExecutionMessage> messages, ExecStatus status) {
+        List<ExecutionMessage> result = new ArrayList<>();
+        for (ExecutionMessage msg : messages) {
+            if (msg.getStatus() == status) {
+                result.add(msg);
+            }
+        }
+        return result;
+    }
+
+    private List<ExecutionMessage> filterToPersistMessages(List<ExecutionMessage> messages) {
+        List<ExecutionMessage> result = new ArrayList<>();
+        for (ExecutionMessage msg : messages) {
+            if (msg.isStepPersist()) {
+                result.add(msg);
+            }
+        }
+        return result;
+    }
+}
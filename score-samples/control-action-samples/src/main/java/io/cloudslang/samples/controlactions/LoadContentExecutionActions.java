@@ -0,0 +1,28 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.samples.controlactions;
+
+/**
+ * The step of the load generator as a content operation, which the worker runs on a thread of its own
+ * within the timeout of the execution. Named so the worker recognizes it as a content operation.
+ */
+public class LoadContentExecutionActions {
+
+    @SuppressWarnings("unused")
+    public void executeContentAction(Long stepMillis) {
+        new LoadControlActions().step(stepMillis);
+    }
+}
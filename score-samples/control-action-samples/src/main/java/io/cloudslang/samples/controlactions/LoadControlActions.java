@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.samples.controlactions;
+
+import io.cloudslang.score.lang.ExecutionRuntimeServices;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+/**
+ * The steps of the flows of the load generator: a step that takes a given time and a split to any number of branches.
+ */
+public class LoadControlActions {
+
+    public static final String STEP_MILLIS = "stepMillis";
+    public static final String BRANCHES = "branches";
+
+    @SuppressWarnings("unused")
+    public void step(Long stepMillis) {
+        if (stepMillis != null && stepMillis > 0) {
+            try {
+                Thread.sleep(stepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public void split(ExecutionRuntimeServices executionRuntimeServices, Long stepPosition, String executionPlanId, Integer branches) {
+        for (int i = 0; i < branches; i++) {
+            executionRuntimeServices.addBranch(stepPosition, executionPlanId, new HashMap<String, Serializable>());
+        }
+    }
+}
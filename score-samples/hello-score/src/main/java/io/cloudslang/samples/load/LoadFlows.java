@@ -0,0 +1,204 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.samples.load;
+
+import io.cloudslang.samples.controlactions.BranchActions;
+import io.cloudslang.samples.controlactions.LoadContentExecutionActions;
+import io.cloudslang.samples.controlactions.LoadControlActions;
+import io.cloudslang.samples.controlactions.NavigationActions;
+import io.cloudslang.score.api.ControlActionMetadata;
+import io.cloudslang.score.api.ExecutionPlan;
+import io.cloudslang.score.api.ExecutionStep;
+import io.cloudslang.score.api.TriggeringProperties;
+import io.cloudslang.score.facade.TempConstants;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The execution plans of the load generator, of one of the shapes:
+ * <ul>
+ *     <li>linear - a flow of the given number of steps</li>
+ *     <li>parallel - a split to the given number of branches of the given number of steps, and a join</li>
+ *     <li>subflow - a split to a single branch, nested to the given depth, the deepest subflow of the given number of steps</li>
+ * </ul>
+ * Every flow starts with a context of the given number of entries, to load the flows with large contexts.
+ * With a step timeout the steps are content operations, which the worker runs on a thread of its own within the timeout,
+ * to compare the overhead of a step with and without a timeout.
+ */
+public class LoadFlows {
+
+    public enum Shape {
+        LINEAR, PARALLEL, SUBFLOW
+    }
+
+    /**
+     * The context key of the time the flow was due to be triggered, in System.nanoTime()
+     */
+    public static final String TRIGGER_NANOS = "loadTriggerNanos";
+
+    private static final String BRANCH_FLOW_UUID = "loadBranchFlow";
+    private static final String SUBFLOW_UUID_PREFIX = "loadSubflow";
+
+    private final long stepMillis;
+    private final int stepTimeoutMins;
+    private final ExecutionPlan executionPlan;
+    private final Map<String, ExecutionPlan> dependencies = new HashMap<>();
+    private final Map<String, Serializable> context = new HashMap<>();
+    private final int stepsPerFlow;
+
+    /**
+     * @param shape the shape of the flows
+     * @param steps the steps of the flow, of every branch or of the deepest subflow
+     * @param branches the branches of a parallel flow
+     * @param depth the nesting of the subflows of a subflow flow
+     * @param stepMillis the time every step takes, in milliseconds
+     * @param contextSize the entries of the context of every flow
+     * @param valueSize the length of the values of the context
+     * @param stepTimeoutMins the timeout of the flows in minutes, 0 for steps without a timeout
+     */
+    public LoadFlows(Shape shape, int steps, int branches, int depth, long stepMillis, int contextSize, int valueSize, int stepTimeoutMins) {
+        if (steps < 1) {
+            throw new IllegalArgumentException("A flow must have at least one step");
+        }
+        this.stepMillis = stepMillis;
+        this.stepTimeoutMins = stepTimeoutMins;
+        switch (shape) {
+            case PARALLEL:
+                executionPlan = createParallelFlow(branches, steps);
+                stepsPerFlow = 2 + branches * steps;
+                break;
+            case SUBFLOW:
+                executionPlan = createSubflowFlow(depth, steps);
+                stepsPerFlow = 2 * depth + steps;
+                break;
+            default:
+                executionPlan = createLinearFlow("loadLinearFlow", steps);
+                stepsPerFlow = steps;
+        }
+        char[] value = new char[valueSize];
+        for (int i = 0; i < valueSize; i++) {
+            value[i] = (char) ('a' + i % 26);
+        }
+        for (int i = 0; i < contextSize; i++) {
+            context.put("loadContext" + i, i + new String(value));
+        }
+    }
+
+    /**
+     * @param triggerNanos the time the flow is due to be triggered, in System.nanoTime()
+     * @return the properties to trigger a flow with
+     */
+    public TriggeringProperties createTriggeringProperties(long triggerNanos) {
+        Map<String, Serializable> flowContext = new HashMap<>(context);
+        flowContext.put(TRIGGER_NANOS, triggerNanos);
+        // the runtime values are the system context of the execution
+        Map<String, Serializable> runtimeValues = new HashMap<>();
+        if (stepTimeoutMins > 0) {
+            runtimeValues.put(TempConstants.SC_TIMEOUT_START_TIME, System.currentTimeMillis());
+            runtimeValues.put(TempConstants.SC_TIMEOUT_MINS, stepTimeoutMins);
+        }
+        return TriggeringProperties.create(executionPlan)
+                .setDependencies(dependencies)
+                .setContext(flowContext)
+                .setRuntimeValues(runtimeValues);
+    }
+
+    /**
+     * @return the steps run by a flow, with the steps of its branches and subflows
+     */
+    public int getStepsPerFlow() {
+        return stepsPerFlow;
+    }
+
+    private ExecutionPlan createLinearFlow(String flowUuid, int steps) {
+        ExecutionPlan flow = createExecutionPlan(flowUuid);
+        for (long stepId = 0; stepId < steps; stepId++) {
+            Map<String, Serializable> actionData = new HashMap<>();
+            actionData.put(LoadControlActions.STEP_MILLIS, stepMillis);
+            ExecutionStep step = stepTimeoutMins > 0 ?
+                    createExecutionStep(stepId, LoadContentExecutionActions.class, "executeContentAction", actionData) :
+                    createExecutionStep(stepId, LoadControlActions.class, "step", actionData);
+            if (stepId < steps - 1) {
+                addNavigation(step, stepId + 1);
+            }
+            flow.addStep(step);
+        }
+        return flow;
+    }
+
+    private ExecutionPlan createParallelFlow(int branches, int steps) {
+        dependencies.put(BRANCH_FLOW_UUID, createLinearFlow(BRANCH_FLOW_UUID, steps));
+
+        ExecutionPlan flow = createExecutionPlan("loadParallelFlow");
+        Map<String, Serializable> actionData = new HashMap<>();
+        actionData.put(BranchActions.STEP_POSITION, 0L);
+        actionData.put(BranchActions.EXECUTION_PLAN_ID, BRANCH_FLOW_UUID);
+        actionData.put(LoadControlActions.BRANCHES, branches);
+        addSplitAndJoin(flow, createExecutionStep(0L, LoadControlActions.class, "split", actionData));
+        flow.setSubflowsUUIDs(Collections.singleton(BRANCH_FLOW_UUID));
+        return flow;
+    }
+
+    private ExecutionPlan createSubflowFlow(int depth, int steps) {
+        String deepestUuid = SUBFLOW_UUID_PREFIX + depth;
+        ExecutionPlan flow = createLinearFlow(deepestUuid, steps);
+        for (int level = depth - 1; level >= 0; level--) {
+            String childUuid = flow.getFlowUuid();
+            dependencies.put(childUuid, flow);
+
+            flow = createExecutionPlan(SUBFLOW_UUID_PREFIX + level);
+            Map<String, Serializable> actionData = new HashMap<>();
+            actionData.put(BranchActions.STEP_POSITION, 0L);
+            actionData.put(BranchActions.EXECUTION_PLAN_ID, childUuid);
+            addSplitAndJoin(flow, createExecutionStep(0L, BranchActions.class, "split", actionData));
+            flow.setSubflowsUUIDs(Collections.singleton(childUuid));
+        }
+        return flow;
+    }
+
+    private static void addSplitAndJoin(ExecutionPlan flow, ExecutionStep splitStep) {
+        splitStep.setSplitStep(true);
+        addNavigation(splitStep, 1L);
+        flow.addStep(splitStep);
+        flow.addStep(createExecutionStep(1L, BranchActions.class, "join", new HashMap<String, Serializable>()));
+    }
+
+    private static ExecutionPlan createExecutionPlan(String flowUuid) {
+        ExecutionPlan flow = new ExecutionPlan();
+        flow.setFlowUuid(flowUuid);
+        flow.setName(flowUuid);
+        flow.setBeginStep(0L);
+        return flow;
+    }
+
+    private static ExecutionStep createExecutionStep(Long stepId, Class<?> actionClass, String actionMethod, Map<String, Serializable> actionData) {
+        ExecutionStep step = new ExecutionStep(stepId);
+        step.setAction(new ControlActionMetadata(actionClass.getName(), actionMethod));
+        step.setActionData(actionData);
+        return step;
+    }
+
+    private static void addNavigation(ExecutionStep step, Long nextStepId) {
+        step.setNavigation(new ControlActionMetadata(NavigationActions.class.getName(), "simpleNavigation"));
+        Map<String, Serializable> navigationData = new HashMap<>();
+        navigationData.put("nextStepId", nextStepId);
+        step.setNavigationData(navigationData);
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.samples.load;
+
+import io.cloudslang.engine.queue.services.ExecutionQueueMBean;
+import io.cloudslang.score.api.Score;
+import io.cloudslang.score.events.EventBus;
+import io.cloudslang.score.events.EventConstants;
+import io.cloudslang.score.events.ScoreEvent;
+import io.cloudslang.score.events.ScoreEventListener;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitor;
+import io.cloudslang.worker.management.services.WorkerManager;
+import io.cloudslang.worker.management.services.WorkerMonitorInfoEnum;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Triggers flows of the {@link LoadFlows} at a fixed rate on an engine and a worker in this JVM, on an embedded H2,
+ * and reports the throughput of the flows and steps, the latencies of the flows, and where the time went
+ * by the worker latencies and the queue statements.
+ * <p>
+ * The flows are triggered for the warmup, and then for the duration that is measured.
+ * The latency of a flow is from the time it was due to be triggered, so a trigger that falls behind is not hidden,
+ * and only the flows that were due in the measurement are in the latencies and the throughput.
+ * Configured by the system properties:
+ * <ul>
+ *     <li>load.shape - linear, parallel or subflow, linear by default</li>
+ *     <li>load.steps - the steps of a flow, of a branch, or of the deepest subflow, 10 by default</li>
+ *     <li>load.branches - the branches of a parallel flow, 10 by default</li>
+ *     <li>load.depth - the nesting of the subflows, 3 by default</li>
+ *     <li>load.stepMillis - the time a step takes, 0 by default</li>
+ *     <li>load.stepTimeoutMins - the timeout of the flows in minutes, the steps then run as content operations with a timeout,
+ *     0 (no timeout) by default</li>
+ *     <li>load.contextSize and load.valueSize - the entries of the context of a flow and their length, 0 and 100 by default</li>
+ *     <li>load.rate - the flows triggered per second, 10 by default</li>
+ *     <li>load.warmup and load.duration - the seconds of the warmup and of the measurement, 10 and 60 by default</li>
+ *     <li>load.reportInterval - the seconds between the progress reports, 5 by default</li>
+ *     <li>load.drainTimeout - the seconds to wait for the flows to finish after the measurement, 60 by default</li>
+ * </ul>
+ * The worker is configured by its cloudslang.worker.* system properties, like cloudslang.worker.numberOfExecutionThreads.
+ */
+public class LoadGenerator {
+
+    private final static Logger logger = Logger.getLogger(LoadGenerator.class);
+
+    private static final String SHAPE = System.getProperty("load.shape", "linear");
+    private static final int STEPS = Integer.getInteger("load.steps", 10);
+    private static final int BRANCHES = Integer.getInteger("load.branches", 10);
+    private static final int DEPTH = Integer.getInteger("load.depth", 3);
+    private static final long STEP_MILLIS = Long.getLong("load.stepMillis", 0);
+    private static final int STEP_TIMEOUT_MINS = Integer.getInteger("load.stepTimeoutMins", 0);
+    private static final int CONTEXT_SIZE = Integer.getInteger("load.contextSize", 0);
+    private static final int VALUE_SIZE = Integer.getInteger("load.valueSize", 100);
+    private static final int RATE = Integer.getInteger("load.rate", 10);
+    private static final int WARMUP = Integer.getInteger("load.warmup", 10);
+    private static final int DURATION = Integer.getInteger("load.duration", 60);
+    private static final int REPORT_INTERVAL = Integer.getInteger("load.reportInterval", 5);
+    private static final int DRAIN_TIMEOUT = Integer.getInteger("load.drainTimeout", 60);
+
+    @SuppressWarnings("SpringJavaAutowiringInspection")
+    @Autowired
+    private Score score;
+
+    @SuppressWarnings("SpringJavaAutowiringInspection")
+    @Autowired
+    private EventBus eventBus;
+
+    @SuppressWarnings("SpringJavaAutowiringInspection")
+    @Autowired
+    private WorkerManager workerManager;
+
+    @SuppressWarnings("SpringJavaAutowiringInspection")
+    @Autowired
+    private WorkerLatencyMonitor workerLatencyMonitor;
+
+    @SuppressWarnings("SpringJavaAutowiringInspection")
+    @Autowired
+    private ExecutionQueueMBean executionQueueMBean;
+
+    private final LoadFlows flows = new LoadFlows(LoadFlows.Shape.valueOf(SHAPE.toUpperCase(Locale.ENGLISH)),
+            STEPS, BRANCHES, DEPTH, STEP_MILLIS, CONTEXT_SIZE, VALUE_SIZE, STEP_TIMEOUT_MINS);
+
+    private final AtomicLong triggered = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    // the time the last of the flows that were due in the measurement finished, for the throughput
+    private final AtomicLong lastMeasuredFinish = new AtomicLong();
+    // the latencies of the flows that were due in the measurement, and of the flows since the last progress report
+    private final Latencies latencies = new Latencies();
+    private final Latencies intervalLatencies = new Latencies();
+
+    private volatile long measurementStart = Long.MAX_VALUE;
+    private volatile long measurementEnd = Long.MAX_VALUE;
+
+    public static void main(String[] args) {
+        ConfigurableApplicationContext context = new ClassPathXmlApplicationContext("/META-INF/spring/loadGeneratorContext.xml");
+        LoadGenerator loadGenerator = context.getBean(LoadGenerator.class);
+        loadGenerator.registerEventListener();
+        loadGenerator.run();
+        context.close();
+        System.exit(0);
+    }
+
+    private void run() {
+        // a flow triggered while the worker is recovered on its startup may be lost to the recovery
+        while (!workerManager.isUp()) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        logger.info("Triggering " + SHAPE + " flows of " + flows.getStepsPerFlow() + " steps at " + RATE + " flows/s, for "
+                + WARMUP + "s of warmup and " + DURATION + "s of measurement");
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                reportProgress();
+            }
+        }, REPORT_INTERVAL, REPORT_INTERVAL, TimeUnit.SECONDS);
+        try {
+            trigger();
+            waitForFlowsToFinish();
+        } finally {
+            reporter.shutdownNow();
+        }
+        report();
+    }
+
+    private void trigger() {
+        long start = System.nanoTime();
+        measurementStart = start + TimeUnit.SECONDS.toNanos(WARMUP);
+        measurementEnd = measurementStart + TimeUnit.SECONDS.toNanos(DURATION);
+        boolean measuring = false;
+        for (long flow = 0; ; flow++) {
+            long due = start + flow * TimeUnit.SECONDS.toNanos(1) / RATE;
+            if (due >= measurementEnd) {
+                return;
+            }
+            if (!measuring && due >= measurementStart) {
+                // the component statistics are of the measurement, not of the warmup
+                measuring = true;
+                workerLatencyMonitor.captureMonitorInfo(new EnumMap<WorkerMonitorInfoEnum, Serializable>(WorkerMonitorInfoEnum.class));
+                executionQueueMBean.resetStatementStatistics();
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            score.trigger(flows.createTriggeringProperties(due));
+            triggered.incrementAndGet();
+        }
+    }
+
+    private void waitForFlowsToFinish() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_TIMEOUT);
+        while (finished.get() + failed.get() < triggered.get() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+    }
+
+    private void registerEventListener() {
+        Set<String> handlerTypes = new HashSet<>();
+        handlerTypes.add(EventConstants.SCORE_FINISHED_EVENT);
+        handlerTypes.add(EventConstants.SCORE_FAILURE_EVENT);
+        eventBus.subscribe(new ScoreEventListener() {
+            @Override
+            public void onEvent(ScoreEvent event) {
+                onFlowEnd(event);
+            }
+        }, handlerTypes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onFlowEnd(ScoreEvent event) {
+        long now = System.nanoTime();
+        Map<String, Serializable> data = (Map<String, Serializable>) event.getData();
+        if (EventConstants.SCORE_FAILURE_EVENT.equals(event.getEventType())) {
+            failed.incrementAndGet();
+            logger.warn("Flow " + data.get(EventConstants.EXECUTION_ID_CONTEXT) + " failed");
+            return;
+        }
+        if (Boolean.TRUE.equals(data.get(EventConstants.IS_BRANCH))) {
+            return;
+        }
+        Map<String, Serializable> context = (Map<String, Serializable>) data.get(EventConstants.EXECUTION_CONTEXT);
+        long due = (Long) context.get(LoadFlows.TRIGGER_NANOS);
+        finished.incrementAndGet();
+        intervalLatencies.add(now - due);
+        if (due >= measurementStart && due < measurementEnd) {
+            latencies.add(now - due);
+            lastMeasuredFinish.accumulateAndGet(now, Math::max);
+        }
+    }
+
+    private void reportProgress() {
+        long[] interval = intervalLatencies.drain();
+        long inFlight = triggered.get() - finished.get() - failed.get();
+        logger.info(String.format("triggered %d, finished %d, failed %d, in flight %d, %.1f flows/s, latency %s",
+                triggered.get(), finished.get(), failed.get(), inFlight,
+                (double) interval.length / REPORT_INTERVAL, Latencies.summary(interval)));
+    }
+
+    private void report() {
+        long[] measured = latencies.drain();
+        // from the start of the measurement until its flows finished, so a generator that is not kept up with is not hidden
+        long measuredNanos = Math.max(lastMeasuredFinish.get() - measurementStart, TimeUnit.SECONDS.toNanos(DURATION));
+        double flowsPerSecond = measured.length * 1e9 / measuredNanos;
+        StringBuilder report = new StringBuilder("Load report\n");
+        report.append(String.format("  %s flows of %d steps at %d flows/s, %d context entries%n", SHAPE, flows.getStepsPerFlow(), RATE, CONTEXT_SIZE));
+        report.append(String.format("  triggered %d, finished %d, failed %d, unfinished %d%n",
+                triggered.get(), finished.get(), failed.get(), triggered.get() - finished.get() - failed.get()));
+        report.append(String.format("  throughput %.1f flows/s, %.1f steps/s%n", flowsPerSecond, flowsPerSecond * flows.getStepsPerFlow()));
+        report.append(String.format("  flow latency %s%n", Latencies.summary(measured)));
+        report.append("  worker latencies in microseconds\n");
+        for (Map.Entry<String, String> entry : workerLatencyMonitor.getLatencies().entrySet()) {
+            report.append("    ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        report.append("  queue statements, latencies in microseconds\n");
+        for (Map.Entry<String, String> entry : executionQueueMBean.getStatementStatistics().entrySet()) {
+            report.append("    ").append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        report.append("  queue depth ").append(executionQueueMBean.getQueueDepth());
+        logger.info(report);
+    }
+
+    /**
+     * The latencies of the flows, in nanoseconds
+     */
+    private static class Latencies {
+
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        /**
+         * @return the latencies sorted, the latencies are cleared
+         */
+        synchronized long[] drain() {
+            long[] drained = Arrays.copyOf(values, size);
+            size = 0;
+            Arrays.sort(drained);
+            return drained;
+        }
+
+        static String summary(long[] sorted) {
+            if (sorted.length == 0) {
+                return "of no flows";
+            }
+            return String.format("in ms p50 %.1f, p90 %.1f, p99 %.1f, max %.1f of %d flows",
+                    millis(sorted, 50), millis(sorted, 90), millis(sorted, 99), millis(sorted, 100), sorted.length);
+        }
+
+        private static double millis(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+}
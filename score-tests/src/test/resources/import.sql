@@ -1 +1,2 @@
 insert into OO_VERSION_COUNTERS (ID, COUNTER_NAME, COUNTER_VERSION) values (0, 'MSG_RECOVERY_VERSION', 0);
+insert into OO_VERSION_COUNTERS (ID, COUNTER_NAME, COUNTER_VERSION) values (1, 'CONFIGURATION_VERSION', 0);
@@ -0,0 +1,33 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.execution.services;
+
+import io.cloudslang.score.api.ExecutionPlan;
+
+/**
+ * Worker side cache of the decoded execution plans
+ */
+public interface ExecutionPlanCache {
+
+    /**
+     * Returns the decoded execution plan of a running execution plan, loading it on a miss.
+     * Concurrent misses for the same id load the plan once
+     *
+     * @param runningExecutionPlanId - the id of the running execution plan
+     * @return the execution plan, or null if there is no such running execution plan
+     */
+    ExecutionPlan getExecutionPlan(Long runningExecutionPlanId);
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.execution.services;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The data passed to a control action: the execution data, over the execution contexts, over the data of the step.
+ * <p>
+ * The contexts are looked up instead of being copied, so a context entry is only read from the execution
+ * when the action has a parameter with its name. Contexts read from a payload are decoded lazily,
+ * and copying all of them would decode every entry on every step.
+ * <p>
+ * Like the copy it replaces, changing this map does not change the contexts or the data of the step:
+ * a removed key is hidden rather than removed from them.
+ */
+class ActionDataMap extends AbstractMap<String, Object> {
+
+    private final Map<String, ?> stepData;
+    private final Map<String, Serializable> contexts;
+    private final Map<String, Object> executionData = new HashMap<>();
+    private final Set<Object> removedKeys = new HashSet<>();
+
+    ActionDataMap(Map<String, ?> stepData, Map<String, Serializable> contexts) {
+        this.stepData = stepData != null ? stepData : Collections.<String, Object>emptyMap();
+        this.contexts = contexts != null ? contexts : Collections.<String, Serializable>emptyMap();
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (executionData.containsKey(key)) {
+            return executionData.get(key);
+        }
+        if (removedKeys.contains(key)) {
+            return null;
+        }
+        if (contexts.containsKey(key)) {
+            return contexts.get(key);
+        }
+        return stepData.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return executionData.containsKey(key) ||
+                (!removedKeys.contains(key) && (contexts.containsKey(key) || stepData.containsKey(key)));
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        Object previous = get(key);
+        executionData.put(key, value);
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        Object previous = get(key);
+        executionData.remove(key);
+        if (contexts.containsKey(key) || stepData.containsKey(key)) {
+            removedKeys.add(key);
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        executionData.clear();
+        removedKeys.addAll(contexts.keySet());
+        removedKeys.addAll(stepData.keySet());
+    }
+
+    // a snapshot of the entries, changing an entry or removing it through the iterator changes this map
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        final Map<String, Object> data = new LinkedHashMap<>(stepData);
+        data.putAll(contexts);
+        data.keySet().removeAll(removedKeys);
+        data.putAll(executionData);
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                final Iterator<Entry<String, Object>> iterator = data.entrySet().iterator();
+                return new Iterator<Entry<String, Object>>() {
+                    private Entry<String, Object> current;
+
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        current = iterator.next();
+                        return new SimpleEntry<String, Object>(current) {
+                            @Override
+                            public Object setValue(Object value) {
+                                super.setValue(value);
+                                return ActionDataMap.this.put(getKey(), value);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                        ActionDataMap.this.remove(current.getKey());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return data.size();
+            }
+        };
+    }
+}
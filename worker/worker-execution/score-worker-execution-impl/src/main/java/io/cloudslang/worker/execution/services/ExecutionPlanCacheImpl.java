@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.execution.services;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.cloudslang.score.api.ExecutionPlan;
+import io.cloudslang.score.facade.entities.RunningExecutionPlan;
+import io.cloudslang.worker.management.monitor.WorkerMonitor;
+import io.cloudslang.worker.management.services.WorkerMonitorInfoEnum;
+import io.cloudslang.worker.management.services.dbsupport.WorkerDbSupportService;
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Long.getLong;
+
+/**
+ * Keeps the decoded execution plans of the worker, bounded by their approximate decoded size.
+ * The least recently used plans are evicted first.
+ */
+public class ExecutionPlanCacheImpl implements ExecutionPlanCache, WorkerMonitor {
+
+    private static final Logger logger = Logger.getLogger(ExecutionPlanCacheImpl.class);
+
+    // the weight of a plan is its serialized size in KB
+    private static final long MAX_WEIGHT_KB = getLong("worker.executionPlanCache.maxWeightKB", 256 * 1024L);
+
+    @Autowired
+    private WorkerDbSupportService workerDbSupportService;
+
+    private final LoadingCache<Long, CachedExecutionPlan> cache = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_WEIGHT_KB)
+            .weigher(new Weigher<Long, CachedExecutionPlan>() {
+                @Override
+                public int weigh(Long key, CachedExecutionPlan value) {
+                    return value.weightKB;
+                }
+            })
+            .recordStats()
+            .build(new CacheLoader<Long, CachedExecutionPlan>() {
+                @Override
+                public CachedExecutionPlan load(Long runningExecutionPlanId) {
+                    return loadExecutionPlan(runningExecutionPlanId);
+                }
+            });
+
+    private CacheStats lastCapturedStats = new CacheStats(0, 0, 0, 0, 0, 0);
+
+    @Override
+    public ExecutionPlan getExecutionPlan(Long runningExecutionPlanId) {
+        if (runningExecutionPlanId == null) {
+            return null;
+        }
+        try {
+            // a null from the loader is not cached, and is reported as InvalidCacheLoadException
+            return cache.getUnchecked(runningExecutionPlanId).executionPlan;
+        } catch (CacheLoader.InvalidCacheLoadException ex) {
+            return null;
+        } catch (UncheckedExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public synchronized void captureMonitorInfo(Map<WorkerMonitorInfoEnum, Serializable> monitorInfo) {
+        CacheStats stats = cache.stats();
+        CacheStats delta = stats.minus(lastCapturedStats);
+        lastCapturedStats = stats;
+
+        monitorInfo.put(WorkerMonitorInfoEnum.EXECUTION_PLAN_CACHE_HITS, delta.hitCount());
+        monitorInfo.put(WorkerMonitorInfoEnum.EXECUTION_PLAN_CACHE_MISSES, delta.missCount());
+        monitorInfo.put(WorkerMonitorInfoEnum.EXECUTION_PLAN_CACHE_EVICTIONS, delta.evictionCount());
+        monitorInfo.put(WorkerMonitorInfoEnum.EXECUTION_PLAN_CACHE_LOAD_TIME_AVERAGE,
+                TimeUnit.NANOSECONDS.toMillis((long) delta.averageLoadPenalty()));
+        monitorInfo.put(WorkerMonitorInfoEnum.EXECUTION_PLAN_CACHE_SIZE, cache.size());
+    }
+
+    private CachedExecutionPlan loadExecutionPlan(Long runningExecutionPlanId) {
+        RunningExecutionPlan runningExecutionPlan = workerDbSupportService.readExecutionPlanById(runningExecutionPlanId);
+        if (runningExecutionPlan == null) {
+            return null;
+        }
+        ExecutionPlan executionPlan = runningExecutionPlan.getExecutionPlan();
+        if (executionPlan == null) {
+            return null;
+        }
+        int weightKB = getDecodedSizeKB(runningExecutionPlan.getExecutionPlanZipped());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Loaded running execution plan " + runningExecutionPlanId + " of ~" + weightKB + " KB");
+        }
+        return new CachedExecutionPlan(executionPlan, weightKB);
+    }
+
+    /**
+     * The last 4 bytes of a GZIP stream hold the uncompressed size (modulo 2^32) in little endian,
+     * which is the size of the serialized plan
+     */
+    private static int getDecodedSizeKB(byte[] zipped) {
+        if (zipped == null || zipped.length < 4) {
+            return 1;
+        }
+        int length = zipped.length;
+        long size = (zipped[length - 4] & 0xFFL)
+                | (zipped[length - 3] & 0xFFL) << 8
+                | (zipped[length - 2] & 0xFFL) << 16
+                | (zipped[length - 1] & 0xFFL) << 24;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, size / 1024));
+    }
+
+    private static class CachedExecutionPlan {
+        private final ExecutionPlan executionPlan;
+        private final int weightKB;
+
+        private CachedExecutionPlan(ExecutionPlan executionPlan, int weightKB) {
+            this.executionPlan = executionPlan;
+            this.weightKB = weightKB;
+        }
+    }
+}
@@ -28,7 +28,6 @@ import io.cloudslang.score.events.EventConstants;
 import io.cloudslang.score.events.ScoreEvent;
 import io.cloudslang.score.facade.TempConstants;
 import io.cloudslang.score.facade.entities.Execution;
-import io.cloudslang.score.facade.entities.RunningExecutionPlan;
 import io.cloudslang.score.facade.execution.ExecutionStatus;
 import io.cloudslang.score.facade.execution.ExecutionSummary;
 import io.cloudslang.score.facade.execution.PauseReason;
@@ -36,7 +35,8 @@ import io.cloudslang.score.lang.SystemContext;
 import io.cloudslang.worker.execution.model.SandboxExecutionRunnable;
 import io.cloudslang.worker.execution.reflection.ReflectionAdapter;
 import io.cloudslang.worker.management.WorkerConfigurationService;
-import io.cloudslang.worker.management.services.dbsupport.WorkerDbSupportService;
+import io.cloudslang.worker.management.monitor.WorkerLatency;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitor;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -74,7 +74,7 @@ public final class ExecutionServiceImpl implements ExecutionService {
     private ReflectionAdapter reflectionAdapter;
 
     @Autowired
-    private WorkerDbSupportService workerDbSupportService;
+    private ExecutionPlanCache executionPlanCache;
 
     @Autowired
     private WorkerConfigurationService workerConfigurationService;
@@ -82,14 +82,20 @@ public final class ExecutionServiceImpl implements ExecutionService {
     @Autowired
     private EventBus eventBus;
 
+    @Autowired(required = false)
+    private WorkerLatencyMonitor latencyMonitor;
+
     private static final int DEFAULT_PLATFORM_LEVEL_OPERATION_TIMEOUT_IN_SECONDS = 24 * 60 * 60; // seconds in a day
     private static final int DEFAULT_PLATFORM_LEVEL_WAIT_PERIOD_FOR_TIMEOUT_IN_SECONDS = 5 * 60; // 5 minutes
     private static final long DEFAULT_PLATFORM_LEVEL_WAIT_PAUSE_FOR_TIMEOUT_IN_MILLIS = 200; // 200 milliseconds
+    private static final int DEFAULT_TIMED_OPERATION_THREADS = 100;
+    private static final int DEFAULT_TIMED_OPERATION_THREAD_REUSE = 100;
 
     private final long operationTimeoutMillis;
     private final long waitPauseForTimeoutMillis;
     private final long waitPeriodForTimeoutMillis;
     private final boolean interruptOperationExecution;
+    private final TimedOperationExecutor timedOperationExecutor;
 
     public ExecutionServiceImpl() {
         this.operationTimeoutMillis = getSafeIntProperty("execution.operationTimeoutInSeconds",
@@ -99,6 +105,10 @@ public final class ExecutionServiceImpl implements ExecutionService {
         this.waitPauseForTimeoutMillis = getSafeLongProperty("execution.waitPauseForTimeoutInMillis",
                 DEFAULT_PLATFORM_LEVEL_WAIT_PAUSE_FOR_TIMEOUT_IN_MILLIS);
         this.interruptOperationExecution = getBoolean("execution.interruptOperation");
+        this.timedOperationExecutor = new TimedOperationExecutor(
+                getSafeIntProperty("execution.timedOperationThreads", DEFAULT_TIMED_OPERATION_THREADS),
+                getSafeIntProperty("execution.timedOperationThreadReuse", DEFAULT_TIMED_OPERATION_THREAD_REUSE),
+                Boolean.parseBoolean(System.getProperty("execution.timedOperationVirtualThreads", "true")));
     }
 
     private int getSafeIntProperty(String property, int defaultValue) {
@@ -126,7 +136,11 @@ public final class ExecutionServiceImpl implements ExecutionService {
             // dum bus event
             dumpBusEvents(execution);
             // Run the execution step
+            long stepStartTime = System.nanoTime();
             String timeoutMessage = executeStep(execution, currStep);
+            if (latencyMonitor != null) {
+                latencyMonitor.recordStep(currStep.getAction(), System.nanoTime() - stepStartTime);
+            }
             if (timeoutMessage != null) { // Timeout of run
                 try {
                     return doWaitForCancel(execution);
@@ -250,12 +264,9 @@ public final class ExecutionServiceImpl implements ExecutionService {
     }
 
     protected boolean handleCancelledFlow(Execution execution) {
-        boolean executionIsCancelled = workerConfigurationService.isExecutionCancelled(execution
-                .getExecutionId()); // in this case - just check if need to cancel. It will set as cancelled later on QueueEventListener
         // Another scenario of getting canceled - it was cancelled from the SplitJoinService (the configuration can still be not updated). Defect #:22060
-        if (ExecutionStatus.CANCELED.equals(execution.getSystemContext().getFlowTerminationType())) {
-            executionIsCancelled = true;
-        }
+        boolean executionIsCancelled = ExecutionStatus.CANCELED.equals(execution.getSystemContext().getFlowTerminationType()) ||
+                workerConfigurationService.isExecutionCancelled(execution.getExecutionId()); // in this case - just check if need to cancel. It will set as cancelled later on QueueEventListener
         if (executionIsCancelled) {
             // NOTE: an execution can be cancelled directly from CancelExecutionService, if it's currently paused.
             // Thus, if you change the code here, please check CancelExecutionService as well.
@@ -316,6 +327,9 @@ public final class ExecutionServiceImpl implements ExecutionService {
     }
 
     private void addPauseEvent(SystemContext systemContext) throws InterruptedException {
+        if (!eventBus.hasSubscribers(EventConstants.SCORE_PAUSED_EVENT)) {
+            return;
+        }
         HashMap<String, Serializable> eventData = new HashMap<>();
         eventData.put(ExecutionParametersConsts.SYSTEM_CONTEXT, new HashMap<>(systemContext));
         ScoreEvent eventWrapper = new ScoreEvent(EventConstants.SCORE_PAUSED_EVENT, eventData);
@@ -365,7 +379,7 @@ public final class ExecutionServiceImpl implements ExecutionService {
     }
 
     public ExecutionStep loadExecutionStep(Execution execution) {
-        RunningExecutionPlan runningExecutionPlan;
+        ExecutionPlan executionPlan;
         if (execution != null) {
             // Optimization for external workers - run the content only without loading the execution plan
             if (execution.getSystemContext().get(TempConstants.CONTENT_EXECUTION_STEP) != null) {
@@ -373,14 +387,13 @@ public final class ExecutionServiceImpl implements ExecutionService {
             }
             Long position = execution.getPosition();
             if (position != null) {
-                runningExecutionPlan = workerDbSupportService
-                        .readExecutionPlanById(execution.getRunningExecutionPlanId());
-                if (runningExecutionPlan != null) {
-                    updateMetadata(execution, runningExecutionPlan);
-                    ExecutionStep currStep = runningExecutionPlan.getExecutionPlan().getStep(position);
+                executionPlan = executionPlanCache.getExecutionPlan(execution.getRunningExecutionPlanId());
+                if (executionPlan != null) {
+                    updateMetadata(execution, executionPlan);
+                    ExecutionStep currStep = executionPlan.getStep(position);
                     if (logger.isDebugEnabled()) {
-                        logger.debug("Begin step: " + position + " in flow " + runningExecutionPlan.getExecutionPlan()
-                                .getFlowUuid() + " [" + execution.getExecutionId() + "]");
+                        logger.debug("Begin step: " + position + " in flow " + executionPlan.getFlowUuid() +
+                                " [" + execution.getExecutionId() + "]");
                     }
                     if (currStep != null) {
                         return currStep;
@@ -392,10 +405,9 @@ public final class ExecutionServiceImpl implements ExecutionService {
         throw new RuntimeException("Failed to load ExecutionStep!");
     }
 
-    private void updateMetadata(Execution execution, RunningExecutionPlan runningExecutionPlan) {
+    private void updateMetadata(Execution execution, ExecutionPlan executionPlan) {
         Map<String, Serializable> executionMetadata = (Map<String, Serializable>) execution.getSystemContext()
                 .getMetaData();
-        ExecutionPlan executionPlan = runningExecutionPlan.getExecutionPlan();
         executionMetadata.put(ExecutionMetadataConsts.EXECUTION_PLAN_ID, executionPlan.getFlowUuid());
         executionMetadata.put(ExecutionMetadataConsts.EXECUTION_PLAN_NAME, executionPlan.getName());
     }
@@ -412,9 +424,8 @@ public final class ExecutionServiceImpl implements ExecutionService {
                 if ((startTime != null) && (timeoutMins != null)) { // Timeout information is available, we use it
                     long now = System.currentTimeMillis();
                     Callable<Object> operationCallable = () -> reflectionAdapter.executeControlAction(action, stepData);
-                    Thread operationExecutionThread = new Thread(
-                            new SandboxExecutionRunnable<>(Thread.currentThread().getContextClassLoader(),
-                                    operationCallable));
+                    SandboxExecutionRunnable<Object> operation = new SandboxExecutionRunnable<>(
+                            Thread.currentThread().getContextClassLoader(), operationCallable);
 
                     long dynamicTimeout = getDynamicTimeout(startTime, timeoutMins, now);
                     if (dynamicTimeout == -1L) { // execution time exceeded for this execution
@@ -426,21 +437,14 @@ public final class ExecutionServiceImpl implements ExecutionService {
                         return timeoutErrorMessageBeforeStep;
                     }
 
-                    operationExecutionThread.setName("operationExecutionThread-" + execution.getExecutionId() + "-" + currStep.getExecStepId());
-                    operationExecutionThread.start();
-                    operationExecutionThread.join(dynamicTimeout);
-
-                    if (operationExecutionThread.isAlive()) {
+                    String operationName = "operationExecutionThread-" + execution.getExecutionId() + "-" + currStep.getExecStepId();
+                    // interrupts the execution of the content operation on timeout when execution.interruptOperation is set
+                    if (!timedOperationExecutor.run(operationName, operation, dynamicTimeout, interruptOperationExecution)) {
                         String timeoutErrorMessageDuringStep = String
                                 .format("Timeout (%d minutes) exceeded for execution id %s having start time %s (current time %s) when running step %s",
                                         timeoutMins, valueOf(execution.getExecutionId()), valueOf(startTime),
                                         valueOf(System.currentTimeMillis()), valueOf(currStep.getExecStepId()));
                         logger.error(timeoutErrorMessageDuringStep);
-
-                        if (interruptOperationExecution) {
-                            operationExecutionThread
-                                    .interrupt(); // interrupt the execution of the content operation
-                        }
                         return timeoutErrorMessageDuringStep;
                     }
                 } else { // Execute on regular executor as usual if no timeout is present
@@ -489,18 +493,15 @@ public final class ExecutionServiceImpl implements ExecutionService {
     }
 
     private Map<String, Object> prepareStepData(Execution execution, ExecutionStep currStep) {
-        Map<String, ?> actionData = currStep.getActionData();
-        Map<String, Object> stepData = new HashMap<>();
-        if (actionData != null) {
-            stepData.putAll(actionData);
-        }
         // We add all the contexts to the step data - so inside of each control action we will have access to all contexts
-        addContextData(stepData, execution);
-        return stepData;
+        return createContextData(currStep.getActionData(), execution);
     }
 
     private void createErrorEvent(String ex, String logMessage, String errorType, SystemContext systemContext)
             throws InterruptedException {
+        if (!eventBus.hasSubscribers(EventConstants.SCORE_ERROR_EVENT)) {
+            return;
+        }
         HashMap<String, Serializable> eventData = new HashMap<>();
         eventData.put(ExecutionParametersConsts.SYSTEM_CONTEXT, new HashMap<>(systemContext));
         eventData.put(EventConstants.SCORE_ERROR_MSG, ex);
@@ -512,11 +513,11 @@ public final class ExecutionServiceImpl implements ExecutionService {
 
     public void navigate(Execution execution, ExecutionStep currStep) throws InterruptedException {
         Long position;
+        long navigationStartTime = System.nanoTime();
         try {
             if (currStep.getNavigation() != null) {
-                Map<String, Object> navigationData = new HashMap<>(currStep.getNavigationData());
                 // We add all the contexts to the step data - so inside of each control action we will have access to all contexts
-                addContextData(navigationData, execution);
+                Map<String, Object> navigationData = createContextData(currStep.getNavigationData(), execution);
                 position = (Long) reflectionAdapter.executeControlAction(currStep.getNavigation(), navigationData);
                 execution.setPosition(position);
             } else {
@@ -536,6 +537,10 @@ public final class ExecutionServiceImpl implements ExecutionService {
             } catch (RuntimeException eventEx) {
                 logger.error("Failed to create event: ", eventEx);
             }
+        } finally {
+            if (latencyMonitor != null) {
+                latencyMonitor.record(WorkerLatency.NAVIGATION, System.nanoTime() - navigationStartTime);
+            }
         }
     }
 
@@ -565,13 +570,14 @@ public final class ExecutionServiceImpl implements ExecutionService {
         }
     }
 
-    private static void addContextData(Map<String, Object> data, Execution execution) {
-        data.putAll(execution.getContexts());
+    private static Map<String, Object> createContextData(Map<String, ?> stepData, Execution execution) {
+        Map<String, Object> data = new ActionDataMap(stepData, execution.getContexts());
         data.put(ExecutionParametersConsts.SYSTEM_CONTEXT, execution.getSystemContext());
         data.put(ExecutionParametersConsts.EXECUTION_RUNTIME_SERVICES, execution.getSystemContext());
         data.put(ExecutionParametersConsts.EXECUTION, execution);
         data.put(ExecutionParametersConsts.EXECUTION_CONTEXT, execution.getContexts());
         data.put(ExecutionParametersConsts.RUNNING_EXECUTION_PLAN_ID, execution.getRunningExecutionPlanId());
+        return data;
     }
 
 }
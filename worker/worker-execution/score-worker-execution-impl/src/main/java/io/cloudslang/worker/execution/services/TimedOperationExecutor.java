@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.execution.services;
+
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the content operations of the steps that have a timeout on threads shared by all the steps,
+ * instead of starting a thread for every operation.
+ * <p>
+ * A thread is reused once its operation ends and ends itself after a minute without operations.
+ * A thread that was left with thread locals by its operation is retired instead of reused, so the class loaders
+ * they reference end with the operation. When the thread locals of a thread cannot be inspected, the thread is
+ * retired after a bounded number of operations.
+ * When all the threads are busy with operations an operation runs on a thread of its own, as before.
+ * <p>
+ * On a JVM with virtual threads every operation runs on a virtual thread of its own instead, unless they are turned off.
+ */
+class TimedOperationExecutor {
+
+    private static final Logger logger = Logger.getLogger(TimedOperationExecutor.class);
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final String THREAD_NAME = "operationExecutionThread";
+
+    // Thread.threadLocals, null when the JVM does not allow to read it
+    private static final Field THREAD_LOCALS = threadLocalsField();
+
+    private final int maxThreads;
+    private final int maxOperationsPerThread;
+    private final SynchronousQueue<Runnable> handOff = new SynchronousQueue<>();
+    private final AtomicInteger poolSize = new AtomicInteger();
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    // Thread.ofVirtual(), looked up at runtime since the worker is compiled for Java 8
+    private final Method ofVirtual;
+    private final Method unstarted;
+
+    /**
+     * @param maxThreads             the number of pooled threads, operations over it run on threads of their own
+     * @param maxOperationsPerThread the operations a pooled thread runs before it is retired
+     * @param virtualThreads         whether to run the operations on virtual threads when the JVM has them
+     */
+    TimedOperationExecutor(int maxThreads, int maxOperationsPerThread, boolean virtualThreads) {
+        this.maxThreads = maxThreads;
+        this.maxOperationsPerThread = maxOperationsPerThread;
+
+        Method virtualBuilder = null;
+        Method unstartedThread = null;
+        if (virtualThreads) {
+            try {
+                virtualBuilder = Thread.class.getMethod("ofVirtual");
+                unstartedThread = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                logger.info("Virtual threads are not supported by Java " + System.getProperty("java.version") +
+                        ", using pooled platform threads for the timed operations");
+                virtualBuilder = null;
+            }
+        }
+        this.ofVirtual = virtualBuilder;
+        this.unstarted = unstartedThread;
+    }
+
+    /**
+     * @param name               the name of the thread while it runs the operation
+     * @param interruptOnTimeout whether to interrupt the operation when it does not end within the timeout
+     * @return whether the operation ended within the timeout
+     */
+    boolean run(String name, Runnable operation, long timeoutMillis, boolean interruptOnTimeout)
+            throws InterruptedException {
+        FutureTask<Void> task = new FutureTask<>(new NamedOperation(name, operation), null);
+        start(task, name);
+
+        try {
+            task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            if (interruptOnTimeout) {
+                task.cancel(true);
+            }
+            return false;
+        } catch (ExecutionException ex) {
+            // like an error thrown by a thread of its own, it does not fail the step
+            logger.error("Operation " + name + " failed", ex.getCause());
+        }
+        return true;
+    }
+
+    boolean isVirtual() {
+        return ofVirtual != null;
+    }
+
+    int getPoolSize() {
+        return poolSize.get();
+    }
+
+    static boolean inspectsThreadLocals() {
+        return THREAD_LOCALS != null;
+    }
+
+    private void start(Runnable task, String name) {
+        if (ofVirtual != null) {
+            newVirtualThread(task).start();
+            return;
+        }
+        // an idle pooled thread takes the task
+        if (handOff.offer(task)) {
+            return;
+        }
+        if (poolSize.incrementAndGet() <= maxThreads) {
+            new OperationThread(task).start();
+            return;
+        }
+        poolSize.decrementAndGet();
+        if (logger.isDebugEnabled()) {
+            logger.debug("All " + maxThreads + " timed operation threads are busy, starting " + name);
+        }
+        new Thread(task, name).start();
+    }
+
+    private Thread newVirtualThread(Runnable task) {
+        try {
+            return (Thread) unstarted.invoke(ofVirtual.invoke(null), task);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Failed to create a virtual thread", ex);
+        }
+    }
+
+    private static Field threadLocalsField() {
+        try {
+            Field field = Thread.class.getDeclaredField("threadLocals");
+            field.setAccessible(true);
+            return field;
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            logger.info("The thread locals of the timed operation threads cannot be inspected on Java " +
+                    System.getProperty("java.version") + ", the threads are retired after a number of operations");
+            return null;
+        }
+    }
+
+    private static boolean hasThreadLocals(Thread thread) {
+        try {
+            return THREAD_LOCALS != null && THREAD_LOCALS.get(thread) != null;
+        } catch (IllegalAccessException ex) {
+            return true;
+        }
+    }
+
+    private class OperationThread extends Thread {
+        private Runnable firstTask;
+
+        private OperationThread(Runnable firstTask) {
+            super(THREAD_NAME + "-" + threadIndex.getAndIncrement());
+            this.firstTask = firstTask;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task = firstTask;
+                firstTask = null;
+                for (int operations = 1; task != null; operations++) {
+                    task.run();
+                    // the interrupt of a cancelled operation is not meant for the next one
+                    Thread.interrupted();
+                    if (operations >= maxOperationsPerThread || hasThreadLocals(this)) {
+                        return;
+                    }
+                    task = handOff.poll(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException ignore) {
+            } finally {
+                poolSize.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Names the thread after the step and leaves it as it was for the next operation,
+     * the operation sets the context class loader of the thread.
+     */
+    private static class NamedOperation implements Runnable {
+        private final String name;
+        private final Runnable operation;
+
+        private NamedOperation(String name, Runnable operation) {
+            this.name = name;
+            this.operation = operation;
+        }
+
+        @Override
+        public void run() {
+            Thread thread = Thread.currentThread();
+            String threadName = thread.getName();
+            ClassLoader contextClassLoader = thread.getContextClassLoader();
+            thread.setName(name);
+            try {
+                operation.run();
+            } finally {
+                thread.setName(threadName);
+                thread.setContextClassLoader(contextClassLoader);
+            }
+        }
+    }
+}
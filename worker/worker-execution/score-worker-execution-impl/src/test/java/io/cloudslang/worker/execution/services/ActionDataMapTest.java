@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.worker.execution.services;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class ActionDataMapTest {
+
+    @Test
+    public void testLookupOrder() {
+        Map<String, Object> data = createData();
+
+        Assert.assertEquals("context", data.get("shared"));
+        Assert.assertEquals("step", data.get("stepOnly"));
+        data.put("shared", "execution");
+        Assert.assertEquals("execution", data.get("shared"));
+        Assert.assertEquals(3, data.size());
+    }
+
+    @Test
+    public void testRemoveHidesKeyWithoutChangingContexts() {
+        Map<String, Serializable> contexts = new HashMap<>();
+        contexts.put("shared", "context");
+        Map<String, Object> data = new ActionDataMap(new HashMap<String, Object>(), contexts);
+
+        data.put("added", 1);
+        Assert.assertEquals("context", data.remove("shared"));
+        Assert.assertEquals(1, data.remove("added"));
+        Assert.assertNull(data.remove("missing"));
+
+        Assert.assertFalse(data.containsKey("shared"));
+        Assert.assertNull(data.get("shared"));
+        Assert.assertTrue(data.isEmpty());
+        Assert.assertEquals("context", contexts.get("shared"));
+
+        data.put("shared", "again");
+        Assert.assertEquals("again", data.get("shared"));
+    }
+
+    @Test
+    public void testEntrySetChangesTheMap() {
+        Map<String, Object> data = createData();
+
+        Iterator<Map.Entry<String, Object>> iterator = data.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Object> entry = iterator.next();
+            if (entry.getKey().equals("stepOnly")) {
+                iterator.remove();
+            } else if (entry.getKey().equals("shared")) {
+                entry.setValue("changed");
+            }
+        }
+
+        Assert.assertFalse(data.containsKey("stepOnly"));
+        Assert.assertEquals("changed", data.get("shared"));
+        Assert.assertEquals(2, data.size());
+
+        data.clear();
+        Assert.assertTrue(data.isEmpty());
+    }
+
+    private static Map<String, Object> createData() {
+        Map<String, Object> stepData = new HashMap<>();
+        stepData.put("shared", "step");
+        stepData.put("stepOnly", "step");
+        Map<String, Serializable> contexts = new HashMap<>();
+        contexts.put("shared", "context");
+        contexts.put("contextOnly", "context");
+        return new ActionDataMap(stepData, contexts);
+    }
+}
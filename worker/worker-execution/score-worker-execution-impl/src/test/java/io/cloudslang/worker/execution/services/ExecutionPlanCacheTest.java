@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.worker.execution.services;
+
+import io.cloudslang.score.api.ExecutionPlan;
+import io.cloudslang.score.facade.entities.RunningExecutionPlan;
+import io.cloudslang.worker.management.services.WorkerMonitorInfoEnum;
+import io.cloudslang.worker.management.services.dbsupport.WorkerDbSupportService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ExecutionPlanCacheTest {
+
+    private static final Long RUNNING_EXE_PLAN_ID = 333L;
+
+    @Autowired
+    private ExecutionPlanCacheImpl executionPlanCache;
+
+    @Autowired
+    private WorkerDbSupportService workerDbSupportService;
+
+    @Before
+    public void init() {
+        Mockito.reset(workerDbSupportService);
+    }
+
+    @Test
+    public void testPlanIsLoadedOnce() {
+        when(workerDbSupportService.readExecutionPlanById(RUNNING_EXE_PLAN_ID)).thenReturn(createRunningExecutionPlan("flow"));
+
+        ExecutionPlan first = executionPlanCache.getExecutionPlan(RUNNING_EXE_PLAN_ID);
+        ExecutionPlan second = executionPlanCache.getExecutionPlan(RUNNING_EXE_PLAN_ID);
+
+        Assert.assertEquals("flow", first.getFlowUuid());
+        Assert.assertSame(first, second);
+        verify(workerDbSupportService, times(1)).readExecutionPlanById(RUNNING_EXE_PLAN_ID);
+
+        Map<WorkerMonitorInfoEnum, Serializable> monitorInfo = new HashMap<>();
+        executionPlanCache.captureMonitorInfo(monitorInfo);
+        Assert.assertEquals(1L, monitorInfo.get(WorkerMonitorInfoEnum.EXECUTION_PLAN_CACHE_HITS));
+        Assert.assertEquals(1L, monitorInfo.get(WorkerMonitorInfoEnum.EXECUTION_PLAN_CACHE_MISSES));
+        Assert.assertEquals(1L, monitorInfo.get(WorkerMonitorInfoEnum.EXECUTION_PLAN_CACHE_SIZE));
+    }
+
+    @Test
+    public void testMissingPlanIsNotCached() {
+        Assert.assertNull(executionPlanCache.getExecutionPlan(RUNNING_EXE_PLAN_ID));
+
+        when(workerDbSupportService.readExecutionPlanById(RUNNING_EXE_PLAN_ID)).thenReturn(createRunningExecutionPlan("flow"));
+        Assert.assertNotNull(executionPlanCache.getExecutionPlan(RUNNING_EXE_PLAN_ID));
+    }
+
+    @Test
+    public void testConcurrentMissesLoadOnce() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(workerDbSupportService.readExecutionPlanById(RUNNING_EXE_PLAN_ID)).thenAnswer(new Answer<RunningExecutionPlan>() {
+            @Override
+            public RunningExecutionPlan answer(InvocationOnMock invocation) throws Throwable {
+                loading.countDown();
+                release.await();
+                return createRunningExecutionPlan("flow");
+            }
+        });
+
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ExecutionPlan>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<ExecutionPlan>() {
+                    @Override
+                    public ExecutionPlan call() {
+                        return executionPlanCache.getExecutionPlan(RUNNING_EXE_PLAN_ID);
+                    }
+                }));
+            }
+            loading.await();
+            Thread.sleep(100);
+            release.countDown();
+
+            ExecutionPlan plan = futures.get(0).get();
+            for (Future<ExecutionPlan> future : futures) {
+                Assert.assertSame(plan, future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(workerDbSupportService, times(1)).readExecutionPlanById(RUNNING_EXE_PLAN_ID);
+    }
+
+    private static RunningExecutionPlan createRunningExecutionPlan(String flowUuid) {
+        ExecutionPlan executionPlan = new ExecutionPlan();
+        executionPlan.setFlowUuid(flowUuid);
+        RunningExecutionPlan runningExecutionPlan = new RunningExecutionPlan();
+        runningExecutionPlan.setExecutionPlan(executionPlan);
+        return runningExecutionPlan;
+    }
+
+    @Configuration
+    static class ConfigurationForTest {
+
+        @Bean
+        public ExecutionPlanCacheImpl executionPlanCache() {
+            return new ExecutionPlanCacheImpl();
+        }
+
+        @Bean
+        public WorkerDbSupportService workerDbSupportService() {
+            return mock(WorkerDbSupportService.class);
+        }
+    }
+}
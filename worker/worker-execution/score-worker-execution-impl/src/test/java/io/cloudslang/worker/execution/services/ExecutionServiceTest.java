@@ -31,6 +31,7 @@ import io.cloudslang.score.facade.execution.ExecutionSummary;
 import io.cloudslang.score.facade.execution.PauseReason;
 import io.cloudslang.worker.execution.reflection.ReflectionAdapter;
 import io.cloudslang.worker.management.WorkerConfigurationService;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitor;
 import io.cloudslang.worker.management.services.WorkerRecoveryManager;
 import io.cloudslang.worker.management.services.dbsupport.WorkerDbSupportService;
 import org.junit.Assert;
@@ -42,6 +43,7 @@ import org.mockito.internal.verification.VerificationModeFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
@@ -67,6 +69,7 @@ import static org.mockito.Mockito.when;
  */
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 public class ExecutionServiceTest {
 
 	private static final Long RUNNING_EXE_PLAN_ID = 333L;
@@ -333,6 +336,11 @@ public class ExecutionServiceTest {
 			return adapter;
 		}
 
+		@Bean
+		public ExecutionPlanCache getExecutionPlanCache() {
+			return new ExecutionPlanCacheImpl();
+		}
+
 		@Bean
 		public WorkerDbSupportService getWorkerDbSupportService() {
 			return mock(WorkerDbSupportService.class);
@@ -353,6 +361,11 @@ public class ExecutionServiceTest {
 			return mock(WorkerRecoveryManager.class);
 		}
 
+		@Bean
+		public WorkerLatencyMonitor workerLatencyMonitor() {
+			return mock(WorkerLatencyMonitor.class);
+		}
+
 	}
 }
 
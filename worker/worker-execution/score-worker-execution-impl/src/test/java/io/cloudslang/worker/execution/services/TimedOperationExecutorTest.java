@@ -0,0 +1,195 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.execution.services;
+
+import io.cloudslang.worker.execution.model.SandboxExecutionRunnable;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TimedOperationExecutorTest {
+
+    @Test
+    public void testSecondOperationReusesThread() throws InterruptedException {
+        TimedOperationExecutor executor = new TimedOperationExecutor(10, 100, false);
+        Thread first = runOperation(executor, "first");
+        awaitIdle(first);
+        Thread second = runOperation(executor, "second");
+
+        assertSame(first, second);
+        assertEquals(1, executor.getPoolSize());
+    }
+
+    @Test
+    public void testThreadIsRetiredAfterMaxOperations() throws InterruptedException {
+        TimedOperationExecutor executor = new TimedOperationExecutor(10, 2, false);
+        Thread first = runOperation(executor, "first");
+        awaitIdle(first);
+        assertSame(first, runOperation(executor, "second"));
+        first.join(1000);
+
+        assertNotSame(first, runOperation(executor, "third"));
+    }
+
+    @Test
+    public void testThreadLocalsAreNotLeftForTheNextOperation() throws InterruptedException {
+        // without access to the thread locals of a thread, only a thread that runs a single operation is clean
+        TimedOperationExecutor executor = new TimedOperationExecutor(10, TimedOperationExecutor.inspectsThreadLocals() ? 100 : 1, false);
+        final ThreadLocal<Object> threadLocal = new ThreadLocal<>();
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        final AtomicReference<Object> value = new AtomicReference<>();
+        final AtomicReference<String> name = new AtomicReference<>();
+        for (int i = 0; i < 3; i++) {
+            final Thread previous = thread.get();
+            assertTrue(executor.run("operation-" + i, new Runnable() {
+                @Override
+                public void run() {
+                    value.set(threadLocal.get());
+                    threadLocal.set(new Object());
+                    thread.set(Thread.currentThread());
+                    name.set(Thread.currentThread().getName());
+                }
+            }, 1000, false));
+            assertNull(value.get());
+            assertEquals("operation-" + i, name.get());
+            assertNotSame(previous, thread.get());
+        }
+    }
+
+    @Test
+    public void testVirtualThreadsFallBackToPlatformThreads() throws InterruptedException {
+        TimedOperationExecutor executor = new TimedOperationExecutor(10, 100, true);
+        boolean hasVirtualThreads = true;
+        try {
+            Thread.class.getMethod("ofVirtual");
+        } catch (NoSuchMethodException ex) {
+            hasVirtualThreads = false;
+        }
+        assertEquals(hasVirtualThreads, executor.isVirtual());
+
+        final AtomicReference<String> name = new AtomicReference<>();
+        assertTrue(executor.run("virtual", new Runnable() {
+            @Override
+            public void run() {
+                name.set(Thread.currentThread().getName());
+            }
+        }, 1000, false));
+        assertEquals("virtual", name.get());
+    }
+
+    @Test
+    public void testSandboxClassLoaderIsNotLeftOnTheThread() throws InterruptedException {
+        TimedOperationExecutor executor = new TimedOperationExecutor(10, 100, false);
+        final ClassLoader sandbox = new URLClassLoader(new URL[0]);
+        final AtomicReference<ClassLoader> classLoader = new AtomicReference<>();
+        executor.run("sandbox", new SandboxExecutionRunnable<>(sandbox, new Callable<Object>() {
+            @Override
+            public Object call() {
+                classLoader.set(Thread.currentThread().getContextClassLoader());
+                return null;
+            }
+        }), 1000, false);
+        assertSame(sandbox, classLoader.get());
+
+        executor.run("next", new Runnable() {
+            @Override
+            public void run() {
+                classLoader.set(Thread.currentThread().getContextClassLoader());
+            }
+        }, 1000, false);
+        assertNotSame(sandbox, classLoader.get());
+    }
+
+    @Test
+    public void testTimeoutInterruptsOperation() throws InterruptedException {
+        TimedOperationExecutor executor = new TimedOperationExecutor(10, 100, false);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        assertFalse(executor.run("sleeping", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException ex) {
+                    interrupted.countDown();
+                }
+            }
+        }, 50, true));
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTimeoutWithoutInterruptLeavesOperationRunning() throws InterruptedException {
+        TimedOperationExecutor executor = new TimedOperationExecutor(1, 100, false);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch ended = new CountDownLatch(1);
+        final AtomicReference<String> name = new AtomicReference<>();
+        assertFalse(executor.run("blocked", new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                    ended.countDown();
+                } catch (InterruptedException ignore) {
+                }
+            }
+        }, 50, false));
+
+        // the next operation does not wait for the one that timed out, it runs on a thread of its own
+        assertTrue(executor.run("other", new Runnable() {
+            @Override
+            public void run() {
+                name.set(Thread.currentThread().getName());
+            }
+        }, 1000, false));
+        assertEquals("other", name.get());
+        assertEquals(1, executor.getPoolSize());
+
+        release.countDown();
+        assertTrue(ended.await(1, TimeUnit.SECONDS));
+    }
+
+    private static Thread runOperation(TimedOperationExecutor executor, String name) throws InterruptedException {
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        assertTrue(executor.run(name, new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+            }
+        }, 1000, false));
+        return thread.get();
+    }
+
+    // the thread is handed the next operation only once it waits for one
+    private static void awaitIdle(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.TIMED_WAITING, thread.getState());
+    }
+}
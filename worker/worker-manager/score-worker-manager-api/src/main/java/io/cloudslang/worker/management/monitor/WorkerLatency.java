@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.worker.management.monitor;
+
+import io.cloudslang.worker.management.services.WorkerMonitorInfoEnum;
+
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.INBUFFER_WAIT_P50_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.INBUFFER_WAIT_P90_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.INBUFFER_WAIT_P99_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.NAVIGATION_P50_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.NAVIGATION_P90_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.NAVIGATION_P99_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.OUTBUFFER_DRAIN_LATENCY_P50_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.OUTBUFFER_DRAIN_LATENCY_P90_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.OUTBUFFER_DRAIN_LATENCY_P99_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.OUTBUFFER_WAIT_P50_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.OUTBUFFER_WAIT_P90_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.OUTBUFFER_WAIT_P99_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.POLL_TO_START_P50_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.POLL_TO_START_P90_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.POLL_TO_START_P99_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.STEP_EXECUTION_P50_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.STEP_EXECUTION_P90_MICROS;
+import static io.cloudslang.worker.management.services.WorkerMonitorInfoEnum.STEP_EXECUTION_P99_MICROS;
+
+/**
+ * The latencies measured by the {@link WorkerLatencyMonitor}, with the monitor info of their percentiles
+ */
+public enum WorkerLatency {
+    /** From the put of a message to the InBuffer until an execution thread starts to run it */
+    IN_BUFFER_WAIT(INBUFFER_WAIT_P50_MICROS, INBUFFER_WAIT_P90_MICROS, INBUFFER_WAIT_P99_MICROS),
+    /** From the poll of a message from the queue until an execution thread starts to run it */
+    POLL_TO_START(POLL_TO_START_P50_MICROS, POLL_TO_START_P90_MICROS, POLL_TO_START_P99_MICROS),
+    /** The control action of a step, of all the actions */
+    STEP_EXECUTION(STEP_EXECUTION_P50_MICROS, STEP_EXECUTION_P90_MICROS, STEP_EXECUTION_P99_MICROS),
+    /** The navigation of a step */
+    NAVIGATION(NAVIGATION_P50_MICROS, NAVIGATION_P90_MICROS, NAVIGATION_P99_MICROS),
+    /** The wait of a put to the OutboundBuffer when it is full */
+    OUTBUFFER_WAIT(OUTBUFFER_WAIT_P50_MICROS, OUTBUFFER_WAIT_P90_MICROS, OUTBUFFER_WAIT_P99_MICROS),
+    /** From the put of the oldest message of a bulk to the OutboundBuffer until the bulk was dispatched */
+    OUTBUFFER_DRAIN(OUTBUFFER_DRAIN_LATENCY_P50_MICROS, OUTBUFFER_DRAIN_LATENCY_P90_MICROS, OUTBUFFER_DRAIN_LATENCY_P99_MICROS);
+
+    private final WorkerMonitorInfoEnum p50;
+    private final WorkerMonitorInfoEnum p90;
+    private final WorkerMonitorInfoEnum p99;
+
+    WorkerLatency(WorkerMonitorInfoEnum p50, WorkerMonitorInfoEnum p90, WorkerMonitorInfoEnum p99) {
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+    }
+
+    public WorkerMonitorInfoEnum getP50() {
+        return p50;
+    }
+
+    public WorkerMonitorInfoEnum getP90() {
+        return p90;
+    }
+
+    public WorkerMonitorInfoEnum getP99() {
+        return p99;
+    }
+}
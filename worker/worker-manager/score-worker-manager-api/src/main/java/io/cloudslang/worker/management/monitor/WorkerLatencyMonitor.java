@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.cloudslang.worker.management.monitor;
+
+import io.cloudslang.score.api.ControlActionMetadata;
+
+import java.util.Map;
+
+/**
+ * Histograms of the latencies of the worker, recorded by the execution threads without allocating.
+ * The monitor info has their percentiles in microseconds since the previous monitor info.
+ */
+public interface WorkerLatencyMonitor extends WorkerMonitor {
+
+    /**
+     * @param latency the latency to record
+     * @param nanos the time it took, in nanoseconds
+     */
+    void record(WorkerLatency latency, long nanos);
+
+    /**
+     * Records the time of the control action of a step, for the action and for {@link WorkerLatency#STEP_EXECUTION}
+     *
+     * @param action the control action of the step
+     * @param nanos the time it took, in nanoseconds
+     */
+    void recordStep(ControlActionMetadata action, long nanos);
+
+    /**
+     * @return a summary of every latency and control action since the previous monitor info, without resetting them
+     */
+    Map<String, String> getLatencies();
+}
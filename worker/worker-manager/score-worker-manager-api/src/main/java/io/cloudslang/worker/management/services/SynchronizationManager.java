@@ -22,22 +22,14 @@ package io.cloudslang.worker.management.services;
  * Date: 8/7/14
  * Time: 2:26 PM
  *
- * This manager is responsible to synchronize all workers activities: drain/poll/recovery
+ * This manager is responsible to synchronize all workers activities: poll/recovery
+ * The OutboundBuffer does not take any lock, it drops the messages put before a recovery by itself.
  */
 public interface SynchronizationManager {
 
     void startRecovery();
     void finishRecovery();
 
-    void startPutMessages();
-    void finishPutMessages();
-
     void startGetMessages();
     void finishGetMessages();
-
-    void waitForMessages() throws InterruptedException;
-    void waitForDrain() throws InterruptedException;
-
-    void startDrain();
-    void finishDrain();
 }
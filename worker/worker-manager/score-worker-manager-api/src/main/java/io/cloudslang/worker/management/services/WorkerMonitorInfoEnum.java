@@ -23,13 +23,40 @@ public enum WorkerMonitorInfoEnum {
 
     INBUFFER_CAPACITY,
     INBUFFER_SIZE_AVERAGE,
+    INBUFFER_WAIT_P50_MICROS,
+    INBUFFER_WAIT_P90_MICROS,
+    INBUFFER_WAIT_P99_MICROS,
+    POLL_TO_START_P50_MICROS,
+    POLL_TO_START_P90_MICROS,
+    POLL_TO_START_P99_MICROS,
 
     OUTBUFFER_CAPACITY,
     OUTBUFFER_SIZE_AVERAGE,
+    OUTBUFFER_DRAIN_LATENCY_P50_MICROS,
+    OUTBUFFER_DRAIN_LATENCY_P90_MICROS,
+    OUTBUFFER_DRAIN_LATENCY_P99_MICROS,
+    OUTBUFFER_WAIT_P50_MICROS,
+    OUTBUFFER_WAIT_P90_MICROS,
+    OUTBUFFER_WAIT_P99_MICROS,
+    OUTBUFFER_BULK_WEIGHT,
 
     RUNNING_TASKS_AVERAGE,
     EXECUTION_THREADS_AMOUNT,
 
+    STEP_EXECUTION_P50_MICROS,
+    STEP_EXECUTION_P90_MICROS,
+    STEP_EXECUTION_P99_MICROS,
+    STEP_EXECUTION_PER_ACTION,
+    NAVIGATION_P50_MICROS,
+    NAVIGATION_P90_MICROS,
+    NAVIGATION_P99_MICROS,
+
+    EXECUTION_PLAN_CACHE_HITS,
+    EXECUTION_PLAN_CACHE_MISSES,
+    EXECUTION_PLAN_CACHE_EVICTIONS,
+    EXECUTION_PLAN_CACHE_LOAD_TIME_AVERAGE,
+    EXECUTION_PLAN_CACHE_SIZE,
+
     FREE_MEMORY,
     MAX_MEMORY,
     TOTAL_MEMORY
@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management;
+
+import java.util.Collection;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of longs in an open addressing table, looked up without boxing the long.
+ * It is not changed once published: adding returns a new set, so it is read by any thread without locking.
+ */
+final class LongHashSet {
+
+    static final LongHashSet EMPTY = new LongHashSet(0);
+
+    private static final long FREE = 0;
+
+    private final long[] table;
+    private final int mask;
+    // 0 marks a free slot, so it is kept aside
+    private boolean containsFree;
+    private int size;
+
+    private LongHashSet(int expectedSize) {
+        // at most half full, so a lookup of a missing value ends after a slot or two
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1) << 1;
+        table = new long[Math.max(capacity, 2)];
+        mask = table.length - 1;
+    }
+
+    static LongHashSet of(Collection<Long> values) {
+        return values == null || values.isEmpty() ? EMPTY : EMPTY.withAll(values);
+    }
+
+    /**
+     * @return a set of the values of this set and the given values, this set when it already has them all
+     */
+    LongHashSet withAll(Collection<Long> values) {
+        if (values == null || containsAll(values)) {
+            return this;
+        }
+        LongHashSet set = new LongHashSet(size + values.size());
+        if (containsFree) {
+            set.add(FREE);
+        }
+        for (long value : table) {
+            if (value != FREE) {
+                set.add(value);
+            }
+        }
+        for (Long value : values) {
+            if (value != null) {
+                set.add(value);
+            }
+        }
+        return set;
+    }
+
+    boolean contains(long value) {
+        if (value == FREE) {
+            return containsFree;
+        }
+        for (int slot = slotOf(value); ; slot = (slot + 1) & mask) {
+            long current = table[slot];
+            if (current == value) {
+                return true;
+            }
+            if (current == FREE) {
+                return false;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(LongConsumer consumer) {
+        if (containsFree) {
+            consumer.accept(FREE);
+        }
+        for (long value : table) {
+            if (value != FREE) {
+                consumer.accept(value);
+            }
+        }
+    }
+
+    private boolean containsAll(Collection<Long> values) {
+        for (Long value : values) {
+            if (value != null && !contains(value)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(long value) {
+        if (value == FREE) {
+            if (!containsFree) {
+                containsFree = true;
+                size++;
+            }
+            return;
+        }
+        for (int slot = slotOf(value); ; slot = (slot + 1) & mask) {
+            long current = table[slot];
+            if (current == value) {
+                return;
+            }
+            if (current == FREE) {
+                table[slot] = value;
+                size++;
+                return;
+            }
+        }
+    }
+
+    // execution ids are close to each other, so their bits are spread before they are masked
+    private int slotOf(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * The paused executions, as the "executionId:branchId" keys sent by the engine ("executionId:null" for no branch),
+ * indexed by the execution id and the hash code of the branch id, so a lookup does not build the key.
+ * It is not changed once published: changing it returns a new index.
+ */
+final class PausedExecutionIndex {
+
+    static final PausedExecutionIndex EMPTY = new PausedExecutionIndex(Collections.<String>emptySet());
+
+    // the branch id of the key of an execution that is not in a branch, String.valueOf(null)
+    private static final String NO_BRANCH = "null";
+
+    private final Set<String> keys;
+    private final long[] executionIds;
+    // null marks a free slot
+    private final String[] branchIds;
+    private final int mask;
+
+    private PausedExecutionIndex(Set<String> keys) {
+        this.keys = keys;
+        int capacity = Integer.highestOneBit(Math.max(keys.size(), 1) * 2 - 1) << 1;
+        executionIds = new long[Math.max(capacity, 2)];
+        branchIds = new String[executionIds.length];
+        mask = executionIds.length - 1;
+        for (String key : keys) {
+            add(key);
+        }
+    }
+
+    static PausedExecutionIndex of(Set<String> keys) {
+        return keys == null || keys.isEmpty() ? EMPTY : new PausedExecutionIndex(new HashSet<>(keys));
+    }
+
+    /**
+     * @return an index without the resumed keys and with the paused ones, this index when neither changes it
+     */
+    PausedExecutionIndex with(Set<String> paused, Set<String> resumed) {
+        boolean changed = false;
+        if (resumed != null) {
+            for (String key : resumed) {
+                changed |= keys.contains(key);
+            }
+        }
+        if (paused != null) {
+            changed |= !keys.containsAll(paused);
+        }
+        if (!changed) {
+            return this;
+        }
+        Set<String> changedKeys = new HashSet<>(keys);
+        if (resumed != null) {
+            changedKeys.removeAll(resumed);
+        }
+        if (paused != null) {
+            changedKeys.addAll(paused);
+        }
+        return changedKeys.isEmpty() ? EMPTY : new PausedExecutionIndex(changedKeys);
+    }
+
+    /**
+     * @return an index of the keys, this index when it has the same keys
+     */
+    PausedExecutionIndex withKeys(Set<String> keys) {
+        if (keys == null || this.keys.equals(keys)) {
+            return this;
+        }
+        return of(keys);
+    }
+
+    boolean contains(long executionId, String branchId) {
+        String branch = branchId != null ? branchId : NO_BRANCH;
+        for (int slot = slotOf(executionId, branch); ; slot = (slot + 1) & mask) {
+            String current = branchIds[slot];
+            if (current == null) {
+                return false;
+            }
+            if (executionIds[slot] == executionId && current.equals(branch)) {
+                return true;
+            }
+        }
+    }
+
+    void forEachExecutionId(LongConsumer consumer) {
+        for (int slot = 0; slot < branchIds.length; slot++) {
+            if (branchIds[slot] != null) {
+                consumer.accept(executionIds[slot]);
+            }
+        }
+    }
+
+    int size() {
+        return keys.size();
+    }
+
+    // a key without a numeric execution id can not be looked up, so it is only kept in the keys
+    private void add(String key) {
+        int separator = key != null ? key.indexOf(':') : -1;
+        if (separator < 0) {
+            return;
+        }
+        long executionId;
+        try {
+            executionId = Long.parseLong(key.substring(0, separator));
+        } catch (NumberFormatException ex) {
+            return;
+        }
+        String branch = key.substring(separator + 1);
+        int slot = slotOf(executionId, branch);
+        while (branchIds[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        executionIds[slot] = executionId;
+        branchIds[slot] = branch;
+    }
+
+    private int slotOf(long executionId, String branch) {
+        long hash = (executionId ^ branch.hashCode()) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
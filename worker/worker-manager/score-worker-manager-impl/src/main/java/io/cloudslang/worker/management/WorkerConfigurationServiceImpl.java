@@ -24,11 +24,12 @@ import io.cloudslang.orchestrator.services.MergedConfigurationService;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import io.cloudslang.engine.node.services.WorkerNodeService;
-import io.cloudslang.orchestrator.services.CancelExecutionService;
-import io.cloudslang.orchestrator.services.PauseResumeService;
-
 /**
+ * Refreshes the configuration of the worker from the changes made since the previous refresh,
+ * and from the whole configuration every worker.configuration.fullRefreshMillis (a minute by default),
+ * since the executions that end are only dropped from the cancelled executions by a full refresh.
+ * Every refresh publishes a new {@link WorkerConfigurationSnapshot}, so the checks made on every step do not lock.
+ *
  * @author kravtsov
  * @author Avi Moradi
  * @since 07/06/2012
@@ -38,27 +39,31 @@ public class WorkerConfigurationServiceImpl implements WorkerConfigurationServic
 
 	private static final Logger log = Logger.getLogger(WorkerConfigurationServiceImpl.class);
 
-	private volatile List<Long> cancelledExecutions;
-	private volatile Set<String> pausedExecutions;
-	private volatile List<String> workerGroups;
+	private final long fullRefreshMillis = Long.getLong("worker.configuration.fullRefreshMillis", 60 * 1000L);
+
+	// replaced as a whole by a refresh, the execution threads read it on every step
+	private volatile WorkerConfigurationSnapshot configuration = WorkerConfigurationSnapshot.EMPTY;
 	private volatile boolean enabled;
+	// the version of the configuration changes refreshed so far, -1 when the next refresh is a full one
+	private long version = -1;
+	private long lastFullRefreshTime;
 
 	@Autowired
 	private MergedConfigurationService 	mergedConfigurationService;
 
 	@Override
 	public boolean isExecutionCancelled(Long executionId) {
-		return cancelledExecutions != null && cancelledExecutions.contains(executionId);
+		return executionId != null && configuration.isExecutionCancelled(executionId);
 	}
 
 	@Override
 	public boolean isExecutionPaused(Long executionId, String branchId) {
-		return pausedExecutions != null && pausedExecutions.contains(executionId + ":" + String.valueOf(branchId)); // handle "null"
+		return executionId != null && configuration.isExecutionPaused(executionId, branchId);
 	}
 
 	@Override
 	public boolean isMemberOf(String group) {
-		return workerGroups != null && workerGroups.contains(group);
+		return configuration.isMemberOf(group);
 	}
 
 	@Override
@@ -68,34 +73,92 @@ public class WorkerConfigurationServiceImpl implements WorkerConfigurationServic
 
 	public void refresh() {
 		if(!enabled) return;
-		MergedConfigurationDataContainer mergedConfigurationDataContainer = mergedConfigurationService.fetchMergedConfiguration(getWorkerUuid());
-		setCanceledExecutions(mergedConfigurationDataContainer);
-		setPausedExecutions(mergedConfigurationDataContainer);
-		setWorkerGroups(mergedConfigurationDataContainer);
+		long now = System.currentTimeMillis();
+		boolean fullRefresh = version < 0 || now - lastFullRefreshTime >= fullRefreshMillis;
+		MergedConfigurationDataContainer mergedConfigurationDataContainer =
+				mergedConfigurationService.fetchMergedConfiguration(getWorkerUuid(), fullRefresh ? -1 : version);
+		if (mergedConfigurationDataContainer == null) {
+			return;
+		}
+		if (!mergedConfigurationDataContainer.isChangesOnly()) {
+			lastFullRefreshTime = now;
+		}
+		WorkerConfigurationSnapshot current = configuration;
+		configuration = current.with(
+				readCancelledExecutions(mergedConfigurationDataContainer, current.getCancelledExecutions()),
+				readPausedExecutions(mergedConfigurationDataContainer, current.getPausedExecutions()),
+				readWorkerGroups(mergedConfigurationDataContainer, current.getWorkerGroups()));
+		version = mergedConfigurationDataContainer.getVersion();
 	}
 
-	protected void setCanceledExecutions(MergedConfigurationDataContainer mergedConfigurationDataContainer) {
+	private LongHashSet readCancelledExecutions(MergedConfigurationDataContainer mergedConfigurationDataContainer, LongHashSet current) {
 		try {
-			cancelledExecutions = mergedConfigurationDataContainer.getCancelledExecutions();
+			List<Long> cancelled = mergedConfigurationDataContainer.getCancelledExecutions();
+			if (mergedConfigurationDataContainer.isChangesOnly()) {
+				return current.withAll(cancelled);
+			} else if (cancelled != null) {
+				return LongHashSet.of(cancelled);
+			}
 		} catch(Exception ex) {
 			log.error("Failed to fetch cancelled information: ", ex);
 		}
+		return current;
 	}
 
-	protected void setPausedExecutions(MergedConfigurationDataContainer mergedConfigurationDataContainer) {
+	private PausedExecutionIndex readPausedExecutions(MergedConfigurationDataContainer mergedConfigurationDataContainer, PausedExecutionIndex current) {
 		try {
-			pausedExecutions = mergedConfigurationDataContainer.getPausedExecutions();
+			Set<String> paused = mergedConfigurationDataContainer.getPausedExecutions();
+			if (mergedConfigurationDataContainer.isChangesOnly() && !mergedConfigurationDataContainer.isPausedExecutionsComplete()) {
+				return current.with(paused, mergedConfigurationDataContainer.getResumedExecutions());
+			}
+			return current.withKeys(paused);
 		} catch(Exception ex) {
 			log.error("Failed to fetch paused information: ", ex);
 		}
+		return current;
 	}
 
-	protected void setWorkerGroups(MergedConfigurationDataContainer mergedConfigurationDataContainer) {
+	private List<String> readWorkerGroups(MergedConfigurationDataContainer mergedConfigurationDataContainer, List<String> current) {
 		try {
-			workerGroups = mergedConfigurationDataContainer.getWorkerGroups();
+			// null when they did not change, or could not be read
+			List<String> groups = mergedConfigurationDataContainer.getWorkerGroups();
+			if (groups != null) {
+				return groups;
+			}
 		} catch(Exception ex) {
 			log.error("Failed to fetch worker group information: ", ex);
 		}
+		return current;
+	}
+
+	/**
+	 * @deprecated the configuration is published as a whole by {@link #refresh()}, kept for the subclasses
+	 */
+	@Deprecated
+	protected void setCanceledExecutions(MergedConfigurationDataContainer mergedConfigurationDataContainer) {
+		WorkerConfigurationSnapshot current = configuration;
+		configuration = current.with(readCancelledExecutions(mergedConfigurationDataContainer, current.getCancelledExecutions()),
+				current.getPausedExecutions(), current.getWorkerGroups());
+	}
+
+	/**
+	 * @deprecated the configuration is published as a whole by {@link #refresh()}, kept for the subclasses
+	 */
+	@Deprecated
+	protected void setPausedExecutions(MergedConfigurationDataContainer mergedConfigurationDataContainer) {
+		WorkerConfigurationSnapshot current = configuration;
+		configuration = current.with(current.getCancelledExecutions(),
+				readPausedExecutions(mergedConfigurationDataContainer, current.getPausedExecutions()), current.getWorkerGroups());
+	}
+
+	/**
+	 * @deprecated the configuration is published as a whole by {@link #refresh()}, kept for the subclasses
+	 */
+	@Deprecated
+	protected void setWorkerGroups(MergedConfigurationDataContainer mergedConfigurationDataContainer) {
+		WorkerConfigurationSnapshot current = configuration;
+		configuration = current.with(current.getCancelledExecutions(), current.getPausedExecutions(),
+				readWorkerGroups(mergedConfigurationDataContainer, current.getWorkerGroups()));
 	}
 
 	protected static String getWorkerUuid() {
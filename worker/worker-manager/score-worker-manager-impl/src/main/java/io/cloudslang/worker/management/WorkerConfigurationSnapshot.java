@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management;
+
+import java.util.List;
+
+/**
+ * The configuration of the worker as of a refresh, published as a whole so the execution threads
+ * never see the cancelled executions of one refresh with the paused executions of another.
+ * <p>
+ * The execution ids that are cancelled or paused are also set in a bloom filter of two bits per id,
+ * so asking about an execution that is neither, which is asked on every step, reads a word or two of the filter.
+ */
+final class WorkerConfigurationSnapshot {
+
+    static final WorkerConfigurationSnapshot EMPTY =
+            new WorkerConfigurationSnapshot(LongHashSet.EMPTY, PausedExecutionIndex.EMPTY, null);
+
+    // at least 16 bits per id, about 1.5% false positives
+    private static final int BITS_PER_ID = 16;
+
+    private final LongHashSet cancelledExecutions;
+    private final PausedExecutionIndex pausedExecutions;
+    private final List<String> workerGroups;
+    private final long[] filter;
+    private final int filterMask;
+
+    private WorkerConfigurationSnapshot(LongHashSet cancelledExecutions, PausedExecutionIndex pausedExecutions,
+                                        List<String> workerGroups) {
+        this.cancelledExecutions = cancelledExecutions;
+        this.pausedExecutions = pausedExecutions;
+        this.workerGroups = workerGroups;
+        int ids = cancelledExecutions.size() + pausedExecutions.size();
+        int bits = Integer.highestOneBit(Math.max(ids * BITS_PER_ID, Long.SIZE) - 1) << 1;
+        filter = new long[bits / Long.SIZE];
+        filterMask = bits - 1;
+        cancelledExecutions.forEach(this::addToFilter);
+        pausedExecutions.forEachExecutionId(this::addToFilter);
+    }
+
+    // the ids did not change, so neither does the filter
+    private WorkerConfigurationSnapshot(WorkerConfigurationSnapshot snapshot, List<String> workerGroups) {
+        this.cancelledExecutions = snapshot.cancelledExecutions;
+        this.pausedExecutions = snapshot.pausedExecutions;
+        this.workerGroups = workerGroups;
+        this.filter = snapshot.filter;
+        this.filterMask = snapshot.filterMask;
+    }
+
+    /**
+     * @return a snapshot of the given parts, this snapshot when they are all the parts of this one
+     */
+    WorkerConfigurationSnapshot with(LongHashSet cancelledExecutions, PausedExecutionIndex pausedExecutions,
+                                     List<String> workerGroups) {
+        if (cancelledExecutions == this.cancelledExecutions && pausedExecutions == this.pausedExecutions) {
+            return workerGroups == this.workerGroups ? this : new WorkerConfigurationSnapshot(this, workerGroups);
+        }
+        return new WorkerConfigurationSnapshot(cancelledExecutions, pausedExecutions, workerGroups);
+    }
+
+    boolean isExecutionCancelled(long executionId) {
+        return mightBeStopped(executionId) && cancelledExecutions.contains(executionId);
+    }
+
+    boolean isExecutionPaused(long executionId, String branchId) {
+        return mightBeStopped(executionId) && pausedExecutions.contains(executionId, branchId);
+    }
+
+    boolean isMemberOf(String group) {
+        return workerGroups != null && workerGroups.contains(group);
+    }
+
+    LongHashSet getCancelledExecutions() {
+        return cancelledExecutions;
+    }
+
+    PausedExecutionIndex getPausedExecutions() {
+        return pausedExecutions;
+    }
+
+    List<String> getWorkerGroups() {
+        return workerGroups;
+    }
+
+    private boolean mightBeStopped(long executionId) {
+        long hash = hash(executionId);
+        return isSet((int) hash) && isSet((int) (hash >>> 32));
+    }
+
+    private void addToFilter(long executionId) {
+        long hash = hash(executionId);
+        set((int) hash);
+        set((int) (hash >>> 32));
+    }
+
+    private boolean isSet(int bit) {
+        int index = bit & filterMask;
+        return (filter[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void set(int bit) {
+        int index = bit & filterMask;
+        filter[index >>> 6] |= 1L << index;
+    }
+
+    // execution ids are close to each other, so their bits are spread before they pick the bits of the filter
+    private static long hash(long executionId) {
+        long hash = executionId * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+}
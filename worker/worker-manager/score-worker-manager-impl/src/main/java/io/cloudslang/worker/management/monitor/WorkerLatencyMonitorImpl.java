@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management.monitor;
+
+import io.cloudslang.score.api.ControlActionMetadata;
+import io.cloudslang.worker.management.services.WorkerMonitorInfoEnum;
+
+import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link LatencyHistogram} of every {@link WorkerLatency}, in microseconds.
+ * The step time is also kept for every control action, up to worker.monitor.maxStepActions actions (256 by default),
+ * the steps of the actions beyond that are only recorded for all the actions.
+ */
+public class WorkerLatencyMonitorImpl implements WorkerLatencyMonitor {
+
+    private final int maxStepActions = Integer.getInteger("worker.monitor.maxStepActions", 256);
+
+    private final Map<WorkerLatency, LatencyHistogram> histograms = new EnumMap<>(WorkerLatency.class);
+    // looked up by the action of the step itself, its hash code is made of the cached hash codes of its names
+    private final ConcurrentMap<ControlActionMetadata, LatencyHistogram> stepHistograms = new ConcurrentHashMap<>();
+
+    public WorkerLatencyMonitorImpl() {
+        for (WorkerLatency latency : WorkerLatency.values()) {
+            histograms.put(latency, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public void record(WorkerLatency latency, long nanos) {
+        histograms.get(latency).record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    @Override
+    public void recordStep(ControlActionMetadata action, long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        histograms.get(WorkerLatency.STEP_EXECUTION).record(micros);
+        if (action == null) {
+            return;
+        }
+        LatencyHistogram histogram = stepHistograms.get(action);
+        if (histogram == null && stepHistograms.size() < maxStepActions) {
+            // a copy, the action of the step is not immutable
+            ControlActionMetadata key = new ControlActionMetadata(action.getClassName(), action.getMethodName());
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = stepHistograms.putIfAbsent(key, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        if (histogram != null) {
+            histogram.record(micros);
+        }
+    }
+
+    @Override
+    public Map<String, String> getLatencies() {
+        Map<String, String> latencies = new LinkedHashMap<>();
+        for (Map.Entry<WorkerLatency, LatencyHistogram> entry : histograms.entrySet()) {
+            latencies.put(entry.getKey().name(), entry.getValue().snapshot(false).toString());
+        }
+        for (Map.Entry<ControlActionMetadata, LatencyHistogram> entry : stepHistograms.entrySet()) {
+            latencies.put(WorkerLatency.STEP_EXECUTION + " " + actionName(entry.getKey()), entry.getValue().snapshot(false).toString());
+        }
+        return latencies;
+    }
+
+    @Override
+    public void captureMonitorInfo(Map<WorkerMonitorInfoEnum, Serializable> monitorInfo) {
+        for (Map.Entry<WorkerLatency, LatencyHistogram> entry : histograms.entrySet()) {
+            WorkerLatency latency = entry.getKey();
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot(true);
+            monitorInfo.put(latency.getP50(), snapshot.getPercentile(50));
+            monitorInfo.put(latency.getP90(), snapshot.getPercentile(90));
+            monitorInfo.put(latency.getP99(), snapshot.getPercentile(99));
+        }
+        HashMap<String, String> stepLatencies = new HashMap<>();
+        for (Map.Entry<ControlActionMetadata, LatencyHistogram> entry : stepHistograms.entrySet()) {
+            LatencyHistogram.Snapshot snapshot = entry.getValue().snapshot(true);
+            if (snapshot.getCount() > 0) {
+                stepLatencies.put(actionName(entry.getKey()), snapshot.toString());
+            }
+        }
+        monitorInfo.put(WorkerMonitorInfoEnum.STEP_EXECUTION_PER_ACTION, stepLatencies);
+    }
+
+    private static String actionName(ControlActionMetadata action) {
+        return action.getClassName() + "." + action.getMethodName();
+    }
+}
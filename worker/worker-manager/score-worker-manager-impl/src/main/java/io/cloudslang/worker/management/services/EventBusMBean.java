@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management.services;
+
+import io.cloudslang.score.events.EventBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.Map;
+
+/**
+ * The queues of the listeners that are subscribed asynchronously to the event bus
+ */
+@ManagedResource(description = "Event Bus Statistics")
+public class EventBusMBean {
+
+	@Autowired
+	private EventBus eventBus;
+
+	@ManagedAttribute(description = "Queue, lag in microseconds, and events delivered, dropped and spilled of every asynchronous listener")
+	public Map<String, String> getAsyncListenerStatistics() {
+		return eventBus.getAsyncListenerStatistics();
+	}
+}
@@ -31,11 +31,11 @@ import org.springframework.context.event.ContextRefreshedEvent;
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import static ch.lambdaj.Lambda.extract;
-import static ch.lambdaj.Lambda.on;
 import static java.lang.Integer.getInteger;
+import static java.lang.Long.getLong;
 import static java.lang.Long.parseLong;
 import static java.lang.String.format;
 
@@ -90,6 +90,11 @@ public class InBuffer implements WorkerRecoveryListener, ApplicationListener, Ru
     private boolean newInBufferBehaviour;
     private int newInBufferSize;
     private int minInBufferSize;
+    // When positive, the engine parks the poll until messages are assigned to this worker instead of the worker sleeping between polls
+    private long longPollTimeoutMillis;
+    // The recovery lock is held while the engine parks the poll, so the poll is parked for at most a slice
+    // and the lock is released between the slices
+    private long longPollSliceMillis;
 
     @PostConstruct
     private void init() {
@@ -97,6 +102,11 @@ public class InBuffer implements WorkerRecoveryListener, ApplicationListener, Ru
         coolDownPollingMillis = getInteger("worker.inbuffer.coolDownPollingMillis", coolDownPollingMillis);
         logger.info("InBuffer capacity is set to :" + capacity + ", coolDownPollingMillis is set to :" + coolDownPollingMillis);
 
+        longPollTimeoutMillis = getLong("worker.inbuffer.longPollTimeoutMillis", 0L);
+        long slice = getLong("worker.inbuffer.longPollSliceMillis", 500L);
+        longPollSliceMillis = (slice > 0) ? Math.min(longPollTimeoutMillis, slice) : longPollTimeoutMillis;
+        logger.info("InBuffer long poll timeout is set to :" + longPollTimeoutMillis + ", slice is set to :" + longPollSliceMillis);
+
         newInBufferBehaviour = Boolean.getBoolean("enable.new.inbuffer");
         logger.info("new inbuffer behaviour enabled: " + newInBufferBehaviour);
 
@@ -108,7 +118,7 @@ public class InBuffer implements WorkerRecoveryListener, ApplicationListener, Ru
 
         // Min buffer size is the size at which the WorkerFillBufferThread thread starts polling if memory > MEMORY_THRESHOLD
         if (newInBufferBehaviour) {
-            int executionThreadsCount = numberOfThreads;
+            int executionThreadsCount = WorkerManager.getExecutionConcurrency(numberOfThreads);
             int minInBufferSizeLocal = getInteger(WORKER_INBUFFER_MIN_SIZE, executionThreadsCount);
             minInBufferSize = (minInBufferSizeLocal > 0) ? minInBufferSizeLocal : executionThreadsCount;
 
@@ -151,9 +161,16 @@ public class InBuffer implements WorkerRecoveryListener, ApplicationListener, Ru
                         if (logger.isDebugEnabled()) {
                             logger.debug("Polling messages from queue (max " + messagesToGet + ")");
                         }
-                        List<ExecutionMessage> newMessages = queueDispatcher.poll(workerUuid, messagesToGet);
+                        List<ExecutionMessage> newMessages = (longPollTimeoutMillis > 0) ?
+                                queueDispatcher.poll(workerUuid, messagesToGet, longPollSliceMillis) :
+                                queueDispatcher.poll(workerUuid, messagesToGet);
+                        long pollTime = System.nanoTime();
                         if (executionsActivityListener != null) {
-                            executionsActivityListener.onActivate(extract(newMessages, on(ExecutionMessage.class).getExecStateId()));
+                            List<Long> execStateIds = new ArrayList<>(newMessages.size());
+                            for (ExecutionMessage message : newMessages) {
+                                execStateIds.add(message.getExecStateId());
+                            }
+                            executionsActivityListener.onActivate(execStateIds);
                         }
                         if (logger.isDebugEnabled()) {
                             logger.debug("Received " + newMessages.size() + " messages from queue");
@@ -163,14 +180,16 @@ public class InBuffer implements WorkerRecoveryListener, ApplicationListener, Ru
                             // We must acknowledge the messages that we took from the queue
                             ackMessages(newMessages);
                             for (ExecutionMessage msg : newMessages) {
-                                addExecutionMessageInner(msg);
+                                addExecutionMessageInner(msg, pollTime);
                             }
 
                             syncManager.finishGetMessages(); // Release all locks before going to sleep
                             Thread.sleep(coolDownPollingMillis / 8); // Cool down - sleep a while
                         } else {
                             syncManager.finishGetMessages(); // Release all locks before going to sleep
-                            Thread.sleep(coolDownPollingMillis); // If there are no messages - sleep a while
+                            if (longPollTimeoutMillis <= 0) {
+                                Thread.sleep(coolDownPollingMillis); // If there are no messages - sleep a while
+                            } // In long poll the engine already waited a slice for messages - poll again right away
                         }
                     } else {
                         syncManager.finishGetMessages(); // Release all locks before going to sleep
@@ -229,15 +248,17 @@ public class InBuffer implements WorkerRecoveryListener, ApplicationListener, Ru
             if (Thread.currentThread().isInterrupted()) {
                 throw new InterruptedException("Thread was interrupted while waiting on the lock in fillBufferPeriodically()!");
             }
-            addExecutionMessageInner(msg);
+            addExecutionMessageInner(msg, 0);
         } finally {
             syncManager.finishGetMessages();
         }
     }
 
-    private void addExecutionMessageInner(ExecutionMessage msg) {
+    // the poll time is 0 for a message that was not polled from the queue
+    private void addExecutionMessageInner(ExecutionMessage msg, long pollTime) {
         SimpleExecutionRunnable simpleExecutionRunnable = simpleExecutionRunnableFactory.getObject();
         simpleExecutionRunnable.setExecutionMessage(msg);
+        simpleExecutionRunnable.setPollTime(pollTime);
         long executionId = parseLong(msg.getMsgId());
         workerManager.addExecution(executionId, simpleExecutionRunnable);
     }
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management.services;
+
+import io.cloudslang.orchestrator.entities.Message;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Groups a bulk of messages by Message.getId() and lets the first message of every group shrink it,
+ * the groups are in the order of their first message, and the messages of a group in the order they were put.
+ * <p>
+ * The groups are found in a single pass with an open addressing table keyed by the hash code of the id,
+ * the ids are compared only when their hash codes are equal.
+ * A group of a single message is not shrunk, shrinking a single message leaves it as it is.
+ */
+public final class MessageCoalescer {
+
+    private MessageCoalescer() {
+    }
+
+    public static List<Message> coalesce(List<Message> messages) {
+        int size = messages.size();
+        if (size < 2) {
+            return messages;
+        }
+        Message[] bulk = messages.toArray(new Message[size]);
+
+        int capacity = Integer.highestOneBit(size * 2 - 1) << 1;
+        int mask = capacity - 1;
+        // slot -> hash of the id and group + 1, 0 is an empty slot
+        int[] slotHashes = new int[capacity];
+        int[] slotGroups = new int[capacity];
+
+        // group -> its first and last message, message -> the next message of its group
+        int[] firstOfGroup = new int[size];
+        int[] lastOfGroup = new int[size];
+        int[] sizeOfGroup = new int[size];
+        int[] nextInGroup = new int[size];
+        Arrays.fill(nextInGroup, -1);
+        int groups = 0;
+
+        for (int i = 0; i < size; i++) {
+            String id = bulk[i].getId();
+            int hash = id == null ? 0 : id.hashCode();
+            int slot = mix(hash) & mask;
+            int group = -1;
+            while (slotGroups[slot] != 0) {
+                int candidate = slotGroups[slot] - 1;
+                if (slotHashes[slot] == hash && equal(id, bulk[firstOfGroup[candidate]].getId())) {
+                    group = candidate;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (group < 0) {
+                group = groups++;
+                slotHashes[slot] = hash;
+                slotGroups[slot] = group + 1;
+                firstOfGroup[group] = i;
+            } else {
+                nextInGroup[lastOfGroup[group]] = i;
+            }
+            lastOfGroup[group] = i;
+            sizeOfGroup[group]++;
+        }
+
+        if (groups == size) {
+            return messages;
+        }
+
+        List<Message> result = new ArrayList<>(size);
+        for (int group = 0; group < groups; group++) {
+            Message first = bulk[firstOfGroup[group]];
+            if (sizeOfGroup[group] == 1) {
+                result.add(first);
+            } else {
+                List<Message> groupMessages = new ArrayList<>(sizeOfGroup[group]);
+                for (int i = firstOfGroup[group]; i >= 0; i = nextInGroup[i]) {
+                    groupMessages.add(bulk[i]);
+                }
+                result.addAll(first.shrink(groupMessages));
+            }
+        }
+        return result;
+    }
+
+    // spreads the bits of close hash codes, like ids that differ only in their last digit
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equal(String id1, String id2) {
+        return id1 == null ? id2 == null : id1.equals(id2);
+    }
+}
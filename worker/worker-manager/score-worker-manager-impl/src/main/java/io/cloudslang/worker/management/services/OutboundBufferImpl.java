@@ -16,35 +16,46 @@
 
 package io.cloudslang.worker.management.services;
 
-import ch.lambdaj.group.Group;
 import io.cloudslang.engine.queue.entities.ExecutionMessage;
 import io.cloudslang.orchestrator.entities.Message;
+import io.cloudslang.orchestrator.entities.SplitMessage;
 import io.cloudslang.orchestrator.services.OrchestratorDispatcherService;
 import io.cloudslang.worker.management.ExecutionsActivityListener;
+import io.cloudslang.worker.management.monitor.WorkerLatency;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitor;
+import io.cloudslang.worker.management.monitor.WorkerMonitor;
 import org.apache.commons.lang.Validate;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
-import static ch.lambdaj.Lambda.by;
-import static ch.lambdaj.Lambda.extract;
-import static ch.lambdaj.Lambda.group;
-import static ch.lambdaj.Lambda.on;
-
-public class OutboundBufferImpl implements OutboundBuffer, WorkerRecoveryListener {
+public class OutboundBufferImpl implements OutboundBuffer, WorkerRecoveryListener, WorkerMonitor {
 	private final Logger logger = Logger.getLogger(this.getClass());
 
     private static long GB = 900000000;//there is JVM overhead, so i will take 10% buffer...
 
+	private static final int NO_SHARD = -1;
+
 	@Autowired
 	private RetryTemplate retryTemplate;
 
@@ -63,135 +74,395 @@ public class OutboundBufferImpl implements OutboundBuffer, WorkerRecoveryListene
     @Autowired(required = false)
     private ExecutionsActivityListener executionsActivityListener;
 
-	private List<Message> buffer = new ArrayList<>();
+    @Autowired(required = false)
+    private WorkerLatencyMonitor latencyMonitor;
+
+	// many execution threads put, a single thread drains
+	private final Queue<Entry> buffer = new ConcurrentLinkedQueue<>();
+
+	// replaced on recovery, entries of an older epoch are dropped by the drain
+	private volatile Epoch epoch = new Epoch();
 
-	private int currentWeight;
+	private volatile Thread drainingThread;
+	// the weight at which a put wakes up the draining thread
+	private volatile int drainingThreadWakeWeight;
+
+	// producers wait on it only when the buffer is full
+	private final Object notFull = new Object();
+	private final AtomicInteger waitingProducers = new AtomicInteger();
 
 	private int maxBufferWeight = Integer.getInteger("out.buffer.max.buffer.weight", 30000);
 	private int maxBulkWeight = Integer.getInteger("out.buffer.max.bulk.weight", 1500);
 	private int retryAmount = Integer.getInteger("out.buffer.retry.number", 5);
 	private long retryDelay = Long.getLong("out.buffer.retry.delay", 5000);
 
+	// when adaptive, a dedicated thread drains and the scheduled drain() does nothing: a bulk is sent as soon as it is full
+	// or its oldest message waited the max latency, and the bulk weight is tuned so that a dispatch takes about the target time
+	private boolean adaptiveDrain = Boolean.getBoolean("out.buffer.adaptive.drain");
+	private Thread adaptiveDrainThread;
+	private long maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("out.buffer.max.latency.millis", 10));
+	private long targetDispatchMillis = Long.getLong("out.buffer.target.dispatch.millis", 100);
+	private int minBulkWeight = Integer.getInteger("out.buffer.min.bulk.weight", 100);
+	private int maxAdaptiveBulkWeight;
+
+	// tuned by the threads of the dispatch shards concurrently
+	private final AtomicInteger drainBulkWeight = new AtomicInteger();
+
+	// when more than 1, the messages are split by execution to shards that are dispatched in parallel
+	private int dispatchShards = Integer.getInteger("out.buffer.dispatch.shards", 1);
+	private ExecutorService dispatchExecutor;
+
     @PostConstruct
     public void init(){
         maxBufferWeight = Integer.getInteger("out.buffer.max.buffer.weight", defaultBufferCapacity());
         logger.info("maxBufferWeight = " + maxBufferWeight);
+        maxAdaptiveBulkWeight = Integer.getInteger("out.buffer.max.adaptive.bulk.weight", 4 * maxBulkWeight);
+        drainBulkWeight.set(maxBulkWeight);
+        setDispatchShards(dispatchShards);
+        if (adaptiveDrain) {
+            logger.info("Adaptive drain with max latency = " + TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos) + " ms, target dispatch time = " + targetDispatchMillis + " ms");
+            startAdaptiveDrain();
+        }
     }
 
+	@PreDestroy
+	public void destroy() {
+		stopAdaptiveDrain();
+		shutdownDispatchExecutor();
+	}
+
+	private void shutdownDispatchExecutor() {
+		if (dispatchExecutor != null) {
+			dispatchExecutor.shutdownNow();
+		}
+	}
+
+	// should not be called while draining
+	public void setDispatchShards(int dispatchShards) {
+		shutdownDispatchExecutor();
+		this.dispatchShards = dispatchShards;
+		if (dispatchShards > 1) {
+			logger.info("Dispatching " + dispatchShards + " shards in parallel");
+			dispatchExecutor = Executors.newFixedThreadPool(dispatchShards, new WorkerThreadFactory("OutboundBufferDispatchThread"));
+		} else {
+			dispatchExecutor = null;
+		}
+	}
+
 	@Override
 	public void put(final Message... messages) throws InterruptedException {
 		Validate.notEmpty(messages, "The array of messages is null or empty");
-        try{
-            syncManager.startPutMessages();
-
-            //We need to check if the current thread was interrupted while waiting for the lock (ExecutionThread or InBufferThread in ackMessages)
-            if(Thread.currentThread().isInterrupted()){
-                throw new InterruptedException("Thread was interrupted while waiting on the lock! Exiting...");
-            }
-            else {
-                if(logger.isDebugEnabled())
-                    logger.debug("Current thread was not interrupted! Proceeding to put messages to OutBuffer...");
-            }
-
-            while (currentWeight >= maxBufferWeight){
-                logger.warn("Outbound buffer is full. Waiting...");
-                syncManager.waitForDrain();
-            }
-
-            // in case of multiple messages create a single compound message
-            // to make sure that it will be processed in a single transaction
-            Message message = messages.length==1? messages[0]: new CompoundMessage(messages);
-
-            //put message into the buffer
-            buffer.add(message);
-
-            currentWeight += message.getWeight();
+		try {
+			//We need to check if the current thread was interrupted (ExecutionThread or InBufferThread in ackMessages)
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedException("Thread was interrupted! Exiting...");
+			}
+
+			// in case of multiple messages create a single compound message
+			// to make sure that it will be processed in a single transaction
+			Message message = messages.length == 1 ? messages[0] : new CompoundMessage(messages);
+			int weight = message.getWeight();
+
+			Epoch current = epoch;
+			if (current.weight.get() >= maxBufferWeight) {
+				current = waitForDrain();
+			}
+			// producers that passed the check together may exceed the max weight by one message each
+			int newWeight = current.weight.addAndGet(weight);
+			current.size.incrementAndGet();
+			buffer.offer(new Entry(current, message, weight));
+
+			Thread drainer = drainingThread;
+			if (drainer != null && newWeight >= drainingThreadWakeWeight) {
+				LockSupport.unpark(drainer);
+			}
 			if (logger.isTraceEnabled()) logger.trace(message.getClass().getSimpleName() + " added to the buffer. " + getStatus());
 		} catch (InterruptedException ex) {
 			logger.warn("Buffer put action was interrupted", ex);
-            throw ex;
+			throw ex;
+		}
+	}
+
+	private Epoch waitForDrain() throws InterruptedException {
+		logger.warn("Outbound buffer is full. Waiting...");
+		// the InBuffer thread puts while holding the recovery lock, release it so a recovery can start and clear the buffer
+		syncManager.finishGetMessages();
+
+		long waitStartTime = System.nanoTime();
+		waitingProducers.incrementAndGet();
+		try {
+			synchronized (notFull) {
+				Epoch current;
+				while ((current = epoch).weight.get() >= maxBufferWeight) {
+					notFull.wait();
+				}
+				return current;
+			}
 		} finally {
-			syncManager.finishPutMessages();
+			waitingProducers.decrementAndGet();
+			if (latencyMonitor != null) {
+				latencyMonitor.record(WorkerLatency.OUTBUFFER_WAIT, System.nanoTime() - waitStartTime);
+			}
+		}
+	}
+
+	private void signalNotFull() {
+		if (waitingProducers.get() > 0) {
+			synchronized (notFull) {
+				notFull.notifyAll();
+			}
 		}
 	}
 
 	@Override
 	public void drain() {
-		List<Message> bufferToDrain;
-		try{
-            syncManager.startDrain();
-			while (buffer.isEmpty()){
-				if (logger.isDebugEnabled()){
-                    logger.debug("buffer is empty. Waiting to drain...");
-                }
-				syncManager.waitForMessages();
+		// when adaptive, the buffer is drained by its own thread
+		if (!adaptiveDrain) {
+			drainOnce();
+		}
+	}
+
+	private synchronized void startAdaptiveDrain() {
+		if (adaptiveDrainThread != null) {
+			return;
+		}
+		adaptiveDrainThread = new WorkerThreadFactory("OutboundBufferDrainThread").newThread(new Runnable() {
+			@Override
+			public void run() {
+				// returns only when interrupted
+				while (drainOnce()) {
+				}
 			}
+		});
+		adaptiveDrainThread.start();
+	}
+
+	private synchronized void stopAdaptiveDrain() {
+		Thread thread = adaptiveDrainThread;
+		if (thread == null) {
+			return;
+		}
+		adaptiveDrainThread = null;
+		thread.interrupt();
+		try {
+			// a dispatch in progress is completed, also with its retries
+			thread.join(retryAmount * retryDelay + TimeUnit.SECONDS.toMillis(10));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (thread.isAlive()) {
+			logger.warn("Outbound buffer drain thread did not stop");
+		}
+	}
 
-			if (logger.isDebugEnabled()) logger.debug("buffer is going to be drained. " + getStatus());
+	private boolean drainOnce() {
+		List<Entry> bufferToDrain = new ArrayList<>();
+		try {
+			while (bufferToDrain.isEmpty()) {
+				waitForMessages();
+				if (adaptiveDrain) {
+					waitForBulk();
+				}
 
-			bufferToDrain = buffer;
-			buffer = new ArrayList<>();
-			currentWeight = 0;
+				if (logger.isDebugEnabled()) logger.debug("buffer is going to be drained. " + getStatus());
+
+				List<Entry> polled = new ArrayList<>();
+				Entry entry;
+				// the producers are blocked once the buffer is full, so this ends
+				while ((entry = buffer.poll()) != null) {
+					// an entry is counted in the epoch it was put in, also when a recovery replaced it meanwhile
+					entry.epoch.size.decrementAndGet();
+					entry.epoch.weight.addAndGet(-entry.weight);
+					polled.add(entry);
+				}
+				// a recovery may have started while polling, only the entries put before it are dropped
+				long current = epoch.number;
+				for (Entry polledEntry : polled) {
+					if (polledEntry.epoch.number >= current) {
+						bufferToDrain.add(polledEntry);
+					}
+				}
+				signalNotFull();
+			}
 		} catch (InterruptedException e) {
 			logger.warn("Drain outgoing buffer was interrupted while waiting for messages on the buffer");
-			return;
-		} finally{
-			syncManager.finishDrain();
+			return false;
 		}
 
 		drainInternal(bufferToDrain);
+		return true;
 	}
 
-	private void drainInternal(List<Message> bufferToDrain){
-		List<Message> bulk = new ArrayList<>();
-		int bulkWeight = 0;
-		Map<String,AtomicInteger> logMap = new HashMap<>();
+	// waits until there is a full bulk or the oldest message waited the max latency
+	private void waitForBulk() throws InterruptedException {
+		Entry oldest = buffer.peek();
+		long deadline = oldest.putTime + maxLatencyNanos;
+		int bulkWeight = drainBulkWeight.get();
+		drainingThreadWakeWeight = bulkWeight;
+		drainingThread = Thread.currentThread();
 		try {
-			for (Message message : bufferToDrain) {
-				if (message.getClass().equals(CompoundMessage.class)){
-					bulk.addAll(((CompoundMessage)message).asList());
-				} else {
-					bulk.add(message);
+			long remaining;
+			while (epoch.weight.get() < bulkWeight && (remaining = deadline - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(this, remaining);
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
 				}
-				bulkWeight += message.getWeight();
+			}
+		} finally {
+			drainingThread = null;
+		}
+	}
 
-				if (logger.isDebugEnabled()){
-					if (logMap.get(message.getClass().getSimpleName()) == null) logMap.put(message.getClass().getSimpleName(), new AtomicInteger(1));
-					else logMap.get(message.getClass().getSimpleName()).incrementAndGet();
+	private void waitForMessages() throws InterruptedException {
+		drainingThreadWakeWeight = 0;
+		drainingThread = Thread.currentThread();
+		try {
+			while (buffer.isEmpty()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("buffer is empty. Waiting to drain...");
 				}
-
-				if (bulkWeight > maxBulkWeight){
-					if (logger.isDebugEnabled()) logger.debug("trying to drain bulk: " + logMap.toString() + ", W:" + bulkWeight);
-					drainBulk(bulk);
-					bulk.clear();
-					bulkWeight = 0;
-					logMap.clear();
+				LockSupport.park(this);
+				if (Thread.interrupted()) {
+					throw new InterruptedException();
 				}
 			}
-			// drain the last bulk
-			if (logger.isDebugEnabled()) logger.debug("trying to drain bulk: " + logMap.toString() + ", " + getStatus());
-			drainBulk(bulk);
+		} finally {
+			drainingThread = null;
+		}
+	}
+
+	public void setAdaptiveDrain(boolean adaptiveDrain) {
+		if (adaptiveDrain) {
+			this.adaptiveDrain = true;
+			startAdaptiveDrain();
+		} else {
+			stopAdaptiveDrain();
+			this.adaptiveDrain = false;
+		}
+	}
+
+	private void drainInternal(List<Entry> bufferToDrain){
+		try {
+			if (dispatchExecutor == null) {
+				drainShard(bufferToDrain, NO_SHARD);
+			} else {
+				drainShards(bufferToDrain);
+			}
 		} catch (Exception ex) {
 			logger.error("Failed to drain buffer, invoking worker internal recovery... ", ex);
 			recoveryManager.doRecovery();
 		}
 	}
 
-	private List<Message> optimize(List<Message> messages){
-		long t = System.currentTimeMillis();
-		List<Message> result = new ArrayList<>();
+	private void drainShards(List<Entry> bufferToDrain) throws Exception {
+		List<List<Entry>> shards = new ArrayList<>(dispatchShards);
+		for (int shard = 0; shard < dispatchShards; shard++) {
+			shards.add(new ArrayList<Entry>());
+		}
+		for (Entry entry : bufferToDrain) {
+			shards.get(shardOf(entry.message)).add(entry);
+		}
 
-		Group<Message> groups = group(messages, by(on(Message.class).getId()));
-		for (Group<Message> group :groups.subgroups()){
-			result.addAll(group.first().shrink(group.findAll()));
+		List<Future<?>> futures = new ArrayList<>(dispatchShards);
+		for (int shard = 0; shard < dispatchShards; shard++) {
+			final List<Entry> shardEntries = shards.get(shard);
+			final int dispatchShard = shard;
+			if (!shardEntries.isEmpty()) {
+				futures.add(dispatchExecutor.submit(new Runnable() {
+					@Override
+					public void run() {
+						drainShard(shardEntries, dispatchShard);
+					}
+				}));
+			}
+		}
+
+		// waits for all the shards, also when one of them failed, so the next drain does not overtake a shard
+		Exception failure = null;
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException ex) {
+				failure = ex;
+			} catch (InterruptedException ex) {
+				logger.warn("Drain outgoing buffer was interrupted while dispatching");
+				for (Future<?> toCancel : futures) {
+					toCancel.cancel(true);
+				}
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	// all the messages of an execution are sent through the same shard, in the order they were put
+	private int shardOf(Message message) {
+		if (message instanceof CompoundMessage) {
+			message = ((CompoundMessage) message).messages[0];
 		}
+		String key;
+		if (message instanceof ExecutionMessage) {
+			key = ((ExecutionMessage) message).getMsgId();
+		} else if (message instanceof SplitMessage) {
+			key = String.valueOf(((SplitMessage) message).getParent().getExecutionId());
+		} else {
+			key = message.getId();
+		}
+		return key == null ? 0 : (key.hashCode() & Integer.MAX_VALUE) % dispatchShards;
+	}
+
+	private void drainShard(List<Entry> bufferToDrain, int shard){
+		List<Message> bulk = new ArrayList<>();
+		int bulkWeight = 0;
+		long bulkPutTime = 0;
+		Map<String,AtomicInteger> logMap = new HashMap<>();
+		int maxWeight = drainBulkWeight.get();
+		for (Entry entry : bufferToDrain) {
+			Message message = entry.message;
+			if (bulk.isEmpty()) {
+				// the entries are in the order they were put
+				bulkPutTime = entry.putTime;
+			}
+			if (message.getClass().equals(CompoundMessage.class)){
+				bulk.addAll(((CompoundMessage)message).asList());
+			} else {
+				bulk.add(message);
+			}
+			bulkWeight += entry.weight;
+
+			if (logger.isDebugEnabled()){
+				if (logMap.get(message.getClass().getSimpleName()) == null) logMap.put(message.getClass().getSimpleName(), new AtomicInteger(1));
+				else logMap.get(message.getClass().getSimpleName()).incrementAndGet();
+			}
+
+			if (bulkWeight > maxWeight){
+				if (logger.isDebugEnabled()) logger.debug("trying to drain bulk: " + logMap.toString() + ", W:" + bulkWeight);
+				drainBulk(bulk, bulkWeight, bulkPutTime, shard);
+				bulk.clear();
+				bulkWeight = 0;
+				logMap.clear();
+			}
+		}
+		// drain the last bulk
+		if (!bulk.isEmpty()) {
+			if (logger.isDebugEnabled()) logger.debug("trying to drain bulk: " + logMap.toString() + ", " + getStatus());
+			drainBulk(bulk, bulkWeight, bulkPutTime, shard);
+		}
+	}
+
+	private List<Message> optimize(List<Message> messages){
+		long t = System.currentTimeMillis();
+		List<Message> result = MessageCoalescer.coalesce(messages);
 
 		if (logger.isDebugEnabled()) logger.debug("bulk optimization result: " + messages.size() + " -> " + result.size() + " in " + (System.currentTimeMillis()-t) + " ms");
 
 		return result;
 	}
 
-	private void drainBulk(List<Message> bulkToDrain){
+	private void drainBulk(List<Message> bulkToDrain, int bulkWeight, long bulkPutTime, final int shard){
 		long t = System.currentTimeMillis();
 		final List<Message> optimizedBulk = optimize(bulkToDrain);
         //Bulk number is the same for all retries! This is done to prevent duplications when we insert with retries
@@ -202,24 +473,64 @@ public class OutboundBufferImpl implements OutboundBuffer, WorkerRecoveryListene
 			public void tryOnce() {
                 String wrv = recoveryManager.getWRV();
                 if (logger.isDebugEnabled()) logger.debug("Dispatch start with bulk number: " + bulkNumber);
-				dispatcherService.dispatch(optimizedBulk, bulkNumber, wrv, workerUuid);
+				if (shard == NO_SHARD) {
+					dispatcherService.dispatch(optimizedBulk, bulkNumber, wrv, workerUuid);
+				} else {
+					dispatcherService.dispatch(optimizedBulk, bulkNumber, wrv, workerUuid, shard);
+				}
                 if (executionsActivityListener != null) {
-                    executionsActivityListener.onHalt(extract(optimizedBulk, on(ExecutionMessage.class).getExecStateId()));
+                    executionsActivityListener.onHalt(execStateIds(optimizedBulk));
                 }
                 if (logger.isDebugEnabled()) logger.debug("Dispatch end with bulk number: " + bulkNumber);
 			}
 		});
-		if (logger.isDebugEnabled()) logger.debug("bulk was drained in " + (System.currentTimeMillis()-t) + " ms");
+		long dispatchMillis = System.currentTimeMillis() - t;
+		if (latencyMonitor != null) {
+			latencyMonitor.record(WorkerLatency.OUTBUFFER_DRAIN, System.nanoTime() - bulkPutTime);
+		}
+		if (adaptiveDrain) {
+			tuneBulkWeight(bulkWeight, dispatchMillis);
+		}
+		if (logger.isDebugEnabled()) logger.debug("bulk was drained in " + dispatchMillis + " ms");
+	}
+
+	private static List<Long> execStateIds(List<Message> messages) {
+		List<Long> execStateIds = new ArrayList<>(messages.size());
+		for (Message message : messages) {
+			if (message instanceof ExecutionMessage) {
+				execStateIds.add(((ExecutionMessage) message).getExecStateId());
+			}
+		}
+		return execStateIds;
+	}
+
+	private void tuneBulkWeight(int bulkWeight, long dispatchMillis) {
+		int current;
+		int tuned;
+		do {
+			current = drainBulkWeight.get();
+			if (dispatchMillis > targetDispatchMillis) {
+				tuned = Math.max(minBulkWeight, current * 3 / 4);
+			} else if (dispatchMillis < targetDispatchMillis / 2 && bulkWeight > current) {
+				// grow only when full bulks are fast, small bulks are fast anyway
+				tuned = Math.min(maxAdaptiveBulkWeight, current * 5 / 4 + 1);
+			} else {
+				return;
+			}
+		} while (tuned != current && !drainBulkWeight.compareAndSet(current, tuned));
+		if (logger.isDebugEnabled() && tuned != current) {
+			logger.debug("bulk weight tuned from " + current + " to " + tuned + " after a dispatch of " + dispatchMillis + " ms");
+		}
 	}
 
 	@Override
 	public int getSize() {
-		return buffer.size();
+		return epoch.size.get();
 	}
 
 	@Override
 	public int getWeight() {
-		return currentWeight;
+		return epoch.weight.get();
 	}
 
     @Override
@@ -227,9 +538,16 @@ public class OutboundBufferImpl implements OutboundBuffer, WorkerRecoveryListene
         return maxBufferWeight;
     }
 
+    @Override
+    public void captureMonitorInfo(Map<WorkerMonitorInfoEnum, Serializable> monitorInfo) {
+        // the drain latency is captured by the WorkerLatencyMonitor
+        monitorInfo.put(WorkerMonitorInfoEnum.OUTBUFFER_BULK_WEIGHT, drainBulkWeight.get());
+    }
+
     @Override
 	public String getStatus() {
-		return "Buffer status: [W:" + currentWeight + '/' + maxBufferWeight + ",S:" + buffer.size() + "]";
+		Epoch current = epoch;
+		return "Buffer status: [W:" + current.weight.get() + '/' + maxBufferWeight + ",S:" + current.size.get() + "]";
 	}
 
 	@Override
@@ -237,12 +555,34 @@ public class OutboundBufferImpl implements OutboundBuffer, WorkerRecoveryListene
         if (logger.isDebugEnabled()){
             logger.debug("OutboundBuffer is in recovery, clearing buffer.");
         }
-        buffer.clear();
-        currentWeight = 0 ;
+        // the messages already in the buffer are dropped by the next drain
+        epoch = new Epoch();
+        signalNotFull();
+    }
+
+    private static class Epoch {
+        private static final AtomicLong NUMBERS = new AtomicLong();
+
+        private final long number = NUMBERS.incrementAndGet();
+        private final AtomicInteger weight = new AtomicInteger();
+        private final AtomicInteger size = new AtomicInteger();
+    }
+
+    private static class Entry {
+        private final Epoch epoch;
+        private final Message message;
+        private final int weight;
+        private final long putTime = System.nanoTime();
+
+        private Entry(Epoch epoch, Message message, int weight) {
+            this.epoch = epoch;
+            this.message = message;
+            this.weight = weight;
+        }
     }
 
     private class CompoundMessage implements Message{
-        private Message[] messages;
+        private final Message[] messages;
 
         public CompoundMessage(Message[] messages){
             this.messages = messages.clone();
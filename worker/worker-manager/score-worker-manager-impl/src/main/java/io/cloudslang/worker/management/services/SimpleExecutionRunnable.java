@@ -28,6 +28,8 @@ import io.cloudslang.score.facade.entities.Execution;
 import io.cloudslang.score.facade.execution.ExecutionStatus;
 import io.cloudslang.worker.execution.services.ExecutionService;
 import io.cloudslang.worker.management.WorkerConfigurationService;
+import io.cloudslang.worker.management.monitor.WorkerLatency;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitor;
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 
@@ -64,6 +66,13 @@ public class SimpleExecutionRunnable implements Runnable {
 
     private WorkerManager workerManager;
 
+    // null when the worker has no latency monitor
+    private WorkerLatencyMonitor latencyMonitor;
+
+    // when it was put to the InBuffer, and when its message was polled from the queue (0 when it was not polled)
+    private final long createTime = System.nanoTime();
+    private long pollTime;
+
     public SimpleExecutionRunnable(ExecutionService executionService,
                                    OutboundBuffer outBuffer,
                                    InBuffer inBuffer,
@@ -72,7 +81,8 @@ public class SimpleExecutionRunnable implements Runnable {
                                    QueueStateIdGeneratorService queueStateIdGeneratorService,
                                    String workerUUID,
                                    WorkerConfigurationService workerConfigurationService,
-                                   WorkerManager workerManager
+                                   WorkerManager workerManager,
+                                   WorkerLatencyMonitor latencyMonitor
     ) {
         this.executionService = executionService;
         this.outBuffer = outBuffer;
@@ -83,6 +93,7 @@ public class SimpleExecutionRunnable implements Runnable {
         this.workerUUID = workerUUID;
         this.workerConfigurationService = workerConfigurationService;
         this.workerManager = workerManager;
+        this.latencyMonitor = latencyMonitor;
         this.isRecoveryDisabled = Boolean.getBoolean("is.recovery.disabled");
     }
 
@@ -94,8 +105,19 @@ public class SimpleExecutionRunnable implements Runnable {
         this.executionMessage = executionMessage;
     }
 
+    public void setPollTime(long pollTime) {
+        this.pollTime = pollTime;
+    }
+
     @Override
     public void run() {
+        if (latencyMonitor != null) {
+            long startTime = System.nanoTime();
+            latencyMonitor.record(WorkerLatency.IN_BUFFER_WAIT, startTime - createTime);
+            if (pollTime != 0) {
+                latencyMonitor.record(WorkerLatency.POLL_TO_START, startTime - pollTime);
+            }
+        }
         String executionId = executionMessage.getMsgId();
 
         //We are renaming the thread for logging/monitoring purposes
@@ -398,13 +420,10 @@ public class SimpleExecutionRunnable implements Runnable {
 
         if(execution==null) return false;
 
-        boolean executionIsCancelled = workerConfigurationService.isExecutionCancelled(execution.getExecutionId()); // in this case - just check if need to cancel. It will set as cancelled later on QueueEventListener
         // Another scenario of getting canceled - it was cancelled from the SplitJoinService (the configuration can still be not updated). Defect #:22060
-        if(ExecutionStatus.CANCELED.equals(execution.getSystemContext().getFlowTerminationType())) {
-            executionIsCancelled = true;
-        }
-
-        return executionIsCancelled;
+        // it is also set by ExecutionService when it found the execution cancelled, so the configuration is read only when it is not set
+        return ExecutionStatus.CANCELED.equals(execution.getSystemContext().getFlowTerminationType()) ||
+                workerConfigurationService.isExecutionCancelled(execution.getExecutionId()); // in this case - just check if need to cancel. It will set as cancelled later on QueueEventListener
     }
 
 
@@ -21,6 +21,7 @@ import io.cloudslang.engine.queue.entities.ExecutionMessageConverter;
 import io.cloudslang.engine.queue.services.QueueStateIdGeneratorService;
 
 import io.cloudslang.worker.management.WorkerConfigurationService;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitor;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -57,6 +58,9 @@ public class SimpleExecutionRunnableFactory implements FactoryBean<SimpleExecuti
     @Autowired
     private WorkerManager workerManager;
 
+    @Autowired(required = false)
+    private WorkerLatencyMonitor latencyMonitor;
+
     @Resource
 	private String workerUuid;
 
@@ -71,7 +75,8 @@ public class SimpleExecutionRunnableFactory implements FactoryBean<SimpleExecuti
                 queueStateIdGeneratorService,
                 workerUuid,
                 workerConfigurationService,
-                workerManager
+                workerManager,
+                latencyMonitor
         );
 	}
 
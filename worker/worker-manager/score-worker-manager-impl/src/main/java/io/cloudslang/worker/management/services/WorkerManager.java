@@ -56,6 +56,10 @@ public class WorkerManager implements ApplicationListener, EndExecutionCallback,
     private static final Logger logger = Logger.getLogger(WorkerManager.class);
     private static final int KEEP_ALIVE_FAIL_LIMIT = 5;
     private static final String DOTNET_PATH = System.getenv("WINDIR") + "/Microsoft.NET/Framework";
+    static final String VIRTUAL_THREADS = "worker.execution.virtualThreads";
+    static final String MAX_CONCURRENCY = "worker.execution.maxConcurrency";
+    private static final int DEFAULT_CONCURRENCY_FACTOR = 10;
+    private static final long VIRTUAL_KEEP_ALIVE_SECONDS = 60;
 
     @Resource
     private String workerUuid;
@@ -105,23 +109,60 @@ public class WorkerManager implements ApplicationListener, EndExecutionCallback,
 
     private boolean newCancelBehaviour;
 
+    private boolean virtualThreads;
+
+    private int executionConcurrency;
+
     @PostConstruct
     private void init() {
         logger.info("Initialize worker with UUID: " + workerUuid);
         System.setProperty("worker.uuid", workerUuid); //do not remove!!!
         inBuffer = new LinkedBlockingQueue<>();
 
-        executorService = new ThreadPoolExecutor(numberOfThreads,
-                numberOfThreads,
-                Long.MAX_VALUE, TimeUnit.NANOSECONDS,
-                inBuffer,
-                new WorkerThreadFactory((++threadPoolVersion) + "_WorkerExecutionThread"));
+        virtualThreads = Boolean.getBoolean(VIRTUAL_THREADS);
+        executionConcurrency = getExecutionConcurrency(numberOfThreads);
+        logger.info("Worker execution virtual threads: " + virtualThreads + ", concurrency: " + executionConcurrency);
+
+        executorService = createExecutorService(++threadPoolVersion);
 
         mapOfRunningTasks = new ConcurrentHashMap<>(numberOfThreads);
 
         newCancelBehaviour = parseBoolean(getProperty("enable.new.cancel.execution", FALSE.toString()));
     }
 
+    /**
+     * The number of steps run at once: the number of execution threads,
+     * or in virtual threads mode worker.execution.maxConcurrency, 10 times the number of execution threads by default.
+     */
+    static int getExecutionConcurrency(int numberOfThreads) {
+        if (!Boolean.getBoolean(VIRTUAL_THREADS)) {
+            return numberOfThreads;
+        }
+        int maxConcurrency = Integer.getInteger(MAX_CONCURRENCY, DEFAULT_CONCURRENCY_FACTOR * numberOfThreads);
+        return maxConcurrency > 0 ? maxConcurrency : DEFAULT_CONCURRENCY_FACTOR * numberOfThreads;
+    }
+
+    // The thread names start with the thread pool version, see isFromCurrentThreadPool()
+    private ExecutorService createExecutorService(int version) {
+        WorkerThreadFactory threadFactory = new WorkerThreadFactory(version + "_WorkerExecutionThread", virtualThreads);
+        if (!virtualThreads) {
+            return new ThreadPoolExecutor(numberOfThreads,
+                    numberOfThreads,
+                    Long.MAX_VALUE, TimeUnit.NANOSECONDS,
+                    inBuffer,
+                    threadFactory);
+        }
+        // The pool only bounds the concurrency: a thread is started per step up to the limit and ends when idle,
+        // the steps over the limit wait in the in buffer as with platform threads
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(executionConcurrency,
+                executionConcurrency,
+                VIRTUAL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                inBuffer,
+                threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     public void addExecution(long executionId, Runnable runnable) {
         // Since we can offer to thread pool queue from SimpleExecutionRunnable run method
         // it is possible we will have step x + 1 of an execution plan that is in the map of running tasks,
@@ -222,7 +263,7 @@ public class WorkerManager implements ApplicationListener, EndExecutionCallback,
     }
 
     public int getExecutionThreadsCount() {
-        return numberOfThreads;
+        return executionConcurrency;
     }
 
     @Override
@@ -355,10 +396,6 @@ public class WorkerManager implements ApplicationListener, EndExecutionCallback,
         mapOfRunningTasks.clear();
 
         //Make new executor
-        executorService = new ThreadPoolExecutor(numberOfThreads,
-                numberOfThreads,
-                Long.MAX_VALUE, TimeUnit.NANOSECONDS,
-                inBuffer,
-                new WorkerThreadFactory((threadPoolVersion) + "_WorkerExecutionThread"));
+        executorService = createExecutorService(threadPoolVersion);
     }
 }
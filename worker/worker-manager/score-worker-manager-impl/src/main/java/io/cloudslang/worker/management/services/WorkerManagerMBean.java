@@ -16,10 +16,14 @@
 
 package io.cloudslang.worker.management.services;
 
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedResource;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * User:
  * Date: 1/14/13
@@ -33,6 +37,9 @@ public class WorkerManagerMBean {
 	@Autowired
 	private OutboundBuffer outBuffer;
 
+	@Autowired(required = false)
+	private WorkerLatencyMonitor latencyMonitor;
+
 	@ManagedAttribute(description = "Current In-Buffer Size")
 	public int getInBufferSize(){
 		return workerManager.getInBufferSize();
@@ -57,4 +64,9 @@ public class WorkerManagerMBean {
 	public int getRunningTasksCount(){
 		return workerManager.getRunningTasksCount();
 	}
+
+	@ManagedAttribute(description = "Latencies in microseconds since the last monitor report")
+	public Map<String, String> getLatencies(){
+		return latencyMonitor == null ? Collections.<String, String>emptyMap() : latencyMonitor.getLatencies();
+	}
 }
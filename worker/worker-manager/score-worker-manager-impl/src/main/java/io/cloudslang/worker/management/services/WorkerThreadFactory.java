@@ -16,6 +16,9 @@
 
 package io.cloudslang.worker.management.services;
 
+import org.apache.log4j.Logger;
+
+import java.lang.reflect.Method;
 import java.util.concurrent.ThreadFactory;
 
 /**
@@ -26,14 +29,35 @@ import java.util.concurrent.ThreadFactory;
  */
 class WorkerThreadFactory implements ThreadFactory {
 
+    private static final Logger logger = Logger.getLogger(WorkerThreadFactory.class);
+
     private int index;
     private String name;
+    private ThreadFactory virtualThreadFactory;
 
     public WorkerThreadFactory(String commonName) {
         name = commonName;
     }
 
+    /**
+     * @param virtual whether to create virtual threads, named like the platform threads.
+     *                Falls back to platform threads when the JVM has no virtual threads.
+     */
+    public WorkerThreadFactory(String commonName, boolean virtual) {
+        this(commonName);
+        if (virtual) {
+            virtualThreadFactory = createVirtualThreadFactory(commonName + "-");
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtualThreadFactory != null;
+    }
+
     public Thread newThread(final Runnable command) {
+        if (virtualThreadFactory != null) {
+            return virtualThreadFactory.newThread(command);
+        }
         return new Thread(new Runnable() {
             public void run() {
                 command.run();
@@ -48,4 +72,19 @@ class WorkerThreadFactory implements ThreadFactory {
         }
         return idx;
     }
+
+    // Thread.ofVirtual().name(prefix, 0).factory(), looked up at runtime since the worker is compiled for Java 8
+    private static ThreadFactory createVirtualThreadFactory(String prefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            logger.warn("Virtual threads are not supported by Java " + System.getProperty("java.version") +
+                    ", using platform threads");
+            return null;
+        }
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testContains() {
+        List<Long> values = new ArrayList<>();
+        for (long value = 1000000; value < 1010000; value += 2) {
+            values.add(value);
+        }
+        LongHashSet set = LongHashSet.of(values);
+
+        assertEquals(5000, set.size());
+        for (long value = 1000000; value < 1010000; value++) {
+            assertEquals(value % 2 == 0, set.contains(value));
+        }
+        assertFalse(set.contains(0));
+        assertFalse(set.contains(-1000000));
+    }
+
+    @Test
+    public void testWithAll() {
+        LongHashSet set = LongHashSet.of(Arrays.asList(1L, 2L));
+        LongHashSet withMore = set.withAll(Arrays.asList(2L, 3L, 0L, null));
+
+        assertFalse(set.contains(3));
+        assertFalse(set.contains(0));
+        assertTrue(withMore.contains(1));
+        assertTrue(withMore.contains(3));
+        assertTrue(withMore.contains(0));
+        assertEquals(4, withMore.size());
+
+        // nothing new
+        assertSame(withMore, withMore.withAll(Arrays.asList(0L, 1L)));
+        assertSame(withMore, withMore.withAll(null));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertSame(LongHashSet.EMPTY, LongHashSet.of(null));
+        assertSame(LongHashSet.EMPTY, LongHashSet.of(Collections.<Long>emptyList()));
+        assertFalse(LongHashSet.EMPTY.contains(0));
+        assertFalse(LongHashSet.EMPTY.contains(7));
+    }
+}
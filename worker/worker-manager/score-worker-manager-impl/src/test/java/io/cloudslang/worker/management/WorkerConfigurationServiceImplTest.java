@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management;
+
+import io.cloudslang.orchestrator.entities.MergedConfigurationDataContainer;
+import io.cloudslang.orchestrator.services.MergedConfigurationService;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = WorkerConfigurationServiceImplTest.Configurator.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class WorkerConfigurationServiceImplTest {
+
+    @Autowired
+    private WorkerConfigurationServiceImpl workerConfigurationService;
+
+    @Autowired
+    private MergedConfigurationService mergedConfigurationService;
+
+    @Before
+    public void init() {
+        reset(mergedConfigurationService);
+        workerConfigurationService.setEnabled(true);
+    }
+
+    @Test
+    public void testRefreshesChangesAfterFullRefresh() {
+        when(mergedConfigurationService.fetchMergedConfiguration(anyString(), eq(-1L)))
+                .thenReturn(configuration(false, 10, Arrays.asList(1L, 2L), new HashSet<>(Arrays.asList("5:null", "6:b")), null, Collections.singletonList("group")));
+        workerConfigurationService.refresh();
+
+        assertTrue(workerConfigurationService.isExecutionCancelled(1L));
+        assertFalse(workerConfigurationService.isExecutionCancelled(3L));
+        assertTrue(workerConfigurationService.isExecutionPaused(5L, null));
+        assertTrue(workerConfigurationService.isMemberOf("group"));
+
+        when(mergedConfigurationService.fetchMergedConfiguration(anyString(), eq(10L)))
+                .thenReturn(configuration(true, 12, Collections.singletonList(3L), Collections.singleton("7:null"), Collections.singleton("5:null"), null));
+        workerConfigurationService.refresh();
+        verify(mergedConfigurationService).fetchMergedConfiguration(anyString(), eq(10L));
+
+        assertTrue(workerConfigurationService.isExecutionCancelled(1L));
+        assertTrue(workerConfigurationService.isExecutionCancelled(3L));
+        assertFalse(workerConfigurationService.isExecutionPaused(5L, null));
+        assertTrue(workerConfigurationService.isExecutionPaused(6L, "b"));
+        assertTrue(workerConfigurationService.isExecutionPaused(7L, null));
+        assertTrue(workerConfigurationService.isMemberOf("group"));
+
+        when(mergedConfigurationService.fetchMergedConfiguration(anyString(), eq(12L)))
+                .thenReturn(configuration(true, 13, Collections.<Long>emptyList(), null, null, Collections.singletonList("other")));
+        workerConfigurationService.refresh();
+        assertFalse(workerConfigurationService.isMemberOf("group"));
+        assertTrue(workerConfigurationService.isMemberOf("other"));
+    }
+
+    @Test
+    public void testIncompleteFullRefreshIsRepeated() {
+        when(mergedConfigurationService.fetchMergedConfiguration(anyString(), eq(-1L)))
+                .thenReturn(configuration(false, -1, Collections.singletonList(1L), null, null, null));
+        workerConfigurationService.refresh();
+        workerConfigurationService.refresh();
+
+        verify(mergedConfigurationService, org.mockito.Mockito.times(2)).fetchMergedConfiguration(anyString(), eq(-1L));
+        assertTrue(workerConfigurationService.isExecutionCancelled(1L));
+    }
+
+    @Test
+    public void testCompletePausedBranchesReplaceTheCurrentOnes() {
+        when(mergedConfigurationService.fetchMergedConfiguration(anyString(), eq(-1L)))
+                .thenReturn(configuration(false, 10, null, Collections.singleton("5:null"), null, null));
+        workerConfigurationService.refresh();
+        assertTrue(workerConfigurationService.isExecutionPaused(5L, null));
+
+        MergedConfigurationDataContainer changes = configuration(true, 11, null, Collections.singleton("6:b"), null, null);
+        changes.setPausedExecutionsComplete(true);
+        when(mergedConfigurationService.fetchMergedConfiguration(anyString(), eq(10L))).thenReturn(changes);
+        workerConfigurationService.refresh();
+
+        assertFalse(workerConfigurationService.isExecutionPaused(5L, null));
+        assertTrue(workerConfigurationService.isExecutionPaused(6L, "b"));
+    }
+
+    private static MergedConfigurationDataContainer configuration(boolean changesOnly, long version, List<Long> cancelled,
+                                                                  Set<String> paused, Set<String> resumed, List<String> groups) {
+        MergedConfigurationDataContainer configuration = new MergedConfigurationDataContainer();
+        configuration.setChangesOnly(changesOnly);
+        configuration.setVersion(version);
+        configuration.setCancelledExecutions(cancelled);
+        configuration.setPausedExecutions(paused);
+        configuration.setResumedExecutions(resumed);
+        configuration.setWorkerGroups(groups);
+        return configuration;
+    }
+
+    @Configuration
+    static class Configurator {
+
+        @Bean
+        WorkerConfigurationServiceImpl workerConfigurationService() {
+            return new WorkerConfigurationServiceImpl();
+        }
+
+        @Bean
+        MergedConfigurationService mergedConfigurationService() {
+            return mock(MergedConfigurationService.class);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class WorkerConfigurationSnapshotTest {
+
+    @Test
+    public void testCancelledAndPausedExecutions() {
+        List<Long> cancelled = new ArrayList<>();
+        Set<String> paused = new HashSet<>();
+        for (long executionId = 1000; executionId < 2000; executionId += 2) {
+            cancelled.add(executionId);
+            paused.add((executionId + 1) + ":null");
+            paused.add((executionId + 1) + ":branch" + executionId);
+        }
+        WorkerConfigurationSnapshot snapshot = WorkerConfigurationSnapshot.EMPTY
+                .with(LongHashSet.of(cancelled), PausedExecutionIndex.of(paused), null);
+
+        for (long executionId = 1000; executionId < 2000; executionId++) {
+            boolean even = executionId % 2 == 0;
+            assertEquals(even, snapshot.isExecutionCancelled(executionId));
+            assertEquals(!even, snapshot.isExecutionPaused(executionId, null));
+            assertEquals(!even, snapshot.isExecutionPaused(executionId, "branch" + (executionId - 1)));
+            assertFalse(snapshot.isExecutionPaused(executionId, "branch" + executionId));
+        }
+        assertFalse(snapshot.isExecutionCancelled(3000));
+        assertFalse(snapshot.isExecutionPaused(3001, null));
+    }
+
+    @Test
+    public void testPausedKeysAsSentByTheEngine() {
+        PausedExecutionIndex paused = PausedExecutionIndex.of(new HashSet<>(Arrays.asList("5:null", "6:a:b", "x:null", "7")));
+        WorkerConfigurationSnapshot snapshot = WorkerConfigurationSnapshot.EMPTY.with(LongHashSet.EMPTY, paused, null);
+
+        // String.valueOf of a null branch
+        assertTrue(snapshot.isExecutionPaused(5, null));
+        assertTrue(snapshot.isExecutionPaused(5, "null"));
+        assertFalse(snapshot.isExecutionPaused(5, ""));
+        // the branch id is what follows the first colon
+        assertTrue(snapshot.isExecutionPaused(6, "a:b"));
+        assertFalse(snapshot.isExecutionPaused(7, null));
+        assertEquals(4, paused.size());
+    }
+
+    @Test
+    public void testPausedAndResumed() {
+        PausedExecutionIndex paused = PausedExecutionIndex.of(Collections.singleton("1:null"));
+
+        assertSame(paused, paused.with(Collections.singleton("1:null"), Collections.singleton("2:null")));
+        assertSame(paused, paused.with(null, null));
+        assertSame(PausedExecutionIndex.EMPTY, paused.with(null, Collections.singleton("1:null")));
+
+        PausedExecutionIndex changed = paused.with(Collections.singleton("2:b"), Collections.singleton("1:null"));
+        assertFalse(changed.contains(1, null));
+        assertTrue(changed.contains(2, "b"));
+        assertTrue(paused.contains(1, null));
+    }
+
+    @Test
+    public void testUnchangedPartsAreKept() {
+        LongHashSet cancelled = LongHashSet.of(Collections.singletonList(1L));
+        List<String> groups = Collections.singletonList("group");
+        WorkerConfigurationSnapshot snapshot = WorkerConfigurationSnapshot.EMPTY.with(cancelled, PausedExecutionIndex.EMPTY, groups);
+
+        assertSame(snapshot, snapshot.with(cancelled, PausedExecutionIndex.EMPTY, groups));
+
+        WorkerConfigurationSnapshot withOtherGroups = snapshot.with(cancelled, PausedExecutionIndex.EMPTY, Collections.singletonList("other"));
+        assertNotSame(snapshot, withOtherGroups);
+        assertTrue(withOtherGroups.isExecutionCancelled(1));
+        assertTrue(withOtherGroups.isMemberOf("other"));
+        assertFalse(withOtherGroups.isMemberOf("group"));
+        assertFalse(WorkerConfigurationSnapshot.EMPTY.isMemberOf("group"));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management.monitor;
+
+import io.cloudslang.score.api.ControlActionMetadata;
+import io.cloudslang.worker.management.services.WorkerMonitorInfoEnum;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WorkerLatencyMonitorImplTest {
+
+    private WorkerLatencyMonitorImpl latencyMonitor = new WorkerLatencyMonitorImpl();
+
+    @Test
+    public void testMonitorInfo() {
+        for (int i = 0; i < 100; i++) {
+            latencyMonitor.record(WorkerLatency.IN_BUFFER_WAIT, TimeUnit.MILLISECONDS.toNanos(2));
+        }
+        latencyMonitor.recordStep(new ControlActionMetadata("Action", "run"), TimeUnit.MICROSECONDS.toNanos(40));
+
+        Map<WorkerMonitorInfoEnum, Serializable> monitorInfo = new HashMap<>();
+        latencyMonitor.captureMonitorInfo(monitorInfo);
+
+        assertWithin(2000, (Long) monitorInfo.get(WorkerMonitorInfoEnum.INBUFFER_WAIT_P50_MICROS));
+        assertWithin(2000, (Long) monitorInfo.get(WorkerMonitorInfoEnum.INBUFFER_WAIT_P99_MICROS));
+        assertWithin(40, (Long) monitorInfo.get(WorkerMonitorInfoEnum.STEP_EXECUTION_P90_MICROS));
+        assertEquals(0L, monitorInfo.get(WorkerMonitorInfoEnum.NAVIGATION_P50_MICROS));
+        assertEquals(0L, monitorInfo.get(WorkerMonitorInfoEnum.OUTBUFFER_DRAIN_LATENCY_P99_MICROS));
+        Map<?, ?> perAction = (Map<?, ?>) monitorInfo.get(WorkerMonitorInfoEnum.STEP_EXECUTION_PER_ACTION);
+        assertEquals(1, perAction.size());
+        assertTrue(((String) perAction.get("Action.run")).startsWith("count=1,"));
+
+        // the monitor info starts over
+        monitorInfo.clear();
+        latencyMonitor.captureMonitorInfo(monitorInfo);
+        assertEquals(0L, monitorInfo.get(WorkerMonitorInfoEnum.INBUFFER_WAIT_P50_MICROS));
+        assertTrue(((Map<?, ?>) monitorInfo.get(WorkerMonitorInfoEnum.STEP_EXECUTION_PER_ACTION)).isEmpty());
+    }
+
+    @Test
+    public void testStepsOfTheSameAction() {
+        ControlActionMetadata action = new ControlActionMetadata("Action", "run");
+        latencyMonitor.recordStep(action, 1000);
+        latencyMonitor.recordStep(new ControlActionMetadata("Action", "run"), 1000);
+        // changing the action of a step does not change the recorded one
+        action.setMethodName("other");
+        latencyMonitor.recordStep(null, 1000);
+
+        Map<String, String> latencies = latencyMonitor.getLatencies();
+        assertTrue(latencies.get("STEP_EXECUTION").startsWith("count=3,"));
+        assertTrue(latencies.get("STEP_EXECUTION Action.run").startsWith("count=2,"));
+        assertEquals(WorkerLatency.values().length + 1, latencies.size());
+        // reading the latencies does not reset them
+        assertEquals(latencies, latencyMonitor.getLatencies());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual, Math.abs(expected - actual) <= expected / 8);
+    }
+}
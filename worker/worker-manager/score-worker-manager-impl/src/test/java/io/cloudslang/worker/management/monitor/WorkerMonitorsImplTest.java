@@ -116,6 +116,7 @@ public class WorkerMonitorsImplTest {
         @Bean public String workerUuid() {return "1";}
 
         @Bean public WorkerMonitor workerMonitor() {return mock(WorkerMonitor.class);}
+        @Bean public WorkerLatencyMonitor workerLatencyMonitor() {return mock(WorkerLatencyMonitor.class);}
         @Bean public InBuffer inBuffer() {return mock(InBuffer.class);}
         @Bean public QueueDispatcherService queueDispatcherService() {return mock(QueueDispatcherService.class);}
         @Bean public Integer inBufferCapacity() {return 1;}
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2014-2017 EntIT Software LLC, a Micro Focus company (L.P.)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudslang.worker.management.services;
+
+import io.cloudslang.engine.queue.entities.ExecStatus;
+import io.cloudslang.engine.queue.entities.ExecutionMessage;
+import io.cloudslang.orchestrator.entities.Message;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class MessageCoalescerTest {
+
+    @Test
+    public void testDistinctMessagesAreKept() {
+        List<Message> messages = Arrays.<Message>asList(message("1", 1, ExecStatus.FINISHED), message("2", 2, ExecStatus.FINISHED));
+        assertSame(messages, MessageCoalescer.coalesce(messages));
+        assertEquals(Collections.emptyList(), MessageCoalescer.coalesce(Collections.<Message>emptyList()));
+    }
+
+    @Test
+    public void testInProgressIsShrunk() {
+        ExecutionMessage inProgress = message("1", 1, ExecStatus.IN_PROGRESS);
+        ExecutionMessage finished = message("1", 1, ExecStatus.FINISHED);
+        ExecutionMessage persisted = message("1", 2, ExecStatus.FINISHED);
+        persisted.setStepPersist(true);
+        ExecutionMessage notPersisted = message("1", 3, ExecStatus.FINISHED);
+        ExecutionMessage last = message("1", 4, ExecStatus.PENDING);
+        ExecutionMessage other = message("2", 5, ExecStatus.FINISHED);
+
+        List<Message> result = MessageCoalescer.coalesce(Arrays.<Message>asList(inProgress, other, finished, persisted, notPersisted, last));
+
+        assertEquals(Arrays.<Message>asList(finished, persisted, last, other), result);
+    }
+
+    @Test
+    public void testFirstIsKeptWhenNotInProgress() {
+        ExecutionMessage first = message("1", 1, ExecStatus.FINISHED);
+        ExecutionMessage second = message("1", 2, ExecStatus.FINISHED);
+        second.setStepPersist(true);
+        ExecutionMessage third = message("1", 3, ExecStatus.FINISHED);
+        ExecutionMessage last = message("1", 4, ExecStatus.PENDING);
+
+        List<Message> result = MessageCoalescer.coalesce(Arrays.<Message>asList(first, second, third, last));
+
+        assertEquals(Arrays.<Message>asList(first, second, last), result);
+    }
+
+    @Test
+    public void testManyGroups() {
+        List<Message> messages = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (int id = 0; id < 1000; id++) {
+                messages.add(message(String.valueOf(id), round * 1000 + id, round == 0 ? ExecStatus.IN_PROGRESS : ExecStatus.FINISHED));
+            }
+        }
+        messages.add(message(null, -1, ExecStatus.FINISHED));
+        messages.add(message(null, -2, ExecStatus.FINISHED));
+
+        List<Message> result = MessageCoalescer.coalesce(messages);
+
+        // every group of 3 keeps its last 2 messages, the 2 messages without id are a group too
+        assertEquals(2002, result.size());
+        for (int id = 0; id < 1000; id++) {
+            assertSame(messages.get(1000 + id), result.get(id * 2));
+            assertSame(messages.get(2000 + id), result.get(id * 2 + 1));
+        }
+        assertSame(messages.get(3000), result.get(2000));
+        assertSame(messages.get(3001), result.get(2001));
+    }
+
+    private static ExecutionMessage message(String id, long execStateId, ExecStatus status) {
+        ExecutionMessage message = new ExecutionMessage();
+        message.setExecStateId(execStateId);
+        message.setStatus(status);
+        message.setWorkerKey(id);
+        return message;
+    }
+}
@@ -16,8 +16,10 @@
 
 package io.cloudslang.worker.management.services;
 
+import io.cloudslang.engine.queue.entities.ExecutionMessage;
 import io.cloudslang.orchestrator.entities.Message;
 import io.cloudslang.orchestrator.services.OrchestratorDispatcherService;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitor;
 import junit.framework.Assert;
 import org.apache.log4j.Logger;
 import org.junit.Before;
@@ -36,14 +38,19 @@ import static org.mockito.Matchers.argThat;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyList;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 
@@ -260,6 +267,176 @@ public class OutboundBufferTest {
         Assert.assertEquals(0,buffer.getWeight());
     }
 
+    /**
+     * Makes sure messages put before the recovery are not drained and a blocked producer is released by the recovery
+     */
+    @Test
+    public void testRecoveryDropsMessagesAndReleasesProducers() throws InterruptedException {
+        while (buffer.getWeight() < MAX_BUFFER_WEIGHT) {
+            buffer.put(new DummyMsg1());
+        }
+
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    buffer.put(new DummyMsg2());
+                } catch (InterruptedException e) {
+                    //ignore
+                }
+            }
+        });
+        thread.start();
+        waitForThreadStateToBe(thread, Thread.State.WAITING);
+        Assert.assertEquals("inserting thread should be in a waiting state when inserting to full buffer", Thread.State.WAITING, thread.getState());
+
+        ((WorkerRecoveryListener)buffer).doRecovery();
+        thread.join(5000);
+        Assert.assertEquals("inserting thread should be released by the recovery", Thread.State.TERMINATED, thread.getState());
+        Assert.assertEquals(1, buffer.getSize());
+        Assert.assertEquals(2, buffer.getWeight());
+
+        buffer.drain();
+        verify(dispatcherService).dispatch((List<? extends Serializable>) argThat(new MessagesSizeMatcher(Arrays.asList(new DummyMsg2()))), anyString(), anyString(), anyString());
+        Assert.assertEquals(0, buffer.getSize());
+        Assert.assertEquals(0, buffer.getWeight());
+    }
+
+    /**
+     * Makes sure recoveries that run while messages are put and drained do not leave weight in the buffer,
+     * so the producers are not blocked once the recoveries stop
+     */
+    @Test
+    public void testRecoveryWhilePuttingAndDraining() throws InterruptedException {
+        final AtomicBoolean produce = new AtomicBoolean(true);
+        final AtomicBoolean recover = new AtomicBoolean(true);
+        final AtomicBoolean drain = new AtomicBoolean(true);
+
+        Thread[] producers = new Thread[3];
+        for (int i = 0; i < producers.length; i++) {
+            producers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (produce.get()) {
+                            buffer.put(new DummyMsg1());
+                        }
+                    } catch (InterruptedException e) {
+                        //ignore
+                    }
+                }
+            });
+            producers[i].start();
+        }
+        Thread recovery = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (recover.get()) {
+                    ((WorkerRecoveryListener)buffer).doRecovery();
+                    Thread.yield();
+                }
+            }
+        });
+        recovery.start();
+        Thread drainer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (drain.get()) {
+                    buffer.drain();
+                }
+            }
+        });
+        drainer.start();
+
+        Thread.sleep(1000);
+        recover.set(false);
+        recovery.join();
+        // the drainer still runs, a producer blocked on weight that is never drained would not end
+        produce.set(false);
+        for (Thread producer : producers) {
+            producer.join(5000);
+            Assert.assertEquals("producers should not be blocked after the recoveries", Thread.State.TERMINATED, producer.getState());
+        }
+        drain.set(false);
+        buffer.put(new DummyMsg1());
+        drainer.join(5000);
+        Assert.assertEquals(Thread.State.TERMINATED, drainer.getState());
+
+        while (buffer.getSize() > 0) {
+            buffer.drain();
+        }
+        Assert.assertEquals(0, buffer.getWeight());
+
+        // a message put after the recoveries is drained
+        reset(dispatcherService);
+        buffer.put(new DummyMsg2());
+        buffer.drain();
+        verify(dispatcherService).dispatch((List<? extends Serializable>) argThat(new MessagesSizeMatcher(Arrays.asList(new DummyMsg2()))), anyString(), anyString(), anyString());
+        Assert.assertEquals(0, buffer.getWeight());
+    }
+
+    /**
+     * Makes sure the adaptive drain runs on its own thread, and sends a bulk that is not full once its oldest message waited the max latency
+     */
+    @Test(timeout = 5000)
+    public void testAdaptiveDrain() throws InterruptedException {
+        ((OutboundBufferImpl)buffer).setAdaptiveDrain(true);
+        try {
+            // the scheduled drain returns at once and does not hold a scheduler thread
+            buffer.drain();
+            buffer.put(new DummyMsg1());
+            verify(dispatcherService, timeout(1000)).dispatch((List<? extends Serializable>) argThat(new MessagesSizeMatcher(Arrays.asList(new DummyMsg1()))), anyString(), anyString(), anyString());
+
+            buffer.put(new DummyMsg1(), new DummyMsg2());
+            verify(dispatcherService, timeout(1000)).dispatch((List<? extends Serializable>) argThat(new MessagesSizeMatcher(Arrays.asList(new DummyMsg1(), new DummyMsg2()))), anyString(), anyString(), anyString());
+            Assert.assertEquals(0, buffer.getSize());
+        } finally {
+            ((OutboundBufferImpl)buffer).setAdaptiveDrain(false);
+        }
+    }
+
+    /**
+     * Makes sure the messages of an execution are dispatched through the same shard
+     */
+    @Test
+    public void testShardedDispatch() throws InterruptedException {
+        final Map<String, Integer> shardOfExecution = new ConcurrentHashMap<>();
+        final AtomicBoolean sameShard = new AtomicBoolean(true);
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                List<?> messages = (List<?>) invocation.getArguments()[0];
+                Integer shard = (Integer) invocation.getArguments()[4];
+                for (Object message : messages) {
+                    Integer previous = shardOfExecution.put(((ExecutionMessage) message).getMsgId(), shard);
+                    if (previous != null && !previous.equals(shard)) {
+                        sameShard.set(false);
+                    }
+                }
+                return null;
+            }
+        }).when(dispatcherService).dispatch(anyList(), anyString(), anyString(), anyString(), anyInt());
+
+        ((OutboundBufferImpl)buffer).setDispatchShards(4);
+        try {
+            for (int round = 0; round < 3; round++) {
+                for (int execution = 0; execution < 8; execution++) {
+                    ExecutionMessage message = new ExecutionMessage();
+                    message.setMsgId(String.valueOf(execution));
+                    message.setWorkerKey(String.valueOf(execution));
+                    buffer.put(message);
+                }
+                buffer.drain();
+            }
+        } finally {
+            ((OutboundBufferImpl)buffer).setDispatchShards(1);
+        }
+
+        Assert.assertEquals(8, shardOfExecution.size());
+        Assert.assertTrue("the messages of an execution should be dispatched through one shard", sameShard.get());
+        verify(dispatcherService, never()).dispatch(anyList(), anyString(), anyString(), anyString());
+    }
+
     private class MessagesSizeMatcher extends ArgumentMatcher{
         List messages;
 
@@ -341,6 +518,11 @@ public class OutboundBufferTest {
 			return mock(OrchestratorDispatcherService.class);
 		}
 
+		@Bean
+		WorkerLatencyMonitor workerLatencyMonitor(){
+			return mock(WorkerLatencyMonitor.class);
+		}
+
         @Bean
         SynchronizationManager synchronizationManager(){
             return new SynchronizationManagerImpl();
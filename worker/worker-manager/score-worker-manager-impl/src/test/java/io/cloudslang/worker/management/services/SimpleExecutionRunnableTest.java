@@ -30,6 +30,7 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import io.cloudslang.worker.management.WorkerConfigurationService;
+import io.cloudslang.worker.management.monitor.WorkerLatencyMonitor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
@@ -88,6 +89,9 @@ public class SimpleExecutionRunnableTest {
     @Mock
     private WorkerManager workerManager;
 
+    @Mock
+    private WorkerLatencyMonitor latencyMonitor;
+
     @Before
     public void setUp() {
         MockitoAnnotations.initMocks(this);
@@ -100,7 +104,7 @@ public class SimpleExecutionRunnableTest {
     @Test
     public void testGetExecutionMessage() throws Exception {
         SimpleExecutionRunnable simpleExecutionRunnable = new SimpleExecutionRunnable(executionService, outBuffer,
-                inBuffer, converter, endExecutionCallback, queueStateIdGenerator, "stam",workerConfigurationService, workerManager);
+                inBuffer, converter, endExecutionCallback, queueStateIdGenerator, "stam",workerConfigurationService, workerManager, latencyMonitor);
         ExecutionMessage executionMessage = simpleExecutionRunnable.getExecutionMessage();
         Assert.assertNull(executionMessage);
 
@@ -130,7 +134,7 @@ public class SimpleExecutionRunnableTest {
         when(workerManager.isFromCurrentThreadPool(anyString())).thenReturn(true);
 
         SimpleExecutionRunnable simpleExecutionRunnable = new SimpleExecutionRunnable(executionService, outBuffer,
-                inBuffer, converter, endExecutionCallback, queueStateIdGenerator, "stam",workerConfigurationService, workerManager);
+                inBuffer, converter, endExecutionCallback, queueStateIdGenerator, "stam",workerConfigurationService, workerManager, latencyMonitor);
 
         simpleExecutionRunnable.setExecutionMessage(new ExecutionMessage());
         simpleExecutionRunnable.run();
@@ -142,4 +146,19 @@ public class SimpleExecutionRunnableTest {
         Assert.assertEquals(ExecStatus.FINISHED, buffer.get(0).getStatus());
         Assert.assertEquals(0, executionMessage.getMsgSeqId());
     }
+
+    @Test
+    public void testRunWithoutLatencyMonitor() throws Exception {
+        Execution execution = new Execution();
+        when(converter.extractExecution(any(Payload.class))).thenReturn(execution);
+        when(workerManager.isFromCurrentThreadPool(anyString())).thenReturn(true);
+
+        SimpleExecutionRunnable simpleExecutionRunnable = new SimpleExecutionRunnable(executionService, outBuffer,
+                inBuffer, converter, endExecutionCallback, queueStateIdGenerator, "stam",workerConfigurationService, workerManager, null);
+
+        simpleExecutionRunnable.setExecutionMessage(new ExecutionMessage());
+        simpleExecutionRunnable.run();
+        verify(executionService, times(1)).execute(execution);
+        verify(outBuffer).put(any(ExecutionMessage[].class));
+    }
 }
@@ -182,6 +182,20 @@ public class WorkerManagerTest {
 		assertThat(workerManager.isUp()).isFalse();
 	}
 
+	@Test
+	public void testExecutionConcurrency() {
+		assertThat(WorkerManager.getExecutionConcurrency(20)).isEqualTo(20);
+		System.setProperty(WorkerManager.VIRTUAL_THREADS, "true");
+		try {
+			assertThat(WorkerManager.getExecutionConcurrency(20)).isEqualTo(200);
+			System.setProperty(WorkerManager.MAX_CONCURRENCY, "500");
+			assertThat(WorkerManager.getExecutionConcurrency(20)).isEqualTo(500);
+		} finally {
+			System.clearProperty(WorkerManager.VIRTUAL_THREADS);
+			System.clearProperty(WorkerManager.MAX_CONCURRENCY);
+		}
+	}
+
 	@Configuration
 	static class Configurator {
 
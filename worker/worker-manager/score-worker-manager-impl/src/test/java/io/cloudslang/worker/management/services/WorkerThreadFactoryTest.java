@@ -23,6 +23,9 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * User: wahnonm
@@ -72,4 +75,30 @@ public class WorkerThreadFactoryTest {
         Assert.assertEquals(2,endedThreads.size());
         Assert.assertEquals(3,endedThreads.get(0)+endedThreads.get(1));
     }
+
+    @Test
+    public void testPlatformThreadNames() {
+        WorkerThreadFactory factory = new WorkerThreadFactory("1_WorkerExecutionThread", false);
+        Assert.assertEquals("1_WorkerExecutionThread-0", factory.newThread(new simpleCmd(1L)).getName());
+        Assert.assertEquals("1_WorkerExecutionThread-1", factory.newThread(new simpleCmd(2L)).getName());
+    }
+
+    @Test
+    public void testVirtualThreadNames() throws InterruptedException {
+        WorkerThreadFactory factory = new WorkerThreadFactory("2_WorkerExecutionThread", true);
+        final AtomicReference<String> name = new AtomicReference<>();
+        final CountDownLatch ran = new CountDownLatch(1);
+        Thread thread = factory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                name.set(Thread.currentThread().getName());
+                ran.countDown();
+            }
+        });
+        thread.start();
+
+        Assert.assertTrue(ran.await(1, TimeUnit.SECONDS));
+        // platform threads when the JVM has no virtual threads, the same names either way
+        Assert.assertEquals("2_WorkerExecutionThread-0", name.get());
+    }
 }